@@ -5,9 +5,11 @@ import com.dabsquared.gitlabjenkins.connection.GitLabConnection;
 import com.dabsquared.gitlabjenkins.connection.GitLabConnectionConfig;
 import com.dabsquared.gitlabjenkins.connection.GitLabConnectionProperty;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestObjectAttributes;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.NoteHook;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.PipelineHook;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.PushHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.State;
 import com.dabsquared.gitlabjenkins.publisher.GitLabAcceptMergeRequestPublisher;
 import com.dabsquared.gitlabjenkins.publisher.GitLabCommitStatusPublisher;
 import com.dabsquared.gitlabjenkins.publisher.GitLabMessagePublisher;
@@ -20,6 +22,10 @@ import com.dabsquared.gitlabjenkins.trigger.filter.BranchFilterType;
 import com.dabsquared.gitlabjenkins.trigger.filter.MergeRequestLabelFilter;
 import com.dabsquared.gitlabjenkins.trigger.filter.MergeRequestLabelFilterConfig;
 import com.dabsquared.gitlabjenkins.trigger.filter.MergeRequestLabelFilterFactory;
+import com.dabsquared.gitlabjenkins.trigger.filter.PathFilter;
+import com.dabsquared.gitlabjenkins.trigger.filter.PathFilterConfig;
+import com.dabsquared.gitlabjenkins.trigger.filter.PathFilterFactory;
+import com.dabsquared.gitlabjenkins.trigger.handler.SupersededBuildCanceller;
 import com.dabsquared.gitlabjenkins.trigger.handler.merge.MergeRequestHookTriggerHandler;
 import com.dabsquared.gitlabjenkins.trigger.handler.note.NoteHookTriggerHandler;
 import com.dabsquared.gitlabjenkins.trigger.handler.pipeline.PipelineHookTriggerHandler;
@@ -51,6 +57,7 @@ import org.jenkinsci.Symbol;
 import org.kohsuke.stapler.Ancestor;
 import org.kohsuke.stapler.AncestorInPath;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
 import org.kohsuke.stapler.Stapler;
 import org.kohsuke.stapler.StaplerRequest;
@@ -98,6 +105,10 @@ public class GitLabPushTrigger extends Trigger<Job<?, ?>> {
     private String targetBranchRegex;
     private final MergeRequestLabelFilterConfig mergeRequestLabelFilterConfig;
     private volatile Secret secretToken;
+    private int pushCoalescingWindow;
+    private PathFilterConfig pathFilterConfig;
+    private boolean cancelSupersededBuilds;
+    private boolean reuseVerifiedBuilds;
 
     private transient BranchFilter branchFilter;
     private transient PushHookTriggerHandler pushHookTriggerHandler;
@@ -260,6 +271,55 @@ public class GitLabPushTrigger extends Trigger<Job<?, ?>> {
         return secretToken == null ? null : secretToken.getPlainText();
     }
 
+    /**
+     * @return the time in seconds a push build waits in the queue for further pushes to the same branch, 0 if pushes are not coalesced
+     */
+    public int getPushCoalescingWindow() {
+        return pushCoalescingWindow;
+    }
+
+    @DataBoundSetter
+    public void setPushCoalescingWindow(int pushCoalescingWindow) {
+        this.pushCoalescingWindow = Math.max(0, pushCoalescingWindow);
+        initializeTriggerHandler();
+    }
+
+    public PathFilterConfig getPathFilterConfig() {
+        return pathFilterConfig;
+    }
+
+    @DataBoundSetter
+    public void setPathFilterConfig(PathFilterConfig pathFilterConfig) {
+        this.pathFilterConfig = pathFilterConfig;
+        initializeTriggerHandler();
+    }
+
+    /**
+     * @return {@code true} if a web hook build removes the queued and aborts the running builds of the same merge request or branch
+     */
+    public boolean isCancelSupersededBuilds() {
+        return cancelSupersededBuilds;
+    }
+
+    @DataBoundSetter
+    public void setCancelSupersededBuilds(boolean cancelSupersededBuilds) {
+        this.cancelSupersededBuilds = cancelSupersededBuilds;
+        initializeTriggerHandler();
+    }
+
+    /**
+     * @return {@code true} if a push of a commit that the job has already built successfully reuses the result of that build
+     */
+    public boolean isReuseVerifiedBuilds() {
+        return reuseVerifiedBuilds;
+    }
+
+    @DataBoundSetter
+    public void setReuseVerifiedBuilds(boolean reuseVerifiedBuilds) {
+        this.reuseVerifiedBuilds = reuseVerifiedBuilds;
+        initializeTriggerHandler();
+    }
+
     // executes when the Trigger receives a push request
     public void onPost(final PushHook hook) {
         pushHookTriggerHandler.handle(job, hook, ciSkip, branchFilter, mergeRequestLabelFilter);
@@ -267,6 +327,12 @@ public class GitLabPushTrigger extends Trigger<Job<?, ?>> {
 
     // executes when the Trigger receives a merge request
     public void onPost(final MergeRequestHook hook) {
+        MergeRequestObjectAttributes objectAttributes = hook.getObjectAttributes();
+        if (objectAttributes != null && (objectAttributes.getState() == State.closed || objectAttributes.getState() == State.merged)) {
+            // the builds of a closed merge request are useless, whether or not the job is triggered by the event
+            SupersededBuildCanceller.cancelMergeRequestBuilds(job, objectAttributes.getTargetProjectId(), objectAttributes.getIid(),
+                                                              objectAttributes.getState());
+        }
         mergeRequestHookTriggerHandler.handle(job, hook, ciSkip, branchFilter, mergeRequestLabelFilter);
     }
 
@@ -281,11 +347,14 @@ public class GitLabPushTrigger extends Trigger<Job<?, ?>> {
     }
 
     private void initializeTriggerHandler() {
+        PathFilter pathFilter = PathFilterFactory.newPathFilter(pathFilterConfig);
 		mergeRequestHookTriggerHandler = newMergeRequestHookTriggerHandler(triggerOnMergeRequest,
 				triggerOnAcceptedMergeRequest, triggerOnClosedMergeRequest, triggerOpenMergeRequestOnPush,
-				skipWorkInProgressMergeRequest);
+				skipWorkInProgressMergeRequest, pathFilter, cancelSupersededBuilds);
         noteHookTriggerHandler = newNoteHookTriggerHandler(triggerOnNoteRequest, noteRegex);
-        pushHookTriggerHandler = newPushHookTriggerHandler(triggerOnPush, triggerOpenMergeRequestOnPush, skipWorkInProgressMergeRequest);
+        pushHookTriggerHandler = newPushHookTriggerHandler(triggerOnPush, triggerOpenMergeRequestOnPush, skipWorkInProgressMergeRequest,
+                                                           pushCoalescingWindow, pathFilter, cancelSupersededBuilds,
+                                                           reuseVerifiedBuilds);
         pipelineTriggerHandler = newPipelineHookTriggerHandler(triggerOnPipelineEvent);
     }
 
@@ -313,16 +382,19 @@ public class GitLabPushTrigger extends Trigger<Job<?, ?>> {
     }
 
     public static GitLabPushTrigger getFromJob(Job<?, ?> job) {
-        GitLabPushTrigger trigger = null;
+        if (job instanceof AbstractProject) {
+            // looks the trigger up without copying all triggers into a map
+            return ((AbstractProject<?, ?>) job).getTrigger(GitLabPushTrigger.class);
+        }
         if (job instanceof ParameterizedJobMixIn.ParameterizedJob) {
             ParameterizedJobMixIn.ParameterizedJob p = (ParameterizedJobMixIn.ParameterizedJob) job;
             for (Trigger t : p.getTriggers().values()) {
                 if (t instanceof GitLabPushTrigger) {
-                    trigger = (GitLabPushTrigger) t;
+                    return (GitLabPushTrigger) t;
                 }
             }
         }
-        return trigger;
+        return null;
     }
 
     @Extension
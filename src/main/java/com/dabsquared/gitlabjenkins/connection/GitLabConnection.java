@@ -22,6 +22,7 @@ import org.jenkinsci.plugins.plaincredentials.StringCredentials;
 import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.NoExternalUse;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -36,6 +37,8 @@ import static com.dabsquared.gitlabjenkins.gitlab.api.GitLabClientBuilder.getGit
  * @author Robin Müller
  */
 public class GitLabConnection {
+    public static final int DEFAULT_WEB_HOOK_DEDUPLICATION_TTL = 0;
+
     private final String name;
     private final String url;
     private transient String apiToken;
@@ -45,6 +48,7 @@ public class GitLabConnection {
     private final boolean ignoreCertificateErrors;
     private final Integer connectionTimeout;
     private final Integer readTimeout;
+    private Integer webHookDeduplicationTtl;
     private transient GitLabClient apiCache;
 
     public GitLabConnection(String name, String url, String apiTokenId, boolean ignoreCertificateErrors, Integer connectionTimeout, Integer readTimeout) {
@@ -111,6 +115,18 @@ public class GitLabConnection {
         return readTimeout;
     }
 
+    /**
+     * @return the time in seconds during which a web hook delivered again is ignored, {@code 0} disables the deduplication
+     */
+    public int getWebHookDeduplicationTtl() {
+        return webHookDeduplicationTtl == null ? DEFAULT_WEB_HOOK_DEDUPLICATION_TTL : webHookDeduplicationTtl;
+    }
+
+    @DataBoundSetter
+    public void setWebHookDeduplicationTtl(Integer webHookDeduplicationTtl) {
+        this.webHookDeduplicationTtl = webHookDeduplicationTtl;
+    }
+
     public GitLabClient getClient() {
         if (apiCache == null) {
             apiCache = clientBuilder.buildClient(url, getApiToken(apiTokenId), ignoreCertificateErrors, connectionTimeout, readTimeout);
@@ -136,14 +152,14 @@ public class GitLabConnection {
 
 
     protected GitLabConnection readResolve() {
+        GitLabConnection connection = this;
         if (connectionTimeout == null || readTimeout == null) {
-            return new GitLabConnection(name, url, apiTokenId, new AutodetectGitLabClientBuilder(), ignoreCertificateErrors, 10, 10);
-        }
-        if (clientBuilder == null) {
-            return new GitLabConnection(name, url, apiTokenId, new AutodetectGitLabClientBuilder(), ignoreCertificateErrors, connectionTimeout, readTimeout);
+            connection = new GitLabConnection(name, url, apiTokenId, new AutodetectGitLabClientBuilder(), ignoreCertificateErrors, 10, 10);
+        } else if (clientBuilder == null) {
+            connection = new GitLabConnection(name, url, apiTokenId, new AutodetectGitLabClientBuilder(), ignoreCertificateErrors, connectionTimeout, readTimeout);
         }
-
-        return this;
+        connection.webHookDeduplicationTtl = webHookDeduplicationTtl;
+        return connection;
     }
 
     @Initializer(after = InitMilestone.PLUGINS_STARTED)
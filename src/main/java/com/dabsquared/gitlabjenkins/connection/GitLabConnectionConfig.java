@@ -9,12 +9,19 @@ import com.cloudbees.plugins.credentials.common.StandardListBoxModel;
 import com.cloudbees.plugins.credentials.domains.URIRequirementBuilder;
 import com.dabsquared.gitlabjenkins.gitlab.api.GitLabClient;
 import com.dabsquared.gitlabjenkins.gitlab.api.GitLabClientBuilder;
+import com.dabsquared.gitlabjenkins.service.GitLabProjectBranchesService;
+import com.dabsquared.gitlabjenkins.service.GitLabProjectIdService;
+import com.dabsquared.gitlabjenkins.service.GitLabProjectLabelsService;
+import com.dabsquared.gitlabjenkins.webhook.journal.WebHookJournal;
+import com.dabsquared.gitlabjenkins.webhook.queue.WebHookQueue;
+import com.dabsquared.gitlabjenkins.webhook.ratelimit.WebHookRateLimiter;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
 import hudson.model.Item;
 import hudson.security.ACL;
 import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
+import hudson.util.Secret;
 import jenkins.model.GlobalConfiguration;
 import jenkins.model.Jenkins;
 import net.sf.json.JSONObject;
@@ -39,20 +46,47 @@ import static com.dabsquared.gitlabjenkins.gitlab.api.GitLabClientBuilder.getAll
 @Extension
 public class GitLabConnectionConfig extends GlobalConfiguration {
 
+    public static final int DEFAULT_MAX_WEB_HOOK_PAYLOAD_SIZE = 25;
+    public static final int DEFAULT_PROJECT_CACHE_TTL = 5;
+
     private Boolean useAuthenticatedEndpoint = true;
+    private boolean asyncWebHookProcessing = false;
+    private boolean webHookJournal = false;
+    private int webHookQueueCapacity = WebHookQueue.DEFAULT_CAPACITY;
+    private int webHookWorkerThreads = WebHookQueue.DEFAULT_WORKER_THREADS;
+    private int maxWebHookPayloadSize = DEFAULT_MAX_WEB_HOOK_PAYLOAD_SIZE;
+    private int projectCacheTtl = DEFAULT_PROJECT_CACHE_TTL;
+    private int projectWebHookRateLimit = 0;
+    private int jobWebHookRateLimit = 0;
+    private WebHookRateLimiter.Policy webHookRateLimitPolicy = WebHookRateLimiter.Policy.QUEUE;
+    private Secret systemHookSecretToken;
     private List<GitLabConnection> connections = new ArrayList<>();
     private transient Map<String, GitLabConnection> connectionMap = new HashMap<>();
 
     public GitLabConnectionConfig() {
         load();
         refreshConnectionMap();
+        refreshWebHookQueue();
+        refreshProjectCaches();
     }
 
     @Override
     public boolean configure(StaplerRequest req, JSONObject json) throws FormException {
         connections = req.bindJSONToList(GitLabConnection.class, json.get("connections"));
         useAuthenticatedEndpoint = json.getBoolean("useAuthenticatedEndpoint");
+        asyncWebHookProcessing = json.optBoolean("asyncWebHookProcessing", false);
+        webHookJournal = json.optBoolean("webHookJournal", false);
+        webHookQueueCapacity = json.optInt("webHookQueueCapacity", WebHookQueue.DEFAULT_CAPACITY);
+        webHookWorkerThreads = json.optInt("webHookWorkerThreads", WebHookQueue.DEFAULT_WORKER_THREADS);
+        maxWebHookPayloadSize = json.optInt("maxWebHookPayloadSize", DEFAULT_MAX_WEB_HOOK_PAYLOAD_SIZE);
+        projectCacheTtl = json.optInt("projectCacheTtl", DEFAULT_PROJECT_CACHE_TTL);
+        projectWebHookRateLimit = json.optInt("projectWebHookRateLimit", 0);
+        jobWebHookRateLimit = json.optInt("jobWebHookRateLimit", 0);
+        webHookRateLimitPolicy = WebHookRateLimiter.Policy.of(json.optString("webHookRateLimitPolicy", null));
+        systemHookSecretToken = Secret.fromString(json.optString("systemHookSecretToken", null));
         refreshConnectionMap();
+        refreshWebHookQueue();
+        refreshProjectCaches();
         save();
         return super.configure(req, json);
     }
@@ -61,6 +95,70 @@ public class GitLabConnectionConfig extends GlobalConfiguration {
         return useAuthenticatedEndpoint;
     }
 
+    public boolean isAsyncWebHookProcessing() {
+        return asyncWebHookProcessing;
+    }
+
+    void setAsyncWebHookProcessing(boolean asyncWebHookProcessing) {
+        this.asyncWebHookProcessing = asyncWebHookProcessing;
+    }
+
+    public boolean isWebHookJournal() {
+        return webHookJournal;
+    }
+
+    public int getWebHookQueueCapacity() {
+        return webHookQueueCapacity;
+    }
+
+    public int getWebHookWorkerThreads() {
+        return webHookWorkerThreads;
+    }
+
+    /**
+     * @return the maximum size of a web hook request body in megabytes
+     */
+    public int getMaxWebHookPayloadSize() {
+        return maxWebHookPayloadSize > 0 ? maxWebHookPayloadSize : DEFAULT_MAX_WEB_HOOK_PAYLOAD_SIZE;
+    }
+
+    void setMaxWebHookPayloadSize(int maxWebHookPayloadSize) {
+        this.maxWebHookPayloadSize = maxWebHookPayloadSize;
+    }
+
+    /**
+     * @return how long the branches, labels and ids of GitLab projects are cached in seconds
+     */
+    public int getProjectCacheTtl() {
+        return projectCacheTtl > 0 ? projectCacheTtl : DEFAULT_PROJECT_CACHE_TTL;
+    }
+
+    /**
+     * @return the web hooks accepted per minute from one GitLab project, {@code 0} for no limit
+     */
+    public int getProjectWebHookRateLimit() {
+        return projectWebHookRateLimit;
+    }
+
+    /**
+     * @return the web hooks accepted per minute for one job, {@code 0} for no limit
+     */
+    public int getJobWebHookRateLimit() {
+        return jobWebHookRateLimit;
+    }
+
+    public WebHookRateLimiter.Policy getWebHookRateLimitPolicy() {
+        return webHookRateLimitPolicy;
+    }
+
+    public Secret getSystemHookSecretToken() {
+        return systemHookSecretToken;
+    }
+
+    void setSystemHookSecretToken(Secret systemHookSecretToken) {
+        this.systemHookSecretToken = systemHookSecretToken;
+    }
+
     void setUseAuthenticatedEndpoint(boolean useAuthenticatedEndpoint) {
         this.useAuthenticatedEndpoint = useAuthenticatedEndpoint;
     }
@@ -82,6 +180,10 @@ public class GitLabConnectionConfig extends GlobalConfiguration {
         }
     }
 
+    public GitLabConnection getConnection(String connectionName) {
+        return connectionMap.get(connectionName);
+    }
+
     public GitLabClient getClient(String connectionName) {
         if (!connectionMap.containsKey(connectionName)) {
             return null;
@@ -123,6 +225,54 @@ public class GitLabConnectionConfig extends GlobalConfiguration {
         }
     }
 
+    public FormValidation doCheckWebHookQueueCapacity(@QueryParameter Integer value) {
+        if (value == null || value <= 0) {
+            return FormValidation.error(Messages.webHookQueueCapacity_positive());
+        } else {
+            return FormValidation.ok();
+        }
+    }
+
+    public FormValidation doCheckWebHookWorkerThreads(@QueryParameter Integer value) {
+        if (value == null || value <= 0) {
+            return FormValidation.error(Messages.webHookWorkerThreads_positive());
+        } else {
+            return FormValidation.ok();
+        }
+    }
+
+    public FormValidation doCheckMaxWebHookPayloadSize(@QueryParameter Integer value) {
+        if (value == null || value <= 0) {
+            return FormValidation.error(Messages.maxWebHookPayloadSize_positive());
+        } else {
+            return FormValidation.ok();
+        }
+    }
+
+    public FormValidation doCheckProjectCacheTtl(@QueryParameter Integer value) {
+        if (value == null || value <= 0) {
+            return FormValidation.error(Messages.projectCacheTtl_positive());
+        } else {
+            return FormValidation.ok();
+        }
+    }
+
+    public FormValidation doCheckProjectWebHookRateLimit(@QueryParameter Integer value) {
+        return checkWebHookRateLimit(value);
+    }
+
+    public FormValidation doCheckJobWebHookRateLimit(@QueryParameter Integer value) {
+        return checkWebHookRateLimit(value);
+    }
+
+    public FormValidation doCheckWebHookDeduplicationTtl(@QueryParameter Integer value) {
+        if (value == null || value < 0) {
+            return FormValidation.error(Messages.webHookDeduplicationTtl_notNegative());
+        } else {
+            return FormValidation.ok();
+        }
+    }
+
     public FormValidation doCheckReadTimeout(@QueryParameter Integer value) {
         if (value == null) {
             return FormValidation.error(Messages.readTimeout_required());
@@ -170,6 +320,14 @@ public class GitLabConnectionConfig extends GlobalConfiguration {
         return new StandardListBoxModel();
     }
 
+    public ListBoxModel doFillWebHookRateLimitPolicyItems() {
+        ListBoxModel model = new ListBoxModel();
+        for (WebHookRateLimiter.Policy policy : WebHookRateLimiter.Policy.values()) {
+            model.add(new ListBoxModel.Option(policy.getDisplayName(), policy.name(), policy == webHookRateLimitPolicy));
+        }
+        return model;
+    }
+
     public ListBoxModel doFillClientBuilderIdItems() {
         ListBoxModel model = new ListBoxModel();
         for (GitLabClientBuilder builder : getAllGitLabClientBuilders()) {
@@ -179,6 +337,14 @@ public class GitLabConnectionConfig extends GlobalConfiguration {
         return model;
     }
 
+    private FormValidation checkWebHookRateLimit(Integer value) {
+        if (value == null || value < 0) {
+            return FormValidation.error(Messages.webHookRateLimit_notNegative());
+        } else {
+            return FormValidation.ok();
+        }
+    }
+
     private void refreshConnectionMap() {
         connectionMap.clear();
         for (GitLabConnection connection : connections) {
@@ -186,6 +352,19 @@ public class GitLabConnectionConfig extends GlobalConfiguration {
         }
     }
 
+    private void refreshWebHookQueue() {
+        WebHookQueue.instance().configure(webHookQueueCapacity, webHookWorkerThreads);
+        WebHookJournal.instance().setEnabled(webHookJournal);
+        WebHookRateLimiter.instance().configure(projectWebHookRateLimit, jobWebHookRateLimit, webHookRateLimitPolicy);
+    }
+
+    private void refreshProjectCaches() {
+        int ttl = getProjectCacheTtl();
+        GitLabProjectBranchesService.instance().setCacheTtl(ttl);
+        GitLabProjectLabelsService.instance().setCacheTtl(ttl);
+        GitLabProjectIdService.instance().setCacheTtl(ttl);
+    }
+
     private static class GitLabCredentialMatcher implements CredentialsMatcher {
         @Override
         public boolean matches(@NonNull Credentials credentials) {
@@ -2,6 +2,7 @@ package com.dabsquared.gitlabjenkins.gitlab.api;
 
 import com.dabsquared.gitlabjenkins.gitlab.api.model.*;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.State;
+import java.util.Date;
 import java.util.List;
 
 public interface GitLabClient {
@@ -31,6 +32,26 @@ public interface GitLabClient {
 
     List<MergeRequest> getMergeRequests(String projectId, State state, int page, int perPage);
 
+    /**
+     * Lists the merge requests of a project. Filters that are {@code null} are not sent, GitLab versions that do not
+     * know a filter ignore it, so callers must not rely on the filters being applied.
+     *
+     * @param labels the labels all merge requests must have
+     * @param updatedAfter only merge requests that have been updated after this time
+     */
+    List<MergeRequest> getMergeRequests(String projectId, State state, String targetBranch, String sourceBranch, List<String> labels,
+                                        Date updatedAfter, MergeRequestOrder orderBy, int page, int perPage);
+
+    /**
+     * @return the diffs between the two commits, GitLab stops listing them after a time limit
+     */
+    Comparison compare(String projectId, String from, String to);
+
+    /**
+     * @return the files changed by the merge request, GitLab stops listing them after a size limit
+     */
+    MergeRequestChanges getMergeRequestChanges(MergeRequest mr);
+
     List<Branch> getBranches(String projectId);
 
     Branch getBranch(String projectId, String branch);
@@ -7,6 +7,7 @@ import com.dabsquared.gitlabjenkins.gitlab.api.model.*;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.State;
 
 import javax.ws.rs.NotFoundException;
+import java.util.Date;
 import java.util.List;
 import java.util.NoSuchElementException;
 
@@ -166,12 +167,41 @@ final class AutodetectingGitLabClient implements GitLabClient {
     }
 
     @Override
-    public List<MergeRequest> getMergeRequests(final String projectId, final State state, final int page, final int perPage) {
+    public List<MergeRequest> getMergeRequests(String projectId, State state, int page, int perPage) {
+        return getMergeRequests(projectId, state, null, null, null, null, null, page, perPage);
+    }
+
+    @Override
+    public List<MergeRequest> getMergeRequests(final String projectId, final State state, final String targetBranch, final String sourceBranch,
+                                               final List<String> labels, final Date updatedAfter, final MergeRequestOrder orderBy,
+                                               final int page, final int perPage) {
         return execute(
             new GitLabOperation<List<MergeRequest>>() {
                 @Override
                 List<MergeRequest> execute(GitLabClient client) {
-                    return client.getMergeRequests(projectId, state, page, perPage);
+                    return client.getMergeRequests(projectId, state, targetBranch, sourceBranch, labels, updatedAfter, orderBy, page, perPage);
+                }
+            });
+    }
+
+    @Override
+    public Comparison compare(final String projectId, final String from, final String to) {
+        return execute(
+            new GitLabOperation<Comparison>() {
+                @Override
+                Comparison execute(GitLabClient client) {
+                    return client.compare(projectId, from, to);
+                }
+            });
+    }
+
+    @Override
+    public MergeRequestChanges getMergeRequestChanges(final MergeRequest mr) {
+        return execute(
+            new GitLabOperation<MergeRequestChanges>() {
+                @Override
+                MergeRequestChanges execute(GitLabClient client) {
+                    return client.getMergeRequestChanges(mr);
                 }
             });
     }
@@ -30,7 +30,12 @@ interface GitLabApiProxy {
 
     void createMergeRequestNote(Integer projectId, Integer mergeRequestId, String body);
 
-    List<MergeRequest> getMergeRequests(String projectId, State state, int page, int perPage);
+    List<MergeRequest> getMergeRequests(String projectId, State state, String targetBranch, String sourceBranch, String labels,
+                                        String updatedAfter, MergeRequestOrder orderBy, int page, int perPage);
+
+    Comparison compare(String projectId, String from, String to);
+
+    MergeRequestChanges getMergeRequestChanges(Integer projectId, Integer mergeRequestId);
 
     List<Branch> getBranches(String projectId);
 
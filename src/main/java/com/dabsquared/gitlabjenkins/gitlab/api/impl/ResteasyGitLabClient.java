@@ -5,8 +5,13 @@ import com.dabsquared.gitlabjenkins.gitlab.api.GitLabClient;
 import com.dabsquared.gitlabjenkins.gitlab.api.model.*;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.State;
 import com.google.common.base.Function;
+import com.google.common.base.Joiner;
 
+import java.text.SimpleDateFormat;
+import java.util.Date;
 import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
 
 
 final class ResteasyGitLabClient implements GitLabClient {
@@ -82,7 +87,24 @@ final class ResteasyGitLabClient implements GitLabClient {
 
     @Override
     public List<MergeRequest> getMergeRequests(String projectId, State state, int page, int perPage) {
-        return api.getMergeRequests(projectId, state, page, perPage);
+        return getMergeRequests(projectId, state, null, null, null, null, null, page, perPage);
+    }
+
+    @Override
+    public List<MergeRequest> getMergeRequests(String projectId, State state, String targetBranch, String sourceBranch, List<String> labels,
+                                               Date updatedAfter, MergeRequestOrder orderBy, int page, int perPage) {
+        return api.getMergeRequests(projectId, state, targetBranch, sourceBranch, labels == null ? null : Joiner.on(',').join(labels),
+                                    updatedAfter == null ? null : formatDate(updatedAfter), orderBy, page, perPage);
+    }
+
+    @Override
+    public Comparison compare(String projectId, String from, String to) {
+        return api.compare(projectId, from, to);
+    }
+
+    @Override
+    public MergeRequestChanges getMergeRequestChanges(MergeRequest mr) {
+        return api.getMergeRequestChanges(mr.getProjectId(), mergeRequestIdProvider.apply(mr));
     }
 
     @Override
@@ -139,4 +161,10 @@ final class ResteasyGitLabClient implements GitLabClient {
     public List<Tag> getTags(Integer projectId) {
         return api.getTags(projectId);
     }
+
+    private static String formatDate(Date date) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(date);
+    }
 }
@@ -135,9 +135,29 @@ interface V4GitLabApiProxy extends GitLabApiProxy {
     @Override
     List<MergeRequest> getMergeRequests(@PathParam("projectId") String projectId,
                                         @QueryParam("state") State state,
+                                        @QueryParam("target_branch") String targetBranch,
+                                        @QueryParam("source_branch") String sourceBranch,
+                                        @QueryParam("labels") String labels,
+                                        @QueryParam("updated_after") String updatedAfter,
+                                        @QueryParam("order_by") MergeRequestOrder orderBy,
                                         @QueryParam("page") int page,
                                         @QueryParam("per_page") int perPage);
 
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("/projects/{projectId}/repository/compare")
+    @Override
+    Comparison compare(@PathParam("projectId") String projectId,
+                       @QueryParam("from") String from,
+                       @QueryParam("to") String to);
+
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("/projects/{projectId}/merge_requests/{mergeRequestIid}/changes")
+    @Override
+    MergeRequestChanges getMergeRequestChanges(@PathParam("projectId") Integer projectId,
+                                               @PathParam("mergeRequestIid") Integer mergeRequestIid);
+
     @GET
     @Produces(MediaType.APPLICATION_JSON)
     @Path("/projects/{projectId}/repository/branches")
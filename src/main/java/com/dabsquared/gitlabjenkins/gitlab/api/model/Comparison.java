@@ -0,0 +1,64 @@
+package com.dabsquared.gitlabjenkins.gitlab.api.model;
+
+import net.karneim.pojobuilder.GeneratePojoBuilder;
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+import java.util.List;
+
+/**
+ * The result of comparing two commits, {@code compareTimeout} is set if GitLab gave up before listing all diffs.
+ */
+@GeneratePojoBuilder(intoPackage = "*.builder.generated", withFactoryMethod = "*")
+public class Comparison {
+    private List<Diff> diffs;
+    private Boolean compareTimeout;
+
+    public List<Diff> getDiffs() {
+        return diffs;
+    }
+
+    public void setDiffs(List<Diff> diffs) {
+        this.diffs = diffs;
+    }
+
+    public Boolean getCompareTimeout() {
+        return compareTimeout;
+    }
+
+    public void setCompareTimeout(Boolean compareTimeout) {
+        this.compareTimeout = compareTimeout;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Comparison comparison = (Comparison) o;
+        return new EqualsBuilder()
+                .append(diffs, comparison.diffs)
+                .append(compareTimeout, comparison.compareTimeout)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 37)
+                .append(diffs)
+                .append(compareTimeout)
+                .toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("diffs", diffs)
+                .append("compareTimeout", compareTimeout)
+                .toString();
+    }
+}
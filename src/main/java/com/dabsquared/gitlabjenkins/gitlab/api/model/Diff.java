@@ -0,0 +1,98 @@
+package com.dabsquared.gitlabjenkins.gitlab.api.model;
+
+import net.karneim.pojobuilder.GeneratePojoBuilder;
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+/**
+ * A changed file of a comparison or a merge request.
+ */
+@GeneratePojoBuilder(intoPackage = "*.builder.generated", withFactoryMethod = "*")
+public class Diff {
+    private String oldPath;
+    private String newPath;
+    private Boolean newFile;
+    private Boolean renamedFile;
+    private Boolean deletedFile;
+
+    public String getOldPath() {
+        return oldPath;
+    }
+
+    public void setOldPath(String oldPath) {
+        this.oldPath = oldPath;
+    }
+
+    public String getNewPath() {
+        return newPath;
+    }
+
+    public void setNewPath(String newPath) {
+        this.newPath = newPath;
+    }
+
+    public Boolean getNewFile() {
+        return newFile;
+    }
+
+    public void setNewFile(Boolean newFile) {
+        this.newFile = newFile;
+    }
+
+    public Boolean getRenamedFile() {
+        return renamedFile;
+    }
+
+    public void setRenamedFile(Boolean renamedFile) {
+        this.renamedFile = renamedFile;
+    }
+
+    public Boolean getDeletedFile() {
+        return deletedFile;
+    }
+
+    public void setDeletedFile(Boolean deletedFile) {
+        this.deletedFile = deletedFile;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Diff diff = (Diff) o;
+        return new EqualsBuilder()
+                .append(oldPath, diff.oldPath)
+                .append(newPath, diff.newPath)
+                .append(newFile, diff.newFile)
+                .append(renamedFile, diff.renamedFile)
+                .append(deletedFile, diff.deletedFile)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 37)
+                .append(oldPath)
+                .append(newPath)
+                .append(newFile)
+                .append(renamedFile)
+                .append(deletedFile)
+                .toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("oldPath", oldPath)
+                .append("newPath", newPath)
+                .append("newFile", newFile)
+                .append("renamedFile", renamedFile)
+                .append("deletedFile", deletedFile)
+                .toString();
+    }
+}
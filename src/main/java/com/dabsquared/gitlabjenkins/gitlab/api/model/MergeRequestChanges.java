@@ -0,0 +1,88 @@
+package com.dabsquared.gitlabjenkins.gitlab.api.model;
+
+import net.karneim.pojobuilder.GeneratePojoBuilder;
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+import java.util.List;
+
+/**
+ * The changed files of a merge request, {@code overflow} is set if GitLab did not return all of them.
+ */
+@GeneratePojoBuilder(intoPackage = "*.builder.generated", withFactoryMethod = "*")
+public class MergeRequestChanges {
+    private Integer id;
+    private Integer iid;
+    private List<Diff> changes;
+    private Boolean overflow;
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public Integer getIid() {
+        return iid;
+    }
+
+    public void setIid(Integer iid) {
+        this.iid = iid;
+    }
+
+    public List<Diff> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(List<Diff> changes) {
+        this.changes = changes;
+    }
+
+    public Boolean getOverflow() {
+        return overflow;
+    }
+
+    public void setOverflow(Boolean overflow) {
+        this.overflow = overflow;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        MergeRequestChanges mergeRequestChanges = (MergeRequestChanges) o;
+        return new EqualsBuilder()
+                .append(id, mergeRequestChanges.id)
+                .append(iid, mergeRequestChanges.iid)
+                .append(changes, mergeRequestChanges.changes)
+                .append(overflow, mergeRequestChanges.overflow)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 37)
+                .append(id)
+                .append(iid)
+                .append(changes)
+                .append(overflow)
+                .toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("id", id)
+                .append("iid", iid)
+                .append("changes", changes)
+                .append("overflow", overflow)
+                .toString();
+    }
+}
@@ -0,0 +1,8 @@
+package com.dabsquared.gitlabjenkins.gitlab.api.model;
+
+/**
+ * The values of the {@code order_by} parameter of the merge requests API.
+ */
+public enum MergeRequestOrder {
+    created_at, updated_at
+}
@@ -0,0 +1,63 @@
+package com.dabsquared.gitlabjenkins.gitlab.hook.model;
+
+import net.karneim.pojobuilder.GeneratePojoBuilder;
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+/**
+ * The previous and the current value of an attribute changed by a merge request event.
+ */
+@GeneratePojoBuilder(intoPackage = "*.builder.generated", withFactoryMethod = "*")
+public class Change<T> {
+
+    private T previous;
+    private T current;
+
+    public T getPrevious() {
+        return previous;
+    }
+
+    public void setPrevious(T previous) {
+        this.previous = previous;
+    }
+
+    public T getCurrent() {
+        return current;
+    }
+
+    public void setCurrent(T current) {
+        this.current = current;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Change<?> change = (Change<?>) o;
+        return new EqualsBuilder()
+            .append(previous, change.previous)
+            .append(current, change.current)
+            .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 37)
+            .append(previous)
+            .append(current)
+            .toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+            .append("previous", previous)
+            .append("current", current)
+            .toString();
+    }
+}
@@ -16,6 +16,7 @@ public class MergeRequestHook extends WebHook {
     private User assignee;
     private Project project;
     private MergeRequestObjectAttributes objectAttributes;
+    private MergeRequestHookChanges changes;
 
     public User getUser() {
         return user;
@@ -41,6 +42,14 @@ public class MergeRequestHook extends WebHook {
         this.objectAttributes = objectAttributes;
     }
 
+    public MergeRequestHookChanges getChanges() {
+        return changes;
+    }
+
+    public void setChanges(MergeRequestHookChanges changes) {
+        this.changes = changes;
+    }
+
     public User getAssignee() {
 		return assignee;
 	}
@@ -63,6 +72,7 @@ public class MergeRequestHook extends WebHook {
                 .append(assignee, that.assignee)
                 .append(project, that.project)
                 .append(objectAttributes, that.objectAttributes)
+                .append(changes, that.changes)
                 .isEquals();
     }
 
@@ -73,6 +83,7 @@ public class MergeRequestHook extends WebHook {
                 .append(assignee)
                 .append(project)
                 .append(objectAttributes)
+                .append(changes)
                 .toHashCode();
     }
 
@@ -83,6 +94,7 @@ public class MergeRequestHook extends WebHook {
                 .append("assignee", assignee)
                 .append("project", project)
                 .append("objectAttributes", objectAttributes)
+                .append("changes", changes)
                 .toString();
     }
 }
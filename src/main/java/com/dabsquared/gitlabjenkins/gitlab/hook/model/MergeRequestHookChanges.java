@@ -0,0 +1,115 @@
+package com.dabsquared.gitlabjenkins.gitlab.hook.model;
+
+import net.karneim.pojobuilder.GeneratePojoBuilder;
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+import java.util.List;
+
+/**
+ * The attributes changed by a merge request event. GitLab sends the other attributes (assignees, milestone, ...) too,
+ * they are ignored because they never change what a job builds. The description decides whether a merge request is
+ * skipped with {@code [ci-skip]}.
+ */
+@GeneratePojoBuilder(intoPackage = "*.builder.generated", withFactoryMethod = "*")
+public class MergeRequestHookChanges {
+
+    private Change<String> sourceBranch;
+    private Change<String> targetBranch;
+    private Change<String> title;
+    private Change<String> description;
+    private Change<Boolean> draft;
+    private Change<List<Label>> labels;
+
+    public Change<String> getSourceBranch() {
+        return sourceBranch;
+    }
+
+    public void setSourceBranch(Change<String> sourceBranch) {
+        this.sourceBranch = sourceBranch;
+    }
+
+    public Change<String> getTargetBranch() {
+        return targetBranch;
+    }
+
+    public void setTargetBranch(Change<String> targetBranch) {
+        this.targetBranch = targetBranch;
+    }
+
+    public Change<String> getTitle() {
+        return title;
+    }
+
+    public void setTitle(Change<String> title) {
+        this.title = title;
+    }
+
+    public Change<String> getDescription() {
+        return description;
+    }
+
+    public void setDescription(Change<String> description) {
+        this.description = description;
+    }
+
+    public Change<Boolean> getDraft() {
+        return draft;
+    }
+
+    public void setDraft(Change<Boolean> draft) {
+        this.draft = draft;
+    }
+
+    public Change<List<Label>> getLabels() {
+        return labels;
+    }
+
+    public void setLabels(Change<List<Label>> labels) {
+        this.labels = labels;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        MergeRequestHookChanges that = (MergeRequestHookChanges) o;
+        return new EqualsBuilder()
+            .append(sourceBranch, that.sourceBranch)
+            .append(targetBranch, that.targetBranch)
+            .append(title, that.title)
+            .append(description, that.description)
+            .append(draft, that.draft)
+            .append(labels, that.labels)
+            .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 37)
+            .append(sourceBranch)
+            .append(targetBranch)
+            .append(title)
+            .append(description)
+            .append(draft)
+            .append(labels)
+            .toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+            .append("sourceBranch", sourceBranch)
+            .append("targetBranch", targetBranch)
+            .append("title", title)
+            .append("description", description)
+            .append("draft", draft)
+            .append("labels", labels)
+            .toString();
+    }
+}
@@ -30,6 +30,7 @@ public class MergeRequestObjectAttributes {
     private Project source;
     private Project target;
     private Commit lastCommit;
+    private String oldrev;
     private String mergeStatus;
     private String url;
     private Action action;
@@ -164,6 +165,14 @@ public class MergeRequestObjectAttributes {
         this.lastCommit = lastCommit;
     }
 
+    public String getOldrev() {
+        return oldrev;
+    }
+
+    public void setOldrev(String oldrev) {
+        this.oldrev = oldrev;
+    }
+
     public String getMergeStatus() {
         return mergeStatus;
     }
@@ -230,6 +239,7 @@ public class MergeRequestObjectAttributes {
             .append(source, that.source)
             .append(target, that.target)
             .append(lastCommit, that.lastCommit)
+            .append(oldrev, that.oldrev)
             .append(mergeStatus, that.mergeStatus)
             .append(url, that.url)
             .append(action, that.action)
@@ -257,6 +267,7 @@ public class MergeRequestObjectAttributes {
             .append(source)
             .append(target)
             .append(lastCommit)
+            .append(oldrev)
             .append(mergeStatus)
             .append(url)
             .append(action)
@@ -284,6 +295,7 @@ public class MergeRequestObjectAttributes {
             .append("source", source)
             .append("target", target)
             .append("lastCommit", lastCommit)
+            .append("oldrev", oldrev)
             .append("mergeStatus", mergeStatus)
             .append("url", url)
             .append("action", action)
@@ -0,0 +1,125 @@
+package com.dabsquared.gitlabjenkins.gitlab.hook.model;
+
+import net.karneim.pojobuilder.GeneratePojoBuilder;
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+/**
+ * The project related events of a GitLab system hook.
+ * {@code project_*} events carry the project attributes at the top level, {@code repository_update} events
+ * carry them in {@link #getProject()}.
+ */
+@GeneratePojoBuilder(intoPackage = "*.builder.generated", withFactoryMethod = "*")
+public class SystemHook {
+
+    private String eventName;
+    private Integer projectId;
+    private String name;
+    private String path;
+    private String pathWithNamespace;
+    private String oldPathWithNamespace;
+    private Project project;
+
+    public String getEventName() {
+        return eventName;
+    }
+
+    public void setEventName(String eventName) {
+        this.eventName = eventName;
+    }
+
+    public Integer getProjectId() {
+        return projectId;
+    }
+
+    public void setProjectId(Integer projectId) {
+        this.projectId = projectId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public String getPathWithNamespace() {
+        return pathWithNamespace;
+    }
+
+    public void setPathWithNamespace(String pathWithNamespace) {
+        this.pathWithNamespace = pathWithNamespace;
+    }
+
+    public String getOldPathWithNamespace() {
+        return oldPathWithNamespace;
+    }
+
+    public void setOldPathWithNamespace(String oldPathWithNamespace) {
+        this.oldPathWithNamespace = oldPathWithNamespace;
+    }
+
+    public Project getProject() {
+        return project;
+    }
+
+    public void setProject(Project project) {
+        this.project = project;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SystemHook that = (SystemHook) o;
+        return new EqualsBuilder()
+                .append(eventName, that.eventName)
+                .append(projectId, that.projectId)
+                .append(name, that.name)
+                .append(path, that.path)
+                .append(pathWithNamespace, that.pathWithNamespace)
+                .append(oldPathWithNamespace, that.oldPathWithNamespace)
+                .append(project, that.project)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 37)
+                .append(eventName)
+                .append(projectId)
+                .append(name)
+                .append(path)
+                .append(pathWithNamespace)
+                .append(oldPathWithNamespace)
+                .append(project)
+                .toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("eventName", eventName)
+                .append("projectId", projectId)
+                .append("name", name)
+                .append("path", path)
+                .append("pathWithNamespace", pathWithNamespace)
+                .append("oldPathWithNamespace", oldPathWithNamespace)
+                .append("project", project)
+                .toString();
+    }
+}
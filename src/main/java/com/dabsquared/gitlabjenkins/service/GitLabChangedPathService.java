@@ -0,0 +1,150 @@
+package com.dabsquared.gitlabjenkins.service;
+
+import com.dabsquared.gitlabjenkins.gitlab.api.GitLabClient;
+import com.dabsquared.gitlabjenkins.gitlab.api.model.Comparison;
+import com.dabsquared.gitlabjenkins.gitlab.api.model.Diff;
+import com.dabsquared.gitlabjenkins.gitlab.api.model.MergeRequest;
+import com.dabsquared.gitlabjenkins.gitlab.api.model.MergeRequestChanges;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.Commit;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestObjectAttributes;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.PushHook;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.lang.StringUtils;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.WebApplicationException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Determines the files changed by a push or a merge request for the path filter of the trigger.
+ * <p>
+ * A push hook lists the added, modified and removed files of its commits, but only of the first 20 commits. If the
+ * list is truncated the two revisions of the push are compared by the GitLab API. The changes of a merge request are
+ * always read from the GitLab API and cached by the last commit of the merge request, so that all jobs of a project
+ * share one API call per merge request update.
+ */
+public final class GitLabChangedPathService {
+
+    private static final Logger LOGGER = Logger.getLogger(GitLabChangedPathService.class.getName());
+
+    private static final char KEY_SEPARATOR = '#';
+    private static final String NO_COMMIT = "0000000000000000000000000000000000000000";
+    private static final int CACHE_TTL_MINUTES = 60;
+
+    private static GitLabChangedPathService instance;
+
+    private final Cache<String, Set<String>> mergeRequestPaths;
+
+    GitLabChangedPathService(Ticker ticker) {
+        mergeRequestPaths = CacheBuilder.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(CACHE_TTL_MINUTES, TimeUnit.MINUTES)
+            .ticker(ticker)
+            .build();
+    }
+
+    public static synchronized GitLabChangedPathService instance() {
+        if (instance == null) {
+            instance = new GitLabChangedPathService(Ticker.systemTicker());
+        }
+        return instance;
+    }
+
+    /**
+     * @param client the client of the job, {@code null} if the job has no GitLab connection
+     * @return the paths changed by the push, {@code null} if they cannot be determined
+     */
+    public Set<String> getChangedPaths(GitLabClient client, PushHook hook) {
+        List<Commit> commits = hook.getCommits();
+        Integer totalCommitsCount = hook.getTotalCommitsCount();
+        if (commits != null && !commits.isEmpty() && (totalCommitsCount == null || commits.size() >= totalCommitsCount)) {
+            Set<String> result = new HashSet<>();
+            for (Commit commit : commits) {
+                addAll(result, commit.getAdded());
+                addAll(result, commit.getModified());
+                addAll(result, commit.getRemoved());
+            }
+            return result;
+        }
+        if (client == null || hook.getProjectId() == null || !isCommit(hook.getBefore()) || !isCommit(hook.getAfter())) {
+            return null;
+        }
+        try {
+            Comparison comparison = client.compare(hook.getProjectId().toString(), hook.getBefore(), hook.getAfter());
+            if (comparison == null || comparison.getDiffs() == null || Boolean.TRUE.equals(comparison.getCompareTimeout())) {
+                return null;
+            }
+            return toPaths(comparison.getDiffs());
+        } catch (WebApplicationException | ProcessingException e) {
+            LOGGER.log(Level.WARNING, "Failed to compare " + hook.getBefore() + " with " + hook.getAfter() + ": " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the paths changed by the merge request, {@code null} if they cannot be determined
+     */
+    public Set<String> getChangedPaths(GitLabClient client, MergeRequestObjectAttributes objectAttributes) {
+        if (client == null || objectAttributes.getTargetProjectId() == null || objectAttributes.getIid() == null) {
+            return null;
+        }
+        String lastCommit = objectAttributes.getLastCommit() == null ? null : objectAttributes.getLastCommit().getId();
+        String key = client.getHostUrl() + KEY_SEPARATOR + objectAttributes.getTargetProjectId() + KEY_SEPARATOR
+            + objectAttributes.getIid() + KEY_SEPARATOR + lastCommit;
+        Set<String> result = lastCommit == null ? null : mergeRequestPaths.getIfPresent(key);
+        if (result != null) {
+            return result;
+        }
+        MergeRequest mergeRequest = new MergeRequest();
+        mergeRequest.setId(objectAttributes.getId());
+        mergeRequest.setIid(objectAttributes.getIid());
+        mergeRequest.setProjectId(objectAttributes.getTargetProjectId());
+        try {
+            MergeRequestChanges changes = client.getMergeRequestChanges(mergeRequest);
+            if (changes == null || changes.getChanges() == null || Boolean.TRUE.equals(changes.getOverflow())) {
+                return null;
+            }
+            result = toPaths(changes.getChanges());
+        } catch (WebApplicationException | ProcessingException e) {
+            LOGGER.log(Level.WARNING, "Failed to get the changes of merge request !" + objectAttributes.getIid() + ": " + e.getMessage(), e);
+            return null;
+        }
+        if (lastCommit != null) {
+            mergeRequestPaths.put(key, result);
+        }
+        return result;
+    }
+
+    private static Set<String> toPaths(List<Diff> diffs) {
+        Set<String> result = new HashSet<>();
+        for (Diff diff : diffs) {
+            // a renamed file changes both paths
+            if (diff.getOldPath() != null) {
+                result.add(diff.getOldPath());
+            }
+            if (diff.getNewPath() != null) {
+                result.add(diff.getNewPath());
+            }
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
+    private static void addAll(Set<String> result, Collection<String> paths) {
+        if (paths != null) {
+            result.addAll(paths);
+        }
+    }
+
+    private static boolean isCommit(String sha) {
+        return StringUtils.isNotEmpty(sha) && !sha.equals(NO_COMMIT);
+    }
+}
@@ -0,0 +1,227 @@
+package com.dabsquared.gitlabjenkins.service;
+
+
+import com.dabsquared.gitlabjenkins.gitlab.api.GitLabClient;
+import com.dabsquared.gitlabjenkins.gitlab.api.model.MergeRequest;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestObjectAttributes;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.State;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Index of the open merge requests of GitLab projects by target branch, so that a push to a target branch
+ * finds the affected merge requests without listing all open merge requests of the project.
+ * <p>
+ * The merge requests of a target branch are loaded from the API when they are needed for the first time, with
+ * the target branch as filter, and kept up to date by the merge request web hooks. They are loaded again once they
+ * are older than {@link #RECONCILE_INTERVAL_MINUTES}, to catch up with merge requests whose web hooks did not reach
+ * Jenkins.
+ */
+public class GitLabOpenMergeRequestService {
+
+    static final int RECONCILE_INTERVAL_MINUTES = 10;
+
+    private static final char KEY_SEPARATOR = '#';
+    private static final int PAGE_SIZE = 100;
+
+    private static transient GitLabOpenMergeRequestService instance;
+    private final Ticker ticker;
+    private final Cache<String, ProjectIndex> indexes;
+
+    GitLabOpenMergeRequestService(Ticker ticker) {
+        this.ticker = ticker;
+        this.indexes = CacheBuilder.newBuilder()
+                .maximumSize(1000)
+                .expireAfterAccess(1, TimeUnit.DAYS)
+                .build();
+    }
+
+    public static GitLabOpenMergeRequestService instance() {
+        if (instance == null) {
+            instance = new GitLabOpenMergeRequestService(Ticker.systemTicker());
+        }
+        return instance;
+    }
+
+    /**
+     * @return the open merge requests of the project that target the given branch, ordered by iid
+     * @throws javax.ws.rs.WebApplicationException if GitLab cannot be asked for the merge requests
+     * @throws javax.ws.rs.ProcessingException if GitLab cannot be reached
+     */
+    public List<MergeRequest> getOpenMergeRequests(GitLabClient client, Integer projectId, String targetBranch) {
+        ProjectIndex index = getIndex(key(client.getHostUrl(), projectId));
+        synchronized (index.loadLock) {
+            if (index.needsLoad(targetBranch, ticker.read())) {
+                index.load(targetBranch, loadOpenMergeRequests(client, projectId.toString(), targetBranch), ticker.read());
+            }
+        }
+        return index.get(targetBranch);
+    }
+
+    /**
+     * Applies a merge request web hook to the index of its target project, if that project is indexed.
+     */
+    public void update(String hostUrl, MergeRequestObjectAttributes objectAttributes) {
+        if (objectAttributes == null || objectAttributes.getTargetProjectId() == null || objectAttributes.getIid() == null) {
+            return;
+        }
+        ProjectIndex index = indexes.getIfPresent(key(hostUrl, objectAttributes.getTargetProjectId()));
+        if (index != null) {
+            index.update(toMergeRequest(objectAttributes));
+        }
+    }
+
+    /**
+     * Drops the index of the project with the given id on every GitLab server.
+     */
+    public void invalidate(Integer projectId) {
+        String suffix = String.valueOf(KEY_SEPARATOR) + projectId;
+        for (Iterator<String> iterator = indexes.asMap().keySet().iterator(); iterator.hasNext(); ) {
+            if (iterator.next().endsWith(suffix)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private ProjectIndex getIndex(String key) {
+        try {
+            return indexes.get(key, new Callable<ProjectIndex>() {
+                @Override
+                public ProjectIndex call() {
+                    return new ProjectIndex();
+                }
+            });
+        } catch (ExecutionException e) {
+            // creating an empty index does not fail
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<MergeRequest> loadOpenMergeRequests(GitLabClient client, String projectId, String targetBranch) {
+        List<MergeRequest> result = new ArrayList<>();
+        Integer page = 1;
+        do {
+            List<MergeRequest> mergeRequests = client.getMergeRequests(projectId, State.opened, targetBranch, null, null, null, null, page, PAGE_SIZE);
+            result.addAll(mergeRequests);
+            page = mergeRequests.isEmpty() ? null : page + 1;
+        } while (page != null);
+        return result;
+    }
+
+    private static MergeRequest toMergeRequest(MergeRequestObjectAttributes objectAttributes) {
+        MergeRequest mergeRequest = new MergeRequest();
+        mergeRequest.setId(objectAttributes.getId());
+        mergeRequest.setIid(objectAttributes.getIid());
+        mergeRequest.setProjectId(objectAttributes.getTargetProjectId());
+        mergeRequest.setSourceProjectId(objectAttributes.getSourceProjectId());
+        mergeRequest.setTargetProjectId(objectAttributes.getTargetProjectId());
+        mergeRequest.setSourceBranch(objectAttributes.getSourceBranch());
+        mergeRequest.setTargetBranch(objectAttributes.getTargetBranch());
+        mergeRequest.setTitle(objectAttributes.getTitle());
+        mergeRequest.setDescription(objectAttributes.getDescription());
+        mergeRequest.setState(objectAttributes.getState());
+        mergeRequest.setWorkInProgress(objectAttributes.getWorkInProgress());
+        mergeRequest.setMergeStatus(objectAttributes.getMergeStatus());
+        mergeRequest.setLabels(objectAttributes.getLabels());
+        return mergeRequest;
+    }
+
+    private static String key(String hostUrl, Integer projectId) {
+        return hostUrl + KEY_SEPARATOR + projectId;
+    }
+
+    private static boolean isOpen(MergeRequest mergeRequest) {
+        return mergeRequest.getState() != State.closed && mergeRequest.getState() != State.merged;
+    }
+
+    /**
+     * The open merge requests of one project. Web hooks that arrive while a target branch is loaded are applied
+     * to the loaded merge requests, so that loading never brings back a merge request that has been closed.
+     */
+    private static final class ProjectIndex {
+        private final Object loadLock = new Object();
+        // guarded by this
+        private final Map<Integer, MergeRequest> byIid = new HashMap<>();
+        private final Map<String, Map<Integer, MergeRequest>> byTargetBranch = new HashMap<>();
+        private final Map<String, Long> loadedAt = new HashMap<>();
+        private List<MergeRequest> updatesWhileLoading;
+
+        private synchronized boolean needsLoad(String targetBranch, long now) {
+            Long branchLoadedAt = loadedAt.get(targetBranch);
+            if (branchLoadedAt == null || now - branchLoadedAt >= TimeUnit.MINUTES.toNanos(RECONCILE_INTERVAL_MINUTES)) {
+                updatesWhileLoading = new ArrayList<>();
+                return true;
+            }
+            return false;
+        }
+
+        private synchronized void load(String targetBranch, List<MergeRequest> openMergeRequests, long now) {
+            Map<Integer, MergeRequest> previous = byTargetBranch.remove(targetBranch);
+            if (previous != null) {
+                byIid.keySet().removeAll(previous.keySet());
+            }
+            for (MergeRequest mergeRequest : openMergeRequests) {
+                // GitLab versions without the target branch filter return the merge requests of all branches
+                if (targetBranch.equals(mergeRequest.getTargetBranch())) {
+                    apply(mergeRequest);
+                }
+            }
+            for (MergeRequest mergeRequest : updatesWhileLoading) {
+                apply(mergeRequest);
+            }
+            updatesWhileLoading = null;
+            loadedAt.put(targetBranch, now);
+        }
+
+        private synchronized void update(MergeRequest mergeRequest) {
+            MergeRequest previous = byIid.get(mergeRequest.getIid());
+            if (previous != null && mergeRequest.getLabels() == null) {
+                // older GitLab versions do not send the labels
+                mergeRequest.setLabels(previous.getLabels());
+            }
+            if (updatesWhileLoading != null) {
+                updatesWhileLoading.add(mergeRequest);
+            }
+            apply(mergeRequest);
+        }
+
+        private synchronized List<MergeRequest> get(String targetBranch) {
+            Map<Integer, MergeRequest> mergeRequests = byTargetBranch.get(targetBranch);
+            return mergeRequests == null ? Collections.<MergeRequest>emptyList() : new ArrayList<>(mergeRequests.values());
+        }
+
+        private void apply(MergeRequest mergeRequest) {
+            MergeRequest previous = byIid.remove(mergeRequest.getIid());
+            if (previous != null) {
+                Map<Integer, MergeRequest> previousBranch = byTargetBranch.get(previous.getTargetBranch());
+                if (previousBranch != null) {
+                    previousBranch.remove(previous.getIid());
+                    if (previousBranch.isEmpty()) {
+                        byTargetBranch.remove(previous.getTargetBranch());
+                    }
+                }
+            }
+            if (isOpen(mergeRequest) && mergeRequest.getTargetBranch() != null) {
+                byIid.put(mergeRequest.getIid(), mergeRequest);
+                Map<Integer, MergeRequest> branch = byTargetBranch.get(mergeRequest.getTargetBranch());
+                if (branch == null) {
+                    branch = new TreeMap<>();
+                    byTargetBranch.put(mergeRequest.getTargetBranch(), branch);
+                }
+                branch.put(mergeRequest.getIid(), mergeRequest);
+            }
+        }
+    }
+}
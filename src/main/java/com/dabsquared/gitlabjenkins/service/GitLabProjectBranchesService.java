@@ -9,6 +9,7 @@ import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
@@ -19,16 +20,16 @@ import java.util.logging.Logger;
 
 public class GitLabProjectBranchesService {
 
+    public static final int DEFAULT_CACHE_TTL = 5;
+
     private static final Logger LOGGER = Logger.getLogger(GitLabProjectBranchesService.class.getName());
 
     private static transient GitLabProjectBranchesService gitLabProjectBranchesService;
-    private final Cache<String, List<String>> projectBranchCache;
+    private volatile int cacheTtl = DEFAULT_CACHE_TTL;
+    private volatile Cache<String, List<String>> projectBranchCache;
 
     GitLabProjectBranchesService() {
-        this.projectBranchCache = CacheBuilder.<String, String>newBuilder()
-                .maximumSize(1000)
-                .expireAfterWrite(5, TimeUnit.SECONDS)
-                .build();
+        this.projectBranchCache = createCache(DEFAULT_CACHE_TTL);
     }
 
     public static GitLabProjectBranchesService instance() {
@@ -39,15 +40,49 @@ public class GitLabProjectBranchesService {
     }
 
     public List<String> getBranches(GitLabClient client, String sourceRepositoryString) {
-        synchronized (projectBranchCache) {
+        Cache<String, List<String>> cache = projectBranchCache;
+        synchronized (cache) {
             try {
-                return projectBranchCache.get(sourceRepositoryString, new BranchNamesLoader(client, sourceRepositoryString));
+                return cache.get(sourceRepositoryString, new BranchNamesLoader(client, sourceRepositoryString));
             } catch (ExecutionException e) {
                 throw new BranchLoadingException(e);
             }
         }
     }
 
+    /**
+     * Sets how long the branches of a project are cached. A long time is fine as long as GitLab reports changes via the system hook.
+     */
+    public synchronized void setCacheTtl(int seconds) {
+        seconds = seconds > 0 ? seconds : DEFAULT_CACHE_TTL;
+        if (seconds != cacheTtl) {
+            projectBranchCache = createCache(seconds);
+            cacheTtl = seconds;
+        }
+    }
+
+    public int getCacheTtl() {
+        return cacheTtl;
+    }
+
+    /**
+     * Removes the cached branches of every repository URL that points to the given project.
+     */
+    public void invalidate(String pathWithNamespace) {
+        for (Iterator<String> iterator = projectBranchCache.asMap().keySet().iterator(); iterator.hasNext(); ) {
+            if (ProjectIdUtil.isRemoteOfProject(iterator.next(), pathWithNamespace)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static Cache<String, List<String>> createCache(int ttlSeconds) {
+        return CacheBuilder.<String, String>newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
     public static class BranchLoadingException extends RuntimeException {
         BranchLoadingException(Throwable cause) {
             super(cause);
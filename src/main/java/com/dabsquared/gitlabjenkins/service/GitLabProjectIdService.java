@@ -0,0 +1,101 @@
+package com.dabsquared.gitlabjenkins.service;
+
+
+import com.dabsquared.gitlabjenkins.gitlab.api.GitLabClient;
+import com.dabsquared.gitlabjenkins.gitlab.api.model.Project;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.WebApplicationException;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Caches the numeric id of a GitLab project by the path with namespace, so that looking up a project by name
+ * does not cost an API call per build or web hook.
+ */
+public class GitLabProjectIdService {
+
+    public static final int DEFAULT_CACHE_TTL = 5;
+
+    private static final Logger LOGGER = Logger.getLogger(GitLabProjectIdService.class.getName());
+
+    private static final char KEY_SEPARATOR = '#';
+
+    private static transient GitLabProjectIdService instance;
+    private volatile int cacheTtl = DEFAULT_CACHE_TTL;
+    private volatile Cache<String, Integer> projectIdCache;
+
+    GitLabProjectIdService() {
+        this.projectIdCache = createCache(DEFAULT_CACHE_TTL);
+    }
+
+    public static GitLabProjectIdService instance() {
+        if (instance == null) {
+            instance = new GitLabProjectIdService();
+        }
+        return instance;
+    }
+
+    /**
+     * @return the id of the project, {@code null} if GitLab does not return one
+     * @throws WebApplicationException if GitLab cannot be asked for the project
+     * @throws ProcessingException if GitLab cannot be reached
+     */
+    public Integer getProjectId(final GitLabClient client, final String pathWithNamespace) {
+        try {
+            return projectIdCache.get(client.getHostUrl() + KEY_SEPARATOR + pathWithNamespace.toLowerCase(Locale.ENGLISH), new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    Project project = client.getProject(pathWithNamespace);
+                    if (project == null || project.getId() == null) {
+                        throw new IllegalStateException("GitLab did not return an id for project " + pathWithNamespace);
+                    }
+                    return project.getId();
+                }
+            });
+        } catch (UncheckedExecutionException | ExecutionException e) {
+            if (e.getCause() instanceof WebApplicationException) {
+                throw (WebApplicationException) e.getCause();
+            } else if (e.getCause() instanceof ProcessingException) {
+                throw (ProcessingException) e.getCause();
+            }
+            LOGGER.log(Level.WARNING, "Failed to retrieve the id of project " + pathWithNamespace, e.getCause());
+            return null;
+        }
+    }
+
+    public synchronized void setCacheTtl(int seconds) {
+        seconds = seconds > 0 ? seconds : DEFAULT_CACHE_TTL;
+        if (seconds != cacheTtl) {
+            projectIdCache = createCache(seconds);
+            cacheTtl = seconds;
+        }
+    }
+
+    /**
+     * Removes the cached id of the project with the given path on every GitLab server.
+     */
+    public void invalidate(String pathWithNamespace) {
+        String suffix = KEY_SEPARATOR + pathWithNamespace.toLowerCase(Locale.ENGLISH);
+        for (Iterator<String> iterator = projectIdCache.asMap().keySet().iterator(); iterator.hasNext(); ) {
+            if (iterator.next().endsWith(suffix)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static Cache<String, Integer> createCache(int ttlSeconds) {
+        return CacheBuilder.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+}
@@ -9,6 +9,7 @@ import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
@@ -19,16 +20,16 @@ import java.util.logging.Logger;
 
 public class GitLabProjectLabelsService {
 
+    public static final int DEFAULT_CACHE_TTL = 5;
+
     private static final Logger LOGGER = Logger.getLogger(GitLabProjectLabelsService.class.getName());
 
     private static transient GitLabProjectLabelsService instance;
-    private final Cache<String, List<String>> projectLabelsCache;
+    private volatile int cacheTtl = DEFAULT_CACHE_TTL;
+    private volatile Cache<String, List<String>> projectLabelsCache;
 
     GitLabProjectLabelsService() {
-        this.projectLabelsCache = CacheBuilder.<String, String>newBuilder()
-                .maximumSize(1000)
-                .expireAfterWrite(5, TimeUnit.SECONDS)
-                .build();
+        this.projectLabelsCache = createCache(DEFAULT_CACHE_TTL);
     }
 
     public static GitLabProjectLabelsService instance() {
@@ -39,15 +40,49 @@ public class GitLabProjectLabelsService {
     }
 
     public List<String> getLabels(GitLabClient client, String sourceRepositoryString) {
-        synchronized (projectLabelsCache) {
+        Cache<String, List<String>> cache = projectLabelsCache;
+        synchronized (cache) {
             try {
-                return projectLabelsCache.get(sourceRepositoryString, new LabelNamesLoader(client, sourceRepositoryString));
+                return cache.get(sourceRepositoryString, new LabelNamesLoader(client, sourceRepositoryString));
             } catch (ExecutionException e) {
                 throw new LabelLoadingException(e);
             }
         }
     }
 
+    /**
+     * Sets how long the labels of a project are cached. A long time is fine as long as GitLab reports changes via the system hook.
+     */
+    public synchronized void setCacheTtl(int seconds) {
+        seconds = seconds > 0 ? seconds : DEFAULT_CACHE_TTL;
+        if (seconds != cacheTtl) {
+            projectLabelsCache = createCache(seconds);
+            cacheTtl = seconds;
+        }
+    }
+
+    public int getCacheTtl() {
+        return cacheTtl;
+    }
+
+    /**
+     * Removes the cached labels of every repository URL that points to the given project.
+     */
+    public void invalidate(String pathWithNamespace) {
+        for (Iterator<String> iterator = projectLabelsCache.asMap().keySet().iterator(); iterator.hasNext(); ) {
+            if (ProjectIdUtil.isRemoteOfProject(iterator.next(), pathWithNamespace)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static Cache<String, List<String>> createCache(int ttlSeconds) {
+        return CacheBuilder.<String, String>newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
     public static class LabelLoadingException extends RuntimeException {
         LabelLoadingException(Throwable cause) {
             super(cause);
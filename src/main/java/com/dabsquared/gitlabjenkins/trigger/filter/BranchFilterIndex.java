@@ -0,0 +1,319 @@
+package com.dabsquared.gitlabjenkins.trigger.filter;
+
+import com.dabsquared.gitlabjenkins.GitLabPushTrigger;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Saveable;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.SaveableListener;
+import jenkins.model.Jenkins;
+import org.apache.commons.lang.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.dabsquared.gitlabjenkins.trigger.filter.BranchFilterConfig.BranchFilterConfigBuilder.branchFilterConfig;
+
+/**
+ * In-memory index from branch names to the jobs whose {@link GitLabPushTrigger} branch filter may allow them,
+ * so that a web hook is only handed to the jobs that can be triggered for its branch.
+ * <p>
+ * Included Ant specs without wildcards are indexed by the branch name, the other included Ant specs by the literal
+ * prefix before their first wildcard in a trie. The filters that cannot be indexed like that (regular expressions,
+ * only excluded specs, specs starting with a wildcard) are kept as residual filters and evaluated for the jobs of the
+ * hook only. The index returns candidates: every job still applies its own branch filter.
+ * <p>
+ * It is built once when the items are loaded and then updated incrementally when jobs are created, changed, moved
+ * or deleted. Updates replace immutable sets so that lookups do not need to lock.
+ */
+public final class BranchFilterIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(BranchFilterIndex.class.getName());
+
+    private static final BranchFilterIndex INSTANCE = new BranchFilterIndex();
+
+    private final ConcurrentMap<String, Entry> entriesByJob = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<String>> jobsByBranch = new ConcurrentHashMap<>();
+    private final Node jobsByPrefix = new Node();
+
+    BranchFilterIndex() { }
+
+    public static BranchFilterIndex instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param jobNames   the full names of the jobs to select from
+     * @param branchName the branch the trigger handlers pass to the branch filter, may be {@code null}
+     * @return the given jobs whose branch filter may allow the branch, including the jobs that are not indexed
+     */
+    public Set<String> getCandidates(Set<String> jobNames, String branchName) {
+        if (branchName == null || !BranchSpecAutomaton.isNormalPath(branchName)) {
+            // the AntPathMatcher versions differ in how they match these names, only the job's filter can tell
+            return jobNames;
+        }
+        Set<String> indexedCandidates = getIndexedCandidates(branchName);
+        Set<String> result = new HashSet<>();
+        for (String jobName : jobNames) {
+            Entry entry = entriesByJob.get(jobName);
+            if (entry == null || indexedCandidates.contains(jobName)
+                || (entry.residualFilter != null && entry.residualFilter.isBranchAllowed(branchName))) {
+                result.add(jobName);
+            }
+        }
+        return result;
+    }
+
+    public int getJobCount() {
+        return entriesByJob.size();
+    }
+
+    private Set<String> getIndexedCandidates(String branchName) {
+        Set<String> result = new HashSet<>();
+        Set<String> jobs = jobsByBranch.get(branchName);
+        if (jobs != null) {
+            result.addAll(jobs);
+        }
+        Node node = jobsByPrefix;
+        for (int i = 0; i < branchName.length() && node != null; i++) {
+            node = node.children.get(branchName.charAt(i));
+            if (node != null) {
+                result.addAll(node.jobs);
+            }
+        }
+        return result;
+    }
+
+    synchronized void rebuild(Collection<? extends Job> jobs) {
+        entriesByJob.clear();
+        jobsByBranch.clear();
+        jobsByPrefix.children.clear();
+        for (Job<?, ?> job : jobs) {
+            update(job.getFullName(), getBranchFilterConfig(job));
+        }
+        LOGGER.log(Level.FINE, "Indexed the branch filters of {0} jobs", entriesByJob.size());
+    }
+
+    /**
+     * @param config the branch filter of the job's trigger, {@code null} if the job has no trigger
+     */
+    synchronized void update(String fullName, BranchFilterConfig config) {
+        Entry entry = config == null ? null : newEntry(config);
+        Entry previousEntry = entry == null ? entriesByJob.remove(fullName) : entriesByJob.put(fullName, entry);
+        if (previousEntry != null) {
+            unindex(fullName, previousEntry);
+        }
+        if (entry != null) {
+            for (String branch : entry.branches) {
+                jobsByBranch.put(branch, plus(jobsByBranch.get(branch), fullName));
+            }
+            for (String prefix : entry.prefixes) {
+                Node node = jobsByPrefix;
+                for (int i = 0; i < prefix.length(); i++) {
+                    Node child = node.children.get(prefix.charAt(i));
+                    if (child == null) {
+                        child = new Node();
+                        node.children.put(prefix.charAt(i), child);
+                    }
+                    node = child;
+                }
+                node.jobs = plus(node.jobs, fullName);
+            }
+        }
+    }
+
+    synchronized void remove(String fullName) {
+        String childPrefix = fullName + '/';
+        for (Iterator<Map.Entry<String, Entry>> iterator = entriesByJob.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<String, Entry> entry = iterator.next();
+            if (entry.getKey().equals(fullName) || entry.getKey().startsWith(childPrefix)) {
+                iterator.remove();
+                unindex(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void unindex(String fullName, Entry entry) {
+        for (String branch : entry.branches) {
+            Set<String> remainingJobs = minus(jobsByBranch.get(branch), fullName);
+            if (remainingJobs.isEmpty()) {
+                jobsByBranch.remove(branch);
+            } else {
+                jobsByBranch.put(branch, remainingJobs);
+            }
+        }
+        for (String prefix : entry.prefixes) {
+            List<Node> path = new ArrayList<>();
+            Node node = jobsByPrefix;
+            for (int i = 0; i < prefix.length() && node != null; i++) {
+                path.add(node);
+                node = node.children.get(prefix.charAt(i));
+            }
+            if (node == null) {
+                continue;
+            }
+            node.jobs = minus(node.jobs, fullName);
+            // prune the nodes that neither carry jobs nor lead to nodes that do
+            for (int i = path.size() - 1; i >= 0 && node.jobs.isEmpty() && node.children.isEmpty(); i--) {
+                path.get(i).children.remove(prefix.charAt(i));
+                node = path.get(i);
+            }
+        }
+    }
+
+    private static Set<String> plus(Set<String> jobs, String fullName) {
+        return jobs == null ? ImmutableSet.of(fullName) : ImmutableSet.<String>builder().addAll(jobs).add(fullName).build();
+    }
+
+    private static Set<String> minus(Set<String> jobs, String fullName) {
+        if (jobs == null) {
+            return Collections.emptySet();
+        }
+        Set<String> remainingJobs = new HashSet<>(jobs);
+        remainingJobs.remove(fullName);
+        return ImmutableSet.copyOf(remainingJobs);
+    }
+
+    private static Entry newEntry(BranchFilterConfig config) {
+        BranchFilter filter = BranchFilterFactory.newBranchFilter(config);
+        Entry entry = new Entry();
+        switch (config.getType()) {
+            case NameBasedFilter:
+                for (String spec : Splitter.on(',').omitEmptyStrings().trimResults().split(config.getIncludeBranchesSpec())) {
+                    if (!addIncludedSpec(entry, spec)) {
+                        return residual(filter);
+                    }
+                }
+                // without included specs every branch that is not excluded is allowed
+                return entry.branches.isEmpty() && entry.prefixes.isEmpty() ? residual(filter) : entry;
+            case RegexBasedFilter:
+                return residual(filter);
+            default:
+                return residual(null);
+        }
+    }
+
+    /**
+     * @return {@code false} if the spec can match branch names without a common literal prefix
+     */
+    private static boolean addIncludedSpec(Entry entry, String spec) {
+        if (!BranchSpecAutomaton.isCompilable(spec)) {
+            return false;
+        }
+        int wildcard = StringUtils.indexOfAny(spec, "*?");
+        if (wildcard < 0) {
+            entry.branches.add(spec);
+            return true;
+        }
+        // a "**" segment also matches no segment at all, so "release/**" matches "release"
+        String prefix = StringUtils.removeEnd(spec.substring(0, wildcard), "/");
+        if (prefix.isEmpty()) {
+            return false;
+        }
+        entry.prefixes.add(prefix);
+        return true;
+    }
+
+    /**
+     * @param filter the filter to evaluate for every branch, {@code null} if every branch is allowed
+     */
+    private static Entry residual(BranchFilter filter) {
+        Entry entry = new Entry();
+        entry.residualFilter = filter == null ? new AllBranchesFilter() : filter;
+        return entry;
+    }
+
+    private static final class Entry {
+        private final Set<String> branches = new HashSet<>();
+        private final Set<String> prefixes = new HashSet<>();
+        private BranchFilter residualFilter;
+    }
+
+    /**
+     * A node of the prefix trie. Children are only added and removed under the lock of the index.
+     */
+    private static final class Node {
+        private final ConcurrentMap<Character, Node> children = new ConcurrentHashMap<>();
+        private volatile Set<String> jobs = Collections.emptySet();
+    }
+
+    private static void index(Item item) {
+        if (item instanceof Job<?, ?>) {
+            Job<?, ?> job = (Job<?, ?>) item;
+            INSTANCE.update(job.getFullName(), getBranchFilterConfig(job));
+        }
+    }
+
+    private static BranchFilterConfig getBranchFilterConfig(Job<?, ?> job) {
+        GitLabPushTrigger trigger = GitLabPushTrigger.getFromJob(job);
+        if (trigger == null) {
+            return null;
+        }
+        return branchFilterConfig()
+            .withIncludeBranchesSpec(trigger.getIncludeBranchesSpec())
+            .withExcludeBranchesSpec(trigger.getExcludeBranchesSpec())
+            .withTargetBranchRegex(trigger.getTargetBranchRegex())
+            .build(trigger.getBranchFilterType() == null ? BranchFilterType.All : trigger.getBranchFilterType());
+    }
+
+    @Extension
+    public static class IndexingItemListener extends ItemListener {
+        @Override
+        public void onLoaded() {
+            Jenkins jenkins = Jenkins.getInstance();
+            if (jenkins != null) {
+                INSTANCE.rebuild(jenkins.getAllItems(Job.class));
+            }
+        }
+
+        @Override
+        public void onCreated(Item item) {
+            index(item);
+        }
+
+        @Override
+        public void onCopied(Item src, Item item) {
+            index(item);
+        }
+
+        @Override
+        public void onUpdated(Item item) {
+            index(item);
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            INSTANCE.remove(item.getFullName());
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            INSTANCE.remove(oldFullName);
+            index(item);
+        }
+    }
+
+    @Extension
+    public static class IndexingSaveableListener extends SaveableListener {
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof Item) {
+                index((Item) o);
+            }
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.dabsquared.gitlabjenkins.trigger.filter;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The include and exclude branch specs of a {@link NameBasedFilter} compiled into one deterministic automaton,
+ * which decides for both lists in a single pass over the branch name.
+ * <p>
+ * Only specs in the subset of the Ant syntax that every {@code AntPathMatcher} version handles alike can be compiled,
+ * see {@link #isCompilable(String)}: segments of literal characters, {@code *} and {@code ?} separated by {@code /},
+ * and {@code **} as a whole segment. The automaton reads {@code '/' + branchName}, so that every segment including
+ * the first one starts with a separator: a segment of the spec becomes {@code /} followed by its characters and
+ * {@code **} becomes any number of {@code /} and non-empty segment pairs.
+ * <p>
+ * The automaton is built from an NFA whose state sets are turned into deterministic states when a branch name
+ * first reaches them. Transitions on ASCII characters are cached without locking.
+ */
+final class BranchSpecAutomaton {
+
+    static final int INCLUDED = 1;
+    static final int EXCLUDED = 2;
+
+    private static final int NOT_SLASH = -2;
+    private static final int NONE = -1;
+    private static final int ASCII = 128;
+    private static final int MAX_STATES = 10000;
+
+    // the NFA, one consuming transition and any number of epsilon transitions per state
+    private final int[] consume;
+    private final int[] next;
+    private final int[][] epsilons;
+    private final int[] accept;
+
+    private final DState start;
+    private final DState dead;
+    // guarded by this
+    private final Map<BitSet, DState> states = new HashMap<>();
+
+    private BranchSpecAutomaton(List<NfaState> nfa) {
+        consume = new int[nfa.size()];
+        next = new int[nfa.size()];
+        epsilons = new int[nfa.size()][];
+        accept = new int[nfa.size()];
+        for (int i = 0; i < nfa.size(); i++) {
+            NfaState state = nfa.get(i);
+            consume[i] = state.consume;
+            next[i] = state.next;
+            epsilons[i] = toArray(state.epsilons);
+            accept[i] = state.accept;
+        }
+        BitSet startSet = new BitSet();
+        startSet.set(0);
+        synchronized (this) {
+            dead = state(new BitSet());
+            start = state(closure(startSet));
+        }
+    }
+
+    static BranchSpecAutomaton compile(List<String> includedSpecs, List<String> excludedSpecs) {
+        List<NfaState> nfa = new ArrayList<>();
+        NfaState start = newState(nfa);
+        for (String spec : includedSpecs) {
+            start.epsilons.add(compile(nfa, spec, INCLUDED));
+        }
+        for (String spec : excludedSpecs) {
+            start.epsilons.add(compile(nfa, spec, EXCLUDED));
+        }
+        return new BranchSpecAutomaton(nfa);
+    }
+
+    /**
+     * @return {@code true} if the spec is matched the same by the automaton and by {@code AntPathMatcher}
+     */
+    static boolean isCompilable(String spec) {
+        if (!isNormalPath(spec)) {
+            return false;
+        }
+        for (int i = 0; i < spec.length(); i++) {
+            char c = spec.charAt(i);
+            if (c == '{' || c == '}') {
+                // URI template variables of newer AntPathMatcher versions
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return {@code true} if the branch name (or spec) has no empty segments and no characters that
+     * {@code AntPathMatcher} versions trim or match differently
+     */
+    static boolean isNormalPath(String path) {
+        if (path.isEmpty() || path.charAt(0) == '/' || path.charAt(path.length() - 1) == '/' || path.contains("//")) {
+            return false;
+        }
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c <= ' ' || Character.isWhitespace(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param branchName a branch name for which {@link #isNormalPath(String)} is {@code true}
+     * @return {@link #INCLUDED} if an included spec matches, combined with {@link #EXCLUDED} if an excluded spec matches
+     */
+    int match(String branchName) {
+        DState state = step(start, '/');
+        for (int i = 0; i < branchName.length() && state != dead; i++) {
+            state = step(state, branchName.charAt(i));
+        }
+        return state.accept;
+    }
+
+    private DState step(DState state, char c) {
+        if (c < ASCII) {
+            DState target = state.ascii[c];
+            if (target != null) {
+                return target;
+            }
+        }
+        return slowStep(state, c);
+    }
+
+    private synchronized DState slowStep(DState state, char c) {
+        DState target = c < ASCII ? state.ascii[c] : state.other.get(c);
+        if (target != null) {
+            return target;
+        }
+        BitSet targetSet = new BitSet();
+        for (int i = state.nfaStates.nextSetBit(0); i >= 0; i = state.nfaStates.nextSetBit(i + 1)) {
+            if (consume[i] == c || (consume[i] == NOT_SLASH && c != '/')) {
+                targetSet.set(next[i]);
+            }
+        }
+        target = state(closure(targetSet));
+        if (states.size() < MAX_STATES) {
+            if (c < ASCII) {
+                state.ascii[c] = target;
+            } else {
+                state.other.put(c, target);
+            }
+        }
+        return target;
+    }
+
+    private DState state(BitSet nfaStates) {
+        DState state = states.get(nfaStates);
+        if (state == null) {
+            int stateAccept = 0;
+            for (int i = nfaStates.nextSetBit(0); i >= 0; i = nfaStates.nextSetBit(i + 1)) {
+                stateAccept |= accept[i];
+            }
+            state = new DState(nfaStates, stateAccept);
+            if (states.size() < MAX_STATES) {
+                states.put(nfaStates, state);
+            }
+        }
+        return state;
+    }
+
+    private BitSet closure(BitSet nfaStates) {
+        BitSet result = (BitSet) nfaStates.clone();
+        List<Integer> pending = new ArrayList<>();
+        for (int i = nfaStates.nextSetBit(0); i >= 0; i = nfaStates.nextSetBit(i + 1)) {
+            pending.add(i);
+        }
+        while (!pending.isEmpty()) {
+            int state = pending.remove(pending.size() - 1);
+            for (int target : epsilons[state]) {
+                if (!result.get(target)) {
+                    result.set(target);
+                    pending.add(target);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the id of the first state of the spec
+     */
+    private static int compile(List<NfaState> nfa, String spec, int acceptFlag) {
+        NfaState first = newState(nfa);
+        NfaState current = first;
+        String previousSegment = null;
+        for (String segment : spec.split("/")) {
+            if (segment.equals("**")) {
+                if (!segment.equals(previousSegment)) {
+                    // ("/" [^/]+)*
+                    NfaState separator = newState(nfa);
+                    NfaState segmentChars = newState(nfa);
+                    NfaState after = newState(nfa);
+                    current.consume = '/';
+                    current.next = separator.id;
+                    current.epsilons.add(after.id);
+                    separator.consume = NOT_SLASH;
+                    separator.next = segmentChars.id;
+                    segmentChars.consume = NOT_SLASH;
+                    segmentChars.next = segmentChars.id;
+                    segmentChars.epsilons.add(current.id);
+                    current = after;
+                }
+            } else {
+                current = consume(nfa, current, '/');
+                for (int i = 0; i < segment.length(); i++) {
+                    char c = segment.charAt(i);
+                    if (c == '*') {
+                        NfaState after = newState(nfa);
+                        current.consume = NOT_SLASH;
+                        current.next = current.id;
+                        current.epsilons.add(after.id);
+                        current = after;
+                    } else {
+                        current = consume(nfa, current, c == '?' ? NOT_SLASH : c);
+                    }
+                }
+            }
+            previousSegment = segment;
+        }
+        current.accept |= acceptFlag;
+        return first.id;
+    }
+
+    private static NfaState consume(List<NfaState> nfa, NfaState state, int c) {
+        NfaState target = newState(nfa);
+        state.consume = c;
+        state.next = target.id;
+        return target;
+    }
+
+    private static NfaState newState(List<NfaState> nfa) {
+        NfaState state = new NfaState(nfa.size());
+        nfa.add(state);
+        return state;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        int[] result = new int[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+
+    private static final class NfaState {
+        private final int id;
+        private final List<Integer> epsilons = new ArrayList<>(1);
+        private int consume = NONE;
+        private int next = NONE;
+        private int accept;
+
+        private NfaState(int id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * A deterministic state. The fields are final, so a state read from the transitions of another state
+     * without locking is fully initialized. Missing transitions are added under the lock of the automaton.
+     */
+    private static final class DState {
+        private final BitSet nfaStates;
+        private final int accept;
+        private final DState[] ascii = new DState[ASCII];
+        private final Map<Character, DState> other = new HashMap<>();
+
+        private DState(BitSet nfaStates, int accept) {
+            this.nfaStates = nfaStates;
+            this.accept = accept;
+        }
+    }
+}
@@ -19,27 +19,22 @@ class MergeRequestLabelFilterImpl implements MergeRequestLabelFilter {
         this.excludeLabels = convert(excludeLabels);
     }
 
+    /**
+     * Walks the labels of the merge request once and looks each one up in the configured labels.
+     */
     @Override
     public boolean isMergeRequestAllowed(Collection<String> labels) {
-        return containsNoExcludeLabel(labels) && containsIncludeLabel(labels);
-    }
-
-    private boolean containsNoExcludeLabel(Collection<String> labels) {
-        for (String excludeLabel : excludeLabels) {
-            if (labels != null && labels.contains(excludeLabel)) {
-                return false;
-            }
+        if (labels == null || labels.isEmpty() || (includeLabels.isEmpty() && excludeLabels.isEmpty())) {
+            return includeLabels.isEmpty();
         }
-        return true;
-    }
-
-    private boolean containsIncludeLabel(Collection<String> labels) {
-        for (String includeLabel : includeLabels) {
-            if (labels != null && labels.contains(includeLabel)) {
-                return true;
+        boolean included = includeLabels.isEmpty();
+        for (String label : labels) {
+            if (excludeLabels.contains(label)) {
+                return false;
             }
+            included |= includeLabels.contains(label);
         }
-        return includeLabels.isEmpty();
+        return included;
     }
 
     private Set<String> convert(String commaSeparatedString) {
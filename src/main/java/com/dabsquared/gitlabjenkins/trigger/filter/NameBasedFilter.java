@@ -1,58 +1,86 @@
 package com.dabsquared.gitlabjenkins.trigger.filter;
 
 import com.google.common.base.Splitter;
+import com.google.common.collect.Iterables;
 import org.springframework.util.AntPathMatcher;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import static com.dabsquared.gitlabjenkins.trigger.filter.BranchSpecAutomaton.EXCLUDED;
+import static com.dabsquared.gitlabjenkins.trigger.filter.BranchSpecAutomaton.INCLUDED;
+
 /**
+ * Matches the branch name against the Ant style include and exclude specs.
+ * The specs are compiled into a {@link BranchSpecAutomaton}, specs and branch names it cannot decide
+ * are matched with the {@link AntPathMatcher}.
+ *
  * @author Robin Müller
  */
 class NameBasedFilter implements BranchFilter {
 
-    private final List<String> includedBranches;
-    private final List<String> excludedBranches;
+    private static final AntPathMatcher MATCHER = new AntPathMatcher();
+
+    private final String[] includedBranches;
+    private final String[] excludedBranches;
+    private final String[] uncompiledIncludedBranches;
+    private final String[] uncompiledExcludedBranches;
+    private final BranchSpecAutomaton automaton;
 
     public NameBasedFilter(String includedBranches, String excludedBranches) {
         this.includedBranches = convert(includedBranches);
         this.excludedBranches = convert(excludedBranches);
+        List<String> compiledIncludedBranches = new ArrayList<>();
+        List<String> compiledExcludedBranches = new ArrayList<>();
+        this.uncompiledIncludedBranches = partition(this.includedBranches, compiledIncludedBranches);
+        this.uncompiledExcludedBranches = partition(this.excludedBranches, compiledExcludedBranches);
+        this.automaton = BranchSpecAutomaton.compile(compiledIncludedBranches, compiledExcludedBranches);
     }
 
     @Override
     public boolean isBranchAllowed(String branchName) {
-        return hasNoBranchSpecs() || (isBranchNotExcluded(branchName) && isBranchIncluded(branchName));
+        if (hasNoBranchSpecs()) {
+            return true;
+        }
+        if (branchName == null || !BranchSpecAutomaton.isNormalPath(branchName)) {
+            return !matchesAny(excludedBranches, branchName) && isBranchIncluded(matchesAny(includedBranches, branchName));
+        }
+        int match = automaton.match(branchName);
+        return (match & EXCLUDED) == 0 && !matchesAny(uncompiledExcludedBranches, branchName)
+            && isBranchIncluded((match & INCLUDED) != 0 || matchesAny(uncompiledIncludedBranches, branchName));
     }
 
     private boolean hasNoBranchSpecs() {
-        return includedBranches.isEmpty() && excludedBranches.isEmpty();
+        return includedBranches.length == 0 && excludedBranches.length == 0;
     }
 
-    private boolean isBranchNotExcluded(String branchName) {
-        AntPathMatcher matcher = new AntPathMatcher();
-        for (String excludePattern : excludedBranches) {
-            if (matcher.match(excludePattern, branchName)) {
-                return false;
-            }
-        }
-        return true;
+    private boolean isBranchIncluded(boolean matchesIncludedBranch) {
+        return matchesIncludedBranch || includedBranches.length == 0;
     }
 
-    private boolean isBranchIncluded(String branchName) {
-        AntPathMatcher matcher = new AntPathMatcher();
-        for (String includePattern : includedBranches) {
-            if (matcher.match(includePattern, branchName)) {
+    private static boolean matchesAny(String[] patterns, String branchName) {
+        for (String pattern : patterns) {
+            if (MATCHER.match(pattern, branchName)) {
                 return true;
             }
         }
-        return includedBranches.isEmpty();
+        return false;
     }
 
-    private List<String> convert(String commaSeparatedString) {
-        ArrayList<String> result = new ArrayList<>();
-        for (String s : Splitter.on(',').omitEmptyStrings().trimResults().split(commaSeparatedString)) {
-            result.add(s);
+    /**
+     * Adds the specs that can be compiled to the given list.
+     *
+     * @return the other specs
+     */
+    private static String[] partition(String[] specs, List<String> compilable) {
+        List<String> uncompilable = new ArrayList<>();
+        for (String spec : specs) {
+            (BranchSpecAutomaton.isCompilable(spec) ? compilable : uncompilable).add(spec);
         }
-        return result;
+        return uncompilable.toArray(new String[uncompilable.size()]);
+    }
+
+    private String[] convert(String commaSeparatedString) {
+        return Iterables.toArray(Splitter.on(',').omitEmptyStrings().trimResults().split(commaSeparatedString), String.class);
     }
 }
@@ -0,0 +1,12 @@
+package com.dabsquared.gitlabjenkins.trigger.filter;
+
+import com.google.common.base.Supplier;
+
+import java.util.Collection;
+
+class NopPathFilter implements PathFilter {
+    @Override
+    public boolean isChangeAllowed(Supplier<? extends Collection<String>> changedPaths) {
+        return true;
+    }
+}
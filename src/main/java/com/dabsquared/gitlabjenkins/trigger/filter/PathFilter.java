@@ -0,0 +1,17 @@
+package com.dabsquared.gitlabjenkins.trigger.filter;
+
+import com.google.common.base.Supplier;
+
+import java.util.Collection;
+
+/**
+ * Decides by the files changed by a push or merge request whether a job is triggered.
+ */
+public interface PathFilter {
+
+    /**
+     * @param changedPaths supplies the changed paths, {@code null} if they could not be determined.
+     *                     It is only asked if the filter has to look at the paths, since that may cost GitLab API calls.
+     */
+    boolean isChangeAllowed(Supplier<? extends Collection<String>> changedPaths);
+}
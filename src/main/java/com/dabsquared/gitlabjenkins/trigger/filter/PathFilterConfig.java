@@ -0,0 +1,26 @@
+package com.dabsquared.gitlabjenkins.trigger.filter;
+
+import org.kohsuke.stapler.DataBoundConstructor;
+
+/**
+ * The Ant style include and exclude specs of the changed paths that trigger a job.
+ */
+public class PathFilterConfig {
+
+    private final String include;
+    private final String exclude;
+
+    @DataBoundConstructor
+    public PathFilterConfig(String include, String exclude) {
+        this.include = include;
+        this.exclude = exclude;
+    }
+
+    public String getInclude() {
+        return include;
+    }
+
+    public String getExclude() {
+        return exclude;
+    }
+}
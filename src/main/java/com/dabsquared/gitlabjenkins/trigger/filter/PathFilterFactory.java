@@ -0,0 +1,16 @@
+package com.dabsquared.gitlabjenkins.trigger.filter;
+
+import org.apache.commons.lang.StringUtils;
+
+public final class PathFilterFactory {
+
+    private PathFilterFactory() { }
+
+    public static PathFilter newPathFilter(PathFilterConfig config) {
+        if (config == null || (StringUtils.isBlank(config.getInclude()) && StringUtils.isBlank(config.getExclude()))) {
+            return new NopPathFilter();
+        } else {
+            return new PathFilterImpl(StringUtils.defaultString(config.getInclude()), StringUtils.defaultString(config.getExclude()));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.dabsquared.gitlabjenkins.trigger.filter;
+
+import com.google.common.base.Supplier;
+
+import java.util.Collection;
+
+/**
+ * Allows a change if one of its paths matches an included spec and no excluded spec.
+ * The specs are compiled once like the branch specs of the {@link NameBasedFilter}, a path is matched like a branch name.
+ */
+class PathFilterImpl implements PathFilter {
+
+    private final NameBasedFilter specs;
+
+    PathFilterImpl(String includedPaths, String excludedPaths) {
+        this.specs = new NameBasedFilter(includedPaths, excludedPaths);
+    }
+
+    @Override
+    public boolean isChangeAllowed(Supplier<? extends Collection<String>> changedPaths) {
+        Collection<String> paths = changedPaths.get();
+        if (paths == null) {
+            // rather build too often than miss a change
+            return true;
+        }
+        for (String path : paths) {
+            if (specs.isBranchAllowed(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
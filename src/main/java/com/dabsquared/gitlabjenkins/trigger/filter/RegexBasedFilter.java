@@ -2,19 +2,41 @@ package com.dabsquared.gitlabjenkins.trigger.filter;
 
 import org.apache.commons.lang.StringUtils;
 
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
 /**
  * @author Robin Müller
  */
 class RegexBasedFilter implements BranchFilter {
 
+    private static final Logger LOGGER = Logger.getLogger(RegexBasedFilter.class.getName());
+
     private final String regex;
+    private final Pattern pattern;
 
     public RegexBasedFilter(String regex) {
         this.regex = regex;
+        this.pattern = compile(regex);
     }
 
     @Override
     public boolean isBranchAllowed(String branchName) {
-        return StringUtils.isEmpty(branchName) || StringUtils.isEmpty(regex) || branchName.matches(regex);
+        return StringUtils.isEmpty(branchName) || StringUtils.isEmpty(regex) || (pattern != null && pattern.matcher(branchName).matches());
+    }
+
+    private static Pattern compile(String regex) {
+        if (StringUtils.isEmpty(regex)) {
+            return null;
+        }
+        try {
+            return Pattern.compile(regex);
+        } catch (PatternSyntaxException e) {
+            // no branch is allowed, like before when every check failed with this exception
+            LOGGER.log(Level.WARNING, "Invalid branch filter regex: " + regex, e);
+            return null;
+        }
     }
 }
@@ -10,6 +10,8 @@ import com.dabsquared.gitlabjenkins.publisher.GitLabCommitStatusPublisher;
 import com.dabsquared.gitlabjenkins.trigger.exception.NoRevisionToBuildException;
 import com.dabsquared.gitlabjenkins.trigger.filter.BranchFilter;
 import com.dabsquared.gitlabjenkins.trigger.filter.MergeRequestLabelFilter;
+import com.dabsquared.gitlabjenkins.trigger.history.Outcome;
+import com.dabsquared.gitlabjenkins.trigger.history.WebHookTrace;
 import com.dabsquared.gitlabjenkins.util.LoggerUtil;
 import hudson.model.AbstractProject;
 import hudson.model.Action;
@@ -38,48 +40,110 @@ public abstract class AbstractWebHookTriggerHandler<H extends WebHook> implement
 
     private static final Logger LOGGER = Logger.getLogger(AbstractWebHookTriggerHandler.class.getName());
 
+    private final boolean cancelSupersededBuilds;
+
+    protected AbstractWebHookTriggerHandler() {
+        this(false);
+    }
+
+    /**
+     * @param cancelSupersededBuilds whether a build cancels the queued and running builds of the same merge request or branch
+     */
+    protected AbstractWebHookTriggerHandler(boolean cancelSupersededBuilds) {
+        this.cancelSupersededBuilds = cancelSupersededBuilds;
+    }
+
     @Override
     public void handle(Job<?, ?> job, H hook, boolean ciSkip, BranchFilter branchFilter, MergeRequestLabelFilter mergeRequestLabelFilter) {
         if (ciSkip && isCiSkip(hook)) {
             LOGGER.log(Level.INFO, "Skipping due to ci-skip.");
+            WebHookTrace.decide(getTriggerType(), Outcome.CI_SKIP);
             return;
         }
 
         String targetBranch = getTargetBranch(hook);
-        if (branchFilter.isBranchAllowed(targetBranch)) {
+        if (!branchFilter.isBranchAllowed(targetBranch)) {
+            LOGGER.log(Level.INFO, "branch {0} is not allowed", targetBranch);
+            WebHookTrace.decide(getTriggerType(), Outcome.BRANCH_FILTER, targetBranch);
+        } else if (!isChangedPathAllowed(job, hook)) {
+            LOGGER.log(Level.INFO, "No changed path of {0} is allowed", targetBranch);
+            WebHookTrace.decide(getTriggerType(), Outcome.PATH_FILTER, targetBranch);
+        } else if (isBuildReused(job, hook)) {
+            LOGGER.log(Level.INFO, "{0} reused an existing build for {1}", LoggerUtil.toArray(job.getFullName(), targetBranch));
+            WebHookTrace.decide(getTriggerType(), Outcome.REUSED, targetBranch);
+        } else {
             LOGGER.log(Level.INFO, "{0} triggered for {1}.", LoggerUtil.toArray(job.getFullName(), getTriggerType()));
+            WebHookTrace.decide(getTriggerType(), Outcome.TRIGGERED, targetBranch);
+            cancelSupersededBuildsIfNecessary(job, hook);
             setCommitStatusPendingIfNecessary(job, hook);
             scheduleBuild(job, createActions(job, hook));
-        } else {
-            LOGGER.log(Level.INFO, "branch {0} is not allowed", targetBranch);
         }
     }
 
+    /**
+     * Checked after the branch filter, since it may need to ask GitLab for the changes of the hook.
+     *
+     * @return {@code false} if the path filter of the job allows none of the changed files
+     */
+    protected boolean isChangedPathAllowed(Job<?, ?> job, H hook) {
+        return true;
+    }
+
+    /**
+     * Checked right before a build would be scheduled, a handler that reuses a build reports its result itself.
+     *
+     * @return {@code true} if the result of an existing build stands in for the build of the hook
+     */
+    protected boolean isBuildReused(Job<?, ?> job, H hook) {
+        return false;
+    }
+
+    protected static GitLabClient getClient(Job<?, ?> job) {
+        GitLabConnectionProperty property = job.getProperty(GitLabConnectionProperty.class);
+        return property == null ? null : property.getClient();
+    }
+
     protected abstract String getTriggerType();
 
     protected abstract boolean isCiSkip(H hook);
 
+    private void cancelSupersededBuildsIfNecessary(Job<?, ?> job, H hook) {
+        if (cancelSupersededBuilds) {
+            SupersededBuildCanceller.cancelSupersededBuilds(job, retrieveCauseData(hook));
+        }
+    }
+
     private void setCommitStatusPendingIfNecessary(Job<?, ?> job, H hook) {
-        if (job instanceof AbstractProject && ((AbstractProject) job).getPublishersList().get(GitLabCommitStatusPublisher.class) != null) {
-            GitLabCommitStatusPublisher publisher =
-                (GitLabCommitStatusPublisher) ((AbstractProject) job).getPublishersList().get(GitLabCommitStatusPublisher.class);
+        if (getCommitStatusPublisher(job) != null) {
+            String targetUrl = Jenkins.getInstance().getRootUrl() + job.getUrl() + job.getNextBuildNumber() + "/";
+            setCommitStatusIfNecessary(job, retrieveBuildStatusUpdate(hook), BuildState.pending, targetUrl, null);
+        }
+    }
+
+    protected void setCommitStatusIfNecessary(Job<?, ?> job, BuildStatusUpdate buildStatusUpdate, BuildState state, String targetUrl, String description) {
+        GitLabCommitStatusPublisher publisher = getCommitStatusPublisher(job);
+        if (publisher != null) {
             GitLabClient client = job.getProperty(GitLabConnectionProperty.class).getClient();
-            BuildStatusUpdate buildStatusUpdate = retrieveBuildStatusUpdate(hook);
             try {
                 if (client == null) {
                     LOGGER.log(Level.SEVERE, "No GitLab connection configured");
                 } else {
-                    String targetUrl =
-                        Jenkins.getInstance().getRootUrl() + job.getUrl() + job.getNextBuildNumber() + "/";
                     client.changeBuildStatus(buildStatusUpdate.getProjectId(), buildStatusUpdate.getSha(),
-                        BuildState.pending, buildStatusUpdate.getRef(), publisher.getName(), targetUrl, null);
+                        state, buildStatusUpdate.getRef(), publisher.getName(), targetUrl, description);
                 }
             } catch (WebApplicationException | ProcessingException e) {
-                LOGGER.log(Level.SEVERE, "Failed to set build state to pending", e);
+                LOGGER.log(Level.SEVERE, "Failed to set build state to " + state, e);
             }
         }
     }
 
+    private GitLabCommitStatusPublisher getCommitStatusPublisher(Job<?, ?> job) {
+        if (job instanceof AbstractProject) {
+            return (GitLabCommitStatusPublisher) ((AbstractProject) job).getPublishersList().get(GitLabCommitStatusPublisher.class);
+        }
+        return null;
+    }
+
     protected Action[] createActions(Job<?, ?> job, H hook) {
         ArrayList<Action> actions = new ArrayList<>();
         actions.add(new CauseAction(new GitLabWebHookCause(retrieveCauseData(hook))));
@@ -114,6 +178,10 @@ public abstract class AbstractWebHookTriggerHandler<H extends WebHook> implement
     }
 
     protected void scheduleBuild(Job<?, ?> job, Action[] actions) {
+        retrieveScheduleJob(job).scheduleBuild2(getQuietPeriod(job), actions);
+    }
+
+    protected int getQuietPeriod(Job<?, ?> job) {
         int projectBuildDelay = 0;
         if (job instanceof ParameterizedJobMixIn.ParameterizedJob) {
             ParameterizedJobMixIn.ParameterizedJob abstractProject = (ParameterizedJobMixIn.ParameterizedJob) job;
@@ -121,7 +189,7 @@ public abstract class AbstractWebHookTriggerHandler<H extends WebHook> implement
                 projectBuildDelay = abstractProject.getQuietPeriod();
             }
         }
-        retrieveScheduleJob(job).scheduleBuild2(projectBuildDelay, actions);
+        return projectBuildDelay;
     }
 
     private ParameterizedJobMixIn retrieveScheduleJob(final Job<?, ?> job) {
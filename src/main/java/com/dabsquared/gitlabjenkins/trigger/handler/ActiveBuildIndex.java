@@ -0,0 +1,212 @@
+package com.dabsquared.gitlabjenkins.trigger.handler;
+
+import com.dabsquared.gitlabjenkins.cause.CauseData;
+import com.dabsquared.gitlabjenkins.cause.GitLabWebHookCause;
+import hudson.Extension;
+import hudson.model.Cause;
+import hudson.model.Executor;
+import hudson.model.Job;
+import hudson.model.Queue;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import hudson.model.queue.QueueListener;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory index of the queued and running builds caused by GitLab web hooks, by job and by the merge request or
+ * branch they build, so that the builds of a merge request or branch can be cancelled without walking the whole
+ * queue and every executor.
+ * <p>
+ * Queue items are added when they enter the queue and removed when they leave it, builds are added when they start
+ * and removed when they complete. Builds that are already queued or running when Jenkins starts are not indexed.
+ * <p>
+ * A queue item that is handed to an executor leaves the queue before its build reports that it started, so for a
+ * short time the build is in neither index and cannot be cancelled. Such a build runs to completion: a superseded
+ * build is followed by the build that superseded it, and the build of a closed merge request only reports a result
+ * nobody waits for. Closing the gap would need the build of a left queue item, which Jenkins does not expose to
+ * queue listeners reliably.
+ */
+public final class ActiveBuildIndex {
+
+    private static final ActiveBuildIndex INSTANCE = new ActiveBuildIndex();
+
+    private final Map<String, Map<Long, CauseData>> queuedBuilds = new HashMap<>();
+    private final Map<String, Map<Run<?, ?>, Executor>> runningBuilds = new HashMap<>();
+
+    ActiveBuildIndex() { }
+
+    public static ActiveBuildIndex instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the merge request or the branch the build is for, {@code null} for builds that are not indexed
+     */
+    static String getKey(CauseData causeData) {
+        switch (causeData.getActionType()) {
+            case MERGE:
+            case NOTE:
+                return getMergeRequestKey(causeData.getTargetProjectId(), causeData.getMergeRequestIid());
+            case PUSH:
+                return causeData.getSourceBranch() == null ? null : "branch " + causeData.getSourceProjectId() + ":" + causeData.getSourceBranch();
+            default:
+                return null;
+        }
+    }
+
+    static String getMergeRequestKey(Integer targetProjectId, Integer mergeRequestIid) {
+        return mergeRequestIid == null ? null : "merge request " + targetProjectId + "!" + mergeRequestIid;
+    }
+
+    /**
+     * @return the ids and causes of the queue items of the job for the merge request or branch
+     */
+    synchronized Map<Long, CauseData> getQueuedBuilds(Job<?, ?> job, String key) {
+        Map<Long, CauseData> builds = queuedBuilds.get(getIndexKey(job.getFullName(), key));
+        return builds == null ? Collections.<Long, CauseData>emptyMap() : new LinkedHashMap<>(builds);
+    }
+
+    /**
+     * @return the running builds of the job for the merge request or branch and their executors,
+     * {@code null} if the executor is not known
+     */
+    synchronized Map<Run<?, ?>, Executor> getRunningBuilds(Job<?, ?> job, String key) {
+        Map<Run<?, ?>, Executor> builds = runningBuilds.get(getIndexKey(job.getFullName(), key));
+        return builds == null ? Collections.<Run<?, ?>, Executor>emptyMap() : new LinkedHashMap<>(builds);
+    }
+
+    public synchronized int getActiveBuildCount() {
+        int result = 0;
+        for (Map<Long, CauseData> builds : queuedBuilds.values()) {
+            result += builds.size();
+        }
+        for (Map<Run<?, ?>, Executor> builds : runningBuilds.values()) {
+            result += builds.size();
+        }
+        return result;
+    }
+
+    synchronized void addQueuedBuild(String fullName, long id, CauseData causeData) {
+        String key = getKey(causeData);
+        if (key != null) {
+            String indexKey = getIndexKey(fullName, key);
+            Map<Long, CauseData> builds = queuedBuilds.get(indexKey);
+            if (builds == null) {
+                builds = new LinkedHashMap<>();
+                queuedBuilds.put(indexKey, builds);
+            }
+            builds.put(id, causeData);
+        }
+    }
+
+    synchronized void removeQueuedBuild(String fullName, long id, CauseData causeData) {
+        String key = getKey(causeData);
+        if (key != null) {
+            String indexKey = getIndexKey(fullName, key);
+            Map<Long, CauseData> builds = queuedBuilds.get(indexKey);
+            if (builds != null && builds.remove(id) != null && builds.isEmpty()) {
+                queuedBuilds.remove(indexKey);
+            }
+        }
+    }
+
+    synchronized void addRunningBuild(Run<?, ?> run, Executor executor, CauseData causeData) {
+        String key = getKey(causeData);
+        if (key != null) {
+            String indexKey = getIndexKey(run.getParent().getFullName(), key);
+            Map<Run<?, ?>, Executor> builds = runningBuilds.get(indexKey);
+            if (builds == null) {
+                builds = new LinkedHashMap<>();
+                runningBuilds.put(indexKey, builds);
+            }
+            builds.put(run, executor);
+        }
+    }
+
+    synchronized void removeRunningBuild(Run<?, ?> run, CauseData causeData) {
+        String key = getKey(causeData);
+        if (key != null) {
+            String indexKey = getIndexKey(run.getParent().getFullName(), key);
+            Map<Run<?, ?>, Executor> builds = runningBuilds.get(indexKey);
+            if (builds != null && builds.containsKey(run)) {
+                builds.remove(run);
+                if (builds.isEmpty()) {
+                    runningBuilds.remove(indexKey);
+                }
+            }
+        }
+    }
+
+    private static String getIndexKey(String fullName, String key) {
+        return fullName + '#' + key;
+    }
+
+    private static CauseData getCauseData(List<Cause> causes) {
+        for (Cause cause : causes) {
+            if (cause instanceof GitLabWebHookCause) {
+                return ((GitLabWebHookCause) cause).getData();
+            }
+        }
+        return null;
+    }
+
+    private static String getFullName(Queue.Task task) {
+        return task instanceof Job ? ((Job<?, ?>) task).getFullName() : null;
+    }
+
+    @Extension
+    public static class IndexingQueueListener extends QueueListener {
+        @Override
+        public void onEnterWaiting(Queue.WaitingItem item) {
+            String fullName = getFullName(item.task);
+            CauseData causeData = getCauseData(item.getCauses());
+            if (fullName != null && causeData != null) {
+                INSTANCE.addQueuedBuild(fullName, item.getId(), causeData);
+            }
+        }
+
+        @Override
+        public void onLeft(Queue.LeftItem item) {
+            String fullName = getFullName(item.task);
+            CauseData causeData = getCauseData(item.getCauses());
+            if (fullName != null && causeData != null) {
+                INSTANCE.removeQueuedBuild(fullName, item.getId(), causeData);
+            }
+        }
+    }
+
+    @Extension
+    public static class IndexingRunListener extends RunListener<Run<?, ?>> {
+        @Override
+        public void onStarted(Run<?, ?> run, TaskListener listener) {
+            GitLabWebHookCause cause = run.getCause(GitLabWebHookCause.class);
+            if (cause != null) {
+                // the listeners are notified on the thread of the executor that runs the build
+                Executor executor = Executor.currentExecutor();
+                INSTANCE.addRunningBuild(run, executor != null && executor.getCurrentExecutable() == run ? executor : null, cause.getData());
+            }
+        }
+
+        @Override
+        public void onCompleted(Run<?, ?> run, TaskListener listener) {
+            GitLabWebHookCause cause = run.getCause(GitLabWebHookCause.class);
+            if (cause != null) {
+                INSTANCE.removeRunningBuild(run, cause.getData());
+            }
+        }
+
+        @Override
+        public void onDeleted(Run<?, ?> run) {
+            GitLabWebHookCause cause = run.getCause(GitLabWebHookCause.class);
+            if (cause != null) {
+                INSTANCE.removeRunningBuild(run, cause.getData());
+            }
+        }
+    }
+}
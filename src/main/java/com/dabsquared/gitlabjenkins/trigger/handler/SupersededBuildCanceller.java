@@ -0,0 +1,166 @@
+package com.dabsquared.gitlabjenkins.trigger.handler;
+
+import com.dabsquared.gitlabjenkins.cause.CauseData;
+import com.dabsquared.gitlabjenkins.cause.GitLabWebHookCause;
+import com.dabsquared.gitlabjenkins.connection.GitLabConnectionProperty;
+import com.dabsquared.gitlabjenkins.gitlab.api.GitLabClient;
+import com.dabsquared.gitlabjenkins.gitlab.api.model.BuildState;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.State;
+import com.dabsquared.gitlabjenkins.publisher.GitLabCommitStatusPublisher;
+import com.dabsquared.gitlabjenkins.util.LoggerUtil;
+import hudson.model.AbstractProject;
+import hudson.model.Cause;
+import hudson.model.Executor;
+import hudson.model.Job;
+import hudson.model.Queue;
+import hudson.model.Result;
+import hudson.model.Run;
+import jenkins.model.CauseOfInterruption;
+import jenkins.model.Jenkins;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.WebApplicationException;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cancels the builds of a job that are no longer needed: the builds that a new web hook build supersedes, i.e. the
+ * builds of the same merge request, or of the same branch for push builds, and the builds of a merge request that has
+ * been closed or merged. Queued builds are removed from the queue and their pending commit status is set to canceled,
+ * running builds are aborted and report their result themselves. The builds are looked up in the {@link ActiveBuildIndex}.
+ */
+public final class SupersededBuildCanceller {
+
+    private static final Logger LOGGER = Logger.getLogger(SupersededBuildCanceller.class.getName());
+
+    private SupersededBuildCanceller() { }
+
+    /**
+     * Builds of the same commit are kept, a rebuild of the commit would only repeat them.
+     *
+     * @param causeData the cause of the build that is about to be scheduled
+     */
+    public static void cancelSupersededBuilds(Job<?, ?> job, CauseData causeData) {
+        String key = ActiveBuildIndex.getKey(causeData);
+        if (key != null) {
+            cancelBuilds(job, key, causeData.getLastCommit(), new SupersededCause(causeData.getLastCommit()));
+        }
+    }
+
+    /**
+     * @param state {@link State#closed} or {@link State#merged}
+     */
+    public static void cancelMergeRequestBuilds(Job<?, ?> job, Integer targetProjectId, Integer mergeRequestIid, State state) {
+        String key = ActiveBuildIndex.getMergeRequestKey(targetProjectId, mergeRequestIid);
+        if (key != null) {
+            cancelBuilds(job, key, null, new MergeRequestClosedCause(mergeRequestIid, state));
+        }
+    }
+
+    /**
+     * @param keptCommit the commit whose builds are not canceled, {@code null} to cancel all builds of the key
+     */
+    private static void cancelBuilds(Job<?, ?> job, String key, String keptCommit, CauseOfInterruption cause) {
+        Jenkins jenkins = Jenkins.getInstance();
+        if (jenkins == null) {
+            return;
+        }
+        Queue queue = jenkins.getQueue();
+        for (Long id : ActiveBuildIndex.instance().getQueuedBuilds(job, key).keySet()) {
+            Queue.Item item = queue.getItem(id);
+            // a queued push build may have been coalesced with a later push since it was indexed
+            CauseData queued = item == null ? null : getCauseData(item.getCauses());
+            if (queued != null && !isKept(queued, keptCommit) && queue.cancel(item)) {
+                LOGGER.log(Level.INFO, "Removed queued build of {0} for {1}: {2}",
+                           LoggerUtil.toArray(job.getFullName(), queued.getLastCommit(), cause.getShortDescription()));
+                setCommitStatusCanceledIfNecessary(job, queued, cause.getShortDescription());
+            }
+        }
+        for (Map.Entry<Run<?, ?>, Executor> build : ActiveBuildIndex.instance().getRunningBuilds(job, key).entrySet()) {
+            Run<?, ?> run = build.getKey();
+            Executor executor = build.getValue() == null ? run.getExecutor() : build.getValue();
+            if (executor != null && run.isBuilding() && !isKept(getCauseData(run.getCauses()), keptCommit)) {
+                LOGGER.log(Level.INFO, "Aborting {0}: {1}", LoggerUtil.toArray(run.getFullDisplayName(), cause.getShortDescription()));
+                executor.interrupt(Result.ABORTED, cause);
+            }
+        }
+    }
+
+    private static boolean isKept(CauseData causeData, String keptCommit) {
+        return keptCommit != null && causeData != null && keptCommit.equals(causeData.getLastCommit());
+    }
+
+    private static CauseData getCauseData(List<Cause> causes) {
+        for (Cause cause : causes) {
+            if (cause instanceof GitLabWebHookCause) {
+                return ((GitLabWebHookCause) cause).getData();
+            }
+        }
+        return null;
+    }
+
+    private static void setCommitStatusCanceledIfNecessary(Job<?, ?> job, CauseData causeData, String description) {
+        if (job instanceof AbstractProject) {
+            GitLabCommitStatusPublisher publisher =
+                (GitLabCommitStatusPublisher) ((AbstractProject<?, ?>) job).getPublishersList().get(GitLabCommitStatusPublisher.class);
+            GitLabConnectionProperty property = job.getProperty(GitLabConnectionProperty.class);
+            GitLabClient client = property == null ? null : property.getClient();
+            if (publisher != null && client != null) {
+                try {
+                    client.changeBuildStatus(causeData.getSourceProjectId(), causeData.getLastCommit(), BuildState.canceled, causeData.getSourceBranch(),
+                                             publisher.getName(), Jenkins.getInstance().getRootUrl() + job.getUrl(), description);
+                } catch (WebApplicationException | ProcessingException e) {
+                    LOGGER.log(Level.SEVERE, "Failed to set build state to " + BuildState.canceled, e);
+                }
+            }
+        }
+    }
+
+    public static final class SupersededCause extends CauseOfInterruption {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String sha;
+
+        SupersededCause(String sha) {
+            this.sha = sha;
+        }
+
+        public String getSha() {
+            return sha;
+        }
+
+        @Override
+        public String getShortDescription() {
+            return "Superseded by a build of " + sha;
+        }
+    }
+
+    public static final class MergeRequestClosedCause extends CauseOfInterruption {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Integer mergeRequestIid;
+        private final State state;
+
+        MergeRequestClosedCause(Integer mergeRequestIid, State state) {
+            this.mergeRequestIid = mergeRequestIid;
+            this.state = state;
+        }
+
+        public Integer getMergeRequestIid() {
+            return mergeRequestIid;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        @Override
+        public String getShortDescription() {
+            return "Merge request !" + mergeRequestIid + " has been " + state;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.dabsquared.gitlabjenkins.trigger.handler.merge;
 
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.State;
 import com.dabsquared.gitlabjenkins.trigger.TriggerOpenMergeRequest;
+import com.dabsquared.gitlabjenkins.trigger.filter.PathFilter;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -17,10 +18,12 @@ public final class MergeRequestHookTriggerHandlerFactory {
     		                                                                       boolean triggerOnAcceptedMergeRequest,
     		                                                                       boolean triggerOnClosedMergeRequest,
                                                                                    TriggerOpenMergeRequest triggerOpenMergeRequest,
-                                                                                   boolean skipWorkInProgressMergeRequest) {
+                                                                                   boolean skipWorkInProgressMergeRequest,
+                                                                                   PathFilter pathFilter,
+                                                                                   boolean cancelSupersededBuilds) {
         if (triggerOnMergeRequest || triggerOnAcceptedMergeRequest || triggerOnClosedMergeRequest || triggerOpenMergeRequest != TriggerOpenMergeRequest.never) {
             return new MergeRequestHookTriggerHandlerImpl(retrieveAllowedStates(triggerOnMergeRequest, triggerOnAcceptedMergeRequest, triggerOnClosedMergeRequest, triggerOpenMergeRequest),
-                                                          skipWorkInProgressMergeRequest);
+                                                          skipWorkInProgressMergeRequest, pathFilter, cancelSupersededBuilds);
         } else {
             return new NopMergeRequestHookTriggerHandler();
         }
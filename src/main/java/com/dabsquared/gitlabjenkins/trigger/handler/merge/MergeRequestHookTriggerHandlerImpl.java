@@ -2,21 +2,33 @@ package com.dabsquared.gitlabjenkins.trigger.handler.merge;
 
 import com.dabsquared.gitlabjenkins.cause.CauseData;
 import com.dabsquared.gitlabjenkins.cause.GitLabWebHookCause;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.Action;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.Change;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.Label;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestHookChanges;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestObjectAttributes;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.State;
+import com.dabsquared.gitlabjenkins.service.GitLabChangedPathService;
 import com.dabsquared.gitlabjenkins.trigger.exception.NoRevisionToBuildException;
 import com.dabsquared.gitlabjenkins.trigger.filter.BranchFilter;
 import com.dabsquared.gitlabjenkins.trigger.filter.MergeRequestLabelFilter;
+import com.dabsquared.gitlabjenkins.trigger.filter.PathFilter;
+import com.dabsquared.gitlabjenkins.trigger.filter.PathFilterFactory;
 import com.dabsquared.gitlabjenkins.trigger.handler.AbstractWebHookTriggerHandler;
+import com.dabsquared.gitlabjenkins.trigger.history.Outcome;
+import com.dabsquared.gitlabjenkins.trigger.history.WebHookTrace;
 import com.dabsquared.gitlabjenkins.util.BuildUtil;
+import com.google.common.base.Supplier;
 import hudson.model.Job;
 import hudson.model.Run;
 import hudson.plugins.git.GitSCM;
 import hudson.plugins.git.RevisionParameterAction;
 import org.apache.commons.lang.StringUtils;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -33,23 +45,53 @@ class MergeRequestHookTriggerHandlerImpl extends AbstractWebHookTriggerHandler<M
 
     private final List<State> allowedStates;
     private final boolean skipWorkInProgressMergeRequest;
+    private final PathFilter pathFilter;
 
     MergeRequestHookTriggerHandlerImpl(List<State> allowedStates, boolean skipWorkInProgressMergeRequest) {
+        this(allowedStates, skipWorkInProgressMergeRequest, PathFilterFactory.newPathFilter(null));
+    }
+
+    MergeRequestHookTriggerHandlerImpl(List<State> allowedStates, boolean skipWorkInProgressMergeRequest, PathFilter pathFilter) {
+        this(allowedStates, skipWorkInProgressMergeRequest, pathFilter, false);
+    }
+
+    MergeRequestHookTriggerHandlerImpl(List<State> allowedStates, boolean skipWorkInProgressMergeRequest, PathFilter pathFilter,
+                                       boolean cancelSupersededBuilds) {
+        super(cancelSupersededBuilds);
         this.allowedStates = allowedStates;
         this.skipWorkInProgressMergeRequest = skipWorkInProgressMergeRequest;
+        this.pathFilter = pathFilter;
     }
 
     @Override
     public void handle(Job<?, ?> job, MergeRequestHook hook, boolean ciSkip, BranchFilter branchFilter, MergeRequestLabelFilter mergeRequestLabelFilter) {
         MergeRequestObjectAttributes objectAttributes = hook.getObjectAttributes();
-        if (allowedStates.contains(objectAttributes.getState())
-            && isLastCommitNotYetBuild(job, hook)
-            && isNotSkipWorkInProgressMergeRequest(objectAttributes)
-            && mergeRequestLabelFilter.isMergeRequestAllowed(hook.getObjectAttributes().getLabels())) {
+        if (!allowedStates.contains(objectAttributes.getState())) {
+            WebHookTrace.decide(getTriggerType(), Outcome.STATE_NOT_ALLOWED, String.valueOf(objectAttributes.getState()));
+        } else if (isNoOpUpdate(hook, mergeRequestLabelFilter)) {
+            LOGGER.log(Level.FINE, "Merge Request !{0} was updated without a build relevant change", objectAttributes.getIid());
+            WebHookTrace.decide(getTriggerType(), Outcome.NO_RELEVANT_CHANGE);
+        } else if (!isLastCommitNotYetBuild(job, hook)) {
+            WebHookTrace.decide(getTriggerType(), Outcome.ALREADY_BUILT);
+        } else if (!isNotSkipWorkInProgressMergeRequest(objectAttributes)) {
+            WebHookTrace.decide(getTriggerType(), Outcome.WORK_IN_PROGRESS);
+        } else if (!mergeRequestLabelFilter.isMergeRequestAllowed(hook.getObjectAttributes().getLabels())) {
+            WebHookTrace.decide(getTriggerType(), Outcome.LABEL_FILTER);
+        } else {
             super.handle(job, hook, ciSkip, branchFilter, mergeRequestLabelFilter);
         }
     }
 
+    @Override
+    protected boolean isChangedPathAllowed(final Job<?, ?> job, final MergeRequestHook hook) {
+        return pathFilter.isChangeAllowed(new Supplier<Set<String>>() {
+            @Override
+            public Set<String> get() {
+                return GitLabChangedPathService.instance().getChangedPaths(getClient(job), hook.getObjectAttributes());
+            }
+        });
+    }
+
     @Override
     protected boolean isCiSkip(MergeRequestHook hook) {
         return hook.getObjectAttributes() != null
@@ -127,6 +169,49 @@ class MergeRequestHookTriggerHandlerImpl extends AbstractWebHookTriggerHandler<M
         }
     }
 
+    /**
+     * Decides from the changes GitLab sends with an update event whether it can change what is built: a new commit
+     * ({@code oldrev} is only sent for pushes), another source or target branch, a title or draft change that ends
+     * the work in progress, a description that no longer contains {@code [ci-skip]}, or labels that the label filter
+     * did not allow before but allows now.
+     * Other title, description, assignee and milestone edits are rejected without looking at the build history.
+     *
+     * @return {@code false} if the event is no update or GitLab did not send its changes
+     */
+    boolean isNoOpUpdate(MergeRequestHook hook, MergeRequestLabelFilter mergeRequestLabelFilter) {
+        MergeRequestObjectAttributes objectAttributes = hook.getObjectAttributes();
+        MergeRequestHookChanges changes = hook.getChanges();
+        if (objectAttributes.getAction() != Action.update || changes == null || StringUtils.isNotEmpty(objectAttributes.getOldrev())) {
+            return false;
+        }
+        if (changes.getSourceBranch() != null || changes.getTargetBranch() != null) {
+            return false;
+        }
+        if (skipWorkInProgressMergeRequest && (changes.getTitle() != null || changes.getDraft() != null)) {
+            return false;
+        }
+        Change<String> description = changes.getDescription();
+        if (description != null && StringUtils.contains(description.getPrevious(), "[ci-skip]")
+            && !StringUtils.contains(description.getCurrent(), "[ci-skip]")) {
+            return false;
+        }
+        Change<List<Label>> labels = changes.getLabels();
+        return labels == null
+            || mergeRequestLabelFilter.isMergeRequestAllowed(getTitles(labels.getPrevious()))
+            || !mergeRequestLabelFilter.isMergeRequestAllowed(getTitles(labels.getCurrent()));
+    }
+
+    private static List<String> getTitles(List<Label> labels) {
+        if (labels == null) {
+            return null;
+        }
+        List<String> result = new ArrayList<>(labels.size());
+        for (Label label : labels) {
+            result.add(label.getTitle());
+        }
+        return result;
+    }
+
     private boolean isLastCommitNotYetBuild(Job<?, ?> project, MergeRequestHook hook) {
         MergeRequestObjectAttributes objectAttributes = hook.getObjectAttributes();
         if (objectAttributes != null && objectAttributes.getLastCommit() != null) {
@@ -6,13 +6,17 @@ import com.dabsquared.gitlabjenkins.trigger.exception.NoRevisionToBuildException
 import com.dabsquared.gitlabjenkins.trigger.filter.BranchFilter;
 import com.dabsquared.gitlabjenkins.trigger.filter.MergeRequestLabelFilter;
 import com.dabsquared.gitlabjenkins.trigger.handler.AbstractWebHookTriggerHandler;
+import com.dabsquared.gitlabjenkins.trigger.history.Outcome;
+import com.dabsquared.gitlabjenkins.trigger.history.WebHookTrace;
 import hudson.model.Job;
 import hudson.plugins.git.GitSCM;
 import hudson.plugins.git.RevisionParameterAction;
 import org.apache.commons.lang.StringUtils;
 
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import static com.dabsquared.gitlabjenkins.cause.CauseDataBuilder.causeData;
 import static com.dabsquared.gitlabjenkins.trigger.handler.builder.generated.BuildStatusUpdateBuilder.buildStatusUpdate;
@@ -24,16 +28,19 @@ class NoteHookTriggerHandlerImpl extends AbstractWebHookTriggerHandler<NoteHook>
 
     private static final Logger LOGGER = Logger.getLogger(NoteHookTriggerHandlerImpl.class.getName());
 
-    private final String noteRegex;
+    private final Pattern notePattern;
 
     NoteHookTriggerHandlerImpl(String noteRegex) {
-        this.noteRegex = noteRegex;
+        this.notePattern = compile(noteRegex);
     }
 
     @Override
     public void handle(Job<?, ?> job, NoteHook hook, boolean ciSkip, BranchFilter branchFilter, MergeRequestLabelFilter mergeRequestLabelFilter) {
-        if (isValidTriggerPhrase(hook.getObjectAttributes().getNote())
-            && mergeRequestLabelFilter.isMergeRequestAllowed(hook.getMergeRequest().getLabels())) {
+        if (!isValidTriggerPhrase(hook.getObjectAttributes().getNote())) {
+            WebHookTrace.decide(getTriggerType(), Outcome.NOTE_NOT_MATCHING);
+        } else if (!mergeRequestLabelFilter.isMergeRequestAllowed(hook.getMergeRequest().getLabels())) {
+            WebHookTrace.decide(getTriggerType(), Outcome.LABEL_FILTER);
+        } else {
             super.handle(job, hook, ciSkip, branchFilter, mergeRequestLabelFilter);
         }
     }
@@ -114,10 +121,18 @@ class NoteHookTriggerHandlerImpl extends AbstractWebHookTriggerHandler<NoteHook>
     }
 
     private boolean isValidTriggerPhrase(String note) {
-        if (StringUtils.isEmpty(this.noteRegex)) {
-            return false;
+        return notePattern != null && note != null && notePattern.matcher(note).matches();
+    }
+
+    private static Pattern compile(String noteRegex) {
+        if (StringUtils.isEmpty(noteRegex)) {
+            return null;
+        }
+        try {
+            return Pattern.compile(noteRegex);
+        } catch (PatternSyntaxException e) {
+            LOGGER.log(Level.WARNING, "Invalid note regex: " + noteRegex, e);
+            return null;
         }
-        final Pattern pattern = Pattern.compile(this.noteRegex);
-        return pattern.matcher(note).matches();
     }
 }
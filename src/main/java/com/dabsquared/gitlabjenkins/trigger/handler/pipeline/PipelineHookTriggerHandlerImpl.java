@@ -6,10 +6,13 @@ import com.dabsquared.gitlabjenkins.connection.GitLabConnectionProperty;
 import com.dabsquared.gitlabjenkins.gitlab.api.GitLabClient;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.PipelineEventObjectAttributes;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.PipelineHook;
+import com.dabsquared.gitlabjenkins.service.GitLabProjectIdService;
 import com.dabsquared.gitlabjenkins.trigger.exception.NoRevisionToBuildException;
 import com.dabsquared.gitlabjenkins.trigger.filter.BranchFilter;
 import com.dabsquared.gitlabjenkins.trigger.filter.MergeRequestLabelFilter;
 import com.dabsquared.gitlabjenkins.trigger.handler.AbstractWebHookTriggerHandler;
+import com.dabsquared.gitlabjenkins.trigger.history.Outcome;
+import com.dabsquared.gitlabjenkins.trigger.history.WebHookTrace;
 import com.dabsquared.gitlabjenkins.util.BuildUtil;
 import com.dabsquared.gitlabjenkins.util.LoggerUtil;
 import hudson.model.AbstractProject;
@@ -48,16 +51,23 @@ class PipelineHookTriggerHandlerImpl extends AbstractWebHookTriggerHandler<Pipel
 
                 if (property != null && property.getClient() != null) {
                     GitLabClient client = property.getClient();
-                    com.dabsquared.gitlabjenkins.gitlab.api.model.Project projectForName = client.getProject(hook.getProject().getPathWithNamespace());
-                    hook.setProjectId(projectForName.getId());
+                    Integer projectId = GitLabProjectIdService.instance().getProjectId(client, hook.getProject().getPathWithNamespace());
+                    if (projectId != null) {
+                        hook.setProjectId(projectId);
+                    }
                 }
             }
         } catch (WebApplicationException e) {
             LOGGER.log(Level.WARNING, "Failed to communicate with gitlab server to determine project id: " + e.getMessage(), e);
         }
-        if (allowedStates.contains(objectAttributes.getStatus()) && !isLastAlreadyBuild(job,hook)) {
+        if (!allowedStates.contains(objectAttributes.getStatus())) {
+            WebHookTrace.decide(getTriggerType(), Outcome.STATE_NOT_ALLOWED, objectAttributes.getStatus());
+        } else if (isLastAlreadyBuild(job, hook)) {
+            WebHookTrace.decide(getTriggerType(), Outcome.ALREADY_BUILT);
+        } else {
             if (ciSkip && isCiSkip(hook)) {
                 LOGGER.log(Level.INFO, "Skipping due to ci-skip.");
+                WebHookTrace.decide(getTriggerType(), Outcome.CI_SKIP);
                 return;
             }
             //we do not call super here, since we do not want the status to be changed
@@ -65,10 +75,12 @@ class PipelineHookTriggerHandlerImpl extends AbstractWebHookTriggerHandler<Pipel
             String targetBranch = getTargetBranch(hook);
             if (branchFilter.isBranchAllowed(targetBranch)) {
                 LOGGER.log(Level.INFO, "{0} triggered for {1}.", LoggerUtil.toArray(job.getFullName(), getTriggerType()));
+                WebHookTrace.decide(getTriggerType(), Outcome.TRIGGERED, targetBranch);
 
                 super.scheduleBuild(job, createActions(job, hook));
             } else {
                 LOGGER.log(Level.INFO, "branch {0} is not allowed", targetBranch);
+                WebHookTrace.decide(getTriggerType(), Outcome.BRANCH_FILTER, targetBranch);
             }
 
         }
@@ -0,0 +1,80 @@
+package com.dabsquared.gitlabjenkins.trigger.handler.push;
+
+import com.dabsquared.gitlabjenkins.cause.GitLabWebHookCause;
+import hudson.Util;
+import hudson.model.Action;
+import hudson.model.CauseAction;
+import hudson.model.Queue;
+import hudson.model.queue.FoldableAction;
+import hudson.plugins.git.RevisionParameterAction;
+import org.apache.commons.lang.StringUtils;
+import org.eclipse.jgit.transport.URIish;
+
+import java.util.List;
+
+/**
+ * The revision of a push build that replaces the revision and the cause of a build of the same branch
+ * that is still in the queue, instead of queueing another build.
+ * Together with a quiet period a burst of pushes to a branch results in a single build of the newest commit.
+ */
+class CoalescingRevisionParameterAction extends RevisionParameterAction implements FoldableAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String branch;
+    private final Integer projectId;
+    private final String sha;
+    private transient CoalescingRevisionParameterAction superseded;
+
+    CoalescingRevisionParameterAction(String commit, URIish repoURL, String branch, Integer projectId, String sha) {
+        super(commit, repoURL);
+        this.branch = branch;
+        this.projectId = projectId;
+        this.sha = sha;
+    }
+
+    String getBranch() {
+        return branch;
+    }
+
+    Integer getProjectId() {
+        return projectId;
+    }
+
+    String getSha() {
+        return sha;
+    }
+
+    /**
+     * @return the revision of the queued build that has been replaced by this one or {@code null}
+     */
+    CoalescingRevisionParameterAction getSuperseded() {
+        return superseded;
+    }
+
+    @Override
+    public boolean shouldSchedule(List<Action> actions) {
+        for (CoalescingRevisionParameterAction action : Util.filter(actions, CoalescingRevisionParameterAction.class)) {
+            if (StringUtils.equals(branch, action.branch)) {
+                return false;
+            }
+        }
+        return super.shouldSchedule(actions);
+    }
+
+    @Override
+    public void foldIntoExisting(Queue.Item item, Queue.Task owner, List<Action> otherActions) {
+        CoalescingRevisionParameterAction existing = item.getAction(CoalescingRevisionParameterAction.class);
+        if (existing != null && !StringUtils.equals(sha, existing.sha)) {
+            superseded = existing;
+        }
+        item.replaceAction(this);
+        // the causes have already been merged into the queued item, only the cause of the newest push is kept
+        for (CauseAction causeAction : Util.filter(otherActions, CauseAction.class)) {
+            GitLabWebHookCause cause = causeAction.findCause(GitLabWebHookCause.class);
+            if (cause != null) {
+                item.replaceAction(new CauseAction(cause));
+            }
+        }
+    }
+}
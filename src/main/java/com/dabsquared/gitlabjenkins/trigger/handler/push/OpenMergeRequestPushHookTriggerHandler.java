@@ -11,17 +11,26 @@ import com.dabsquared.gitlabjenkins.gitlab.api.model.BuildState;
 import com.dabsquared.gitlabjenkins.gitlab.api.model.MergeRequest;
 import com.dabsquared.gitlabjenkins.gitlab.api.model.Project;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.PushHook;
-import com.dabsquared.gitlabjenkins.gitlab.hook.model.State;
 import com.dabsquared.gitlabjenkins.publisher.GitLabCommitStatusPublisher;
+import com.dabsquared.gitlabjenkins.service.GitLabChangedPathService;
+import com.dabsquared.gitlabjenkins.service.GitLabOpenMergeRequestService;
 import com.dabsquared.gitlabjenkins.trigger.filter.BranchFilter;
 import com.dabsquared.gitlabjenkins.trigger.filter.MergeRequestLabelFilter;
+import com.dabsquared.gitlabjenkins.trigger.filter.PathFilter;
+import com.dabsquared.gitlabjenkins.trigger.handler.SupersededBuildCanceller;
+import com.dabsquared.gitlabjenkins.trigger.history.Outcome;
+import com.dabsquared.gitlabjenkins.trigger.history.WebHookHistoryEntry;
+import com.dabsquared.gitlabjenkins.trigger.history.WebHookTrace;
 import com.dabsquared.gitlabjenkins.util.LoggerUtil;
+import com.google.common.base.Supplier;
 import hudson.model.AbstractProject;
 import hudson.model.Action;
 import hudson.model.CauseAction;
 import hudson.model.Job;
 import hudson.plugins.git.RevisionParameterAction;
 import hudson.triggers.Trigger;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
 import jenkins.model.Jenkins;
 import jenkins.model.ParameterizedJobMixIn;
 import jenkins.model.ParameterizedJobMixIn.ParameterizedJob;
@@ -33,6 +42,18 @@ import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -45,11 +66,29 @@ import static com.dabsquared.gitlabjenkins.util.LoggerUtil.toArray;
 class OpenMergeRequestPushHookTriggerHandler implements PushHookTriggerHandler {
 
     private final static Logger LOGGER = Logger.getLogger(OpenMergeRequestPushHookTriggerHandler.class.getName());
+    private static final String TRIGGER_TYPE = "open merge request";
+    private static final String BRANCH_REF_PREFIX = "refs/heads/";
+    static final int MAX_CONCURRENT_MERGE_REQUESTS = 8;
+    private static final long MAX_WAIT_SECONDS = 60;
+    private static final ExecutorService EXECUTOR = createExecutor();
 
     private final boolean skipWorkInProgressMergeRequest;
+    private final PathFilter pathFilter;
+    private final boolean cancelSupersededBuilds;
+    private final ExecutorService executor;
+    private final long maxWaitMillis;
 
-    OpenMergeRequestPushHookTriggerHandler(boolean skipWorkInProgressMergeRequest) {
+    OpenMergeRequestPushHookTriggerHandler(boolean skipWorkInProgressMergeRequest, PathFilter pathFilter, boolean cancelSupersededBuilds) {
+        this(skipWorkInProgressMergeRequest, pathFilter, cancelSupersededBuilds, EXECUTOR, TimeUnit.SECONDS.toMillis(MAX_WAIT_SECONDS));
+    }
+
+    OpenMergeRequestPushHookTriggerHandler(boolean skipWorkInProgressMergeRequest, PathFilter pathFilter, boolean cancelSupersededBuilds,
+                                           ExecutorService executor, long maxWaitMillis) {
         this.skipWorkInProgressMergeRequest = skipWorkInProgressMergeRequest;
+        this.pathFilter = pathFilter;
+        this.cancelSupersededBuilds = cancelSupersededBuilds;
+        this.executor = executor;
+        this.maxWaitMillis = maxWaitMillis;
     }
 
     @Override
@@ -62,13 +101,23 @@ class OpenMergeRequestPushHookTriggerHandler implements PushHookTriggerHandler {
                 	if (t instanceof GitLabPushTrigger) {
                 		final GitLabPushTrigger trigger = (GitLabPushTrigger) t;
                         Integer projectId = hook.getProjectId();
-                        if (property != null && property.getClient() != null && projectId != null && trigger != null) {
+                        String targetBranch = getTargetBranch(hook);
+                        if (property != null && property.getClient() != null && projectId != null && targetBranch != null && trigger != null) {
                             GitLabClient client = property.getClient();
-                            for (MergeRequest mergeRequest : getOpenMergeRequests(client, projectId.toString())) {
-                                if (mergeRequestLabelFilter.isMergeRequestAllowed(mergeRequest.getLabels())) {
-                                	handleMergeRequest(job, hook, ciSkip, branchFilter, client, mergeRequest);
+                            if (!isChangedPathAllowed(client, hook)) {
+                                // the merge results differ from the last builds only in the paths changed by the push
+                                WebHookTrace.decide(TRIGGER_TYPE, Outcome.PATH_FILTER, targetBranch);
+                                continue;
+                            }
+                            List<MergeRequest> mergeRequests = new ArrayList<>();
+                            for (MergeRequest mergeRequest : GitLabOpenMergeRequestService.instance().getOpenMergeRequests(client, projectId, targetBranch)) {
+                                if (!mergeRequestLabelFilter.isMergeRequestAllowed(mergeRequest.getLabels())) {
+                                    WebHookTrace.decide(TRIGGER_TYPE, Outcome.LABEL_FILTER, "!" + mergeRequest.getIid());
+                                } else if (isMergeRequestTriggered(hook, ciSkip, branchFilter, mergeRequest)) {
+                                    mergeRequests.add(mergeRequest);
                                 }
                             }
+                            handleMergeRequests(job, hook, client, mergeRequests);
                         }
                 	}
                 }
@@ -81,43 +130,129 @@ class OpenMergeRequestPushHookTriggerHandler implements PushHookTriggerHandler {
         }
     }
 
-    private List<MergeRequest> getOpenMergeRequests(GitLabClient client, String projectId) {
-        List<MergeRequest> result = new ArrayList<>();
-        Integer page = 1;
-        do {
-            List<MergeRequest> mergeRequests = client.getMergeRequests(projectId, State.opened, page, 100);
-            result.addAll(mergeRequests);
-            page = mergeRequests.isEmpty() ? null : page + 1;
-        } while (page != null);
-        return result;
+    private boolean isChangedPathAllowed(final GitLabClient client, final PushHook hook) {
+        return pathFilter.isChangeAllowed(new Supplier<Set<String>>() {
+            @Override
+            public Set<String> get() {
+                return GitLabChangedPathService.instance().getChangedPaths(client, hook);
+            }
+        });
+    }
+
+    private String getTargetBranch(PushHook hook) {
+        String ref = hook.getRef();
+        return ref != null && ref.startsWith(BRANCH_REF_PREFIX) ? ref.substring(BRANCH_REF_PREFIX.length()) : null;
     }
 
-    private void handleMergeRequest(Job<?, ?> job, PushHook hook, boolean ciSkip, BranchFilter branchFilter, GitLabClient client, MergeRequest mergeRequest) {
+    private boolean isMergeRequestTriggered(PushHook hook, boolean ciSkip, BranchFilter branchFilter, MergeRequest mergeRequest) {
         if (ciSkip && mergeRequest.getDescription() != null && mergeRequest.getDescription().contains("[ci-skip]")) {
             LOGGER.log(Level.INFO, "Skipping MR " + mergeRequest.getTitle() + " due to ci-skip.");
-            return;
+            WebHookTrace.decide(TRIGGER_TYPE, Outcome.CI_SKIP, "!" + mergeRequest.getIid());
+            return false;
         }
 
         Boolean workInProgress = mergeRequest.getWorkInProgress();
         if (skipWorkInProgressMergeRequest && workInProgress != null && workInProgress) {
             LOGGER.log(Level.INFO, "Skip WIP Merge Request #{0} ({1})", toArray(mergeRequest.getIid(), mergeRequest.getTitle()));
-            return;
+            WebHookTrace.decide(TRIGGER_TYPE, Outcome.WORK_IN_PROGRESS, "!" + mergeRequest.getIid());
+            return false;
         }
 
         String targetBranch = mergeRequest.getTargetBranch();
-        String sourceBranch = mergeRequest.getSourceBranch();
-        if (targetBranch != null && branchFilter.isBranchAllowed(targetBranch) && hook.getRef().equals("refs/heads/"+targetBranch) && sourceBranch != null) {
-            LOGGER.log(Level.INFO, "{0} triggered for push to target branch of open merge request #{1}.",
-                    LoggerUtil.toArray(job.getFullName(), mergeRequest.getId()));
-
-            Branch branch = client.getBranch(mergeRequest.getSourceProjectId().toString(), sourceBranch);
-            Project project = client.getProject(mergeRequest.getSourceProjectId().toString());
-            String commit = branch.getCommit().getId();
+        return targetBranch != null && branchFilter.isBranchAllowed(targetBranch) && hook.getRef().equals(BRANCH_REF_PREFIX + targetBranch)
+            && mergeRequest.getSourceBranch() != null && mergeRequest.getSourceProjectId() != null;
+    }
+
+    /**
+     * Schedules the builds of the merge requests on the executor, so that the GitLab calls of different
+     * merge requests overlap, and waits until they are scheduled or the maximum wait time has passed.
+     * Merge requests that are still waiting for the executor by then skip the pending commit status,
+     * their builds set the status once they run.
+     * <p>
+     * Scheduling after the deadline is best effort: the web hook is answered and its history entry is finished
+     * while these merge requests are still handled in the background. The entry records them as deferred, their
+     * decisions are added to it when they are made, and a failure is only logged.
+     */
+    void handleMergeRequests(Job<?, ?> job, PushHook hook, GitLabClient client, List<MergeRequest> mergeRequests) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        ConcurrentMap<Integer, Future<Project>> sourceProjects = new ConcurrentHashMap<>();
+        List<Future<?>> futures = new ArrayList<>(mergeRequests.size());
+        for (MergeRequest mergeRequest : mergeRequests) {
+            futures.add(executor.submit(new MergeRequestTask(job, hook, client, mergeRequest, sourceProjects, deadline)));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                int pending = countPending(futures);
+                LOGGER.log(Level.WARNING, "Scheduling the builds of {0} open merge requests of {1} takes longer than {2} ms, continuing {3} in the background",
+                           toArray(mergeRequests.size(), job.getFullName(), maxWaitMillis, pending));
+                WebHookTrace.decide(TRIGGER_TYPE, Outcome.DEFERRED, pending + " merge requests");
+                return;
+            } catch (ExecutionException e) {
+                LOGGER.log(Level.WARNING, "Failed to schedule build for open merge request", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private int countPending(List<Future<?>> futures) {
+        int pending = 0;
+        for (Future<?> future : futures) {
+            if (!future.isDone()) {
+                pending++;
+            }
+        }
+        return pending;
+    }
+
+    private void handleMergeRequest(Job<?, ?> job, PushHook hook, GitLabClient client, MergeRequest mergeRequest,
+                                    ConcurrentMap<Integer, Future<Project>> sourceProjects, long deadline) throws InterruptedException {
+        LOGGER.log(Level.INFO, "{0} triggered for push to target branch of open merge request #{1}.",
+                LoggerUtil.toArray(job.getFullName(), mergeRequest.getId()));
+        WebHookTrace.decide(TRIGGER_TYPE, Outcome.TRIGGERED, "!" + mergeRequest.getIid());
+
+        Branch branch = client.getBranch(mergeRequest.getSourceProjectId().toString(), mergeRequest.getSourceBranch());
+        Project project = getSourceProject(client, mergeRequest.getSourceProjectId(), sourceProjects);
+        String commit = branch.getCommit().getId();
+        CauseData causeData = retrieveCauseData(hook, project, mergeRequest, branch);
+        if (cancelSupersededBuilds) {
+            SupersededBuildCanceller.cancelSupersededBuilds(job, causeData);
+        }
+        if (System.nanoTime() < deadline) {
             setCommitStatusPendingIfNecessary(job, mergeRequest.getSourceProjectId(), commit, branch.getName());
+        }
 
-            List<Action> actions = Arrays.<Action>asList(new CauseAction(new GitLabWebHookCause(retrieveCauseData(hook, project, mergeRequest, branch))),
-                                                         new RevisionParameterAction(commit, retrieveUrIish(hook)));
-            scheduleBuild(job, actions.toArray(new Action[actions.size()]));
+        List<Action> actions = Arrays.<Action>asList(new CauseAction(new GitLabWebHookCause(causeData)),
+                                                     new RevisionParameterAction(commit, retrieveUrIish(hook)));
+        scheduleBuild(job, actions.toArray(new Action[actions.size()]));
+    }
+
+    /**
+     * Loads each source project once per push, merge requests from the same fork wait for the first lookup.
+     */
+    private Project getSourceProject(final GitLabClient client, final Integer sourceProjectId,
+                                     ConcurrentMap<Integer, Future<Project>> sourceProjects) throws InterruptedException {
+        FutureTask<Project> lookup = new FutureTask<>(new Callable<Project>() {
+            @Override
+            public Project call() {
+                return client.getProject(sourceProjectId.toString());
+            }
+        });
+        Future<Project> project = sourceProjects.putIfAbsent(sourceProjectId, lookup);
+        if (project == null) {
+            lookup.run();
+            project = lookup;
+        }
+        try {
+            return project.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
         }
     }
 
@@ -197,4 +332,45 @@ class OpenMergeRequestPushHookTriggerHandler implements PushHookTriggerHandler {
         }
         return null;
     }
+
+    private static ExecutorService createExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_CONCURRENT_MERGE_REQUESTS, MAX_CONCURRENT_MERGE_REQUESTS, 60, TimeUnit.SECONDS,
+                                                             new LinkedBlockingQueue<Runnable>(),
+                                                             new NamingThreadFactory(new DaemonThreadFactory(), "GitLab open merge request handler"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private final class MergeRequestTask implements Callable<Void> {
+        private final Job<?, ?> job;
+        private final PushHook hook;
+        private final GitLabClient client;
+        private final MergeRequest mergeRequest;
+        private final ConcurrentMap<Integer, Future<Project>> sourceProjects;
+        private final long deadline;
+        private final WebHookHistoryEntry historyEntry = WebHookTrace.current();
+
+        private MergeRequestTask(Job<?, ?> job, PushHook hook, GitLabClient client, MergeRequest mergeRequest,
+                                 ConcurrentMap<Integer, Future<Project>> sourceProjects, long deadline) {
+            this.job = job;
+            this.hook = hook;
+            this.client = client;
+            this.mergeRequest = mergeRequest;
+            this.sourceProjects = sourceProjects;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public Void call() throws InterruptedException {
+            WebHookTrace.attach(historyEntry);
+            try {
+                handleMergeRequest(job, hook, client, mergeRequest, sourceProjects, deadline);
+            } catch (WebApplicationException | ProcessingException e) {
+                LOGGER.log(Level.WARNING, "Failed to communicate with gitlab server to schedule build for open merge request #" + mergeRequest.getIid() + ": " + e.getMessage(), e);
+            } finally {
+                WebHookTrace.end();
+            }
+            return null;
+        }
+    }
 }
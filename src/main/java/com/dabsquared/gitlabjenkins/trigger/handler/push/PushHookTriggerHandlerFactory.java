@@ -1,6 +1,7 @@
 package com.dabsquared.gitlabjenkins.trigger.handler.push;
 
 import com.dabsquared.gitlabjenkins.trigger.TriggerOpenMergeRequest;
+import com.dabsquared.gitlabjenkins.trigger.filter.PathFilter;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -14,9 +15,15 @@ public final class PushHookTriggerHandlerFactory {
 
     public static PushHookTriggerHandler newPushHookTriggerHandler(boolean triggerOnPush,
                                                                    TriggerOpenMergeRequest triggerOpenMergeRequestOnPush,
-                                                                   boolean skipWorkInProgressMergeRequest) {
+                                                                   boolean skipWorkInProgressMergeRequest,
+                                                                   int pushCoalescingWindow,
+                                                                   PathFilter pathFilter,
+                                                                   boolean cancelSupersededBuilds,
+                                                                   boolean reuseVerifiedBuilds) {
         if (triggerOnPush || triggerOpenMergeRequestOnPush == TriggerOpenMergeRequest.both) {
-            return new PushHookTriggerHandlerList(retrieveHandlers(triggerOnPush, triggerOpenMergeRequestOnPush, skipWorkInProgressMergeRequest));
+            return new PushHookTriggerHandlerList(retrieveHandlers(triggerOnPush, triggerOpenMergeRequestOnPush, skipWorkInProgressMergeRequest,
+                                                                   pushCoalescingWindow, pathFilter, cancelSupersededBuilds,
+                                                                   reuseVerifiedBuilds));
         } else {
             return new NopPushHookTriggerHandler();
         }
@@ -24,13 +31,17 @@ public final class PushHookTriggerHandlerFactory {
 
     private static List<PushHookTriggerHandler> retrieveHandlers(boolean triggerOnPush,
                                                                  TriggerOpenMergeRequest triggerOpenMergeRequestOnPush,
-                                                                 boolean skipWorkInProgressMergeRequest) {
+                                                                 boolean skipWorkInProgressMergeRequest,
+                                                                 int pushCoalescingWindow,
+                                                                 PathFilter pathFilter,
+                                                                 boolean cancelSupersededBuilds,
+                                                                 boolean reuseVerifiedBuilds) {
         List<PushHookTriggerHandler> result = new ArrayList<>();
         if (triggerOnPush) {
-            result.add(new PushHookTriggerHandlerImpl());
+            result.add(new PushHookTriggerHandlerImpl(pushCoalescingWindow, pathFilter, cancelSupersededBuilds, reuseVerifiedBuilds));
         }
         if (triggerOpenMergeRequestOnPush == TriggerOpenMergeRequest.both) {
-            result.add(new OpenMergeRequestPushHookTriggerHandler(skipWorkInProgressMergeRequest));
+            result.add(new OpenMergeRequestPushHookTriggerHandler(skipWorkInProgressMergeRequest, pathFilter, cancelSupersededBuilds));
         }
         return result;
     }
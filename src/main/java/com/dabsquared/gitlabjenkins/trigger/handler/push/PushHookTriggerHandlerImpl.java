@@ -1,18 +1,35 @@
 package com.dabsquared.gitlabjenkins.trigger.handler.push;
 
 import com.dabsquared.gitlabjenkins.cause.CauseData;
+import com.dabsquared.gitlabjenkins.gitlab.api.model.BuildState;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.Commit;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.PushHook;
+import com.dabsquared.gitlabjenkins.service.GitLabChangedPathService;
 import com.dabsquared.gitlabjenkins.trigger.exception.NoRevisionToBuildException;
 import com.dabsquared.gitlabjenkins.trigger.filter.BranchFilter;
 import com.dabsquared.gitlabjenkins.trigger.filter.MergeRequestLabelFilter;
+import com.dabsquared.gitlabjenkins.trigger.filter.PathFilter;
+import com.dabsquared.gitlabjenkins.trigger.filter.PathFilterFactory;
 import com.dabsquared.gitlabjenkins.trigger.handler.AbstractWebHookTriggerHandler;
+import com.dabsquared.gitlabjenkins.trigger.history.Outcome;
+import com.dabsquared.gitlabjenkins.trigger.history.WebHookTrace;
+import com.dabsquared.gitlabjenkins.util.LoggerUtil;
+import com.google.common.base.Supplier;
+import hudson.Util;
+import hudson.model.Action;
 import hudson.model.Job;
+import hudson.model.Run;
 import hudson.plugins.git.GitSCM;
 import hudson.plugins.git.RevisionParameterAction;
+import jenkins.model.Jenkins;
 import org.eclipse.jgit.util.StringUtils;
 
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import static com.dabsquared.gitlabjenkins.cause.CauseDataBuilder.causeData;
 import static com.dabsquared.gitlabjenkins.trigger.handler.builder.generated.BuildStatusUpdateBuilder.buildStatusUpdate;
@@ -22,13 +39,82 @@ import static com.dabsquared.gitlabjenkins.trigger.handler.builder.generated.Bui
  */
 class PushHookTriggerHandlerImpl extends AbstractWebHookTriggerHandler<PushHook> implements PushHookTriggerHandler {
 
+    private static final Logger LOGGER = Logger.getLogger(PushHookTriggerHandlerImpl.class.getName());
+
     private static final String NO_COMMIT = "0000000000000000000000000000000000000000";
 
+    private final int coalescingWindow;
+    private final PathFilter pathFilter;
+    private final boolean reuseVerifiedBuilds;
+
+    PushHookTriggerHandlerImpl() {
+        this(0);
+    }
+
+    /**
+     * @param coalescingWindow the time in seconds a push build waits in the queue for further pushes to the same branch,
+     *                         0 queues a build for every push
+     */
+    PushHookTriggerHandlerImpl(int coalescingWindow) {
+        this(coalescingWindow, PathFilterFactory.newPathFilter(null));
+    }
+
+    PushHookTriggerHandlerImpl(int coalescingWindow, PathFilter pathFilter) {
+        this(coalescingWindow, pathFilter, false);
+    }
+
+    PushHookTriggerHandlerImpl(int coalescingWindow, PathFilter pathFilter, boolean cancelSupersededBuilds) {
+        this(coalescingWindow, pathFilter, cancelSupersededBuilds, false);
+    }
+
+    /**
+     * @param reuseVerifiedBuilds whether a push of a commit that the job has already built successfully reuses that build
+     */
+    PushHookTriggerHandlerImpl(int coalescingWindow, PathFilter pathFilter, boolean cancelSupersededBuilds, boolean reuseVerifiedBuilds) {
+        super(cancelSupersededBuilds);
+        this.coalescingWindow = coalescingWindow;
+        this.pathFilter = pathFilter;
+        this.reuseVerifiedBuilds = reuseVerifiedBuilds;
+    }
+
     @Override
     public void handle(Job<?, ?> job, PushHook hook, boolean ciSkip, BranchFilter branchFilter, MergeRequestLabelFilter mergeRequestLabelFilter) {
         if (isNoRemoveBranchPush(hook)) {
             super.handle(job, hook, ciSkip, branchFilter, mergeRequestLabelFilter);
+        } else {
+            WebHookTrace.decide(getTriggerType(), Outcome.BRANCH_DELETED, hook.getRef());
+        }
+    }
+
+    @Override
+    protected boolean isChangedPathAllowed(final Job<?, ?> job, final PushHook hook) {
+        return pathFilter.isChangeAllowed(new Supplier<Set<String>>() {
+            @Override
+            public Set<String> get() {
+                return GitLabChangedPathService.instance().getChangedPaths(getClient(job), hook);
+            }
+        });
+    }
+
+    @Override
+    protected boolean isBuildReused(Job<?, ?> job, PushHook hook) {
+        if (!reuseVerifiedBuilds) {
+            return false;
         }
+        Run<?, ?> build = VerifiedBuildIndex.instance().getSuccessfulBuild(job, hook.getAfter());
+        if (build == null) {
+            return false;
+        }
+        String ref = hook.getRef().replaceFirst("^refs/(heads|tags)/", "");
+        LOGGER.log(Level.INFO, "{0} of {1} has already been built by {2}", LoggerUtil.toArray(hook.getAfter(), ref, build.getFullDisplayName()));
+        setCommitStatusIfNecessary(job, buildStatusUpdate()
+                                       .withProjectId(hook.getProjectId())
+                                       .withSha(hook.getAfter())
+                                       .withRef(ref)
+                                       .build(),
+                                   BuildState.success, Jenkins.getInstance().getRootUrl() + build.getUrl(), "Reused " + build.getFullDisplayName());
+        markReused(build, ref);
+        return true;
     }
 
     @Override
@@ -90,9 +176,36 @@ class PushHookTriggerHandlerImpl extends AbstractWebHookTriggerHandler<PushHook>
 
     @Override
     protected RevisionParameterAction createRevisionParameter(PushHook hook, GitSCM gitSCM) throws NoRevisionToBuildException {
+        if (coalescingWindow > 0) {
+            return new CoalescingRevisionParameterAction(retrieveRevisionToBuild(hook, gitSCM), retrieveUrIish(hook),
+                                                         getTargetBranch(hook), hook.getProjectId(), hook.getAfter());
+        }
         return new RevisionParameterAction(retrieveRevisionToBuild(hook, gitSCM), retrieveUrIish(hook));
     }
 
+    @Override
+    protected void scheduleBuild(Job<?, ?> job, Action[] actions) {
+        super.scheduleBuild(job, actions);
+        for (CoalescingRevisionParameterAction action : Util.filter(Arrays.asList(actions), CoalescingRevisionParameterAction.class)) {
+            CoalescingRevisionParameterAction superseded = action.getSuperseded();
+            if (superseded != null) {
+                LOGGER.log(Level.INFO, "Queued build of {0} for {1} now builds {2} instead of {3}",
+                           LoggerUtil.toArray(job.getFullName(), action.getBranch(), action.getSha(), superseded.getSha()));
+                setCommitStatusIfNecessary(job, buildStatusUpdate()
+                                               .withProjectId(superseded.getProjectId())
+                                               .withSha(superseded.getSha())
+                                               .withRef(superseded.getBranch())
+                                               .build(),
+                                           BuildState.canceled, Jenkins.getInstance().getRootUrl() + job.getUrl(), "Superseded by " + action.getSha());
+            }
+        }
+    }
+
+    @Override
+    protected int getQuietPeriod(Job<?, ?> job) {
+        return Math.max(super.getQuietPeriod(job), coalescingWindow);
+    }
+
     @Override
     protected BuildStatusUpdate retrieveBuildStatusUpdate(PushHook hook) {
         return buildStatusUpdate()
@@ -102,6 +215,22 @@ class PushHookTriggerHandlerImpl extends AbstractWebHookTriggerHandler<PushHook>
             .build();
     }
 
+    private static void markReused(Run<?, ?> build, String ref) {
+        synchronized (build) {
+            ReusedBuildAction action = build.getAction(ReusedBuildAction.class);
+            if (action == null) {
+                action = new ReusedBuildAction();
+                build.addAction(action);
+            }
+            action.addRef(ref);
+        }
+        try {
+            build.save();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save " + build.getFullDisplayName(), e);
+        }
+    }
+
     private String retrievePushedBy(final PushHook hook) {
 
         final String userName = hook.getUserName();
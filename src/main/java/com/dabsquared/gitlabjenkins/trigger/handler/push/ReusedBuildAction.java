@@ -0,0 +1,23 @@
+package com.dabsquared.gitlabjenkins.trigger.handler.push;
+
+import hudson.model.InvisibleAction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Marks a build whose result has been reused for pushes of its commit to other branches or tags instead of building
+ * the commit again.
+ */
+public class ReusedBuildAction extends InvisibleAction {
+
+    private final List<String> refs = new ArrayList<>();
+
+    public synchronized List<String> getRefs() {
+        return new ArrayList<>(refs);
+    }
+
+    synchronized void addRef(String ref) {
+        refs.add(ref);
+    }
+}
@@ -0,0 +1,164 @@
+package com.dabsquared.gitlabjenkins.trigger.handler.push;
+
+import com.dabsquared.gitlabjenkins.util.BuildUtil;
+import com.google.common.collect.Lists;
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory index from the commits of a job to its newest successful build of them, without merge builds.
+ * <p>
+ * A job is indexed when it is looked up the first time: its last {@link #LOADED_BUILDS} builds are read, later
+ * builds are added when they complete successfully. Each job keeps at most {@link #MAX_COMMITS} commits, fast-forward
+ * merges and tags are usually pushed soon after the commit has been built.
+ */
+public final class VerifiedBuildIndex {
+
+    static final int LOADED_BUILDS = 100;
+    static final int MAX_COMMITS = 1000;
+
+    private static final VerifiedBuildIndex INSTANCE = new VerifiedBuildIndex();
+
+    private final Map<String, Map<String, Integer>> buildsByJob = new HashMap<>();
+
+    VerifiedBuildIndex() { }
+
+    public static VerifiedBuildIndex instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the newest successful build of the commit, {@code null} if there is none
+     */
+    public Run<?, ?> getSuccessfulBuild(Job<?, ?> job, String sha1) {
+        Map<String, Integer> builds = getBuilds(job);
+        Integer number;
+        synchronized (this) {
+            number = builds.get(sha1);
+        }
+        Run<?, ?> build = number == null ? null : job.getBuildByNumber(number);
+        // the build number may have been reused or the build data changed since the build was indexed
+        return build != null && build.getResult() == Result.SUCCESS && BuildUtil.getSHA1sWithoutMergeBuilds(build).contains(sha1) ? build : null;
+    }
+
+    private Map<String, Integer> getBuilds(Job<?, ?> job) {
+        synchronized (this) {
+            Map<String, Integer> builds = buildsByJob.get(job.getFullName());
+            if (builds != null) {
+                return builds;
+            }
+        }
+        // reading the builds may load them from disk, lookups of other jobs must not wait for it;
+        // a build that completes meanwhile can be missing from the index, its commit is then built again
+        Map<String, Integer> loaded = load(job);
+        synchronized (this) {
+            Map<String, Integer> builds = buildsByJob.get(job.getFullName());
+            if (builds == null) {
+                builds = loaded;
+                buildsByJob.put(job.getFullName(), builds);
+            }
+            return builds;
+        }
+    }
+
+    synchronized void add(Run<?, ?> build) {
+        Map<String, Integer> builds = buildsByJob.get(build.getParent().getFullName());
+        if (builds != null) {
+            for (String sha1 : BuildUtil.getSHA1sWithoutMergeBuilds(build)) {
+                Integer number = builds.get(sha1);
+                if (number == null || number < build.getNumber()) {
+                    builds.remove(sha1);
+                    builds.put(sha1, build.getNumber());
+                }
+            }
+        }
+    }
+
+    synchronized void remove(Run<?, ?> build) {
+        Map<String, Integer> builds = buildsByJob.get(build.getParent().getFullName());
+        if (builds != null) {
+            for (Iterator<Integer> iterator = builds.values().iterator(); iterator.hasNext(); ) {
+                if (iterator.next() == build.getNumber()) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    synchronized void remove(String fullName) {
+        String childPrefix = fullName + '/';
+        for (Iterator<String> iterator = buildsByJob.keySet().iterator(); iterator.hasNext(); ) {
+            String key = iterator.next();
+            if (key.equals(fullName) || key.startsWith(childPrefix)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static Map<String, Integer> load(Job<?, ?> job) {
+        Map<String, Integer> result = new LinkedHashMap<String, Integer>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                return size() > MAX_COMMITS;
+            }
+        };
+        List<Run<?, ?>> builds = new ArrayList<>();
+        for (Run<?, ?> build : job.getBuilds()) {
+            if (builds.size() >= LOADED_BUILDS) {
+                break;
+            }
+            builds.add(build);
+        }
+        // the builds are listed from the newest to the oldest, the newest build of a commit has to win and be evicted last
+        for (Run<?, ?> build : Lists.reverse(builds)) {
+            if (build.getResult() == Result.SUCCESS) {
+                for (String sha1 : BuildUtil.getSHA1sWithoutMergeBuilds(build)) {
+                    result.remove(sha1);
+                    result.put(sha1, build.getNumber());
+                }
+            }
+        }
+        return result;
+    }
+
+    @Extension
+    public static class IndexingRunListener extends RunListener<Run<?, ?>> {
+        @Override
+        public void onCompleted(Run<?, ?> build, TaskListener listener) {
+            if (build.getResult() == Result.SUCCESS) {
+                INSTANCE.add(build);
+            }
+        }
+
+        @Override
+        public void onDeleted(Run<?, ?> build) {
+            INSTANCE.remove(build);
+        }
+    }
+
+    @Extension
+    public static class IndexingItemListener extends ItemListener {
+        @Override
+        public void onDeleted(Item item) {
+            INSTANCE.remove(item.getFullName());
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            INSTANCE.remove(oldFullName);
+        }
+    }
+}
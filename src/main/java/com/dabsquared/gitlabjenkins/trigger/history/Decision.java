@@ -0,0 +1,34 @@
+package com.dabsquared.gitlabjenkins.trigger.history;
+
+/**
+ * Records which trigger handler accepted or rejected a web hook and why.
+ */
+public final class Decision {
+
+    private final String triggerType;
+    private final Outcome outcome;
+    private final String detail;
+
+    Decision(String triggerType, Outcome outcome, String detail) {
+        this.triggerType = triggerType;
+        this.outcome = outcome;
+        this.detail = detail;
+    }
+
+    public String getTriggerType() {
+        return triggerType;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+
+    @Override
+    public String toString() {
+        return triggerType + ": " + outcome.getDescription() + (detail == null ? "" : " (" + detail + ")");
+    }
+}
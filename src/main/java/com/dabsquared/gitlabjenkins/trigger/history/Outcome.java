@@ -0,0 +1,38 @@
+package com.dabsquared.gitlabjenkins.trigger.history;
+
+/**
+ * The result of evaluating a web hook against the trigger configuration of a job.
+ */
+public enum Outcome {
+    TRIGGERED("triggered"),
+    INVALID_TOKEN("invalid secret token"),
+    DUPLICATE("delivered again"),
+    CI_SKIP("[ci-skip]"),
+    BRANCH_FILTER("branch filter"),
+    LABEL_FILTER("label filter"),
+    PATH_FILTER("path filter"),
+    WORK_IN_PROGRESS("work in progress"),
+    ALREADY_BUILT("already built"),
+    NO_RELEVANT_CHANGE("no build relevant change"),
+    REUSED("reused a verified build"),
+    STATE_NOT_ALLOWED("state not allowed"),
+    NOTE_NOT_MATCHING("comment does not match"),
+    BRANCH_DELETED("branch deleted"),
+    DEFERRED("continued in the background"),
+    RATE_LIMITED("rate limit exceeded"),
+    COALESCED("replaced by a later web hook");
+
+    private final String description;
+
+    Outcome(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public boolean isTriggered() {
+        return this == TRIGGERED;
+    }
+}
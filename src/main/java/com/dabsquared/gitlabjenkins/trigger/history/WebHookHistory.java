@@ -0,0 +1,111 @@
+package com.dabsquared.gitlabjenkins.trigger.history;
+
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.listeners.ItemListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed size ring buffer with the most recent web hooks a job has received and what the triggers decided.
+ * The histories are kept in memory only.
+ */
+public final class WebHookHistory {
+
+    static final int CAPACITY = 50;
+    private static final ConcurrentMap<String, WebHookHistory> HISTORIES = new ConcurrentHashMap<>();
+
+    private final AtomicReferenceArray<WebHookHistoryEntry> entries = new AtomicReferenceArray<>(CAPACITY);
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile boolean capturePayloads = false;
+
+    WebHookHistory() { }
+
+    public static WebHookHistory forJob(Job<?, ?> job) {
+        return forName(job.getFullName());
+    }
+
+    static WebHookHistory forName(String fullName) {
+        WebHookHistory history = HISTORIES.get(fullName);
+        if (history == null) {
+            WebHookHistory newHistory = new WebHookHistory();
+            history = HISTORIES.putIfAbsent(fullName, newHistory);
+            if (history == null) {
+                history = newHistory;
+            }
+        }
+        return history;
+    }
+
+    /**
+     * @return {@code true} if the raw request bodies of the hooks should be kept for this job
+     */
+    public boolean isCapturePayloads() {
+        return capturePayloads;
+    }
+
+    public static boolean isCapturePayloads(Job<?, ?> job) {
+        WebHookHistory history = HISTORIES.get(job.getFullName());
+        return history != null && history.capturePayloads;
+    }
+
+    void setCapturePayloads(boolean capturePayloads) {
+        this.capturePayloads = capturePayloads;
+        if (!capturePayloads) {
+            for (int i = 0; i < CAPACITY; i++) {
+                WebHookHistoryEntry entry = entries.get(i);
+                if (entry != null) {
+                    entry.setPayload(null);
+                }
+            }
+        }
+    }
+
+    void add(WebHookHistoryEntry entry) {
+        long id = sequence.incrementAndGet();
+        entry.setId(id);
+        entries.set((int) (id % CAPACITY), entry);
+    }
+
+    /**
+     * @return the recorded entries, newest first
+     */
+    public List<WebHookHistoryEntry> getEntries() {
+        List<WebHookHistoryEntry> result = new ArrayList<>(CAPACITY);
+        long last = sequence.get();
+        for (long id = last; id > 0 && id > last - CAPACITY; id--) {
+            WebHookHistoryEntry entry = entries.get((int) (id % CAPACITY));
+            if (entry != null && entry.getId() == id) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    public WebHookHistoryEntry getEntry(long id) {
+        WebHookHistoryEntry entry = entries.get((int) (id % CAPACITY));
+        return entry != null && entry.getId() == id ? entry : null;
+    }
+
+    @Extension
+    public static class HistoryItemListener extends ItemListener {
+        @Override
+        public void onDeleted(Item item) {
+            HISTORIES.remove(item.getFullName());
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            WebHookHistory history = HISTORIES.remove(oldFullName);
+            if (history != null) {
+                HISTORIES.put(newFullName, history);
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.dabsquared.gitlabjenkins.trigger.history;
+
+import com.dabsquared.gitlabjenkins.GitLabPushTrigger;
+import hudson.Extension;
+import hudson.model.Action;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.util.HttpResponses;
+import jenkins.model.TransientActionFactory;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Shows the recent GitLab web hooks of a job and why they did or did not trigger a build.
+ */
+public class WebHookHistoryAction implements Action {
+
+    private final Job<?, ?> job;
+
+    WebHookHistoryAction(Job<?, ?> job) {
+        this.job = job;
+    }
+
+    public Job<?, ?> getJob() {
+        return job;
+    }
+
+    @Override
+    public String getIconFileName() {
+        return job.hasPermission(Item.CONFIGURE) ? "clipboard.png" : null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "GitLab Web Hook History";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "gitlab-webhook-history";
+    }
+
+    public List<WebHookHistoryEntry> getEntries() {
+        job.checkPermission(Item.CONFIGURE);
+        return WebHookHistory.forJob(job).getEntries();
+    }
+
+    public boolean isCapturePayloads() {
+        return WebHookHistory.isCapturePayloads(job);
+    }
+
+    @RequirePOST
+    public HttpResponse doCapturePayloads(@QueryParameter boolean enabled) {
+        job.checkPermission(Item.CONFIGURE);
+        WebHookHistory.forJob(job).setCapturePayloads(enabled);
+        return HttpResponses.redirectToDot();
+    }
+
+    public HttpResponse doPayload(@QueryParameter long id) {
+        job.checkPermission(Item.CONFIGURE);
+        WebHookHistoryEntry entry = WebHookHistory.forJob(job).getEntry(id);
+        if (entry == null || !entry.hasPayload()) {
+            return HttpResponses.notFound();
+        }
+        return HttpResponses.plainText(entry.getPayload());
+    }
+
+    @Extension
+    public static class Factory extends TransientActionFactory<Job> {
+        @Override
+        public Class<Job> type() {
+            return Job.class;
+        }
+
+        @Override
+        public Collection<? extends Action> createFor(Job target) {
+            if (GitLabPushTrigger.getFromJob(target) == null) {
+                return Collections.emptyList();
+            }
+            return Collections.singletonList(new WebHookHistoryAction(target));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.dabsquared.gitlabjenkins.trigger.history;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One web hook received by a job, filled in while the hook passes the processing stages.
+ */
+public final class WebHookHistoryEntry {
+
+    private final String eventType;
+    private final long timestamp;
+    private final long receivedNanos;
+    private long id;
+    private String ref;
+    private String sha;
+    private long parsedNanos;
+    private long handlingStartedNanos;
+    private long finishedNanos;
+    private byte[] payload;
+    private final List<Decision> decisions = new ArrayList<>(2);
+
+    WebHookHistoryEntry(String eventType) {
+        this.eventType = eventType;
+        this.timestamp = System.currentTimeMillis();
+        this.receivedNanos = System.nanoTime();
+    }
+
+    /**
+     * Copies the reception and parsing of a web hook that is handed to several jobs.
+     */
+    WebHookHistoryEntry(WebHookHistoryEntry received) {
+        this.eventType = received.eventType;
+        this.timestamp = received.timestamp;
+        this.receivedNanos = received.receivedNanos;
+        this.parsedNanos = received.parsedNanos;
+        this.payload = received.payload;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    void setId(long id) {
+        this.id = id;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public Date getTimestamp() {
+        return new Date(timestamp);
+    }
+
+    public String getRef() {
+        return ref;
+    }
+
+    public String getSha() {
+        return sha;
+    }
+
+    void describe(String ref, String sha) {
+        this.ref = ref;
+        this.sha = sha;
+    }
+
+    void parsed() {
+        parsedNanos = System.nanoTime();
+    }
+
+    void handlingStarted() {
+        handlingStartedNanos = System.nanoTime();
+    }
+
+    void finished() {
+        finishedNanos = System.nanoTime();
+    }
+
+    synchronized void addDecision(Decision decision) {
+        decisions.add(decision);
+    }
+
+    public synchronized List<Decision> getDecisions() {
+        return Collections.unmodifiableList(new ArrayList<>(decisions));
+    }
+
+    public synchronized boolean isTriggered() {
+        for (Decision decision : decisions) {
+            if (decision.getOutcome().isTriggered()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void setPayload(byte[] payload) {
+        this.payload = payload;
+    }
+
+    public boolean hasPayload() {
+        return payload != null;
+    }
+
+    public String getPayload() {
+        return payload == null ? null : new String(payload, StandardCharsets.UTF_8);
+    }
+
+    public long getParseMillis() {
+        return millisBetween(receivedNanos, parsedNanos);
+    }
+
+    /**
+     * @return the time the hook waited in the web hook queue before the trigger handlers were run
+     */
+    public long getQueueMillis() {
+        return millisBetween(parsedNanos == 0 ? receivedNanos : parsedNanos, handlingStartedNanos);
+    }
+
+    public long getHandleMillis() {
+        return millisBetween(handlingStartedNanos, finishedNanos);
+    }
+
+    private static long millisBetween(long start, long end) {
+        return start == 0 || end == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(end - start);
+    }
+}
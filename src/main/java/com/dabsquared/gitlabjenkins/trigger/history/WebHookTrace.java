@@ -0,0 +1,89 @@
+package com.dabsquared.gitlabjenkins.trigger.history;
+
+import hudson.model.Job;
+
+/**
+ * Carries the {@link WebHookHistoryEntry} of the web hook currently processed by this thread,
+ * so that trigger handlers can report their decision without knowing about the history.
+ */
+public final class WebHookTrace {
+
+    private static final ThreadLocal<WebHookHistoryEntry> CURRENT = new ThreadLocal<>();
+
+    private WebHookTrace() { }
+
+    public static WebHookHistoryEntry begin(String eventType) {
+        WebHookHistoryEntry entry = new WebHookHistoryEntry(eventType);
+        CURRENT.set(entry);
+        return entry;
+    }
+
+    /**
+     * Begins the entry of one of the jobs a web hook is handed to, starting from the entry that received it.
+     */
+    public static WebHookHistoryEntry begin(WebHookHistoryEntry received) {
+        WebHookHistoryEntry entry = new WebHookHistoryEntry(received);
+        CURRENT.set(entry);
+        return entry;
+    }
+
+    public static WebHookHistoryEntry current() {
+        return CURRENT.get();
+    }
+
+    public static void attach(WebHookHistoryEntry entry) {
+        if (entry == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(entry);
+        }
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    public static void parsed(byte[] payload) {
+        WebHookHistoryEntry entry = CURRENT.get();
+        if (entry != null) {
+            entry.parsed();
+            entry.setPayload(payload);
+        }
+    }
+
+    public static void describe(String ref, String sha) {
+        WebHookHistoryEntry entry = CURRENT.get();
+        if (entry != null) {
+            entry.describe(ref, sha);
+        }
+    }
+
+    public static void handlingStarted() {
+        WebHookHistoryEntry entry = CURRENT.get();
+        if (entry != null) {
+            entry.handlingStarted();
+        }
+    }
+
+    public static void decide(String triggerType, Outcome outcome) {
+        decide(triggerType, outcome, null);
+    }
+
+    public static void decide(String triggerType, Outcome outcome, String detail) {
+        WebHookHistoryEntry entry = CURRENT.get();
+        if (entry != null) {
+            entry.addDecision(new Decision(triggerType, outcome, detail));
+        }
+    }
+
+    /**
+     * Adds the current entry to the history of the given job.
+     */
+    public static void finish(Job<?, ?> job) {
+        WebHookHistoryEntry entry = CURRENT.get();
+        if (entry != null) {
+            entry.finished();
+            WebHookHistory.forJob(job).add(entry);
+        }
+    }
+}
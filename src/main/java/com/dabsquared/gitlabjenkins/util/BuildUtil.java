@@ -6,6 +6,9 @@ import hudson.plugins.git.Branch;
 import hudson.plugins.git.util.BuildData;
 import hudson.plugins.git.util.MergeRecord;
 
+import java.util.HashSet;
+import java.util.Set;
+
 /**
  * @author Robin Müller
  */
@@ -37,6 +40,20 @@ public class BuildUtil {
         return null;
     }
 
+    /**
+     * @return the revisions the build checked out, without the builds that merged them with another branch
+     */
+    public static Set<String> getSHA1sWithoutMergeBuilds(Run<?, ?> build) {
+        Set<String> result = new HashSet<>();
+        MergeRecord merge = build.getAction(MergeRecord.class);
+        for (BuildData data : build.getActions(BuildData.class)) {
+            if (hasLastBuild(data) && isNoMergeBuild(data, merge)) {
+                result.add(data.lastBuild.getRevision().getSha1String());
+            }
+        }
+        return result;
+    }
+
     public static Run<?, ?> getBuildBySHA1IncludingMergeBuilds(Job<?, ?> project, String sha1) {
         for (Run<?, ?> build : project.getBuilds()) {
             for(BuildData data : build.getActions(BuildData.class)) {
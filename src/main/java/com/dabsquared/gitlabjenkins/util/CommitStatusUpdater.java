@@ -4,6 +4,7 @@ package com.dabsquared.gitlabjenkins.util;
 import com.dabsquared.gitlabjenkins.cause.GitLabWebHookCause;
 import com.dabsquared.gitlabjenkins.gitlab.api.GitLabClient;
 import com.dabsquared.gitlabjenkins.gitlab.api.model.BuildState;
+import com.dabsquared.gitlabjenkins.service.GitLabProjectIdService;
 import hudson.EnvVars;
 import hudson.model.Run;
 import hudson.model.TaskListener;
@@ -180,7 +181,10 @@ public class CommitStatusUpdater {
                     String projectId = projectNameWithNameSpace;
                     if (projectNameWithNameSpace.contains(".")) {
                         try {
-                            projectId = gitLabClient.getProject(projectNameWithNameSpace).getId().toString();
+                            Integer id = GitLabProjectIdService.instance().getProjectId(gitLabClient, projectNameWithNameSpace);
+                            if (id != null) {
+                                projectId = id.toString();
+                            }
                         } catch (WebApplicationException | ProcessingException e) {
                             LOGGER.log(Level.SEVERE, String.format("Failed to retrieve projectId for project '%s'",
                                 projectNameWithNameSpace), e);
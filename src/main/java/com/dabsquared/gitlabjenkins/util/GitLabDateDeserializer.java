@@ -0,0 +1,231 @@
+package com.dabsquared.gitlabjenkins.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Decodes the timestamps GitLab sends in web hooks and API responses.
+ * <p>
+ * The format is detected from the shape of the value and decoded straight from the parser's character buffer,
+ * so the common formats neither allocate a formatter nor throw exceptions:
+ * <ul>
+ *     <li>{@code 2015-03-18 20:01:55 UTC} and {@code 2015-03-18 20:01:55 +0100} (GitLab 7.x/8.x web hooks)</li>
+ *     <li>{@code 2016-05-30T09:31:08.233Z} and {@code 2016-05-30T09:31:08.233+02:00} (API and newer web hooks)</li>
+ *     <li>{@code 2015-04-08T21:00:25-07:00} (commit timestamps)</li>
+ * </ul>
+ * Values of any other shape are handed to the {@link SimpleDateFormat} based parsing of previous versions.
+ */
+public final class GitLabDateDeserializer extends JsonDeserializer<Date> {
+
+    static final String[] DATE_FORMATS = new String[] {
+            "yyyy-MM-dd HH:mm:ss Z", "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", "yyyy-MM-dd'T'HH:mm:ssX", "yyyy-MM-dd'T'HH:mm:ss.SSSX", "yyyy-MM-dd'T'HH:mm:ss.SSSZ"
+    };
+
+    static final long INVALID = Long.MIN_VALUE;
+
+    private static final long MILLIS_PER_MINUTE = 60 * 1000L;
+    private static final long MILLIS_PER_DAY = 24 * 60 * MILLIS_PER_MINUTE;
+
+    @Override
+    public Date deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.getCurrentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return new Date(p.getLongValue());
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            long millis = parse(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+            if (millis != INVALID) {
+                return new Date(millis);
+            }
+        }
+        return parseWithDateFormats(p.getValueAsString());
+    }
+
+    /**
+     * @return the milliseconds since the epoch or {@link #INVALID} if the value does not have one of the known shapes
+     */
+    static long parse(char[] value, int offset, int length) {
+        int end = offset + length;
+        int pos = offset;
+        if (length < 19) {
+            return INVALID;
+        }
+        int year = digits(value, pos, end, 4);
+        if (year < 0 || value[pos + 4] != '-') {
+            return INVALID;
+        }
+        int month = digits(value, pos + 5, end, 2);
+        if (month < 1 || month > 12 || value[pos + 7] != '-') {
+            return INVALID;
+        }
+        int day = digits(value, pos + 8, end, 2);
+        if (day < 1 || day > 31) {
+            return INVALID;
+        }
+        pos += 10;
+        char separator = value[pos++];
+        if (separator != 'T' && separator != ' ') {
+            return INVALID;
+        }
+
+        // some GitLab versions send commit timestamps like "2015-04-08T21: 00:25-07:00"
+        pos = skipSpaces(value, pos, end);
+        int hour = digits(value, pos, end, 2);
+        if (hour < 0 || hour > 23 || !is(value, pos + 2, end, ':')) {
+            return INVALID;
+        }
+        pos = skipSpaces(value, pos + 3, end);
+        int minute = digits(value, pos, end, 2);
+        if (minute < 0 || minute > 59 || !is(value, pos + 2, end, ':')) {
+            return INVALID;
+        }
+        pos = skipSpaces(value, pos + 3, end);
+        int second = digits(value, pos, end, 2);
+        if (second < 0 || second > 60) {
+            return INVALID;
+        }
+        pos += 2;
+
+        int millis = 0;
+        if (is(value, pos, end, '.')) {
+            pos++;
+            int fractionStart = pos;
+            while (pos < end && isDigit(value[pos])) {
+                if (pos - fractionStart < 3) {
+                    millis = millis * 10 + (value[pos] - '0');
+                }
+                pos++;
+            }
+            int fractionDigits = pos - fractionStart;
+            if (fractionDigits == 0) {
+                return INVALID;
+            }
+            for (int i = fractionDigits; i < 3; i++) {
+                millis *= 10;
+            }
+        }
+
+        pos = skipSpaces(value, pos, end);
+        if (pos >= end) {
+            return INVALID;
+        }
+        long offsetMillis;
+        char zone = value[pos];
+        if (zone == 'Z' && pos + 1 == end) {
+            offsetMillis = 0;
+        } else if (zone == '+' || zone == '-') {
+            offsetMillis = parseOffset(value, pos + 1, end);
+            if (offsetMillis == INVALID) {
+                return INVALID;
+            }
+            if (zone == '-') {
+                offsetMillis = -offsetMillis;
+            }
+        } else if (end - pos == 3 && (matches(value, pos, "UTC") || matches(value, pos, "GMT"))) {
+            offsetMillis = 0;
+        } else {
+            return INVALID;
+        }
+
+        long epochMillis = daysSinceEpoch(year, month, day) * MILLIS_PER_DAY
+            + ((hour * 60L + minute) * 60L + second) * 1000L + millis;
+        return epochMillis - offsetMillis;
+    }
+
+    /**
+     * Parses {@code hh}, {@code hhmm} or {@code hh:mm}.
+     */
+    private static long parseOffset(char[] value, int pos, int end) {
+        int hours = digits(value, pos, end, 2);
+        if (hours < 0) {
+            return INVALID;
+        }
+        pos += 2;
+        if (pos == end) {
+            return hours * 60 * MILLIS_PER_MINUTE;
+        }
+        if (value[pos] == ':') {
+            pos++;
+        }
+        int minutes = digits(value, pos, end, 2);
+        if (minutes < 0 || minutes > 59 || pos + 2 != end) {
+            return INVALID;
+        }
+        return (hours * 60 + minutes) * MILLIS_PER_MINUTE;
+    }
+
+    /**
+     * Days since 1970-01-01 in the proleptic Gregorian calendar, see
+     * <a href="http://howardhinnant.github.io/date_algorithms.html#days_from_civil">days_from_civil</a>.
+     */
+    private static long daysSinceEpoch(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468L;
+    }
+
+    private static int digits(char[] value, int pos, int end, int count) {
+        if (pos + count > end) {
+            return -1;
+        }
+        int result = 0;
+        for (int i = pos; i < pos + count; i++) {
+            if (!isDigit(value[i])) {
+                return -1;
+            }
+            result = result * 10 + (value[i] - '0');
+        }
+        return result;
+    }
+
+    private static int skipSpaces(char[] value, int pos, int end) {
+        while (pos < end && value[pos] == ' ') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean is(char[] value, int pos, int end, char expected) {
+        return pos < end && value[pos] == expected;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean matches(char[] value, int pos, String expected) {
+        for (int i = 0; i < expected.length(); i++) {
+            if (value[pos + i] != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static Date parseWithDateFormats(String value) throws IOException {
+        if (value != null) {
+            for (String format : DATE_FORMATS) {
+                try {
+                    return new SimpleDateFormat(format, Locale.US).parse(value);
+                } catch (ParseException e) {
+                    // nothing to do
+                }
+            }
+        }
+        throw new IOException("Unparseable date: \""
+                + value + "\". Supported formats: "
+                + Arrays.toString(DATE_FORMATS));
+    }
+}
@@ -1,18 +1,24 @@
 package com.dabsquared.gitlabjenkins.util;
 
-import com.fasterxml.jackson.databind.DeserializationContext;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.Commit;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.PushHook;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.PropertyNamingStrategy;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 
 import java.io.IOException;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Arrays;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
 import java.util.Date;
-import java.util.Locale;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 /**
  * @author Robin Müller
@@ -24,7 +30,10 @@ public final class JsonUtil {
             .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
             .configure(DeserializationFeature.READ_UNKNOWN_ENUM_VALUES_AS_NULL, true)
             .configure(SerializationFeature.INDENT_OUTPUT, true)
-            .registerModule(new DateModule());
+            .registerModule(new DateModule())
+            .addMixIn(PushHook.class, PushHookMixIn.class);
+
+    private static final ObjectWriter COMPACT_WRITER = OBJECT_MAPPER.writer().without(SerializationFeature.INDENT_OUTPUT);
 
     private JsonUtil() { }
 
@@ -44,28 +53,35 @@ public final class JsonUtil {
         }
     }
 
-    private static class DateModule extends SimpleModule {
-        private static final String[] DATE_FORMATS = new String[] {
-                "yyyy-MM-dd HH:mm:ss Z", "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", "yyyy-MM-dd'T'HH:mm:ssX", "yyyy-MM-dd'T'HH:mm:ss.SSSX", "yyyy-MM-dd'T'HH:mm:ss.SSSZ"
-        };
+    /**
+     * Binds the JSON document directly from the given stream without buffering it.
+     * Jackson detects the UTF encodings by itself, other charsets are decoded by a reader.
+     */
+    public static <T> T read(InputStream input, Charset charset, Class<T> type) throws IOException {
+        if (charset == null || UTF_8.equals(charset)) {
+            return OBJECT_MAPPER.readValue(input, type);
+        }
+        return OBJECT_MAPPER.readValue(new InputStreamReader(input, charset), type);
+    }
 
+    public static byte[] toBytes(Object value) throws IOException {
+        return COMPACT_WRITER.writeValueAsBytes(value);
+    }
+
+    private static class DateModule extends SimpleModule {
         private DateModule() {
-            addDeserializer(Date.class, new com.fasterxml.jackson.databind.JsonDeserializer<Date>() {
-                @Override
-                public Date deserialize(com.fasterxml.jackson.core.JsonParser p, DeserializationContext ctxt) throws IOException {
-                    for (String format : DATE_FORMATS) {
-                        try {
-                            return new SimpleDateFormat(format, Locale.US)
-                                    .parse(p.getValueAsString());
-                        } catch (ParseException e) {
-                            // nothing to do
-                        }
-                    }
-                    throw new IOException("Unparseable date: \""
-                            + p.getValueAsString() + "\". Supported formats: "
-                            + Arrays.toString(DATE_FORMATS));
-                }
-            });
+            addDeserializer(Date.class, new GitLabDateDeserializer());
         }
     }
+
+    /**
+     * Binds the commits of push hooks on demand, see {@link LazyCommitList}.
+     */
+    private abstract static class PushHookMixIn {
+        @JsonSerialize(using = LazyCommitList.Serializer.class)
+        abstract List<Commit> getCommits();
+
+        @JsonDeserialize(using = LazyCommitList.Deserializer.class)
+        abstract void setCommits(List<Commit> commits);
+    }
 }
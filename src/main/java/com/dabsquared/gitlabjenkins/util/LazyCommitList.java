@@ -0,0 +1,105 @@
+package com.dabsquared.gitlabjenkins.util;
+
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.Commit;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * The commits of a push hook, kept as the buffered JSON tokens of the {@code commits} array.
+ * <p>
+ * A {@link Commit} is only bound when it is accessed, so handlers that only look at the last commit
+ * do not allocate the commits (and their lists of added, modified and removed files) of large pushes.
+ * Accessed commits are kept, the list is read-only.
+ */
+public final class LazyCommitList extends AbstractList<Commit> {
+
+    private final TokenBuffer tokens;
+    private final ObjectCodec codec;
+    private final int size;
+    private Commit[] commits;
+
+    private LazyCommitList(TokenBuffer tokens, ObjectCodec codec, int size) {
+        this.tokens = tokens;
+        this.codec = codec;
+        this.size = size;
+    }
+
+    @Override
+    public synchronized Commit get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (commits == null) {
+            commits = new Commit[size];
+        }
+        if (commits[index] == null) {
+            commits[index] = read(index);
+        }
+        return commits[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private Commit read(int index) {
+        try (JsonParser parser = tokens.asParser(codec)) {
+            for (int i = 0; i < index; i++) {
+                parser.nextToken();
+                parser.skipChildren();
+            }
+            parser.nextToken();
+            return codec.readValue(parser, Commit.class);
+        } catch (IOException e) {
+            // the tokens have been read from a valid document already
+            throw new IllegalStateException("Failed to read commit " + index, e);
+        }
+    }
+
+    /**
+     * Buffers the tokens of the {@code commits} array instead of binding them.
+     */
+    public static final class Deserializer extends JsonDeserializer<List<Commit>> {
+        @Override
+        public List<Commit> deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (!p.isExpectedStartArrayToken()) {
+                throw ctxt.mappingException(List.class);
+            }
+            TokenBuffer tokens = new TokenBuffer(p.getCodec(), false);
+            int size = 0;
+            while (p.nextToken() != JsonToken.END_ARRAY) {
+                tokens.copyCurrentStructure(p);
+                size++;
+            }
+            return new LazyCommitList(tokens, p.getCodec(), size);
+        }
+    }
+
+    /**
+     * Writes the buffered tokens back without binding the commits that have not been accessed.
+     */
+    public static final class Serializer extends JsonSerializer<List<Commit>> {
+        @Override
+        public void serialize(List<Commit> value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            if (value instanceof LazyCommitList) {
+                gen.writeStartArray();
+                ((LazyCommitList) value).tokens.serialize(gen);
+                gen.writeEndArray();
+            } else {
+                serializers.defaultSerializeValue(value, gen);
+            }
+        }
+    }
+}
@@ -2,9 +2,11 @@ package com.dabsquared.gitlabjenkins.util;
 
 
 import com.dabsquared.gitlabjenkins.gitlab.api.GitLabClient;
+import org.apache.commons.lang.StringUtils;
 import org.eclipse.jgit.transport.URIish;
 
 import java.net.URISyntaxException;
+import java.util.Locale;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -41,6 +43,28 @@ public final class ProjectIdUtil {
         }
     }
 
+    /**
+     * @return whether the given Git remote URL points to the repository of the project with the given path,
+     *         regardless of the protocol and of a context path of the GitLab server
+     */
+    public static boolean isRemoteOfProject(String remoteUrl, String pathWithNamespace) {
+        if (remoteUrl == null || pathWithNamespace == null) {
+            return false;
+        }
+        String path;
+        try {
+            path = new URIish(remoteUrl).getPath();
+        } catch (URISyntaxException e) {
+            return false;
+        }
+        if (path == null) {
+            return false;
+        }
+        path = StringUtils.removeEnd(StringUtils.removeStart(StringUtils.removeStart(path, ":"), "/"), ".git").toLowerCase(Locale.ENGLISH);
+        String projectPath = pathWithNamespace.toLowerCase(Locale.ENGLISH);
+        return path.equals(projectPath) || path.endsWith('/' + projectPath);
+    }
+
     public static class ProjectIdResolutionException extends Exception {
         public ProjectIdResolutionException(String message, Throwable cause) {
             super(message, cause);
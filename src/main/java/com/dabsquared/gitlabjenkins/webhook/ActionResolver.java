@@ -1,6 +1,14 @@
 package com.dabsquared.gitlabjenkins.webhook;
 
+import com.dabsquared.gitlabjenkins.connection.GitLabConnectionConfig;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.NoteHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.PipelineHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.PushHook;
+import com.dabsquared.gitlabjenkins.trigger.history.WebHookHistory;
+import com.dabsquared.gitlabjenkins.trigger.history.WebHookTrace;
 import com.dabsquared.gitlabjenkins.util.ACLUtil;
+import com.dabsquared.gitlabjenkins.util.JsonUtil;
 import com.dabsquared.gitlabjenkins.webhook.build.MergeRequestBuildAction;
 import com.dabsquared.gitlabjenkins.webhook.build.NoteBuildAction;
 import com.dabsquared.gitlabjenkins.webhook.build.PipelineBuildAction;
@@ -11,7 +19,10 @@ import com.dabsquared.gitlabjenkins.webhook.status.CommitBuildPageRedirectAction
 import com.dabsquared.gitlabjenkins.webhook.status.CommitStatusPngAction;
 import com.dabsquared.gitlabjenkins.webhook.status.StatusJsonAction;
 import com.google.common.base.Joiner;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.google.common.base.Splitter;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
 import hudson.model.Item;
 import hudson.model.ItemGroup;
 import hudson.model.Job;
@@ -23,9 +34,13 @@ import org.apache.commons.io.IOUtils;
 import org.kohsuke.stapler.StaplerRequest;
 import org.kohsuke.stapler.StaplerResponse;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
 import java.util.Iterator;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
@@ -44,12 +59,13 @@ public class ActionResolver {
             Pattern.compile("^(refs/[^/]+/)?(commits|builds)/(?<sha1>[0-9a-fA-F]+)(?<statusJson>/status.json)?$");
 
     public WebHookAction resolve(final String projectName, StaplerRequest request) {
-        Iterator<String> restOfPathParts = Splitter.on('/').omitEmptyStrings().split(request.getRestOfPath()).iterator();
-        Item project = resolveProject(projectName, restOfPathParts);
-        if (project == null) {
+        List<String> pathParts = Lists.newArrayList(Splitter.on('/').omitEmptyStrings().split(request.getRestOfPath()));
+        ProjectPathCache.Resolution resolution = resolveProject(projectName, pathParts);
+        if (resolution == null) {
             throw HttpResponses.notFound();
         }
-        return resolveAction(project, Joiner.on('/').join(restOfPathParts), request);
+        String restOfPath = Joiner.on('/').join(pathParts.subList(resolution.getConsumedPathParts(), pathParts.size()));
+        return resolveAction(resolution.getItem(), restOfPath, request);
     }
 
     private WebHookAction resolveAction(Item project, String restOfPath, StaplerRequest request) {
@@ -104,35 +120,95 @@ public class ActionResolver {
             return new NoopAction();
         }
         String tokenHeader = request.getHeader("X-Gitlab-Token");
+        String eventUuid = request.getHeader("X-Gitlab-Event-UUID");
         switch (eventHeader) {
             case "Merge Request Hook":
-                return new MergeRequestBuildAction(project, getRequestBody(request), tokenHeader);
+                return new MergeRequestBuildAction(project, readHook(project, request, MergeRequestHook.class), tokenHeader, eventUuid);
             case "Push Hook":
             case "Tag Push Hook":
-                return new PushBuildAction(project, getRequestBody(request), tokenHeader);
+                return new PushBuildAction(project, readHook(project, request, PushHook.class), tokenHeader, eventUuid);
             case "Note Hook":
-                return new NoteBuildAction(project, getRequestBody(request), tokenHeader);
+                return new NoteBuildAction(project, readHook(project, request, NoteHook.class), tokenHeader, eventUuid);
             case "Pipeline Hook":
-                return new PipelineBuildAction(project, getRequestBody(request), tokenHeader);
+                return new PipelineBuildAction(project, readHook(project, request, PipelineHook.class), tokenHeader, eventUuid);
             default:
                 LOGGER.log(Level.FINE, "Unsupported X-Gitlab-Event header: {0}", eventHeader);
                 return new NoopAction();
         }
     }
 
-    private String getRequestBody(StaplerRequest request) {
-        String requestBody;
+    <T> T readHook(Item project, StaplerRequest request, Class<T> type) {
+        long maxPayloadSize = getMaxPayloadSize();
+        if (request.getContentLength() > maxPayloadSize) {
+            throw payloadTooLarge(maxPayloadSize);
+        }
+        PayloadSizeLimitedInputStream input = null;
         try {
-            Charset charset = request.getCharacterEncoding() == null ?  UTF_8 : Charset.forName(request.getCharacterEncoding());
-            requestBody = IOUtils.toString(request.getInputStream(), charset);
+            Charset charset = getCharset(request);
+            input = new PayloadSizeLimitedInputStream(request.getInputStream(), maxPayloadSize);
+            if (project instanceof Job<?, ?> && WebHookHistory.isCapturePayloads((Job<?, ?>) project)) {
+                byte[] payload = IOUtils.toByteArray(input);
+                T hook = JsonUtil.read(new ByteArrayInputStream(payload), charset, type);
+                WebHookTrace.parsed(payload);
+                return hook;
+            }
+            T hook = JsonUtil.read(input, charset, type);
+            WebHookTrace.parsed(null);
+            return hook;
+        } catch (JsonProcessingException e) {
+            if (input.isLimitExceeded()) {
+                throw payloadTooLarge(maxPayloadSize);
+            }
+            LOGGER.log(Level.FINE, "Failed to parse request body", e);
+            throw HttpResponses.errorWithoutStack(400, "Failed to parse request body");
         } catch (IOException e) {
+            if (input != null && input.isLimitExceeded()) {
+                throw payloadTooLarge(maxPayloadSize);
+            }
             throw HttpResponses.error(500, "Failed to read request body");
         }
-        return requestBody;
     }
 
-    private Item resolveProject(final String projectName, final Iterator<String> restOfPathParts) {
-        return ACLUtil.impersonate(ACL.SYSTEM, new ACLUtil.Function<Item>() {
+    private Charset getCharset(StaplerRequest request) {
+        String encoding = request.getCharacterEncoding();
+        if (encoding == null) {
+            return UTF_8;
+        }
+        try {
+            return Charset.forName(encoding);
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            // GitLab sends UTF-8, an unknown charset is most likely added by a proxy
+            LOGGER.log(Level.FINE, "Unsupported request charset {0}, falling back to UTF-8", encoding);
+            return UTF_8;
+        }
+    }
+
+    private long getMaxPayloadSize() {
+        GitLabConnectionConfig config = (GitLabConnectionConfig) Jenkins.getInstance().getDescriptor(GitLabConnectionConfig.class);
+        int maxPayloadSizeInMegabytes = config == null ? GitLabConnectionConfig.DEFAULT_MAX_WEB_HOOK_PAYLOAD_SIZE : config.getMaxWebHookPayloadSize();
+        return maxPayloadSizeInMegabytes * 1024L * 1024L;
+    }
+
+    private HttpResponses.HttpResponseException payloadTooLarge(long maxPayloadSize) {
+        LOGGER.log(Level.WARNING, "Rejecting web hook exceeding the maximum payload size of {0} bytes", maxPayloadSize);
+        return HttpResponses.errorWithoutStack(413, "Request body exceeds the maximum payload size of " + maxPayloadSize + " bytes");
+    }
+
+    private ProjectPathCache.Resolution resolveProject(final String projectName, final List<String> pathParts) {
+        ProjectPathCache cache = ProjectPathCache.instance();
+        StringBuilder path = new StringBuilder(projectName);
+        ProjectPathCache.Resolution resolution = cache.get(path.toString());
+        for (int i = 0; resolution == null && i < pathParts.size(); i++) {
+            path.append('/').append(pathParts.get(i));
+            resolution = cache.get(path.toString());
+        }
+        if (resolution != null) {
+            return resolution;
+        }
+
+        final long generation = cache.getGeneration();
+        final Iterator<String> restOfPathParts = pathParts.iterator();
+        Item project = ACLUtil.impersonate(ACL.SYSTEM, new ACLUtil.Function<Item>() {
             public Item invoke() {
                 final Jenkins jenkins = Jenkins.getInstance();
                 if (jenkins != null) {
@@ -148,6 +224,16 @@ public class ActionResolver {
                 return null;
             }
         });
+        if (project == null) {
+            return null;
+        }
+        int remainingPathParts = Iterators.size(restOfPathParts);
+        int consumedPathParts = pathParts.size() - remainingPathParts;
+        path.setLength(projectName.length());
+        for (String pathPart : pathParts.subList(0, consumedPathParts)) {
+            path.append('/').append(pathPart);
+        }
+        return cache.put(path.toString(), project, consumedPathParts, generation);
     }
 
     static class NoopAction implements WebHookAction {
@@ -0,0 +1,245 @@
+package com.dabsquared.gitlabjenkins.webhook;
+
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestObjectAttributes;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.NoteHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.PipelineHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.Project;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.PushHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.Repository;
+import com.dabsquared.gitlabjenkins.trigger.filter.BranchFilterIndex;
+import com.dabsquared.gitlabjenkins.trigger.history.WebHookHistoryEntry;
+import com.dabsquared.gitlabjenkins.trigger.history.WebHookTrace;
+import com.dabsquared.gitlabjenkins.util.ACLUtil;
+import com.dabsquared.gitlabjenkins.webhook.build.MergeRequestBuildAction;
+import com.dabsquared.gitlabjenkins.webhook.build.NoteBuildAction;
+import com.dabsquared.gitlabjenkins.webhook.build.PipelineBuildAction;
+import com.dabsquared.gitlabjenkins.webhook.build.PushBuildAction;
+import com.dabsquared.gitlabjenkins.webhook.repository.RepositoryUrlIndex;
+import hudson.Extension;
+import hudson.model.Job;
+import hudson.model.UnprotectedRootAction;
+import hudson.security.ACL;
+import hudson.security.csrf.CrumbExclusion;
+import hudson.util.HttpResponses;
+import jenkins.model.Jenkins;
+import org.apache.commons.lang.StringUtils;
+import org.kohsuke.stapler.HttpResponses.HttpResponseException;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.dabsquared.gitlabjenkins.util.LoggerUtil.toArray;
+
+/**
+ * End-point for a single web hook per GitLab project.
+ * The hook is parsed once and handed to every job with a GitLab trigger whose Git remote points to the repository of the hook
+ * and whose branch filter may allow the branch of the hook, each job still applies its own trigger settings and secret token.
+ */
+@Extension
+public class GitLabRepositoryWebHook implements UnprotectedRootAction {
+
+    public static final String WEBHOOK_URL = "gitlab-webhook";
+
+    private static final Logger LOGGER = Logger.getLogger(GitLabRepositoryWebHook.class.getName());
+
+    private transient final ActionResolver actionResolver = new ActionResolver();
+
+    public String getIconFileName() {
+        return null;
+    }
+
+    public String getDisplayName() {
+        return null;
+    }
+
+    public String getUrlName() {
+        return WEBHOOK_URL;
+    }
+
+    public void doIndex(StaplerRequest request, StaplerResponse response) {
+        if (!request.getMethod().equals("POST")) {
+            throw HttpResponses.errorWithoutStack(405, "Only POST is supported");
+        }
+        String eventHeader = request.getHeader("X-Gitlab-Event");
+        if (eventHeader == null) {
+            throw HttpResponses.errorWithoutStack(400, "Missing X-Gitlab-Event header");
+        }
+        final String tokenHeader = request.getHeader("X-Gitlab-Token");
+        final String eventUuid = request.getHeader("X-Gitlab-Event-UUID");
+        // the hook is parsed once for all jobs, their entries start from this one
+        WebHookTrace.begin(eventHeader);
+        try {
+            handle(eventHeader, tokenHeader, eventUuid, request, response);
+        } finally {
+            WebHookTrace.end();
+        }
+    }
+
+    private void handle(String eventHeader, final String tokenHeader, final String eventUuid, StaplerRequest request, StaplerResponse response) {
+        switch (eventHeader) {
+            case "Merge Request Hook":
+                final MergeRequestHook mergeRequestHook = actionResolver.readHook(null, request, MergeRequestHook.class);
+                dispatch(eventHeader, getTargetUrls(mergeRequestHook.getObjectAttributes()), getTargetBranch(mergeRequestHook.getObjectAttributes()), response, new ActionFactory() {
+                    public WebHookAction create(Job<?, ?> job) {
+                        return new MergeRequestBuildAction(job, mergeRequestHook, tokenHeader, eventUuid);
+                    }
+                });
+                break;
+            case "Push Hook":
+            case "Tag Push Hook":
+                final PushHook pushHook = actionResolver.readHook(null, request, PushHook.class);
+                dispatch(eventHeader, getUrls(pushHook.getRepository(), pushHook.getProject()), getBranch(pushHook.getRef()), response, new ActionFactory() {
+                    public WebHookAction create(Job<?, ?> job) {
+                        return new PushBuildAction(job, pushHook, tokenHeader, eventUuid);
+                    }
+                });
+                break;
+            case "Note Hook":
+                final NoteHook noteHook = actionResolver.readHook(null, request, NoteHook.class);
+                dispatch(eventHeader, getTargetUrls(noteHook.getMergeRequest()), getTargetBranch(noteHook.getMergeRequest()), response, new ActionFactory() {
+                    public WebHookAction create(Job<?, ?> job) {
+                        return new NoteBuildAction(job, noteHook, tokenHeader, eventUuid);
+                    }
+                });
+                break;
+            case "Pipeline Hook":
+                final PipelineHook pipelineHook = actionResolver.readHook(null, request, PipelineHook.class);
+                dispatch(eventHeader, getUrls(pipelineHook.getRepository(), pipelineHook.getProject()),
+                         pipelineHook.getObjectAttributes() == null ? null : getBranch(pipelineHook.getObjectAttributes().getRef()), response, new ActionFactory() {
+                    public WebHookAction create(Job<?, ?> job) {
+                        return new PipelineBuildAction(job, pipelineHook, tokenHeader, eventUuid);
+                    }
+                });
+                break;
+            default:
+                LOGGER.log(Level.FINE, "Unsupported X-Gitlab-Event header: {0}", eventHeader);
+                throw HttpResponses.ok();
+        }
+    }
+
+    /**
+     * @param branchName the branch that the trigger handlers of the hook pass to the branch filter of the job,
+     *                   only the jobs whose filter may allow it get the hook
+     */
+    private void dispatch(String eventHeader, Collection<String> repositoryUrls, String branchName, StaplerResponse response,
+                          ActionFactory actionFactory) {
+        Set<String> jobNames = BranchFilterIndex.instance().getCandidates(RepositoryUrlIndex.instance().getJobNames(repositoryUrls), branchName);
+        LOGGER.log(Level.FINE, "{0} for {1} on {2} matches jobs {3}", toArray(eventHeader, repositoryUrls, branchName, jobNames));
+        WebHookHistoryEntry received = WebHookTrace.current();
+        WebHookResponses.RetryLater retryLater = null;
+        List<String> rejectedJobs = new ArrayList<>();
+        boolean handled = false;
+        boolean accepted = false;
+        for (Job<?, ?> job : getJobs(jobNames)) {
+            WebHookTrace.begin(received);
+            try {
+                actionFactory.create(job).execute(response);
+            } catch (WebHookResponses.Accepted e) {
+                handled = true;
+                accepted = true;
+            } catch (WebHookResponses.RetryLater e) {
+                rejectedJobs.add(job.getFullName());
+                retryLater = e;
+            } catch (HttpResponseException e) {
+                // every build action ends with a response, a rejected token of one job must not affect the others
+                LOGGER.log(Level.FINEST, "Web hook handled for {0}", job.getFullName());
+                handled = true;
+            } finally {
+                WebHookTrace.attach(received);
+            }
+        }
+        if (retryLater != null) {
+            if (!handled) {
+                throw retryLater;
+            }
+            // GitLab would deliver the hook again to every job, the jobs that handled it would build it twice
+            LOGGER.log(Level.WARNING, "Could not process web hook for {0}", rejectedJobs);
+        }
+        throw accepted ? WebHookResponses.accepted() : HttpResponses.ok();
+    }
+
+    private List<Job<?, ?>> getJobs(final Set<String> jobNames) {
+        return ACLUtil.impersonate(ACL.SYSTEM, new ACLUtil.Function<List<Job<?, ?>>>() {
+            public List<Job<?, ?>> invoke() {
+                List<Job<?, ?>> jobs = new ArrayList<>();
+                Jenkins jenkins = Jenkins.getInstance();
+                if (jenkins != null) {
+                    for (String jobName : jobNames) {
+                        Job<?, ?> job = jenkins.getItemByFullName(jobName, Job.class);
+                        if (job != null) {
+                            jobs.add(job);
+                        }
+                    }
+                }
+                return jobs;
+            }
+        });
+    }
+
+    /**
+     * The branch of push and pipeline hooks as the trigger handlers see it, tags keep their {@code refs/tags/} prefix.
+     */
+    private static String getBranch(String ref) {
+        return StringUtils.removeStart(ref, "refs/heads/");
+    }
+
+    private static String getTargetBranch(MergeRequestObjectAttributes objectAttributes) {
+        return objectAttributes == null ? null : objectAttributes.getTargetBranch();
+    }
+
+    private static Collection<String> getTargetUrls(MergeRequestObjectAttributes objectAttributes) {
+        List<String> urls = new ArrayList<>();
+        if (objectAttributes != null) {
+            addUrls(urls, objectAttributes.getTarget());
+        }
+        return urls;
+    }
+
+    private static Collection<String> getUrls(Repository repository, Project project) {
+        List<String> urls = new ArrayList<>();
+        if (repository != null) {
+            urls.add(repository.getUrl());
+            urls.add(repository.getGitHttpUrl());
+            urls.add(repository.getGitSshUrl());
+        }
+        addUrls(urls, project);
+        return urls;
+    }
+
+    private static void addUrls(List<String> urls, Project project) {
+        if (project != null) {
+            urls.add(project.getUrl());
+            urls.add(project.getHttpUrl());
+            urls.add(project.getSshUrl());
+        }
+    }
+
+    private interface ActionFactory {
+        WebHookAction create(Job<?, ?> job);
+    }
+
+    @Extension
+    public static class GitLabRepositoryWebHookCrumbExclusion extends CrumbExclusion {
+        @Override
+        public boolean process(HttpServletRequest req, HttpServletResponse resp, FilterChain chain) throws IOException, ServletException {
+            String pathInfo = req.getPathInfo();
+            if (pathInfo != null && (pathInfo.equals('/' + WEBHOOK_URL) || pathInfo.startsWith('/' + WEBHOOK_URL + '/'))) {
+                chain.doFilter(req, resp);
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.dabsquared.gitlabjenkins.webhook;
+
+import com.dabsquared.gitlabjenkins.connection.GitLabConnectionConfig;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.SystemHook;
+import com.dabsquared.gitlabjenkins.service.GitLabOpenMergeRequestService;
+import com.dabsquared.gitlabjenkins.service.GitLabProjectBranchesService;
+import com.dabsquared.gitlabjenkins.service.GitLabProjectIdService;
+import com.dabsquared.gitlabjenkins.service.GitLabProjectLabelsService;
+import hudson.Extension;
+import hudson.model.UnprotectedRootAction;
+import hudson.security.csrf.CrumbExclusion;
+import hudson.util.HttpResponses;
+import hudson.util.Secret;
+import jenkins.model.Jenkins;
+import org.apache.commons.lang.StringUtils;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.dabsquared.gitlabjenkins.util.LoggerUtil.toArray;
+
+/**
+ * End-point for a GitLab system hook.
+ * Project and repository events remove the affected entries from the caches of project ids, branches, labels
+ * and open merge requests, so that these caches stay correct with long expiration times.
+ */
+@Extension
+public class GitLabSystemHook implements UnprotectedRootAction {
+
+    public static final String SYSTEM_HOOK_URL = "gitlab-systemhook";
+
+    private static final Logger LOGGER = Logger.getLogger(GitLabSystemHook.class.getName());
+
+    private transient final ActionResolver actionResolver = new ActionResolver();
+    private transient final AtomicLong invalidationCount = new AtomicLong();
+
+    public String getIconFileName() {
+        return null;
+    }
+
+    public String getDisplayName() {
+        return null;
+    }
+
+    public String getUrlName() {
+        return SYSTEM_HOOK_URL;
+    }
+
+    public long getInvalidationCount() {
+        return invalidationCount.get();
+    }
+
+    public void doIndex(StaplerRequest request, StaplerResponse response) {
+        if (!request.getMethod().equals("POST")) {
+            throw HttpResponses.errorWithoutStack(405, "Only POST is supported");
+        }
+        Secret secretToken = getSecretToken();
+        if (secretToken == null) {
+            LOGGER.log(Level.WARNING, "Rejecting system hook, no system hook secret token is configured");
+            throw HttpResponses.errorWithoutStack(403, "No system hook secret token configured");
+        }
+        if (!secretToken.getPlainText().equals(request.getHeader("X-Gitlab-Token"))) {
+            throw HttpResponses.errorWithoutStack(401, "Invalid token");
+        }
+        String eventHeader = request.getHeader("X-Gitlab-Event");
+        if (!"System Hook".equals(eventHeader)) {
+            LOGGER.log(Level.FINE, "Unsupported X-Gitlab-Event header: {0}", eventHeader);
+            throw HttpResponses.ok();
+        }
+        handle(actionResolver.readHook(null, request, SystemHook.class));
+        throw HttpResponses.ok();
+    }
+
+    void handle(SystemHook hook) {
+        String eventName = hook.getEventName();
+        if (eventName == null) {
+            return;
+        }
+        LOGGER.log(Level.FINE, "System hook {0} for {1}", toArray(eventName, hook.getPathWithNamespace()));
+        switch (eventName) {
+            case "project_create":
+            case "project_destroy":
+                invalidateProject(hook.getPathWithNamespace());
+                invalidateMergeRequests(hook.getProjectId());
+                break;
+            case "project_rename":
+            case "project_transfer":
+                invalidateProject(hook.getOldPathWithNamespace());
+                invalidateProject(hook.getPathWithNamespace());
+                invalidateMergeRequests(hook.getProjectId());
+                break;
+            case "repository_update":
+                if (hook.getProject() != null && hook.getProject().getPathWithNamespace() != null) {
+                    GitLabProjectBranchesService.instance().invalidate(hook.getProject().getPathWithNamespace());
+                    invalidationCount.incrementAndGet();
+                }
+                break;
+            default:
+                LOGGER.log(Level.FINEST, "Ignoring system hook {0}", eventName);
+        }
+    }
+
+    private void invalidateProject(String pathWithNamespace) {
+        if (pathWithNamespace != null) {
+            GitLabProjectIdService.instance().invalidate(pathWithNamespace);
+            GitLabProjectBranchesService.instance().invalidate(pathWithNamespace);
+            GitLabProjectLabelsService.instance().invalidate(pathWithNamespace);
+            invalidationCount.incrementAndGet();
+        }
+    }
+
+    private void invalidateMergeRequests(Integer projectId) {
+        if (projectId != null) {
+            GitLabOpenMergeRequestService.instance().invalidate(projectId);
+        }
+    }
+
+    /**
+     * @return the configured secret token, {@code null} if there is none and system hooks are not accepted
+     */
+    private static Secret getSecretToken() {
+        GitLabConnectionConfig config = (GitLabConnectionConfig) Jenkins.getInstance().getDescriptor(GitLabConnectionConfig.class);
+        Secret secretToken = config == null ? null : config.getSystemHookSecretToken();
+        return secretToken == null || StringUtils.isEmpty(secretToken.getPlainText()) ? null : secretToken;
+    }
+
+    @Extension
+    public static class GitLabSystemHookCrumbExclusion extends CrumbExclusion {
+        @Override
+        public boolean process(HttpServletRequest req, HttpServletResponse resp, FilterChain chain) throws IOException, ServletException {
+            String pathInfo = req.getPathInfo();
+            if (pathInfo != null && (pathInfo.equals('/' + SYSTEM_HOOK_URL) || pathInfo.startsWith('/' + SYSTEM_HOOK_URL + '/'))) {
+                chain.doFilter(req, resp);
+                return true;
+            }
+            return false;
+        }
+    }
+}
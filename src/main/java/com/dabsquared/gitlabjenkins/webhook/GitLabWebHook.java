@@ -1,5 +1,6 @@
 package com.dabsquared.gitlabjenkins.webhook;
 
+import com.dabsquared.gitlabjenkins.trigger.history.WebHookTrace;
 import hudson.Extension;
 import hudson.model.UnprotectedRootAction;
 import hudson.security.csrf.CrumbExclusion;
@@ -41,7 +42,12 @@ public class GitLabWebHook implements UnprotectedRootAction {
 
     public void getDynamic(final String projectName, final StaplerRequest request, StaplerResponse response) {
         LOGGER.log(Level.INFO, "WebHook called with url: {0}", request.getRequestURIWithQueryString());
-        actionResolver.resolve(projectName, request).execute(response);
+        WebHookTrace.begin(request.getHeader("X-Gitlab-Event"));
+        try {
+            actionResolver.resolve(projectName, request).execute(response);
+        } finally {
+            WebHookTrace.end();
+        }
     }
 
     @Extension
@@ -0,0 +1,68 @@
+package com.dabsquared.gitlabjenkins.webhook;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Fails as soon as more than the allowed number of bytes has been read from the request body.
+ */
+class PayloadSizeLimitedInputStream extends FilterInputStream {
+
+    private final long maxPayloadSize;
+    private long bytesRead;
+    private boolean limitExceeded;
+
+    PayloadSizeLimitedInputStream(InputStream in, long maxPayloadSize) {
+        super(in);
+        this.maxPayloadSize = maxPayloadSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int result = super.read();
+        if (result != -1) {
+            count(1);
+        }
+        return result;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int result = super.read(b, off, len);
+        if (result > 0) {
+            count(result);
+        }
+        return result;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long result = super.skip(n);
+        count(result);
+        return result;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    boolean isLimitExceeded() {
+        return limitExceeded;
+    }
+
+    private void count(long bytes) throws IOException {
+        bytesRead += bytes;
+        if (bytesRead > maxPayloadSize) {
+            limitExceeded = true;
+            throw new PayloadTooLargeException(maxPayloadSize);
+        }
+    }
+
+    static class PayloadTooLargeException extends IOException {
+        PayloadTooLargeException(long maxPayloadSize) {
+            super("Request body exceeds the maximum web hook payload size of " + maxPayloadSize + " bytes");
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.dabsquared.gitlabjenkins.webhook;
+
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.listeners.ItemListener;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches which item a web hook path like {@code /project/folder/job} resolves to.
+ * Only successful resolutions are cached. The entries of an item and of everything below it are removed
+ * as soon as the item is renamed, moved or deleted, and the whole cache is dropped when the items are (re)loaded.
+ */
+final class ProjectPathCache {
+
+    private static final ProjectPathCache INSTANCE = new ProjectPathCache();
+
+    private final ConcurrentMap<String, Resolution> resolutions = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    ProjectPathCache() { }
+
+    static ProjectPathCache instance() {
+        return INSTANCE;
+    }
+
+    Resolution get(String path) {
+        return resolutions.get(path);
+    }
+
+    /**
+     * @return the current generation, to be passed to {@link #put} for an item resolved afterwards
+     */
+    long getGeneration() {
+        return generation.get();
+    }
+
+    Resolution put(String path, Item item, int consumedPathParts, long resolvedInGeneration) {
+        Resolution resolution = new Resolution(item, consumedPathParts);
+        resolutions.put(path, resolution);
+        if (generation.get() != resolvedInGeneration) {
+            // the item might have been renamed or deleted while it was resolved
+            resolutions.remove(path, resolution);
+        }
+        return resolution;
+    }
+
+    int size() {
+        return resolutions.size();
+    }
+
+    void invalidate(String fullName) {
+        generation.incrementAndGet();
+        String childPrefix = fullName + '/';
+        for (Iterator<Resolution> iterator = resolutions.values().iterator(); iterator.hasNext(); ) {
+            String cachedFullName = iterator.next().fullName;
+            if (cachedFullName.equals(fullName) || cachedFullName.startsWith(childPrefix)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    void clear() {
+        generation.incrementAndGet();
+        resolutions.clear();
+    }
+
+    static final class Resolution {
+        private final Item item;
+        private final String fullName;
+        private final int consumedPathParts;
+
+        private Resolution(Item item, int consumedPathParts) {
+            this.item = item;
+            this.fullName = item.getFullName();
+            this.consumedPathParts = consumedPathParts;
+        }
+
+        Item getItem() {
+            return item;
+        }
+
+        /**
+         * @return the number of path parts after the project name that have been used to find the item
+         */
+        int getConsumedPathParts() {
+            return consumedPathParts;
+        }
+    }
+
+    @Extension
+    public static class InvalidatingItemListener extends ItemListener {
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            INSTANCE.invalidate(oldFullName);
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            INSTANCE.invalidate(item.getFullName());
+        }
+
+        @Override
+        public void onLoaded() {
+            INSTANCE.clear();
+        }
+    }
+}
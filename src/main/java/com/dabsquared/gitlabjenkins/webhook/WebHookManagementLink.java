@@ -0,0 +1,72 @@
+package com.dabsquared.gitlabjenkins.webhook;
+
+import com.dabsquared.gitlabjenkins.trigger.filter.BranchFilterIndex;
+import com.dabsquared.gitlabjenkins.trigger.handler.ActiveBuildIndex;
+import com.dabsquared.gitlabjenkins.webhook.dedup.WebHookDeduplicator;
+import com.dabsquared.gitlabjenkins.webhook.journal.WebHookJournal;
+import com.dabsquared.gitlabjenkins.webhook.queue.WebHookQueue;
+import com.dabsquared.gitlabjenkins.webhook.ratelimit.WebHookRateLimiter;
+import com.dabsquared.gitlabjenkins.webhook.repository.RepositoryUrlIndex;
+import hudson.Extension;
+import hudson.model.ManagementLink;
+import hudson.model.UnprotectedRootAction;
+import jenkins.model.Jenkins;
+
+/**
+ * Shows the state of the GitLab web hook processing on the "Manage Jenkins" page.
+ */
+@Extension
+public class WebHookManagementLink extends ManagementLink {
+
+    @Override
+    public String getIconFileName() {
+        return "monitor.png";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "GitLab Web Hooks";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Queue depth, rate limits, rejections and throughput of the GitLab web hook processing";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "gitlab-webhooks";
+    }
+
+    public WebHookQueue getQueue() {
+        return WebHookQueue.instance();
+    }
+
+    public WebHookRateLimiter getRateLimiter() {
+        return WebHookRateLimiter.instance();
+    }
+
+    public WebHookDeduplicator getDeduplicator() {
+        return WebHookDeduplicator.instance();
+    }
+
+    public RepositoryUrlIndex getRepositoryUrlIndex() {
+        return RepositoryUrlIndex.instance();
+    }
+
+    public BranchFilterIndex getBranchFilterIndex() {
+        return BranchFilterIndex.instance();
+    }
+
+    public ActiveBuildIndex getActiveBuildIndex() {
+        return ActiveBuildIndex.instance();
+    }
+
+    public WebHookJournal getJournal() {
+        return WebHookJournal.instance();
+    }
+
+    public GitLabSystemHook getSystemHook() {
+        return Jenkins.getInstance().getExtensionList(UnprotectedRootAction.class).get(GitLabSystemHook.class);
+    }
+}
@@ -0,0 +1,63 @@
+package com.dabsquared.gitlabjenkins.webhook;
+
+import org.kohsuke.stapler.HttpResponses.HttpResponseException;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+
+/**
+ * Responses of the web hook end-point that are not covered by {@link hudson.util.HttpResponses}.
+ */
+public final class WebHookResponses {
+
+    private WebHookResponses() { }
+
+    public static Accepted accepted() {
+        return new Accepted();
+    }
+
+    public static RetryLater retryLater(int status, int retryAfterSeconds, String message) {
+        return new RetryLater(status, retryAfterSeconds, message);
+    }
+
+    /**
+     * Tells GitLab that the web hook will be processed asynchronously.
+     */
+    public static final class Accepted extends HttpResponseException {
+        private Accepted() { }
+
+        @Override
+        public void generateResponse(StaplerRequest req, StaplerResponse rsp, Object node) throws IOException, ServletException {
+            rsp.setStatus(202);
+        }
+    }
+
+    /**
+     * Tells GitLab that the web hook has not been processed and should be delivered again later.
+     */
+    public static final class RetryLater extends HttpResponseException {
+        private final int status;
+        private final int retryAfterSeconds;
+        private final String message;
+
+        private RetryLater(int status, int retryAfterSeconds, String message) {
+            this.status = status;
+            this.retryAfterSeconds = retryAfterSeconds;
+            this.message = message;
+        }
+
+        public int getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+
+        @Override
+        public void generateResponse(StaplerRequest req, StaplerResponse rsp, Object node) throws IOException, ServletException {
+            rsp.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+            rsp.setStatus(status);
+            rsp.setContentType("text/plain;charset=UTF-8");
+            rsp.getWriter().println(message);
+        }
+    }
+}
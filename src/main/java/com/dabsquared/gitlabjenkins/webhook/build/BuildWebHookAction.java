@@ -1,9 +1,13 @@
 package com.dabsquared.gitlabjenkins.webhook.build;
 
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import hudson.model.Item;
 import hudson.model.Job;
+import hudson.security.ACL;
 import hudson.security.Messages;
 import hudson.security.Permission;
 import hudson.util.HttpResponses;
@@ -12,8 +16,30 @@ import org.acegisecurity.Authentication;
 import org.apache.commons.lang.StringUtils;
 import org.kohsuke.stapler.StaplerResponse;
 import com.dabsquared.gitlabjenkins.GitLabPushTrigger;
+import com.dabsquared.gitlabjenkins.connection.GitLabConnection;
 import com.dabsquared.gitlabjenkins.connection.GitLabConnectionConfig;
+import com.dabsquared.gitlabjenkins.connection.GitLabConnectionProperty;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.Commit;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestObjectAttributes;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.NoteHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.PipelineEventObjectAttributes;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.PipelineHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.Project;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.PushHook;
+import com.dabsquared.gitlabjenkins.trigger.history.Outcome;
+import com.dabsquared.gitlabjenkins.trigger.history.WebHookHistoryEntry;
+import com.dabsquared.gitlabjenkins.trigger.history.WebHookTrace;
+import com.dabsquared.gitlabjenkins.util.JsonUtil;
 import com.dabsquared.gitlabjenkins.webhook.WebHookAction;
+import com.dabsquared.gitlabjenkins.webhook.WebHookResponses;
+import com.dabsquared.gitlabjenkins.webhook.dedup.WebHookDeduplicator;
+import com.dabsquared.gitlabjenkins.webhook.journal.WebHookJournal;
+import com.dabsquared.gitlabjenkins.webhook.queue.WebHookQueue;
+import com.dabsquared.gitlabjenkins.webhook.ratelimit.WebHookRateLimiter;
+import com.dabsquared.gitlabjenkins.webhook.ratelimit.WebHookRateLimiter.Admission;
+
+import static com.dabsquared.gitlabjenkins.util.LoggerUtil.toArray;
 
 /**
  * @author Xinran Xiao
@@ -21,6 +47,7 @@ import com.dabsquared.gitlabjenkins.webhook.WebHookAction;
 abstract class BuildWebHookAction implements WebHookAction {
 
     private final static Logger LOGGER = Logger.getLogger(BuildWebHookAction.class.getName());
+    private static final int QUEUE_FULL_RETRY_AFTER_SECONDS = 30;
 
     abstract void processForCompatibility();
 
@@ -31,16 +58,39 @@ abstract class BuildWebHookAction implements WebHookAction {
         execute();
     }
 
+    static void describeMergeRequest(MergeRequestObjectAttributes objectAttributes) {
+        if (objectAttributes != null) {
+            Commit lastCommit = objectAttributes.getLastCommit();
+            WebHookTrace.describe(objectAttributes.getSourceBranch(), lastCommit == null ? null : lastCommit.getId());
+        }
+    }
+
     protected abstract static class TriggerNotifier implements Runnable {
 
         private final Item project;
         private final String secretToken;
         private final Authentication authentication;
+        private final String deliveryKey;
+        private final Object hook;
+        private boolean deliveryRegistered;
 
         public TriggerNotifier(Item project, String secretToken, Authentication authentication) {
+            this(project, secretToken, authentication, null);
+        }
+
+        public TriggerNotifier(Item project, String secretToken, Authentication authentication, String deliveryKey) {
+            this(project, secretToken, authentication, deliveryKey, null);
+        }
+
+        /**
+         * @param hook the web hook to record in the {@link WebHookJournal} until it has been handled
+         */
+        public TriggerNotifier(Item project, String secretToken, Authentication authentication, String deliveryKey, Object hook) {
             this.project = project;
             this.secretToken = secretToken;
             this.authentication = authentication;
+            this.deliveryKey = deliveryKey;
+            this.hook = hook;
         }
 
         public void run() {
@@ -49,14 +99,227 @@ abstract class BuildWebHookAction implements WebHookAction {
                 if (StringUtils.isEmpty(trigger.getSecretToken())) {
                     checkPermission(Item.BUILD);
                 } else if (!StringUtils.equals(trigger.getSecretToken(), secretToken)) {
+                    WebHookTrace.decide("web hook", Outcome.INVALID_TOKEN);
+                    WebHookTrace.finish((Job<?, ?>) project);
                     throw HttpResponses.errorWithoutStack(401, "Invalid token");
                 }
+                if (isDuplicate()) {
+                    LOGGER.log(Level.INFO, "Ignoring web hook {0} delivered again for {1}", toArray(deliveryKey, project.getFullName()));
+                    WebHookTrace.decide("web hook", Outcome.DUPLICATE, deliveryKey);
+                    WebHookTrace.finish((Job<?, ?>) project);
+                    return;
+                }
+                long journalEntry = appendToJournal();
+                admit(trigger, journalEntry);
+                if (getConfig().isAsyncWebHookProcessing()) {
+                    enqueue(trigger, journalEntry);
+                } else {
+                    handle(trigger, journalEntry);
+                }
+            }
+        }
+
+        private void handle(GitLabPushTrigger trigger, long journalEntry) {
+            WebHookTrace.handlingStarted();
+            try {
                 performOnPost(trigger);
+            } catch (RuntimeException | Error e) {
+                forgetDelivery();
+                throw e;
+            } finally {
+                WebHookJournal.instance().complete(journalEntry);
+                WebHookTrace.finish((Job<?, ?>) project);
             }
         }
 
+        private void enqueue(GitLabPushTrigger trigger, long journalEntry) {
+            boolean accepted = WebHookQueue.instance().offer(lane(), orderingKey(), queuedHandling(trigger, journalEntry, WebHookTrace.current()));
+            if (accepted) {
+                throw WebHookResponses.accepted();
+            }
+            LOGGER.log(Level.WARNING, "Web hook queue is full, rejecting web hook for {0}", project.getFullName());
+            // GitLab delivers the web hook again
+            WebHookJournal.instance().complete(journalEntry);
+            forgetDelivery();
+            throw WebHookResponses.retryLater(503, QUEUE_FULL_RETRY_AFTER_SECONDS, "Web hook queue is full");
+        }
+
+        /**
+         * Applies the {@link WebHookRateLimiter rate limits}. Returns if the web hook can be handled right away,
+         * otherwise answers GitLab with 202 if the web hook is handled later or with 429 if it is rejected.
+         */
+        private void admit(final GitLabPushTrigger trigger, final long journalEntry) {
+            final WebHookHistoryEntry historyEntry = WebHookTrace.current();
+            final WebHookQueue.Lane lane = lane();
+            final String orderingKey = orderingKey();
+            // a pipeline event must never replace a delayed push of the same ref
+            String coalescingKey = orderingKey == null ? null : lane + " " + orderingKey;
+            Admission admission = WebHookRateLimiter.instance().admit(project.getFullName(), sourceProjectId(), coalescingKey, new Runnable() {
+                @Override
+                public void run() {
+                    if (!WebHookQueue.instance().offer(lane, orderingKey, queuedHandling(trigger, journalEntry, historyEntry))) {
+                        LOGGER.log(Level.WARNING, "Web hook queue is full, dropping rate limited web hook for {0}", project.getFullName());
+                        WebHookJournal.instance().complete(journalEntry);
+                    }
+                }
+            }, new Runnable() {
+                @Override
+                public void run() {
+                    WebHookTrace.attach(historyEntry);
+                    try {
+                        WebHookTrace.decide("web hook", Outcome.COALESCED);
+                        WebHookTrace.finish((Job<?, ?>) project);
+                    } finally {
+                        WebHookTrace.end();
+                        WebHookJournal.instance().complete(journalEntry);
+                    }
+                }
+            });
+            if (admission.isDeferred()) {
+                throw WebHookResponses.accepted();
+            } else if (admission.isRejected()) {
+                LOGGER.log(Level.INFO, "Rate limit exceeded, rejecting web hook for {0}", project.getFullName());
+                WebHookJournal.instance().complete(journalEntry);
+                forgetDelivery();
+                WebHookTrace.decide("web hook", Outcome.RATE_LIMITED);
+                WebHookTrace.finish((Job<?, ?>) project);
+                throw WebHookResponses.retryLater(429, admission.getRetryAfterSeconds(), "Rate limit exceeded");
+            }
+        }
+
+        private Runnable queuedHandling(final GitLabPushTrigger trigger, final long journalEntry, final WebHookHistoryEntry historyEntry) {
+            return new Runnable() {
+                @Override
+                public void run() {
+                    WebHookTrace.attach(historyEntry);
+                    try {
+                        ACL.impersonate(ACL.SYSTEM, new Runnable() {
+                            @Override
+                            public void run() {
+                                handle(trigger, journalEntry);
+                            }
+                        });
+                    } finally {
+                        WebHookTrace.end();
+                    }
+                }
+            };
+        }
+
+        private WebHookQueue.Lane lane() {
+            if (hook instanceof MergeRequestHook) {
+                return WebHookQueue.Lane.MERGE_REQUEST;
+            } else if (hook instanceof NoteHook) {
+                return WebHookQueue.Lane.NOTE;
+            } else if (hook instanceof PipelineHook) {
+                return WebHookQueue.Lane.PIPELINE;
+            }
+            return WebHookQueue.Lane.PUSH;
+        }
+
+        /**
+         * @return the id of the GitLab project that sent the web hook
+         */
+        private Integer sourceProjectId() {
+            if (hook instanceof PushHook) {
+                return ((PushHook) hook).getProjectId();
+            } else if (hook instanceof MergeRequestHook) {
+                MergeRequestObjectAttributes objectAttributes = ((MergeRequestHook) hook).getObjectAttributes();
+                return objectAttributes == null ? null : objectAttributes.getTargetProjectId();
+            } else if (hook instanceof NoteHook) {
+                Project gitLabProject = ((NoteHook) hook).getProject();
+                return gitLabProject == null ? null : gitLabProject.getId();
+            } else if (hook instanceof PipelineHook) {
+                PipelineHook pipelineHook = (PipelineHook) hook;
+                return pipelineHook.getProjectId() != null || pipelineHook.getProject() == null
+                    ? pipelineHook.getProjectId() : pipelineHook.getProject().getId();
+            }
+            return null;
+        }
+
+        /**
+         * Web hooks for the same GitLab project and ref are handled in the order they have been received.
+         */
+        private String orderingKey() {
+            if (hook instanceof PushHook) {
+                PushHook pushHook = (PushHook) hook;
+                return orderingKey(pushHook.getProjectId(), pushHook.getRef());
+            } else if (hook instanceof MergeRequestHook) {
+                return orderingKey(((MergeRequestHook) hook).getObjectAttributes());
+            } else if (hook instanceof NoteHook) {
+                return orderingKey(((NoteHook) hook).getMergeRequest());
+            } else if (hook instanceof PipelineHook) {
+                PipelineEventObjectAttributes objectAttributes = ((PipelineHook) hook).getObjectAttributes();
+                if (objectAttributes != null) {
+                    String refPrefix = objectAttributes.getIsTag() ? "refs/tags/" : "refs/heads/";
+                    return orderingKey(sourceProjectId(), refPrefix + objectAttributes.getRef());
+                }
+            }
+            return null;
+        }
+
+        private String orderingKey(MergeRequestObjectAttributes objectAttributes) {
+            if (objectAttributes == null) {
+                return null;
+            }
+            return orderingKey(objectAttributes.getSourceProjectId(), "refs/heads/" + objectAttributes.getSourceBranch());
+        }
+
+        private String orderingKey(Integer projectId, String ref) {
+            if (projectId == null || ref == null) {
+                return null;
+            }
+            return projectId + ":" + ref;
+        }
+
+        private long appendToJournal() {
+            if (hook == null || !WebHookJournal.instance().isEnabled()) {
+                return WebHookJournal.NO_ENTRY;
+            }
+            try {
+                return WebHookJournal.instance().append(project.getFullName(), hook.getClass().getSimpleName(), JsonUtil.toBytes(hook));
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to serialize web hook for the journal", e);
+                return WebHookJournal.NO_ENTRY;
+            }
+        }
+
+        private boolean isDuplicate() {
+            if (deliveryKey == null) {
+                return false;
+            }
+            GitLabConnectionProperty property = ((Job<?, ?>) project).getProperty(GitLabConnectionProperty.class);
+            if (property == null || property.getGitLabConnection() == null) {
+                return false;
+            }
+            GitLabConnection connection = getConfig().getConnection(property.getGitLabConnection());
+            if (connection == null || connection.getWebHookDeduplicationTtl() <= 0) {
+                return false;
+            }
+            if (WebHookDeduplicator.instance().isDuplicate(deduplicationKey(), connection.getWebHookDeduplicationTtl(), TimeUnit.SECONDS)) {
+                return true;
+            }
+            deliveryRegistered = true;
+            return false;
+        }
+
+        /**
+         * Called when the web hook is rejected with 429 or 503 or handling it fails, GitLab delivers it again and the
+         * delivery must not be suppressed as a duplicate then.
+         */
+        private void forgetDelivery() {
+            if (deliveryRegistered) {
+                WebHookDeduplicator.instance().forget(deduplicationKey());
+                deliveryRegistered = false;
+            }
+        }
+
+        private String deduplicationKey() {
+            return project.getFullName() + '#' + deliveryKey;
+        }
+
         private void checkPermission(Permission permission) {
-            if (((GitLabConnectionConfig) Jenkins.getInstance().getDescriptor(GitLabConnectionConfig.class)).isUseAuthenticatedEndpoint()) {
+            if (getConfig().isUseAuthenticatedEndpoint()) {
                 if (!Jenkins.getActiveInstance().getACL().hasPermission(authentication, permission)) {
                     String message = Messages.AccessDeniedException2_MissingPermission(authentication.getName(), permission.group.title+"/"+permission.name);
                     LOGGER.finest("Unauthorized (Did you forget to add API Token to the web hook ?)");
@@ -65,6 +328,10 @@ abstract class BuildWebHookAction implements WebHookAction {
             }
         }
 
+        private GitLabConnectionConfig getConfig() {
+            return (GitLabConnectionConfig) Jenkins.getInstance().getDescriptor(GitLabConnectionConfig.class);
+        }
+
         protected abstract void performOnPost(GitLabPushTrigger trigger);
     }
 }
@@ -1,10 +1,14 @@
 package com.dabsquared.gitlabjenkins.webhook.build;
 
 import com.dabsquared.gitlabjenkins.GitLabPushTrigger;
+import com.dabsquared.gitlabjenkins.connection.GitLabConnectionProperty;
+import com.dabsquared.gitlabjenkins.gitlab.api.GitLabClient;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestHook;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestObjectAttributes;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.Project;
+import com.dabsquared.gitlabjenkins.service.GitLabOpenMergeRequestService;
 import com.dabsquared.gitlabjenkins.util.JsonUtil;
+import com.dabsquared.gitlabjenkins.webhook.dedup.DeliveryKeys;
 import hudson.model.Item;
 import hudson.model.Job;
 import hudson.security.ACL;
@@ -14,7 +18,6 @@ import jenkins.model.Jenkins;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import static com.dabsquared.gitlabjenkins.util.JsonUtil.toPrettyPrint;
 
 /**
  * @author Robin Müller
@@ -25,12 +28,23 @@ public class MergeRequestBuildAction extends BuildWebHookAction {
     private Item project;
     private MergeRequestHook mergeRequestHook;
     private final String secretToken;
+    private final String deliveryKey;
 
     public MergeRequestBuildAction(Item project, String json, String secretToken) {
-        LOGGER.log(Level.FINE, "MergeRequest: {0}", toPrettyPrint(json));
+        this(project, JsonUtil.read(json, MergeRequestHook.class), secretToken);
+    }
+
+    public MergeRequestBuildAction(Item project, MergeRequestHook mergeRequestHook, String secretToken) {
+        this(project, mergeRequestHook, secretToken, null);
+    }
+
+    public MergeRequestBuildAction(Item project, MergeRequestHook mergeRequestHook, String secretToken, String eventUuid) {
+        LOGGER.log(Level.FINE, "MergeRequest: {0}", mergeRequestHook);
         this.project = project;
-        this.mergeRequestHook = JsonUtil.read(json, MergeRequestHook.class);
+        this.mergeRequestHook = mergeRequestHook;
+        describeMergeRequest(mergeRequestHook.getObjectAttributes());
         this.secretToken = secretToken;
+        this.deliveryKey = DeliveryKeys.of(eventUuid, mergeRequestHook.getObjectAttributes());
     }
 
     void processForCompatibility() {
@@ -58,12 +72,21 @@ public class MergeRequestBuildAction extends BuildWebHookAction {
         if (!(project instanceof Job<?, ?>)) {
             throw HttpResponses.errorWithoutStack(409, "Merge Request Hook is not supported for this project");
         }
-        ACL.impersonate(ACL.SYSTEM, new TriggerNotifier(project, secretToken, Jenkins.getAuthentication()) {
+        ACL.impersonate(ACL.SYSTEM, new TriggerNotifier(project, secretToken, Jenkins.getAuthentication(), deliveryKey, mergeRequestHook) {
             @Override
             protected void performOnPost(GitLabPushTrigger trigger) {
+                updateOpenMergeRequests();
                 trigger.onPost(mergeRequestHook);
             }
         });
         throw HttpResponses.ok();
     }
+
+    private void updateOpenMergeRequests() {
+        GitLabConnectionProperty property = ((Job<?, ?>) project).getProperty(GitLabConnectionProperty.class);
+        GitLabClient client = property == null ? null : property.getClient();
+        if (client != null) {
+            GitLabOpenMergeRequestService.instance().update(client.getHostUrl(), mergeRequestHook.getObjectAttributes());
+        }
+    }
 }
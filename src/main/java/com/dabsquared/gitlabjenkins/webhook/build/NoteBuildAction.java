@@ -3,6 +3,7 @@ package com.dabsquared.gitlabjenkins.webhook.build;
 import com.dabsquared.gitlabjenkins.GitLabPushTrigger;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.NoteHook;
 import com.dabsquared.gitlabjenkins.util.JsonUtil;
+import com.dabsquared.gitlabjenkins.webhook.dedup.DeliveryKeys;
 import com.dabsquared.gitlabjenkins.webhook.WebHookAction;
 import hudson.model.Item;
 import hudson.model.Job;
@@ -14,7 +15,6 @@ import org.kohsuke.stapler.StaplerResponse;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import static com.dabsquared.gitlabjenkins.util.JsonUtil.toPrettyPrint;
 
 /**
  * @author Nikolay Ustinov
@@ -25,19 +25,30 @@ public class NoteBuildAction implements WebHookAction {
     private Item project;
     private NoteHook noteHook;
     private final String secretToken;
+    private final String deliveryKey;
 
     public NoteBuildAction(Item project, String json, String secretToken) {
-        LOGGER.log(Level.FINE, "Note: {0}", toPrettyPrint(json));
+        this(project, JsonUtil.read(json, NoteHook.class), secretToken);
+    }
+
+    public NoteBuildAction(Item project, NoteHook noteHook, String secretToken) {
+        this(project, noteHook, secretToken, null);
+    }
+
+    public NoteBuildAction(Item project, NoteHook noteHook, String secretToken, String eventUuid) {
+        LOGGER.log(Level.FINE, "Note: {0}", noteHook);
         this.project = project;
-        this.noteHook = JsonUtil.read(json, NoteHook.class);
+        this.noteHook = noteHook;
+        BuildWebHookAction.describeMergeRequest(noteHook.getMergeRequest());
         this.secretToken = secretToken;
+        this.deliveryKey = DeliveryKeys.of(eventUuid, noteHook);
     }
 
     public void execute(StaplerResponse response) {
         if (!(project instanceof Job<?, ?>)) {
             throw HttpResponses.errorWithoutStack(409, "Note Hook is not supported for this project");
         }
-        ACL.impersonate(ACL.SYSTEM, new BuildWebHookAction.TriggerNotifier(project, secretToken, Jenkins.getAuthentication()) {
+        ACL.impersonate(ACL.SYSTEM, new BuildWebHookAction.TriggerNotifier(project, secretToken, Jenkins.getAuthentication(), deliveryKey, noteHook) {
             @Override
             protected void performOnPost(GitLabPushTrigger trigger) {
                 trigger.onPost(noteHook);
@@ -2,7 +2,9 @@ package com.dabsquared.gitlabjenkins.webhook.build;
 
 import com.dabsquared.gitlabjenkins.GitLabPushTrigger;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.*;
+import com.dabsquared.gitlabjenkins.trigger.history.WebHookTrace;
 import com.dabsquared.gitlabjenkins.util.JsonUtil;
+import com.dabsquared.gitlabjenkins.webhook.dedup.DeliveryKeys;
 import hudson.model.Item;
 import hudson.model.Job;
 import hudson.security.ACL;
@@ -15,7 +17,6 @@ import java.net.URL;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import static com.dabsquared.gitlabjenkins.util.JsonUtil.toPrettyPrint;
 
 /**
  * @author Milena Zachow
@@ -26,12 +27,25 @@ public class PipelineBuildAction extends BuildWebHookAction {
     private Item project;
     private PipelineHook pipelineBuildHook;
     private final String secretToken;
+    private final String deliveryKey;
 
     public PipelineBuildAction(Item project, String json, String secretToken) {
-        LOGGER.log(Level.FINE, "Pipeline event: {0}", toPrettyPrint(json));
+        this(project, JsonUtil.read(json, PipelineHook.class), secretToken);
+    }
+
+    public PipelineBuildAction(Item project, PipelineHook pipelineBuildHook, String secretToken) {
+        this(project, pipelineBuildHook, secretToken, null);
+    }
+
+    public PipelineBuildAction(Item project, PipelineHook pipelineBuildHook, String secretToken, String eventUuid) {
+        LOGGER.log(Level.FINE, "Pipeline event: {0}", pipelineBuildHook);
         this.project = project;
-        this.pipelineBuildHook = JsonUtil.read(json, PipelineHook.class);
+        this.pipelineBuildHook = pipelineBuildHook;
+        if (pipelineBuildHook.getObjectAttributes() != null) {
+            WebHookTrace.describe(pipelineBuildHook.getObjectAttributes().getRef(), pipelineBuildHook.getObjectAttributes().getSha());
+        }
         this.secretToken = secretToken;
+        this.deliveryKey = DeliveryKeys.of(eventUuid, pipelineBuildHook);
     }
 
     void processForCompatibility() {
@@ -56,7 +70,7 @@ public class PipelineBuildAction extends BuildWebHookAction {
         if (!(project instanceof Job<?, ?>)) {
             throw HttpResponses.errorWithoutStack(409, "Pipeline Hook is not supported for this project");
         }
-        ACL.impersonate(ACL.SYSTEM, new TriggerNotifier(project, secretToken, Jenkins.getAuthentication()) {
+        ACL.impersonate(ACL.SYSTEM, new TriggerNotifier(project, secretToken, Jenkins.getAuthentication(), deliveryKey, pipelineBuildHook) {
             @Override
             protected void performOnPost(GitLabPushTrigger trigger) {
                 trigger.onPost(pipelineBuildHook);
@@ -3,7 +3,9 @@ package com.dabsquared.gitlabjenkins.webhook.build;
 import com.dabsquared.gitlabjenkins.GitLabPushTrigger;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.Project;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.PushHook;
+import com.dabsquared.gitlabjenkins.trigger.history.WebHookTrace;
 import com.dabsquared.gitlabjenkins.util.JsonUtil;
+import com.dabsquared.gitlabjenkins.webhook.dedup.DeliveryKeys;
 import hudson.model.Item;
 import hudson.model.Job;
 import hudson.security.ACL;
@@ -21,7 +23,6 @@ import java.net.URL;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import static com.dabsquared.gitlabjenkins.util.JsonUtil.toPrettyPrint;
 import static com.dabsquared.gitlabjenkins.util.LoggerUtil.toArray;
 
 /**
@@ -33,12 +34,23 @@ public class PushBuildAction extends BuildWebHookAction {
     private final Item project;
     private PushHook pushHook;
     private final String secretToken;
+    private final String deliveryKey;
 
     public PushBuildAction(Item project, String json, String secretToken) {
-        LOGGER.log(Level.FINE, "Push: {0}", toPrettyPrint(json));
+        this(project, JsonUtil.read(json, PushHook.class), secretToken);
+    }
+
+    public PushBuildAction(Item project, PushHook pushHook, String secretToken) {
+        this(project, pushHook, secretToken, null);
+    }
+
+    public PushBuildAction(Item project, PushHook pushHook, String secretToken, String eventUuid) {
+        LOGGER.log(Level.FINE, "Push: {0}", pushHook);
         this.project = project;
-        this.pushHook = JsonUtil.read(json, PushHook.class);
+        this.pushHook = pushHook;
+        WebHookTrace.describe(pushHook.getRef(), pushHook.getAfter());
         this.secretToken = secretToken;
+        this.deliveryKey = DeliveryKeys.of(eventUuid, pushHook);
     }
 
     void processForCompatibility() {
@@ -66,7 +78,7 @@ public class PushBuildAction extends BuildWebHookAction {
         }
 
         if (project instanceof Job<?, ?>) {
-            ACL.impersonate(ACL.SYSTEM, new TriggerNotifier(project, secretToken, Jenkins.getAuthentication()) {
+            ACL.impersonate(ACL.SYSTEM, new TriggerNotifier(project, secretToken, Jenkins.getAuthentication(), deliveryKey, pushHook) {
                 @Override
                 protected void performOnPost(GitLabPushTrigger trigger) {
                     trigger.onPost(pushHook);
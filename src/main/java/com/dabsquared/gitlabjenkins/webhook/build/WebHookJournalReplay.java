@@ -0,0 +1,94 @@
+package com.dabsquared.gitlabjenkins.webhook.build;
+
+import com.dabsquared.gitlabjenkins.GitLabPushTrigger;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.NoteHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.PipelineHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.PushHook;
+import com.dabsquared.gitlabjenkins.util.JsonUtil;
+import com.dabsquared.gitlabjenkins.webhook.journal.JournalEntry;
+import com.dabsquared.gitlabjenkins.webhook.journal.WebHookJournal;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.model.Computer;
+import hudson.model.Job;
+import hudson.security.ACL;
+import jenkins.model.Jenkins;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.dabsquared.gitlabjenkins.util.LoggerUtil.toArray;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Hands the web hooks that have been accepted but not handled before Jenkins stopped to the triggers of their jobs again.
+ * The secret token and the permissions have been checked when the web hook was accepted.
+ */
+public final class WebHookJournalReplay {
+
+    private static final Logger LOGGER = Logger.getLogger(WebHookJournalReplay.class.getName());
+
+    private WebHookJournalReplay() { }
+
+    @Initializer(after = InitMilestone.JOB_LOADED)
+    public static void replay() {
+        final List<JournalEntry> entries = WebHookJournal.instance().recover();
+        if (entries.isEmpty()) {
+            return;
+        }
+        LOGGER.log(Level.INFO, "Replaying {0} web hooks that have not been handled before the restart", entries.size());
+        Computer.threadPoolForRemoting.submit(new Runnable() {
+            @Override
+            public void run() {
+                ACL.impersonate(ACL.SYSTEM, new Runnable() {
+                    @Override
+                    public void run() {
+                        for (JournalEntry entry : entries) {
+                            try {
+                                replay(entry);
+                            } catch (IOException | RuntimeException e) {
+                                LOGGER.log(Level.WARNING, "Failed to replay web hook for " + entry.getJobName(), e);
+                            } finally {
+                                WebHookJournal.instance().complete(entry.getId());
+                            }
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private static void replay(JournalEntry entry) throws IOException {
+        Job<?, ?> job = Jenkins.getInstance().getItemByFullName(entry.getJobName(), Job.class);
+        GitLabPushTrigger trigger = job == null ? null : GitLabPushTrigger.getFromJob(job);
+        if (trigger == null) {
+            LOGGER.log(Level.INFO, "Dropping web hook for {0}, the job has no GitLab trigger anymore", entry.getJobName());
+            return;
+        }
+        LOGGER.log(Level.FINE, "Replaying {0} for {1}", toArray(entry.getHookType(), entry.getJobName()));
+        switch (entry.getHookType()) {
+            case "PushHook":
+                trigger.onPost(read(entry, PushHook.class));
+                break;
+            case "MergeRequestHook":
+                trigger.onPost(read(entry, MergeRequestHook.class));
+                break;
+            case "NoteHook":
+                trigger.onPost(read(entry, NoteHook.class));
+                break;
+            case "PipelineHook":
+                trigger.onPost(read(entry, PipelineHook.class));
+                break;
+            default:
+                LOGGER.log(Level.WARNING, "Unknown web hook type {0} in the journal", entry.getHookType());
+        }
+    }
+
+    private static <T> T read(JournalEntry entry, Class<T> type) throws IOException {
+        return JsonUtil.read(new ByteArrayInputStream(entry.getPayload()), UTF_8, type);
+    }
+}
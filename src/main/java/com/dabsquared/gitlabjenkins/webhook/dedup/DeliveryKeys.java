@@ -0,0 +1,67 @@
+package com.dabsquared.gitlabjenkins.webhook.dedup;
+
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestObjectAttributes;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.NoteHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.PipelineHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.PushHook;
+
+/**
+ * Derives the key identifying a web hook delivery for GitLab versions that do not send the {@code X-Gitlab-Event-UUID} header.
+ * All methods return {@code null} if the hook lacks the required attributes, such hooks are never treated as duplicates.
+ */
+public final class DeliveryKeys {
+
+    private DeliveryKeys() { }
+
+    public static String of(String eventUuid, PushHook hook) {
+        if (eventUuid != null) {
+            return eventUuid;
+        }
+        return join(hook.getObjectKind(), hook.getProjectId(), hook.getRef(), hook.getAfter());
+    }
+
+    public static String of(String eventUuid, MergeRequestObjectAttributes objectAttributes) {
+        if (eventUuid != null) {
+            return eventUuid;
+        }
+        if (objectAttributes == null || objectAttributes.getLastCommit() == null) {
+            return null;
+        }
+        return join("merge_request", objectAttributes.getTargetProjectId(), objectAttributes.getIid(),
+                    objectAttributes.getLastCommit().getId(), String.valueOf(objectAttributes.getAction()));
+    }
+
+    public static String of(String eventUuid, NoteHook hook) {
+        if (eventUuid != null) {
+            return eventUuid;
+        }
+        if (hook.getObjectAttributes() == null) {
+            return null;
+        }
+        return join("note", hook.getObjectAttributes().getProjectId(), hook.getObjectAttributes().getId());
+    }
+
+    public static String of(String eventUuid, PipelineHook hook) {
+        if (eventUuid != null) {
+            return eventUuid;
+        }
+        if (hook.getObjectAttributes() == null) {
+            return null;
+        }
+        return join("pipeline", hook.getObjectAttributes().getId(), hook.getObjectAttributes().getStatus());
+    }
+
+    private static String join(Object... parts) {
+        StringBuilder key = new StringBuilder();
+        for (Object part : parts) {
+            if (part == null) {
+                return null;
+            }
+            if (key.length() > 0) {
+                key.append(':');
+            }
+            key.append(part);
+        }
+        return key.toString();
+    }
+}
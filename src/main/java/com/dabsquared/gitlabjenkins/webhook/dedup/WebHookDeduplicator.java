@@ -0,0 +1,115 @@
+package com.dabsquared.gitlabjenkins.webhook.dedup;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the web hooks delivered recently so that a hook GitLab or a load balancer delivers twice triggers only once.
+ * The entries expire after a TTL and the number of entries is bounded, the oldest registrations are dropped first
+ * when the map runs full. Checking a delivery takes no lock, hooks of all connections are checked concurrently.
+ */
+public final class WebHookDeduplicator {
+
+    static final int MAX_ENTRIES = 10000;
+
+    private static final WebHookDeduplicator INSTANCE = new WebHookDeduplicator(MAX_ENTRIES);
+
+    private final int maxEntries;
+    private final ConcurrentMap<String, Long> expiryByKey = new ConcurrentHashMap<>();
+    // every registration in the order it was made, replaced and forgotten ones stay queued until they are polled
+    private final Queue<Registration> registrations = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger registrationCount = new AtomicInteger();
+    private final AtomicLong checkedCount = new AtomicLong();
+    private final AtomicLong suppressedCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+
+    WebHookDeduplicator(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public static WebHookDeduplicator instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the delivery with the given key.
+     *
+     * @return {@code true} if a delivery with the same key has been registered within the given TTL
+     */
+    public boolean isDuplicate(String key, long ttl, TimeUnit unit) {
+        checkedCount.incrementAndGet();
+        long now = System.nanoTime();
+        Long expiry = now + unit.toNanos(ttl);
+        Long previous = expiryByKey.putIfAbsent(key, expiry);
+        if (previous == null) {
+            size.incrementAndGet();
+        } else if (previous - now > 0 || !expiryByKey.replace(key, previous, expiry)) {
+            // not yet expired or a concurrent delivery of the same hook has just been registered
+            suppressedCount.incrementAndGet();
+            return true;
+        }
+        registrations.add(new Registration(key, expiry));
+        registrationCount.incrementAndGet();
+        evictIfFull();
+        return false;
+    }
+
+    /**
+     * Unregisters a delivery that has not been handled, so that GitLab can deliver it again.
+     */
+    public void forget(String key) {
+        if (expiryByKey.remove(key) != null) {
+            size.decrementAndGet();
+        }
+    }
+
+    public int getSize() {
+        return size.get();
+    }
+
+    public long getCheckedCount() {
+        return checkedCount.get();
+    }
+
+    public long getSuppressedCount() {
+        return suppressedCount.get();
+    }
+
+    public long getEvictedCount() {
+        return evictedCount.get();
+    }
+
+    /**
+     * Polls the oldest registrations until the map is within its bound. Stale registrations are dropped on the way,
+     * the queue is also drained when they make up most of it, so that it stays bounded as well.
+     */
+    private void evictIfFull() {
+        while (size.get() > maxEntries || registrationCount.get() > 2 * maxEntries) {
+            Registration oldest = registrations.poll();
+            if (oldest == null) {
+                return;
+            }
+            registrationCount.decrementAndGet();
+            if (expiryByKey.remove(oldest.key, oldest.expiry)) {
+                size.decrementAndGet();
+                evictedCount.incrementAndGet();
+            }
+        }
+    }
+
+    private static final class Registration {
+        private final String key;
+        private final Long expiry;
+
+        private Registration(String key, Long expiry) {
+            this.key = key;
+            this.expiry = expiry;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.dabsquared.gitlabjenkins.webhook.journal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A web hook recorded in the {@link WebHookJournal} for a job.
+ */
+public final class JournalEntry {
+
+    private final long id;
+    private final String jobName;
+    private final String hookType;
+    private final byte[] payload;
+
+    JournalEntry(long id, String jobName, String hookType, byte[] payload) {
+        this.id = id;
+        this.jobName = jobName;
+        this.hookType = hookType;
+        this.payload = payload;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public String getHookType() {
+        return hookType;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    static byte[] encode(String jobName, String hookType, byte[] payload) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(payload.length + jobName.length() + hookType.length() + 8);
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeUTF(jobName);
+        output.writeUTF(hookType);
+        output.write(payload);
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    static JournalEntry decode(long id, byte[] record) throws IOException {
+        ByteArrayInputStream bytes = new ByteArrayInputStream(record);
+        DataInputStream input = new DataInputStream(bytes);
+        String jobName = input.readUTF();
+        String hookType = input.readUTF();
+        return new JournalEntry(id, jobName, hookType, Arrays.copyOfRange(record, record.length - bytes.available(), record.length));
+    }
+}
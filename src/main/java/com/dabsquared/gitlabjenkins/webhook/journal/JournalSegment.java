@@ -0,0 +1,217 @@
+package com.dabsquared.gitlabjenkins.webhook.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * A memory-mapped journal file of fixed size.
+ * <p>
+ * Every record starts with its length, a CRC32 of its content and its state, followed by the content.
+ * The length is written last, so a record that has not been written completely reads as the end of the segment.
+ * Marking a record as done only overwrites its state.
+ */
+final class JournalSegment {
+
+    private static final Logger LOGGER = Logger.getLogger(JournalSegment.class.getName());
+
+    static final int HEADER_SIZE = 9;
+
+    private static final byte PENDING = 1;
+    private static final byte DONE = 2;
+    private static final Pattern FILE_NAME_PATTERN = Pattern.compile("segment-(\\d+)\\.journal");
+
+    private final long sequence;
+    private final File file;
+    private final RandomAccessFile randomAccessFile;
+    private final MappedByteBuffer buffer;
+    private int position;
+    private int pendingCount;
+
+    private JournalSegment(long sequence, File file, RandomAccessFile randomAccessFile, MappedByteBuffer buffer) {
+        this.sequence = sequence;
+        this.file = file;
+        this.randomAccessFile = randomAccessFile;
+        this.buffer = buffer;
+    }
+
+    static JournalSegment create(File directory, long sequence, int size) throws IOException {
+        File file = file(directory, sequence);
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            randomAccessFile.setLength(size);
+            return new JournalSegment(sequence, file, randomAccessFile, randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size));
+        } catch (IOException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Maps an existing segment and adds its pending records to the given list.
+     */
+    static JournalSegment open(File file, long sequence, List<JournalEntry> pendingEntries) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        JournalSegment segment;
+        try {
+            segment = new JournalSegment(sequence, file, randomAccessFile,
+                                         randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, randomAccessFile.length()));
+        } catch (IOException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+        segment.scan(pendingEntries);
+        return segment;
+    }
+
+    static File file(File directory, long sequence) {
+        return new File(directory, String.format("segment-%019d.journal", sequence));
+    }
+
+    /**
+     * @return the sequence number of the segment file or {@code -1} if the file is not a segment
+     */
+    static long parseSequence(File file) {
+        Matcher matcher = FILE_NAME_PATTERN.matcher(file.getName());
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+
+    static long entryId(long sequence, int offset) {
+        return (sequence << 32) | offset;
+    }
+
+    static long segmentSequence(long entryId) {
+        return entryId >>> 32;
+    }
+
+    static int offset(long entryId) {
+        return (int) entryId;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    int getPendingCount() {
+        return pendingCount;
+    }
+
+    boolean hasRoom(int recordLength) {
+        return (long) position + HEADER_SIZE + recordLength <= buffer.capacity();
+    }
+
+    int getFreeSpace() {
+        return buffer.capacity() - position;
+    }
+
+    /**
+     * @return the offsets of the pending records
+     */
+    List<Integer> getPendingOffsets() {
+        List<Integer> offsets = new ArrayList<>(pendingCount);
+        for (int offset = 0; offset < position; offset += HEADER_SIZE + buffer.getInt(offset)) {
+            if (buffer.get(offset + 8) == PENDING) {
+                offsets.add(offset);
+            }
+        }
+        return offsets;
+    }
+
+    byte[] read(int offset) {
+        byte[] record = new byte[buffer.getInt(offset)];
+        ByteBuffer content = buffer.duplicate();
+        content.position(offset + HEADER_SIZE);
+        content.get(record);
+        return record;
+    }
+
+    /**
+     * @return the offset of the appended record
+     */
+    int append(byte[] record) {
+        int offset = position;
+        ByteBuffer content = buffer.duplicate();
+        content.position(offset + HEADER_SIZE);
+        content.put(record);
+        buffer.putInt(offset + 4, checksum(record));
+        buffer.put(offset + 8, PENDING);
+        buffer.putInt(offset, record.length);
+        position += HEADER_SIZE + record.length;
+        pendingCount++;
+        return offset;
+    }
+
+    /**
+     * @return {@code true} if the record at the given offset was pending
+     */
+    boolean markDone(int offset) {
+        if (offset < 0 || offset + HEADER_SIZE > position || buffer.get(offset + 8) != PENDING) {
+            return false;
+        }
+        buffer.put(offset + 8, DONE);
+        pendingCount--;
+        return true;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void delete() {
+        close();
+        if (!file.delete()) {
+            // still mapped on some platforms, removed with the next recovery
+            LOGGER.log(Level.FINE, "Could not delete journal segment {0}", file);
+        }
+    }
+
+    void close() {
+        try {
+            randomAccessFile.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to close journal segment " + file, e);
+        }
+    }
+
+    private void scan(List<JournalEntry> pendingEntries) {
+        int offset = 0;
+        while (offset + HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || (long) offset + HEADER_SIZE + length > buffer.capacity()) {
+                break;
+            }
+            byte[] record = read(offset);
+            if (buffer.getInt(offset + 4) != checksum(record)) {
+                LOGGER.log(Level.WARNING, "Journal segment {0} is corrupt at offset {1}, ignoring the rest of it", new Object[] {file, offset});
+                break;
+            }
+            if (buffer.get(offset + 8) == PENDING) {
+                try {
+                    pendingEntries.add(JournalEntry.decode(entryId(sequence, offset), record));
+                    pendingCount++;
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Ignoring unreadable journal entry in " + file, e);
+                    buffer.put(offset + 8, DONE);
+                }
+            }
+            offset += HEADER_SIZE + length;
+        }
+        position = offset;
+    }
+
+    private static int checksum(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, record.length);
+        return (int) crc.getValue();
+    }
+}
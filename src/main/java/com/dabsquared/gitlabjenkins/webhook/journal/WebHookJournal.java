@@ -0,0 +1,324 @@
+package com.dabsquared.gitlabjenkins.webhook.journal;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Append-only journal of the web hooks accepted for a job, so that the hooks that have not been handled
+ * when Jenkins stops are handled again after the restart.
+ * <p>
+ * The journal is a sequence of memory-mapped {@link JournalSegment segments} in {@code JENKINS_HOME/gitlab-webhook-journal}.
+ * {@link #append} returns once the record has been forced to disk. Concurrent appends share one force (group commit),
+ * so the number of fsync calls does not grow with the number of web hooks.
+ * A new segment is started when the current one is full, and segments without pending records are deleted.
+ * When a segment is started, the pending records of the segments before the one just filled are copied into it and
+ * their files are deleted, so that a few web hooks that are never completed do not keep whole segments on disk.
+ * The moved entries keep the ids {@link #append} and {@link #recover} returned for them.
+ */
+public final class WebHookJournal {
+
+    private static final Logger LOGGER = Logger.getLogger(WebHookJournal.class.getName());
+
+    public static final long NO_ENTRY = -1L;
+
+    static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+    private static final String DIRECTORY_NAME = "gitlab-webhook-journal";
+
+    private static final WebHookJournal INSTANCE = new WebHookJournal(null, DEFAULT_SEGMENT_SIZE);
+
+    private final int segmentSize;
+    private final Map<Long, JournalSegment> segments = new TreeMap<>();
+    private final Set<JournalSegment> unflushedSegments = new LinkedHashSet<>();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong completedCount = new AtomicLong();
+    // the current ids of the entries moved by compaction by their original ids, and the other way round
+    private final Map<Long, Long> movedEntries = new HashMap<>();
+    private final Map<Long, Long> originalIds = new HashMap<>();
+    private File directory;
+    private JournalSegment activeSegment;
+    private long nextSegmentSequence;
+    private volatile boolean enabled;
+    private boolean recovered;
+    private long appendedCount;
+    private long flushedCount;
+    private Thread flusher;
+
+    WebHookJournal(File directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    public static WebHookJournal instance() {
+        return INSTANCE;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records the given web hook and forces it to disk.
+     *
+     * @return the id to pass to {@link #complete} once the web hook has been handled,
+     *         or {@link #NO_ENTRY} if the journal is disabled or the hook could not be written
+     */
+    public long append(String jobName, String hookType, byte[] payload) {
+        if (!enabled) {
+            return NO_ENTRY;
+        }
+        long entryId;
+        long sequence;
+        try {
+            byte[] record = JournalEntry.encode(jobName, hookType, payload);
+            synchronized (this) {
+                if (activeSegment == null || !activeSegment.hasRoom(record.length)) {
+                    roll(record.length);
+                }
+                entryId = JournalSegment.entryId(activeSegment.getSequence(), activeSegment.append(record));
+                unflushedSegments.add(activeSegment);
+                sequence = ++appendedCount;
+                startFlusherIfNecessary();
+                notifyAll();
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to write web hook for " + jobName + " to the journal", e);
+            return NO_ENTRY;
+        }
+        awaitFlushed(sequence);
+        return entryId;
+    }
+
+    /**
+     * Marks the given entry as handled.
+     */
+    public synchronized void complete(long entryId) {
+        if (entryId == NO_ENTRY) {
+            return;
+        }
+        Long movedId = movedEntries.remove(entryId);
+        if (movedId != null) {
+            originalIds.remove(movedId);
+            entryId = movedId;
+        }
+        JournalSegment segment = segments.get(JournalSegment.segmentSequence(entryId));
+        if (segment != null && segment.markDone(JournalSegment.offset(entryId))) {
+            completedCount.incrementAndGet();
+            if (segment.getPendingCount() == 0 && segment != activeSegment) {
+                removeSegment(segment);
+            }
+        }
+    }
+
+    /**
+     * Maps the segments left by the previous run. Segments without pending entries are deleted right away,
+     * the others once all their entries are {@link #complete completed}.
+     *
+     * @return the entries that have not been completed before Jenkins stopped
+     */
+    public synchronized List<JournalEntry> recover() {
+        if (recovered) {
+            return Collections.emptyList();
+        }
+        recovered = true;
+        File[] files = getDirectory().listFiles();
+        if (files == null) {
+            return Collections.emptyList();
+        }
+        Map<Long, File> segmentFiles = new TreeMap<>();
+        for (File file : files) {
+            long sequence = JournalSegment.parseSequence(file);
+            if (sequence >= 0 && !segments.containsKey(sequence)) {
+                segmentFiles.put(sequence, file);
+            }
+        }
+        List<JournalEntry> pendingEntries = new ArrayList<>();
+        for (Map.Entry<Long, File> segmentFile : segmentFiles.entrySet()) {
+            nextSegmentSequence = Math.max(nextSegmentSequence, segmentFile.getKey() + 1);
+            try {
+                JournalSegment segment = JournalSegment.open(segmentFile.getValue(), segmentFile.getKey(), pendingEntries);
+                if (segment.getPendingCount() == 0) {
+                    segment.delete();
+                } else {
+                    segments.put(segment.getSequence(), segment);
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to read web hook journal segment " + segmentFile.getValue(), e);
+            }
+        }
+        return pendingEntries;
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    public synchronized int getPendingCount() {
+        int pendingCount = 0;
+        for (JournalSegment segment : segments.values()) {
+            pendingCount += segment.getPendingCount();
+        }
+        return pendingCount;
+    }
+
+    public synchronized long getAppendedCount() {
+        return appendedCount;
+    }
+
+    public long getCompletedCount() {
+        return completedCount.get();
+    }
+
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    private void roll(int recordLength) throws IOException {
+        JournalSegment previous = activeSegment;
+        File segmentDirectory = getDirectory();
+        if (!segmentDirectory.isDirectory() && !segmentDirectory.mkdirs()) {
+            throw new IOException("Could not create " + segmentDirectory);
+        }
+        while (JournalSegment.file(segmentDirectory, nextSegmentSequence).exists()) {
+            // left by the previous run and not recovered yet
+            nextSegmentSequence++;
+        }
+        activeSegment = JournalSegment.create(segmentDirectory, nextSegmentSequence++,
+                                              Math.max(segmentSize, JournalSegment.HEADER_SIZE + recordLength));
+        segments.put(activeSegment.getSequence(), activeSegment);
+        if (previous != null && previous.getPendingCount() == 0) {
+            removeSegment(previous);
+        }
+        compact(previous, recordLength);
+    }
+
+    /**
+     * Copies the pending records of the segments before the given one into the active segment and deletes them.
+     * The records of the segment just filled are left where they are, most of them are still being handled.
+     * The room for the record that started the active segment is kept free.
+     */
+    private void compact(JournalSegment previous, int recordLength) throws IOException {
+        List<JournalSegment> oldSegments = new ArrayList<>();
+        for (JournalSegment segment : segments.values()) {
+            if (segment != activeSegment && segment != previous) {
+                oldSegments.add(segment);
+            }
+        }
+        for (JournalSegment segment : oldSegments) {
+            List<Integer> offsets = segment.getPendingOffsets();
+            List<byte[]> records = new ArrayList<>(offsets.size());
+            long length = 0;
+            for (int offset : offsets) {
+                byte[] record = segment.read(offset);
+                records.add(record);
+                length += JournalSegment.HEADER_SIZE + record.length;
+            }
+            if (length + JournalSegment.HEADER_SIZE + recordLength > activeSegment.getFreeSpace()) {
+                continue;
+            }
+            for (int i = 0; i < offsets.size(); i++) {
+                move(JournalSegment.entryId(segment.getSequence(), offsets.get(i)),
+                     JournalSegment.entryId(activeSegment.getSequence(), activeSegment.append(records.get(i))));
+            }
+            // the copies must be on disk before the originals are gone
+            activeSegment.force();
+            removeSegment(segment);
+        }
+    }
+
+    private void move(long entryId, long movedId) {
+        Long originalId = originalIds.remove(entryId);
+        if (originalId == null) {
+            originalId = entryId;
+        }
+        movedEntries.put(originalId, movedId);
+        originalIds.put(movedId, originalId);
+    }
+
+    private void removeSegment(JournalSegment segment) {
+        segments.remove(segment.getSequence());
+        unflushedSegments.remove(segment);
+        segment.delete();
+    }
+
+    private File getDirectory() {
+        if (directory == null) {
+            directory = new File(Jenkins.getInstance().getRootDir(), DIRECTORY_NAME);
+        }
+        return directory;
+    }
+
+    private synchronized void awaitFlushed(long sequence) {
+        while (flushedCount < sequence) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void startFlusherIfNecessary() {
+        if (flusher == null) {
+            flusher = new NamingThreadFactory(new DaemonThreadFactory(), "GitLab web hook journal").newThread(new Runnable() {
+                @Override
+                public void run() {
+                    flush();
+                }
+            });
+            flusher.start();
+        }
+    }
+
+    private void flush() {
+        while (true) {
+            List<JournalSegment> segmentsToForce;
+            long target;
+            synchronized (this) {
+                while (appendedCount == flushedCount) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        flusher = null;
+                        return;
+                    }
+                }
+                target = appendedCount;
+                segmentsToForce = new ArrayList<>(unflushedSegments);
+                unflushedSegments.clear();
+            }
+            for (JournalSegment segment : segmentsToForce) {
+                try {
+                    segment.force();
+                } catch (RuntimeException e) {
+                    // the web hooks are still handled, they are only not replayed if the machine crashes
+                    LOGGER.log(Level.WARNING, "Failed to force web hook journal to disk", e);
+                }
+            }
+            flushCount.incrementAndGet();
+            synchronized (this) {
+                flushedCount = target;
+                notifyAll();
+            }
+        }
+    }
+}
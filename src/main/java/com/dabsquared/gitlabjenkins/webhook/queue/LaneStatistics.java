@@ -0,0 +1,69 @@
+package com.dabsquared.gitlabjenkins.webhook.queue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Snapshot of a {@link WebHookQueue.Lane lane} of the {@link WebHookQueue}.
+ * The latency is the time a web hook waited in the queue before its handling started.
+ */
+public final class LaneStatistics {
+
+    /**
+     * The upper bounds of the latency histogram, the last bucket counts the web hooks that waited longer.
+     */
+    static final long[] LATENCY_BOUNDS_MILLIS = {10, 100, 1000, 10000, 60000};
+
+    private final WebHookQueue.Lane lane;
+    private final int queueDepth;
+    private final long[] latencyHistogram;
+
+    LaneStatistics(WebHookQueue.Lane lane, int queueDepth, long[] latencyHistogram) {
+        this.lane = lane;
+        this.queueDepth = queueDepth;
+        this.latencyHistogram = latencyHistogram;
+    }
+
+    public WebHookQueue.Lane getLane() {
+        return lane;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public long getStartedCount() {
+        long startedCount = 0;
+        for (long count : latencyHistogram) {
+            startedCount += count;
+        }
+        return startedCount;
+    }
+
+    /**
+     * @return the number of web hooks per latency bucket, see {@link #latencyBuckets()}
+     */
+    public List<Long> getLatencyHistogram() {
+        List<Long> result = new ArrayList<>(latencyHistogram.length);
+        for (long count : latencyHistogram) {
+            result.add(count);
+        }
+        return result;
+    }
+
+    /**
+     * @return the labels of the latency buckets
+     */
+    static List<String> latencyBuckets() {
+        List<String> result = new ArrayList<>(LATENCY_BOUNDS_MILLIS.length + 1);
+        for (long bound : LATENCY_BOUNDS_MILLIS) {
+            result.add("< " + formatMillis(bound));
+        }
+        result.add(">= " + formatMillis(LATENCY_BOUNDS_MILLIS[LATENCY_BOUNDS_MILLIS.length - 1]));
+        return result;
+    }
+
+    private static String formatMillis(long millis) {
+        return millis < 1000 ? millis + " ms" : millis / 1000 + " s";
+    }
+}
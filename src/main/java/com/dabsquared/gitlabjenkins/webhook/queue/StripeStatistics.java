@@ -0,0 +1,54 @@
+package com.dabsquared.gitlabjenkins.webhook.queue;
+
+/**
+ * Snapshot of the web hooks of one ordering key in the {@link WebHookQueue}.
+ * The latency is the time a web hook waited in the queue before its handling started.
+ */
+public final class StripeStatistics {
+
+    private final String key;
+    private final int backlog;
+    private final long processedCount;
+    private final long averageLatencyMillis;
+    private final long maxLatencyMillis;
+    private final long oldestWaitMillis;
+
+    StripeStatistics(String key, int backlog, long processedCount, long averageLatencyMillis, long maxLatencyMillis, long oldestWaitMillis) {
+        this.key = key;
+        this.backlog = backlog;
+        this.processedCount = processedCount;
+        this.averageLatencyMillis = averageLatencyMillis;
+        this.maxLatencyMillis = maxLatencyMillis;
+        this.oldestWaitMillis = oldestWaitMillis;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return the number of web hooks waiting to be handled
+     */
+    public int getBacklog() {
+        return backlog;
+    }
+
+    public long getProcessedCount() {
+        return processedCount;
+    }
+
+    public long getAverageLatencyMillis() {
+        return averageLatencyMillis;
+    }
+
+    public long getMaxLatencyMillis() {
+        return maxLatencyMillis;
+    }
+
+    /**
+     * @return how long the oldest waiting web hook has been waiting
+     */
+    public long getOldestWaitMillis() {
+        return oldestWaitMillis;
+    }
+}
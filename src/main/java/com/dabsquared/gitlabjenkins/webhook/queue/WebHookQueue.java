@@ -0,0 +1,435 @@
+package com.dabsquared.gitlabjenkins.webhook.queue;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded in-memory queue for web hooks that are processed asynchronously.
+ * The request thread only enqueues the hook, a pool of worker threads runs the trigger handlers.
+ * <p>
+ * Tasks of the same lane with the same ordering key (the GitLab project and ref of the web hook) form a stripe and are
+ * run one after the other in the order they have been offered, so a branch deletion never overtakes the push before it.
+ * Each lane has its own stripes, so pipeline events for a branch never hold back the pushes to it.
+ * Different stripes run in parallel on the worker threads. A stripe gives up its worker after each task,
+ * so a burst of web hooks for one branch does not hold back the other projects.
+ * <p>
+ * Every event type has its own {@link Lane} with its own capacity. A free worker takes the next task from the
+ * lanes by smooth weighted round-robin, so a burst of pipeline events only gets a small share of the workers
+ * while push and merge request events are waiting.
+ */
+public final class WebHookQueue {
+
+    private static final Logger LOGGER = Logger.getLogger(WebHookQueue.class.getName());
+
+    public static final int DEFAULT_CAPACITY = 1000;
+    public static final int DEFAULT_WORKER_THREADS = 4;
+
+    static final int MAX_IDLE_STRIPES = 100;
+
+    private static final WebHookQueue INSTANCE = new WebHookQueue();
+
+    private final AtomicLong acceptedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong processedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    // guarded by itself, in the order the stripes have last been used
+    private final Map<String, Stripe> stripes = new LinkedHashMap<>(16, 0.75f, true);
+    // guarded by itself, indexed by the ordinal of the lane
+    private final LaneQueue[] lanes = new LaneQueue[Lane.values().length];
+    private final Runnable runNextOfLanes = new Runnable() {
+        @Override
+        public void run() {
+            Runnable next;
+            synchronized (lanes) {
+                next = pollWeighted();
+            }
+            next.run();
+        }
+    };
+    private final ThreadPoolExecutor executor;
+    private volatile int capacity;
+
+    WebHookQueue() {
+        this.capacity = DEFAULT_CAPACITY;
+        this.executor = createExecutor(DEFAULT_WORKER_THREADS);
+        for (Lane lane : Lane.values()) {
+            lanes[lane.ordinal()] = new LaneQueue(lane);
+        }
+    }
+
+    public static WebHookQueue instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Enqueues the given task in the {@link Lane#PUSH push lane} without ordering it with respect to other tasks.
+     *
+     * @return {@code false} if the queue is full and the task has been rejected
+     */
+    public boolean offer(Runnable task) {
+        return offer(Lane.PUSH, null, task);
+    }
+
+    /**
+     * Enqueues the given task behind the tasks offered to the same lane with the same ordering key.
+     *
+     * @param orderingKey the key of the stripe or {@code null} to run the task in any order
+     * @return {@code false} if the lane is full and the task has been rejected
+     */
+    public boolean offer(Lane lane, String orderingKey, Runnable task) {
+        LaneQueue laneQueue = lanes[lane.ordinal()];
+        if (laneQueue.queuedCount.incrementAndGet() > capacity) {
+            laneQueue.queuedCount.decrementAndGet();
+            return reject();
+        }
+        QueuedTask queuedTask = new QueuedTask(lane, task);
+        if (orderingKey == null) {
+            schedule(lane, unordered(queuedTask));
+        } else {
+            String stripeKey = lane + " " + orderingKey;
+            Stripe stripe;
+            boolean schedule;
+            synchronized (stripes) {
+                stripe = stripes.get(stripeKey);
+                if (stripe == null) {
+                    stripe = new Stripe(stripeKey, lane);
+                    stripes.put(stripeKey, stripe);
+                    pruneIdleStripes();
+                }
+                stripe.tasks.add(queuedTask);
+                schedule = !stripe.scheduled;
+                stripe.scheduled = true;
+            }
+            if (schedule) {
+                schedule(lane, drain(stripe));
+            }
+        }
+        acceptedCount.incrementAndGet();
+        return true;
+    }
+
+    public synchronized void configure(int capacity, int workerThreads) {
+        capacity = capacity > 0 ? capacity : DEFAULT_CAPACITY;
+        workerThreads = workerThreads > 0 ? workerThreads : DEFAULT_WORKER_THREADS;
+        // the capacity only limits the hooks accepted from now on
+        this.capacity = capacity;
+        if (workerThreads > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(workerThreads);
+            executor.setCorePoolSize(workerThreads);
+        } else {
+            executor.setCorePoolSize(workerThreads);
+            executor.setMaximumPoolSize(workerThreads);
+        }
+    }
+
+    public int getQueueDepth() {
+        int queueDepth = 0;
+        for (LaneQueue laneQueue : lanes) {
+            queueDepth += laneQueue.queuedCount.get();
+        }
+        return queueDepth;
+    }
+
+    /**
+     * @return the number of web hooks each lane holds
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getWorkerThreads() {
+        return executor.getMaximumPoolSize();
+    }
+
+    public int getActiveWorkers() {
+        return executor.getActiveCount();
+    }
+
+    public long getAcceptedCount() {
+        return acceptedCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public long getProcessedCount() {
+        return processedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * @return the statistics of the busy stripes and of the {@value #MAX_IDLE_STRIPES} stripes used last,
+     *         the stripe used last first
+     */
+    public List<StripeStatistics> getStripes() {
+        long now = System.nanoTime();
+        List<StripeStatistics> result = new ArrayList<>();
+        synchronized (stripes) {
+            for (Stripe stripe : stripes.values()) {
+                result.add(0, stripe.statistics(now));
+            }
+        }
+        return result;
+    }
+
+    public List<LaneStatistics> getLanes() {
+        List<LaneStatistics> result = new ArrayList<>();
+        for (LaneQueue laneQueue : lanes) {
+            result.add(laneQueue.statistics());
+        }
+        return result;
+    }
+
+    /**
+     * @return the labels of the buckets of the {@link LaneStatistics#getLatencyHistogram() latency histograms}
+     */
+    public List<String> getLatencyBuckets() {
+        return LaneStatistics.latencyBuckets();
+    }
+
+    private boolean reject() {
+        rejectedCount.incrementAndGet();
+        LOGGER.log(Level.FINE, "Web hook queue is full, rejecting web hook");
+        return false;
+    }
+
+    private Runnable unordered(final QueuedTask queuedTask) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                started(queuedTask);
+                execute(queuedTask.task);
+            }
+        };
+    }
+
+    private Runnable drain(final Stripe stripe) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                runNext(stripe);
+            }
+        };
+    }
+
+    private void runNext(Stripe stripe) {
+        QueuedTask queuedTask;
+        synchronized (stripes) {
+            queuedTask = stripe.tasks.poll();
+        }
+        long latency = started(queuedTask);
+        try {
+            execute(queuedTask.task);
+        } finally {
+            QueuedTask next;
+            synchronized (stripes) {
+                stripe.processed(latency);
+                next = stripe.tasks.peek();
+                stripe.scheduled = next != null;
+            }
+            if (next != null) {
+                // back to the end of the lane, so the other stripes get their turn
+                schedule(stripe.lane, drain(stripe));
+            }
+        }
+    }
+
+    /**
+     * @return the time the task waited in the queue
+     */
+    private long started(QueuedTask queuedTask) {
+        long latency = System.nanoTime() - queuedTask.enqueuedAt;
+        LaneQueue laneQueue = lanes[queuedTask.lane.ordinal()];
+        laneQueue.queuedCount.decrementAndGet();
+        laneQueue.started(latency);
+        return latency;
+    }
+
+    private void schedule(Lane lane, Runnable runnable) {
+        synchronized (lanes) {
+            lanes[lane.ordinal()].runnables.add(runnable);
+        }
+        // every entry of the executor runs exactly one runnable of the lanes
+        executor.execute(runNextOfLanes);
+    }
+
+    /**
+     * Smooth weighted round-robin: every non-empty lane earns its weight, the richest lane is served
+     * and pays the total weight of the non-empty lanes. A lane that runs empty starts from scratch, so neither
+     * credit nor debt from an earlier burst carries over to the next one.
+     */
+    private Runnable pollWeighted() {
+        LaneQueue selected = null;
+        int totalWeight = 0;
+        for (LaneQueue laneQueue : lanes) {
+            if (!laneQueue.runnables.isEmpty()) {
+                laneQueue.currentWeight += laneQueue.lane.weight;
+                totalWeight += laneQueue.lane.weight;
+                if (selected == null || laneQueue.currentWeight > selected.currentWeight) {
+                    selected = laneQueue;
+                }
+            }
+        }
+        selected.currentWeight -= totalWeight;
+        Runnable result = selected.runnables.poll();
+        if (selected.runnables.isEmpty()) {
+            selected.currentWeight = 0;
+        }
+        return result;
+    }
+
+    private void execute(Runnable task) {
+        try {
+            task.run();
+            processedCount.incrementAndGet();
+        } catch (RuntimeException e) {
+            failedCount.incrementAndGet();
+            LOGGER.log(Level.WARNING, "Failed to process web hook", e);
+        }
+    }
+
+    private void pruneIdleStripes() {
+        Iterator<Stripe> iterator = stripes.values().iterator();
+        int idleStripes = 0;
+        for (Stripe stripe : stripes.values()) {
+            if (!stripe.scheduled) {
+                idleStripes++;
+            }
+        }
+        while (idleStripes > MAX_IDLE_STRIPES && iterator.hasNext()) {
+            if (!iterator.next().scheduled) {
+                iterator.remove();
+                idleStripes--;
+            }
+        }
+    }
+
+    private static ThreadPoolExecutor createExecutor(int workerThreads) {
+        // holds at most one entry per accepted hook, the capacity is enforced when the hook is offered
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(workerThreads, workerThreads, 60, TimeUnit.SECONDS,
+                                                             new LinkedBlockingQueue<Runnable>(),
+                                                             new NamingThreadFactory(new DaemonThreadFactory(), "GitLab web hook worker"),
+                                                             new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * The lanes of the event types, by {@code X-Gitlab-Event}.
+     */
+    public enum Lane {
+        PUSH("Push Hook, Tag Push Hook", 8),
+        MERGE_REQUEST("Merge Request Hook", 8),
+        NOTE("Note Hook", 2),
+        PIPELINE("Pipeline Hook", 1);
+
+        private final String events;
+        private final int weight;
+
+        Lane(String events, int weight) {
+            this.events = events;
+            this.weight = weight;
+        }
+
+        public String getEvents() {
+            return events;
+        }
+
+        /**
+         * @return the share of the workers the lane gets relative to the other busy lanes
+         */
+        public int getWeight() {
+            return weight;
+        }
+    }
+
+    private static final class QueuedTask {
+        private final Lane lane;
+        private final Runnable task;
+        private final long enqueuedAt = System.nanoTime();
+
+        private QueuedTask(Lane lane, Runnable task) {
+            this.lane = lane;
+            this.task = task;
+        }
+    }
+
+    private static final class LaneQueue {
+        private final Lane lane;
+        private final AtomicInteger queuedCount = new AtomicInteger();
+        private final AtomicLongArray latencyHistogram = new AtomicLongArray(LaneStatistics.LATENCY_BOUNDS_MILLIS.length + 1);
+        // guarded by the lanes
+        private final Deque<Runnable> runnables = new ArrayDeque<>();
+        private int currentWeight;
+
+        private LaneQueue(Lane lane) {
+            this.lane = lane;
+        }
+
+        private void started(long latency) {
+            long latencyMillis = TimeUnit.NANOSECONDS.toMillis(latency);
+            int bucket = 0;
+            while (bucket < LaneStatistics.LATENCY_BOUNDS_MILLIS.length && latencyMillis >= LaneStatistics.LATENCY_BOUNDS_MILLIS[bucket]) {
+                bucket++;
+            }
+            latencyHistogram.incrementAndGet(bucket);
+        }
+
+        private LaneStatistics statistics() {
+            long[] histogram = new long[latencyHistogram.length()];
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] = latencyHistogram.get(i);
+            }
+            return new LaneStatistics(lane, queuedCount.get(), histogram);
+        }
+    }
+
+    private static final class Stripe {
+        private final String key;
+        private final Lane lane;
+        private final Deque<QueuedTask> tasks = new ArrayDeque<>();
+        private boolean scheduled;
+        private long processedCount;
+        private long totalLatency;
+        private long maxLatency;
+
+        private Stripe(String key, Lane lane) {
+            this.key = key;
+            this.lane = lane;
+        }
+
+        private void processed(long latency) {
+            processedCount++;
+            totalLatency += latency;
+            maxLatency = Math.max(maxLatency, latency);
+        }
+
+        private StripeStatistics statistics(long now) {
+            QueuedTask oldest = tasks.peek();
+            return new StripeStatistics(key, tasks.size(), processedCount,
+                                        processedCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalLatency / processedCount),
+                                        TimeUnit.NANOSECONDS.toMillis(maxLatency),
+                                        oldest == null ? 0 : TimeUnit.NANOSECONDS.toMillis(now - oldest.enqueuedAt));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.dabsquared.gitlabjenkins.webhook.ratelimit;
+
+/**
+ * Snapshot of a token bucket of the {@link WebHookRateLimiter}.
+ */
+public final class BucketStatistics {
+
+    private final String key;
+    private final int limit;
+    private final int availableTokens;
+    private final long deferredCount;
+    private final long rejectedCount;
+
+    BucketStatistics(String key, int limit, int availableTokens, long deferredCount, long rejectedCount) {
+        this.key = key;
+        this.limit = limit;
+        this.availableTokens = availableTokens;
+        this.deferredCount = deferredCount;
+        this.rejectedCount = rejectedCount;
+    }
+
+    /**
+     * @return {@code project:<id>} or {@code job:<full name>}
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return the web hooks allowed per minute
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getAvailableTokens() {
+        return availableTokens;
+    }
+
+    /**
+     * @return the web hooks that have been delayed or replaced by a later one
+     */
+    public long getDeferredCount() {
+        return deferredCount;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+}
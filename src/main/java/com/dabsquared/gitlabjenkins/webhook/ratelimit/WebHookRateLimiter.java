@@ -0,0 +1,429 @@
+package com.dabsquared.gitlabjenkins.webhook.ratelimit;
+
+import com.google.common.base.Ticker;
+import jenkins.util.Timer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Limits the rate of web hooks per GitLab project and per job with token buckets.
+ * <p>
+ * A bucket holds as many tokens as web hooks are allowed per minute and is refilled continuously.
+ * Its state is a single timestamp that is updated with compare-and-set, so web hooks of different
+ * keys never contend and web hooks of the same key never block.
+ * A web hook that finds no token is handled according to the {@link Policy}.
+ */
+public final class WebHookRateLimiter {
+
+    private static final Logger LOGGER = Logger.getLogger(WebHookRateLimiter.class.getName());
+
+    /**
+     * Web hooks are delayed by at most this time, later ones are rejected regardless of the policy.
+     */
+    static final long MAX_DELAY_NANOS = TimeUnit.MINUTES.toNanos(1);
+    /**
+     * Buckets that are full again are pruned at most once per interval once this many buckets exist.
+     */
+    static final int MAX_IDLE_BUCKETS = 1000;
+    static final long PRUNE_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+    /**
+     * Keys beyond this number of buckets share one overflow bucket per kind of key.
+     */
+    static final int MAX_BUCKETS = 10000;
+
+    private static final WebHookRateLimiter INSTANCE = new WebHookRateLimiter(Ticker.systemTicker(), null);
+
+    private final ConcurrentMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong prunedAt;
+    // guarded by itself
+    private final Map<String, DeferredTask> coalescing = new HashMap<>();
+    private final AtomicLong deferredCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final Ticker ticker;
+    private final ScheduledExecutorService scheduler;
+    private volatile int projectLimit;
+    private volatile int jobLimit;
+    private volatile Policy policy = Policy.QUEUE;
+
+    WebHookRateLimiter(Ticker ticker, ScheduledExecutorService scheduler) {
+        this.ticker = ticker;
+        this.scheduler = scheduler;
+        this.prunedAt = new AtomicLong(ticker.read());
+    }
+
+    public static WebHookRateLimiter instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param projectLimit the web hooks allowed per minute and GitLab project, {@code 0} for no limit
+     * @param jobLimit     the web hooks allowed per minute and job, {@code 0} for no limit
+     */
+    public void configure(int projectLimit, int jobLimit, Policy policy) {
+        this.projectLimit = Math.max(projectLimit, 0);
+        this.jobLimit = Math.max(jobLimit, 0);
+        this.policy = policy == null ? Policy.QUEUE : policy;
+    }
+
+    /**
+     * Takes a token from the buckets of the given job and GitLab project.
+     *
+     * @param projectId     the GitLab project that sent the web hook or {@code null} if it is not known
+     * @param coalescingKey the key of the web hooks that {@link Policy#COALESCE} may replace by later ones
+     *                      or {@code null} if the web hook must not be replaced
+     * @param task          handles the web hook if it is delayed
+     * @param superseded    runs instead of the task if the delayed web hook has been replaced by a later one
+     */
+    public Admission admit(String jobName, Integer projectId, String coalescingKey, Runnable task, Runnable superseded) {
+        Bucket jobBucket = jobLimit > 0 ? bucket("job:", jobName, jobLimit) : null;
+        Bucket projectBucket = projectLimit > 0 && projectId != null ? bucket("project:", String.valueOf(projectId), projectLimit) : null;
+        if (jobBucket == null && projectBucket == null) {
+            return Admission.NOW;
+        }
+        Policy policy = this.policy;
+        String deferredKey = coalescingKey == null ? null : jobName + '#' + coalescingKey;
+        if (policy == Policy.COALESCE && deferredKey != null && replaceDeferred(deferredKey, task, superseded)) {
+            count(jobBucket, projectBucket, false);
+            coalescedCount.incrementAndGet();
+            return Admission.DEFERRED;
+        }
+        long now = ticker.read();
+        long maxWait = policy == Policy.REJECT ? 0 : MAX_DELAY_NANOS;
+        long jobWait = take(jobBucket, now, maxWait);
+        if (jobWait > maxWait) {
+            return reject(jobBucket, projectBucket, jobWait);
+        }
+        long projectWait = take(projectBucket, now, maxWait);
+        if (projectWait > maxWait) {
+            giveBack(jobBucket);
+            return reject(jobBucket, projectBucket, projectWait);
+        }
+        long delay = Math.max(jobWait, projectWait);
+        if (delay <= 0) {
+            return Admission.NOW;
+        }
+        count(jobBucket, projectBucket, false);
+        deferredCount.incrementAndGet();
+        defer(policy == Policy.COALESCE ? deferredKey : null, task, superseded, delay);
+        return Admission.DEFERRED;
+    }
+
+    public int getProjectLimit() {
+        return projectLimit;
+    }
+
+    public int getJobLimit() {
+        return jobLimit;
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    public long getDeferredCount() {
+        return deferredCount.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    int getBucketCount() {
+        return buckets.size();
+    }
+
+    /**
+     * @return the buckets that have limited web hooks, the ones with the most rejections first
+     */
+    public List<BucketStatistics> getBuckets() {
+        long now = ticker.read();
+        List<BucketStatistics> result = new ArrayList<>();
+        for (Bucket bucket : buckets.values()) {
+            if (bucket.deferredCount.get() > 0 || bucket.rejectedCount.get() > 0) {
+                result.add(bucket.statistics(now));
+            }
+        }
+        Collections.sort(result, new Comparator<BucketStatistics>() {
+            @Override
+            public int compare(BucketStatistics o1, BucketStatistics o2) {
+                int rejected = Long.compare(o2.getRejectedCount(), o1.getRejectedCount());
+                return rejected != 0 ? rejected : Long.compare(o2.getDeferredCount(), o1.getDeferredCount());
+            }
+        });
+        return result;
+    }
+
+    private Bucket bucket(String kind, String name, int limit) {
+        String key = kind + name;
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= MAX_IDLE_BUCKETS) {
+                pruneFullBucketsIfDue();
+            }
+            if (buckets.size() >= MAX_BUCKETS) {
+                key = kind + "*";
+            }
+            Bucket existing = buckets.putIfAbsent(key, bucket = new Bucket(key, limit));
+            bucket = existing == null ? bucket : existing;
+        }
+        bucket.limit = limit;
+        return bucket;
+    }
+
+    /**
+     * A bucket that is full again behaves like a new one, so it can be dropped. Buckets are only used for a short
+     * time after their last web hook, pruning them once per interval keeps the map small without scanning it on
+     * every new key.
+     */
+    private void pruneFullBucketsIfDue() {
+        long now = ticker.read();
+        long last = prunedAt.get();
+        if (now - last < PRUNE_INTERVAL_NANOS || !prunedAt.compareAndSet(last, now)) {
+            return;
+        }
+        for (Iterator<Bucket> iterator = buckets.values().iterator(); iterator.hasNext(); ) {
+            if (iterator.next().isFull(now)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private Admission reject(Bucket jobBucket, Bucket projectBucket, long wait) {
+        count(jobBucket, projectBucket, true);
+        rejectedCount.incrementAndGet();
+        return Admission.rejected(wait);
+    }
+
+    private static long take(Bucket bucket, long now, long maxWait) {
+        return bucket == null ? 0 : bucket.take(now, maxWait);
+    }
+
+    private static void giveBack(Bucket bucket) {
+        if (bucket != null) {
+            bucket.giveBack();
+        }
+    }
+
+    private static void count(Bucket jobBucket, Bucket projectBucket, boolean rejected) {
+        for (Bucket bucket : new Bucket[] {jobBucket, projectBucket}) {
+            if (bucket != null) {
+                (rejected ? bucket.rejectedCount : bucket.deferredCount).incrementAndGet();
+            }
+        }
+    }
+
+    private boolean replaceDeferred(String deferredKey, Runnable task, Runnable superseded) {
+        Runnable replaced;
+        synchronized (coalescing) {
+            DeferredTask deferredTask = coalescing.get(deferredKey);
+            if (deferredTask == null) {
+                return false;
+            }
+            replaced = deferredTask.superseded;
+            deferredTask.task = task;
+            deferredTask.superseded = superseded;
+        }
+        run(replaced);
+        return true;
+    }
+
+    private void defer(String deferredKey, Runnable task, Runnable superseded, long delay) {
+        final DeferredTask deferredTask = new DeferredTask(deferredKey, task, superseded);
+        if (deferredKey != null) {
+            synchronized (coalescing) {
+                coalescing.put(deferredKey, deferredTask);
+            }
+        }
+        getScheduler().schedule(new Runnable() {
+            @Override
+            public void run() {
+                Runnable task;
+                synchronized (coalescing) {
+                    if (deferredTask.key != null) {
+                        coalescing.remove(deferredTask.key);
+                    }
+                    task = deferredTask.task;
+                }
+                WebHookRateLimiter.run(task);
+            }
+        }, delay, TimeUnit.NANOSECONDS);
+    }
+
+    private ScheduledExecutorService getScheduler() {
+        return scheduler == null ? Timer.get() : scheduler;
+    }
+
+    private static void run(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to handle rate limited web hook", e);
+        }
+    }
+
+    /**
+     * What to do with a web hook that exceeds the rate limit.
+     */
+    public enum Policy {
+        /**
+         * Handle the web hook as soon as a token is available.
+         */
+        QUEUE("Delay the web hook"),
+        /**
+         * Like {@link #QUEUE}, but a delayed web hook is dropped if a later one for the same project and ref arrives.
+         */
+        COALESCE("Delay the web hook, only handle the latest one per project and ref"),
+        /**
+         * Answer with 429 and a Retry-After header.
+         */
+        REJECT("Reject the web hook with 429");
+
+        private final String displayName;
+
+        Policy(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        public static Policy of(String name) {
+            for (Policy policy : values()) {
+                if (policy.name().equals(name)) {
+                    return policy;
+                }
+            }
+            return QUEUE;
+        }
+    }
+
+    /**
+     * The decision about a web hook.
+     */
+    public static final class Admission {
+        static final Admission NOW = new Admission(false, 0);
+        static final Admission DEFERRED = new Admission(true, 0);
+
+        private final boolean deferred;
+        private final long retryAfterNanos;
+
+        private Admission(boolean deferred, long retryAfterNanos) {
+            this.deferred = deferred;
+            this.retryAfterNanos = retryAfterNanos;
+        }
+
+        static Admission rejected(long retryAfterNanos) {
+            return new Admission(false, retryAfterNanos);
+        }
+
+        /**
+         * @return {@code true} if the web hook is handled later by the task
+         */
+        public boolean isDeferred() {
+            return deferred;
+        }
+
+        public boolean isRejected() {
+            return retryAfterNanos > 0;
+        }
+
+        public int getRetryAfterSeconds() {
+            return (int) Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        }
+    }
+
+    private static final class DeferredTask {
+        private final String key;
+        private Runnable task;
+        private Runnable superseded;
+
+        private DeferredTask(String key, Runnable task, Runnable superseded) {
+            this.key = key;
+            this.task = task;
+            this.superseded = superseded;
+        }
+    }
+
+    /**
+     * A token bucket in the form of the time at which it would be full again (the theoretical arrival time
+     * of the generic cell rate algorithm). Taking a token moves the time one interval into the future,
+     * a token is available as long as the time is less than the capacity of the bucket ahead.
+     */
+    private static final class Bucket {
+        private final String key;
+        private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+        private final AtomicLong deferredCount = new AtomicLong();
+        private final AtomicLong rejectedCount = new AtomicLong();
+        private volatile int limit;
+
+        private Bucket(String key, int limit) {
+            this.key = key;
+            this.limit = limit;
+        }
+
+        private long interval() {
+            return TimeUnit.MINUTES.toNanos(1) / limit;
+        }
+
+        /**
+         * Takes a token if it is available within the given time, even if it only becomes available in the future.
+         * The check and the update are one compare-and-set, so concurrent web hooks never take a token beyond it.
+         *
+         * @return the time until the token is available, no token has been taken if it is greater than {@code maxWait}
+         */
+        private long take(long now, long maxWait) {
+            long interval = interval();
+            while (true) {
+                long current = fullAt.get();
+                long next = Math.max(current, now) + interval;
+                long wait = next - now - interval * limit;
+                if (wait > maxWait || fullAt.compareAndSet(current, next)) {
+                    return wait;
+                }
+            }
+        }
+
+        /**
+         * Returns a token taken by a web hook that has been rejected by another bucket.
+         */
+        private void giveBack() {
+            long interval = interval();
+            while (true) {
+                long current = fullAt.get();
+                if (fullAt.compareAndSet(current, current - interval)) {
+                    return;
+                }
+            }
+        }
+
+        private boolean isFull(long now) {
+            return fullAt.get() <= now;
+        }
+
+        private BucketStatistics statistics(long now) {
+            int limit = this.limit;
+            long used = Math.max(fullAt.get(), now) - now;
+            int available = (int) Math.max(0, limit - (used + interval() - 1) / interval());
+            return new BucketStatistics(key, limit, available, deferredCount.get(), rejectedCount.get());
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.dabsquared.gitlabjenkins.webhook.repository;
+
+import com.dabsquared.gitlabjenkins.GitLabPushTrigger;
+import com.google.common.collect.ImmutableSet;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Saveable;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.SaveableListener;
+import hudson.plugins.git.GitSCM;
+import hudson.plugins.git.UserRemoteConfig;
+import hudson.scm.SCM;
+import jenkins.model.Jenkins;
+import jenkins.triggers.SCMTriggerItem;
+import org.apache.commons.lang.StringUtils;
+import org.eclipse.jgit.transport.URIish;
+
+import java.net.URISyntaxException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-memory index from the Git remote URLs of the jobs with a {@link GitLabPushTrigger} to these jobs.
+ * It is built once when the items are loaded and then updated incrementally when jobs are created, changed, moved or deleted.
+ * Lookups never scan the jobs, updates replace immutable sets so that lookups do not need to lock.
+ */
+public final class RepositoryUrlIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(RepositoryUrlIndex.class.getName());
+
+    private static final RepositoryUrlIndex INSTANCE = new RepositoryUrlIndex();
+
+    private final ConcurrentMap<String, Set<String>> jobsByUrl = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<String>> urlsByJob = new ConcurrentHashMap<>();
+
+    RepositoryUrlIndex() { }
+
+    public static RepositoryUrlIndex instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the full names of the jobs with a remote matching one of the given repository URLs
+     */
+    public Set<String> getJobNames(Collection<String> repositoryUrls) {
+        Set<String> result = new HashSet<>();
+        for (String repositoryUrl : repositoryUrls) {
+            String normalizedUrl = normalize(repositoryUrl);
+            if (normalizedUrl != null) {
+                Set<String> jobs = jobsByUrl.get(normalizedUrl);
+                if (jobs != null) {
+                    result.addAll(jobs);
+                }
+            }
+        }
+        return result;
+    }
+
+    public int getUrlCount() {
+        return jobsByUrl.size();
+    }
+
+    public int getJobCount() {
+        return urlsByJob.size();
+    }
+
+    synchronized void rebuild(Collection<? extends Job> jobs) {
+        jobsByUrl.clear();
+        urlsByJob.clear();
+        for (Job<?, ?> job : jobs) {
+            update(job.getFullName(), getRemoteUrls(job));
+        }
+        LOGGER.log(Level.FINE, "Indexed {0} repository URLs of {1} jobs", new Object[]{jobsByUrl.size(), urlsByJob.size()});
+    }
+
+    synchronized void update(String fullName, Set<String> remoteUrls) {
+        Set<String> previousUrls = remoteUrls.isEmpty() ? urlsByJob.remove(fullName) : urlsByJob.put(fullName, remoteUrls);
+        if (previousUrls != null) {
+            for (String url : previousUrls) {
+                if (!remoteUrls.contains(url)) {
+                    removeJob(url, fullName);
+                }
+            }
+        }
+        for (String url : remoteUrls) {
+            if (previousUrls == null || !previousUrls.contains(url)) {
+                addJob(url, fullName);
+            }
+        }
+    }
+
+    synchronized void remove(String fullName) {
+        String childPrefix = fullName + '/';
+        for (Iterator<Map.Entry<String, Set<String>>> iterator = urlsByJob.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<String, Set<String>> entry = iterator.next();
+            if (entry.getKey().equals(fullName) || entry.getKey().startsWith(childPrefix)) {
+                iterator.remove();
+                for (String url : entry.getValue()) {
+                    removeJob(url, entry.getKey());
+                }
+            }
+        }
+    }
+
+    private void addJob(String url, String fullName) {
+        Set<String> jobs = jobsByUrl.get(url);
+        jobsByUrl.put(url, jobs == null ? ImmutableSet.of(fullName) : ImmutableSet.<String>builder().addAll(jobs).add(fullName).build());
+    }
+
+    private void removeJob(String url, String fullName) {
+        Set<String> jobs = jobsByUrl.get(url);
+        if (jobs != null) {
+            Set<String> remainingJobs = new HashSet<>(jobs);
+            remainingJobs.remove(fullName);
+            if (remainingJobs.isEmpty()) {
+                jobsByUrl.remove(url);
+            } else {
+                jobsByUrl.put(url, ImmutableSet.copyOf(remainingJobs));
+            }
+        }
+    }
+
+    static Set<String> getRemoteUrls(Job<?, ?> job) {
+        Set<String> result = new HashSet<>();
+        if (GitLabPushTrigger.getFromJob(job) == null) {
+            return result;
+        }
+        SCMTriggerItem item = SCMTriggerItem.SCMTriggerItems.asSCMTriggerItem(job);
+        if (item != null) {
+            for (SCM scm : item.getSCMs()) {
+                if (scm instanceof GitSCM) {
+                    for (UserRemoteConfig remoteConfig : ((GitSCM) scm).getUserRemoteConfigs()) {
+                        String normalizedUrl = normalize(remoteConfig.getUrl());
+                        if (normalizedUrl != null) {
+                            result.add(normalizedUrl);
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reduces a Git URL to host and path, so that the HTTP and SSH URLs of a repository are equal:
+     * {@code git@gitlab.example.com:group/project.git} and {@code https://gitlab.example.com/group/project} both become
+     * {@code gitlab.example.com/group/project}.
+     */
+    static String normalize(String url) {
+        if (StringUtils.isBlank(url)) {
+            return null;
+        }
+        try {
+            URIish uri = new URIish(url.trim());
+            String path = StringUtils.strip(uri.getPath(), "/");
+            if (StringUtils.isEmpty(path)) {
+                return null;
+            }
+            path = StringUtils.removeEnd(path, ".git");
+            String host = uri.getHost() == null ? "" : uri.getHost();
+            return (host + '/' + path).toLowerCase(Locale.ENGLISH);
+        } catch (URISyntaxException e) {
+            LOGGER.log(Level.FINE, "Ignoring invalid repository URL: {0}", url);
+            return null;
+        }
+    }
+
+    private static void index(Item item) {
+        if (item instanceof Job<?, ?>) {
+            Job<?, ?> job = (Job<?, ?>) item;
+            INSTANCE.update(job.getFullName(), getRemoteUrls(job));
+        }
+    }
+
+    @Extension
+    public static class IndexingItemListener extends ItemListener {
+        @Override
+        public void onLoaded() {
+            Jenkins jenkins = Jenkins.getInstance();
+            if (jenkins != null) {
+                INSTANCE.rebuild(jenkins.getAllItems(Job.class));
+            }
+        }
+
+        @Override
+        public void onCreated(Item item) {
+            index(item);
+        }
+
+        @Override
+        public void onCopied(Item src, Item item) {
+            index(item);
+        }
+
+        @Override
+        public void onUpdated(Item item) {
+            index(item);
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            INSTANCE.remove(item.getFullName());
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            INSTANCE.remove(oldFullName);
+            index(item);
+        }
+    }
+
+    @Extension
+    public static class IndexingSaveableListener extends SaveableListener {
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof Item) {
+                index((Item) o);
+            }
+        }
+    }
+}
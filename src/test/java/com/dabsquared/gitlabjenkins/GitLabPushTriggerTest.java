@@ -0,0 +1,106 @@
+package com.dabsquared.gitlabjenkins;
+
+import com.dabsquared.gitlabjenkins.cause.CauseData;
+import com.dabsquared.gitlabjenkins.cause.GitLabWebHookCause;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.State;
+import com.dabsquared.gitlabjenkins.trigger.filter.BranchFilterType;
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.CauseAction;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import hudson.util.OneShotEvent;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestBuilder;
+
+import java.io.IOException;
+
+import static com.dabsquared.gitlabjenkins.builder.generated.GitLabPushTriggerBuilder.gitLabPushTrigger;
+import static com.dabsquared.gitlabjenkins.cause.CauseDataBuilder.causeData;
+import static com.dabsquared.gitlabjenkins.gitlab.hook.model.builder.generated.MergeRequestHookBuilder.mergeRequestHook;
+import static com.dabsquared.gitlabjenkins.gitlab.hook.model.builder.generated.MergeRequestObjectAttributesBuilder.mergeRequestObjectAttributes;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class GitLabPushTriggerTest {
+
+    @ClassRule
+    public static JenkinsRule jenkins = new JenkinsRule();
+
+    @Test
+    public void closedMergeRequestCancelsItsBuilds() throws Exception {
+        assertBuildsCancelled(State.closed);
+    }
+
+    @Test
+    public void mergedMergeRequestCancelsItsBuilds() throws Exception {
+        assertBuildsCancelled(State.merged);
+    }
+
+    private void assertBuildsCancelled(State state) throws Exception {
+        final OneShotEvent buildStarted = new OneShotEvent();
+        FreeStyleProject project = jenkins.createFreeStyleProject();
+        project.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
+                buildStarted.signal();
+                new OneShotEvent().block();
+                return true;
+            }
+        });
+        // the job builds merge requests, but not when they are closed or merged
+        GitLabPushTrigger trigger = gitLabPushTrigger().withTriggerOnMergeRequest(true).withBranchFilterType(BranchFilterType.All).build();
+        project.addTrigger(trigger);
+        trigger.start(project, true);
+
+        project.scheduleBuild2(0, new CauseAction(new GitLabWebHookCause(mergeRequestCause("1111111111111111111111111111111111111111"))));
+        buildStarted.block(10000);
+        assertThat(buildStarted.isSignaled(), is(true));
+        FreeStyleBuild runningBuild = project.getLastBuild();
+        project.scheduleBuild2(3600, new CauseAction(new GitLabWebHookCause(mergeRequestCause("2222222222222222222222222222222222222222"))));
+        assertThat(jenkins.jenkins.getQueue().getItems(project).size(), is(1));
+
+        trigger.onPost(mergeRequestHook()
+            .withObjectAttributes(mergeRequestObjectAttributes()
+                .withIid(5)
+                .withTargetProjectId(2)
+                .withTargetBranch("master")
+                .withState(state)
+                .build())
+            .build());
+        for (int i = 0; i < 100 && runningBuild.isBuilding(); i++) {
+            Thread.sleep(100);
+        }
+
+        assertThat(jenkins.jenkins.getQueue().getItems(project).isEmpty(), is(true));
+        assertThat(runningBuild.getResult(), is(Result.ABORTED));
+    }
+
+    private static CauseData mergeRequestCause(String lastCommit) {
+        return causeData()
+            .withActionType(CauseData.ActionType.MERGE)
+            .withSourceProjectId(1)
+            .withTargetProjectId(2)
+            .withBranch("feature")
+            .withSourceBranch("feature")
+            .withUserName("test")
+            .withSourceRepoName("test")
+            .withSourceNamespace("test-namespace")
+            .withSourceRepoSshUrl("git@gitlab.org:test.git")
+            .withSourceRepoHttpUrl("https://gitlab.org/test.git")
+            .withMergeRequestTitle("")
+            .withMergeRequestIid(5)
+            .withTargetBranch("master")
+            .withTargetRepoName("test")
+            .withTargetNamespace("test-namespace")
+            .withTargetRepoSshUrl("git@gitlab.org:test.git")
+            .withTargetRepoHttpUrl("https://gitlab.org/test.git")
+            .withTriggeredByUser("test")
+            .withLastCommit(lastCommit)
+            .build();
+    }
+}
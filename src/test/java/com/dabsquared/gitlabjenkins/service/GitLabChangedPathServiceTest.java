@@ -0,0 +1,129 @@
+package com.dabsquared.gitlabjenkins.service;
+
+import com.dabsquared.gitlabjenkins.gitlab.api.model.Comparison;
+import com.dabsquared.gitlabjenkins.gitlab.api.model.Diff;
+import com.dabsquared.gitlabjenkins.gitlab.api.model.MergeRequestChanges;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.Commit;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestObjectAttributes;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.PushHook;
+import com.google.common.base.Ticker;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.dabsquared.gitlabjenkins.gitlab.api.model.builder.generated.ComparisonBuilder.comparison;
+import static com.dabsquared.gitlabjenkins.gitlab.api.model.builder.generated.DiffBuilder.diff;
+import static com.dabsquared.gitlabjenkins.gitlab.api.model.builder.generated.MergeRequestChangesBuilder.mergeRequestChanges;
+import static com.dabsquared.gitlabjenkins.gitlab.hook.model.builder.generated.CommitBuilder.commit;
+import static com.dabsquared.gitlabjenkins.gitlab.hook.model.builder.generated.MergeRequestObjectAttributesBuilder.mergeRequestObjectAttributes;
+import static com.dabsquared.gitlabjenkins.gitlab.hook.model.builder.generated.PushHookBuilder.pushHook;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+
+public class GitLabChangedPathServiceTest {
+
+    private static final String BEFORE = "b3a5a5f9d2b7f0b9d6c3e1f0a1e2d3c4b5a69788";
+    private static final String AFTER = "e4b1c2d3f5a6978812345678901234567890abcd";
+
+    private GitLabChangedPathService changedPathService;
+    private GitLabClientStub clientStub;
+
+    @Before
+    public void setUp() {
+        clientStub = new GitLabClientStub();
+        changedPathService = new GitLabChangedPathService(Ticker.systemTicker());
+    }
+
+    @Test
+    public void shouldReturnPathsOfPushedCommits() {
+        PushHook hook = pushHook()
+            .withProjectId(1)
+            .withBefore(BEFORE)
+            .withAfter(AFTER)
+            .withTotalCommitsCount(2)
+            .withCommits(Arrays.asList(
+                commit().withAdded(Arrays.asList("api/New.java")).withModified(Arrays.asList("pom.xml")).build(),
+                commit().withRemoved(Arrays.asList("docs/old.md")).build()))
+            .build();
+
+        assertThat(changedPathService.getChangedPaths(clientStub, hook), is(paths("api/New.java", "pom.xml", "docs/old.md")));
+        assertThat(clientStub.calls("1", Comparison.class), is(0));
+    }
+
+    @Test
+    public void shouldCompareRevisionsOfTruncatedPush() {
+        clientStub.addComparison("1", comparison()
+            .withDiffs(Arrays.asList(diff().withOldPath("api/Old.java").withNewPath("api/New.java").withRenamedFile(true).build()))
+            .build());
+        PushHook hook = pushHook()
+            .withProjectId(1)
+            .withBefore(BEFORE)
+            .withAfter(AFTER)
+            .withTotalCommitsCount(21)
+            .withCommits(Collections.singletonList(commit().withModified(Arrays.asList("pom.xml")).build()))
+            .build();
+
+        assertThat(changedPathService.getChangedPaths(clientStub, hook), is(paths("api/Old.java", "api/New.java")));
+        assertThat(clientStub.calls("1", Comparison.class), is(1));
+    }
+
+    @Test
+    public void shouldNotKnowPathsOfNewBranchOrTimedOutComparison() {
+        PushHook newBranch = pushHook()
+            .withProjectId(1)
+            .withBefore("0000000000000000000000000000000000000000")
+            .withAfter(AFTER)
+            .withTotalCommitsCount(0)
+            .withCommits(Collections.<Commit>emptyList())
+            .build();
+        assertThat(changedPathService.getChangedPaths(clientStub, newBranch), is(nullValue()));
+
+        clientStub.addComparison("1", comparison().withCompareTimeout(true).build());
+        PushHook truncated = pushHook().withProjectId(1).withBefore(BEFORE).withAfter(AFTER).withTotalCommitsCount(30).build();
+        assertThat(changedPathService.getChangedPaths(clientStub, truncated), is(nullValue()));
+        assertThat(changedPathService.getChangedPaths(null, truncated), is(nullValue()));
+    }
+
+    @Test
+    public void shouldCacheChangesOfMergeRequestByLastCommit() {
+        clientStub.addMergeRequestChanges("1", mergeRequestChanges()
+            .withChanges(Arrays.asList(diff().withOldPath("pom.xml").withNewPath("pom.xml").build()))
+            .build());
+
+        assertThat(changedPathService.getChangedPaths(clientStub, mergeRequestHook(BEFORE)), is(paths("pom.xml")));
+        assertThat(changedPathService.getChangedPaths(clientStub, mergeRequestHook(BEFORE)), is(paths("pom.xml")));
+        assertThat(clientStub.calls("1", MergeRequestChanges.class), is(1));
+
+        assertThat(changedPathService.getChangedPaths(clientStub, mergeRequestHook(AFTER)), is(paths("pom.xml")));
+        assertThat(clientStub.calls("1", MergeRequestChanges.class), is(2));
+    }
+
+    @Test
+    public void shouldNotKnowPathsOfOverflowingMergeRequest() {
+        clientStub.addMergeRequestChanges("1", mergeRequestChanges()
+            .withChanges(Collections.<Diff>emptyList())
+            .withOverflow(true)
+            .build());
+
+        assertThat(changedPathService.getChangedPaths(clientStub, mergeRequestHook(BEFORE)), is(nullValue()));
+    }
+
+    private static MergeRequestObjectAttributes mergeRequestHook(String lastCommit) {
+        return mergeRequestObjectAttributes()
+            .withId(10)
+            .withIid(1)
+            .withTargetProjectId(1)
+            .withLastCommit(commit().withId(lastCommit).build())
+            .build();
+    }
+
+    private static Set<String> paths(String... paths) {
+        return new HashSet<>(Arrays.asList(paths));
+    }
+}
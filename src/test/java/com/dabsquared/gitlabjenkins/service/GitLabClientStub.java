@@ -7,6 +7,8 @@ import com.dabsquared.gitlabjenkins.gitlab.hook.model.State;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -36,6 +38,22 @@ class GitLabClientStub implements GitLabClient {
         addData(project, Label.class, labels);
     }
 
+    void addMergeRequests(String project, List<MergeRequest> mergeRequests) {
+        addData(project, MergeRequest.class, mergeRequests);
+    }
+
+    void addProject(String project, Project gitLabProject) {
+        addData(project, Project.class, Collections.singletonList(gitLabProject));
+    }
+
+    void addComparison(String project, Comparison comparison) {
+        addData(project, Comparison.class, Collections.singletonList(comparison));
+    }
+
+    void addMergeRequestChanges(String project, MergeRequestChanges changes) {
+        addData(project, MergeRequestChanges.class, Collections.singletonList(changes));
+    }
+
     int calls(String projectId, Class dataClass) {
         Pair<String, Class> key = createKey(projectId, dataClass);
         return calls.containsKey(key) ? calls.get(key) : 0;
@@ -51,6 +69,33 @@ class GitLabClientStub implements GitLabClient {
         return getData(projectId, Label.class);
     }
 
+    @Override
+    public List<MergeRequest> getMergeRequests(String projectId, State state, int page, int perPage) {
+        return getMergeRequests(projectId, state, null, null, null, null, null, page, perPage);
+    }
+
+    @Override
+    public List<MergeRequest> getMergeRequests(String projectId, State state, String targetBranch, String sourceBranch, List<String> labels,
+                                               Date updatedAfter, MergeRequestOrder orderBy, int page, int perPage) {
+        if (page > 1) {
+            return emptyList();
+        }
+        List<MergeRequest> mergeRequests = getData(projectId, MergeRequest.class);
+        return mergeRequests == null ? Collections.<MergeRequest>emptyList() : mergeRequests;
+    }
+
+    @Override
+    public Comparison compare(String projectId, String from, String to) {
+        List<Comparison> comparisons = getData(projectId, Comparison.class);
+        return comparisons == null ? null : comparisons.get(0);
+    }
+
+    @Override
+    public MergeRequestChanges getMergeRequestChanges(MergeRequest mr) {
+        List<MergeRequestChanges> changes = getData(String.valueOf(mr.getProjectId()), MergeRequestChanges.class);
+        return changes == null ? null : changes.get(0);
+    }
+
     private void addData(String projectId, Class dataClass, List<?> datas) {
         data.put(createKey(projectId, dataClass), datas);
     }
@@ -86,7 +131,8 @@ class GitLabClientStub implements GitLabClient {
 
     @Override
     public Project getProject(String projectName) {
-        return null;
+        List<Project> projects = getData(projectName, Project.class);
+        return projects == null ? null : projects.get(0);
     }
 
     @Override
@@ -129,11 +175,6 @@ class GitLabClientStub implements GitLabClient {
 
     }
 
-    @Override
-    public List<MergeRequest> getMergeRequests(String projectId, State state, int page, int perPage) {
-        return null;
-    }
-
     @Override
     public Branch getBranch(String projectId, String branch) {
         return null;
@@ -0,0 +1,138 @@
+package com.dabsquared.gitlabjenkins.service;
+
+
+import com.dabsquared.gitlabjenkins.gitlab.api.model.MergeRequest;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestObjectAttributes;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.State;
+import com.google.common.base.Ticker;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.dabsquared.gitlabjenkins.gitlab.api.model.builder.generated.MergeRequestBuilder.mergeRequest;
+import static com.dabsquared.gitlabjenkins.gitlab.hook.model.builder.generated.MergeRequestObjectAttributesBuilder.mergeRequestObjectAttributes;
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+
+public class GitLabOpenMergeRequestServiceTest {
+
+    private ManualTicker ticker;
+    private GitLabOpenMergeRequestService mergeRequestService;
+    private GitLabClientStub clientStub;
+
+    @Before
+    public void setUp() {
+        clientStub = new GitLabClientStub();
+        clientStub.addMergeRequests("1", asList(
+            openMergeRequest(1, "master", "feature-1"),
+            openMergeRequest(2, "develop", "feature-2"),
+            openMergeRequest(3, "master", "feature-3")));
+        ticker = new ManualTicker();
+        mergeRequestService = new GitLabOpenMergeRequestService(ticker);
+    }
+
+    @Test
+    public void shouldReturnOpenMergeRequestsOfTargetBranch() {
+        assertThat(iids(mergeRequestService.getOpenMergeRequests(clientStub, 1, "master")), is(asList(1, 3)));
+        assertThat(iids(mergeRequestService.getOpenMergeRequests(clientStub, 1, "develop")), is(asList(2)));
+        assertThat(mergeRequestService.getOpenMergeRequests(clientStub, 1, "release").isEmpty(), is(true));
+        assertThat(clientStub.calls("1", MergeRequest.class), is(3));
+        assertThat(iids(mergeRequestService.getOpenMergeRequests(clientStub, 1, "master")), is(asList(1, 3)));
+        assertThat(clientStub.calls("1", MergeRequest.class), is(3));
+    }
+
+    @Test
+    public void shouldApplyMergeRequestHooksToIndexedProject() {
+        mergeRequestService.getOpenMergeRequests(clientStub, 1, "master");
+        mergeRequestService.getOpenMergeRequests(clientStub, 1, "develop");
+
+        mergeRequestService.update("", hookAttributes(4, "master", State.opened));
+        mergeRequestService.update("", hookAttributes(1, "master", State.merged));
+        mergeRequestService.update("", hookAttributes(2, "master", State.updated));
+
+        assertThat(iids(mergeRequestService.getOpenMergeRequests(clientStub, 1, "master")), is(asList(2, 3, 4)));
+        assertThat(mergeRequestService.getOpenMergeRequests(clientStub, 1, "develop").isEmpty(), is(true));
+        assertThat(clientStub.calls("1", MergeRequest.class), is(2));
+    }
+
+    @Test
+    public void shouldIgnoreMergeRequestHooksOfProjectThatIsNotIndexed() {
+        mergeRequestService.update("", hookAttributes(4, "master", State.opened));
+
+        assertThat(iids(mergeRequestService.getOpenMergeRequests(clientStub, 1, "master")), is(asList(1, 3)));
+    }
+
+    @Test
+    public void shouldReloadOpenMergeRequestsPeriodically() {
+        mergeRequestService.getOpenMergeRequests(clientStub, 1, "master");
+        clientStub.addMergeRequests("1", asList(openMergeRequest(3, "master", "feature-3")));
+
+        ticker.advance(GitLabOpenMergeRequestService.RECONCILE_INTERVAL_MINUTES - 1, TimeUnit.MINUTES);
+        assertThat(iids(mergeRequestService.getOpenMergeRequests(clientStub, 1, "master")), is(asList(1, 3)));
+
+        ticker.advance(1, TimeUnit.MINUTES);
+        assertThat(iids(mergeRequestService.getOpenMergeRequests(clientStub, 1, "master")), is(asList(3)));
+        assertThat(clientStub.calls("1", MergeRequest.class), is(2));
+    }
+
+    @Test
+    public void shouldReloadOpenMergeRequestsOfInvalidatedProject() {
+        mergeRequestService.getOpenMergeRequests(clientStub, 1, "master");
+
+        mergeRequestService.invalidate(1);
+        mergeRequestService.getOpenMergeRequests(clientStub, 1, "master");
+
+        assertThat(clientStub.calls("1", MergeRequest.class), is(2));
+    }
+
+    private static MergeRequest openMergeRequest(int iid, String targetBranch, String sourceBranch) {
+        return mergeRequest()
+            .withId(100 + iid)
+            .withIid(iid)
+            .withProjectId(1)
+            .withSourceProjectId(1)
+            .withTargetProjectId(1)
+            .withTargetBranch(targetBranch)
+            .withSourceBranch(sourceBranch)
+            .withState(State.opened)
+            .build();
+    }
+
+    private static MergeRequestObjectAttributes hookAttributes(int iid, String targetBranch, State state) {
+        return mergeRequestObjectAttributes()
+            .withId(100 + iid)
+            .withIid(iid)
+            .withSourceProjectId(1)
+            .withTargetProjectId(1)
+            .withTargetBranch(targetBranch)
+            .withSourceBranch("feature-" + iid)
+            .withState(state)
+            .build();
+    }
+
+    private static List<Integer> iids(List<MergeRequest> mergeRequests) {
+        List<Integer> result = new ArrayList<>();
+        for (MergeRequest mergeRequest : mergeRequests) {
+            result.add(mergeRequest.getIid());
+        }
+        return result;
+    }
+
+    private static class ManualTicker extends Ticker {
+        private long time;
+
+        @Override
+        public long read() {
+            return time;
+        }
+
+        private void advance(long duration, TimeUnit unit) {
+            time += unit.toNanos(duration);
+        }
+    }
+}
@@ -53,6 +53,22 @@ public class GitLabProjectBranchesServiceTest {
         assertEquals(0, clientStub.calls("groupOne/B", Branch.class));
     }
 
+    @Test
+    public void shouldReloadBranchesOfInvalidatedProject() {
+        // given
+        branchesService.getBranches(clientStub, "git@git.example.com:groupOne/A.git");
+        branchesService.getBranches(clientStub, "git@git.example.com:groupOne/B.git");
+
+        // when
+        branchesService.invalidate("groupOne/A");
+        branchesService.getBranches(clientStub, "git@git.example.com:groupOne/A.git");
+        branchesService.getBranches(clientStub, "git@git.example.com:groupOne/B.git");
+
+        // then
+        assertEquals(2, clientStub.calls("groupOne/A", Branch.class));
+        assertEquals(1, clientStub.calls("groupOne/B", Branch.class));
+    }
+
     private List<Branch> convert(List<String> branchNames) {
         ArrayList<Branch> result = new ArrayList<>();
         for (String branchName : branchNames) {
@@ -0,0 +1,46 @@
+package com.dabsquared.gitlabjenkins.service;
+
+import com.dabsquared.gitlabjenkins.gitlab.api.model.Project;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.dabsquared.gitlabjenkins.gitlab.api.model.builder.generated.ProjectBuilder.project;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class GitLabProjectIdServiceTest {
+
+    private GitLabProjectIdService projectIdService;
+
+    private GitLabClientStub clientStub;
+
+    @Before
+    public void setUp() {
+        clientStub = new GitLabClientStub();
+        clientStub.addProject("group/project", project().withId(42).build());
+        projectIdService = new GitLabProjectIdService();
+    }
+
+    @Test
+    public void cachesProjectIds() {
+        assertThat(projectIdService.getProjectId(clientStub, "group/project"), is(42));
+        assertThat(projectIdService.getProjectId(clientStub, "group/project"), is(42));
+
+        assertThat(clientStub.calls("group/project", Project.class), is(1));
+    }
+
+    @Test
+    public void unknownProject() {
+        assertThat(projectIdService.getProjectId(clientStub, "group/unknown"), is(nullValue()));
+    }
+
+    @Test
+    public void invalidate() {
+        projectIdService.getProjectId(clientStub, "group/project");
+        projectIdService.invalidate("group/project");
+        projectIdService.getProjectId(clientStub, "group/project");
+
+        assertThat(clientStub.calls("group/project", Project.class), is(2));
+    }
+}
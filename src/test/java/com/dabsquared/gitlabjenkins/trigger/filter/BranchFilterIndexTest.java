@@ -0,0 +1,117 @@
+package com.dabsquared.gitlabjenkins.trigger.filter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static com.dabsquared.gitlabjenkins.trigger.filter.BranchFilterConfig.BranchFilterConfigBuilder.branchFilterConfig;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Checks that the index returns every job whose branch filter allows the branch, and few others.
+ */
+public class BranchFilterIndexTest {
+
+    private static final Set<String> JOBS = new HashSet<>(Arrays.asList("literal", "prefix", "regex", "all", "unindexed"));
+
+    private BranchFilterIndex index;
+
+    @Before
+    public void setUp() {
+        index = new BranchFilterIndex();
+        index.update("literal", nameBased("master, develop", ""));
+        index.update("prefix", nameBased("release/**, hotfix-*", "release/old/**"));
+        index.update("regex", branchFilterConfig().withTargetBranchRegex("feature/.*").build(BranchFilterType.RegexBasedFilter));
+        index.update("all", branchFilterConfig().build(BranchFilterType.All));
+    }
+
+    @Test
+    public void literalSpecs() {
+        assertThat(index.getCandidates(JOBS, "master"), is(jobs("literal", "all", "unindexed")));
+        assertThat(index.getCandidates(JOBS, "masters"), is(jobs("all", "unindexed")));
+    }
+
+    @Test
+    public void prefixSpecs() {
+        assertThat(index.getCandidates(JOBS, "release"), is(jobs("prefix", "all", "unindexed")));
+        assertThat(index.getCandidates(JOBS, "release/1.0/fix"), is(jobs("prefix", "all", "unindexed")));
+        assertThat(index.getCandidates(JOBS, "hotfix-1"), is(jobs("prefix", "all", "unindexed")));
+        assertThat(index.getCandidates(JOBS, "hot"), is(jobs("all", "unindexed")));
+    }
+
+    @Test
+    public void residualFilters() {
+        assertThat(index.getCandidates(JOBS, "feature/login"), is(jobs("regex", "all", "unindexed")));
+    }
+
+    @Test
+    public void abnormalBranchNames() {
+        assertThat(index.getCandidates(JOBS, null), is(JOBS));
+        assertThat(index.getCandidates(JOBS, "/master"), is(JOBS));
+    }
+
+    @Test
+    public void update() {
+        index.update("literal", nameBased("develop, release/**", ""));
+        index.update("prefix", null);
+
+        assertThat(index.getCandidates(JOBS, "master"), is(jobs("all", "prefix", "unindexed")));
+        assertThat(index.getCandidates(JOBS, "release/1.0"), is(jobs("literal", "all", "prefix", "unindexed")));
+        assertThat(index.getJobCount(), is(3));
+    }
+
+    @Test
+    public void remove() {
+        index.update("folder/job", nameBased("master", ""));
+        index.remove("folder");
+
+        assertThat(index.getCandidates(jobs("folder/job", "literal"), "develop"), is(jobs("folder/job", "literal")));
+        assertThat(index.getJobCount(), is(4));
+    }
+
+    @Test
+    public void returnsEveryJobThatTheFilterAllows() {
+        String[] specParts = {"a", "b", "ab", "-", "*", "?", "**", "/"};
+        String[] branchParts = {"a", "b", "ab", "-", "/"};
+        Random random = new Random(42);
+        for (int run = 0; run < 2000; run++) {
+            String includedSpecs = randomPath(random, specParts) + ", " + randomPath(random, specParts);
+            String excludedSpecs = random.nextBoolean() ? "" : randomPath(random, specParts);
+            BranchFilterConfig config = nameBased(includedSpecs, excludedSpecs);
+            BranchFilterIndex index = new BranchFilterIndex();
+            index.update("job", config);
+            BranchFilter filter = BranchFilterFactory.newBranchFilter(config);
+            for (int i = 0; i < 10; i++) {
+                String branchName = randomPath(random, branchParts);
+                if (filter.isBranchAllowed(branchName)) {
+                    assertThat(includedSpecs + " " + branchName, index.getCandidates(jobs("job"), branchName), is(jobs("job")));
+                }
+            }
+        }
+    }
+
+    private static BranchFilterConfig nameBased(String includedSpecs, String excludedSpecs) {
+        return branchFilterConfig().withIncludeBranchesSpec(includedSpecs).withExcludeBranchesSpec(excludedSpecs).build(BranchFilterType.NameBasedFilter);
+    }
+
+    private static Set<String> jobs(String... jobNames) {
+        Set<String> result = new HashSet<>();
+        Collections.addAll(result, jobNames);
+        return result;
+    }
+
+    private static String randomPath(Random random, String[] parts) {
+        StringBuilder result = new StringBuilder();
+        int length = 1 + random.nextInt(5);
+        for (int i = 0; i < length; i++) {
+            result.append(parts[random.nextInt(parts.length)]);
+        }
+        return result.toString();
+    }
+}
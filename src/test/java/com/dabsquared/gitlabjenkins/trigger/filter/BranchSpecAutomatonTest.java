@@ -0,0 +1,123 @@
+package com.dabsquared.gitlabjenkins.trigger.filter;
+
+import org.junit.Test;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Checks that the automaton decides like the {@link AntPathMatcher} for random specs and branch names.
+ */
+public class BranchSpecAutomatonTest {
+
+    private static final String[] SPEC_PARTS = {"a", "b", "ab", "release", "-", ".", "*", "?", "**", "/"};
+    private static final String[] BRANCH_PARTS = {"a", "b", "ab", "release", "-", ".", "/"};
+    private static final int RUNS = 20000;
+
+    private final AntPathMatcher matcher = new AntPathMatcher();
+
+    @Test
+    public void matchesLikeAntPathMatcher() {
+        Random random = new Random(4711);
+        for (int run = 0; run < RUNS; run++) {
+            String spec = randomPath(random, SPEC_PARTS);
+            String branchName = randomPath(random, BRANCH_PARTS);
+            if (!BranchSpecAutomaton.isCompilable(spec) || !BranchSpecAutomaton.isNormalPath(branchName)) {
+                continue;
+            }
+            BranchSpecAutomaton included = BranchSpecAutomaton.compile(Collections.singletonList(spec), Collections.<String>emptyList());
+            BranchSpecAutomaton excluded = BranchSpecAutomaton.compile(Collections.<String>emptyList(), Collections.singletonList(spec));
+
+            boolean expected = matcher.match(spec, branchName);
+            assertThat(spec + " " + branchName, included.match(branchName) == BranchSpecAutomaton.INCLUDED, is(expected));
+            assertThat(spec + " " + branchName, excluded.match(branchName) == BranchSpecAutomaton.EXCLUDED, is(expected));
+        }
+    }
+
+    @Test
+    public void filtersLikeAntPathMatcher() {
+        Random random = new Random(815);
+        for (int run = 0; run < RUNS / 4; run++) {
+            List<String> includedSpecs = randomPaths(random, random.nextInt(4));
+            List<String> excludedSpecs = randomPaths(random, random.nextInt(3));
+            NameBasedFilter filter = new NameBasedFilter(join(includedSpecs), join(excludedSpecs));
+            for (int i = 0; i < 10; i++) {
+                String branchName = randomPath(random, BRANCH_PARTS);
+                assertThat(includedSpecs + " " + excludedSpecs + " " + branchName,
+                           filter.isBranchAllowed(branchName), is(isAllowed(includedSpecs, excludedSpecs, branchName)));
+            }
+        }
+    }
+
+    @Test
+    public void matchesManySpecsInOnePass() {
+        List<String> includedSpecs = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            includedSpecs.add("team-" + i + "/feature/**");
+        }
+        includedSpecs.addAll(Arrays.asList("release/*", "hotfix/**"));
+        BranchSpecAutomaton automaton = BranchSpecAutomaton.compile(includedSpecs, Collections.singletonList("release/old-*"));
+
+        assertThat(automaton.match("team-42/feature/x/y"), is(BranchSpecAutomaton.INCLUDED));
+        assertThat(automaton.match("team-42/bugfix/x"), is(0));
+        assertThat(automaton.match("release/1.0"), is(BranchSpecAutomaton.INCLUDED));
+        assertThat(automaton.match("release/old-1.0"), is(BranchSpecAutomaton.INCLUDED | BranchSpecAutomaton.EXCLUDED));
+        assertThat(automaton.match("release/1.0/fix"), is(0));
+        assertThat(automaton.match("hotfix"), is(BranchSpecAutomaton.INCLUDED));
+    }
+
+    /**
+     * The filter as it was before the specs were compiled.
+     */
+    private boolean isAllowed(List<String> includedSpecs, List<String> excludedSpecs, String branchName) {
+        if (includedSpecs.isEmpty() && excludedSpecs.isEmpty()) {
+            return true;
+        }
+        for (String spec : excludedSpecs) {
+            if (matcher.match(spec, branchName)) {
+                return false;
+            }
+        }
+        for (String spec : includedSpecs) {
+            if (matcher.match(spec, branchName)) {
+                return true;
+            }
+        }
+        return includedSpecs.isEmpty();
+    }
+
+    private static List<String> randomPaths(Random random, int count) {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String path = randomPath(random, SPEC_PARTS).trim();
+            if (!path.isEmpty()) {
+                result.add(path);
+            }
+        }
+        return result;
+    }
+
+    private static String randomPath(Random random, String[] parts) {
+        StringBuilder result = new StringBuilder();
+        int length = 1 + random.nextInt(6);
+        for (int i = 0; i < length; i++) {
+            result.append(parts[random.nextInt(parts.length)]);
+        }
+        return result.toString();
+    }
+
+    private static String join(List<String> specs) {
+        StringBuilder result = new StringBuilder();
+        for (String spec : specs) {
+            result.append(spec).append(',');
+        }
+        return result.toString();
+    }
+}
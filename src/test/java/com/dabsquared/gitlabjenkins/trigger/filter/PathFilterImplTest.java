@@ -0,0 +1,60 @@
+package com.dabsquared.gitlabjenkins.trigger.filter;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class PathFilterImplTest {
+
+    @Test
+    public void includePaths() {
+        PathFilter pathFilter = new PathFilterImpl("services/api/**, libs/*.gradle", "");
+
+        assertThat(pathFilter.isChangeAllowed(paths("services/api/src/Main.java", "README.md")), is(true));
+        assertThat(pathFilter.isChangeAllowed(paths("libs/common.gradle")), is(true));
+        assertThat(pathFilter.isChangeAllowed(paths("services/web/index.html", "libs/common/build.gradle")), is(false));
+        assertThat(pathFilter.isChangeAllowed(paths()), is(false));
+    }
+
+    @Test
+    public void excludePaths() {
+        PathFilter pathFilter = new PathFilterImpl("services/api/**", "**/*.md");
+
+        assertThat(pathFilter.isChangeAllowed(paths("services/api/README.md")), is(false));
+        assertThat(pathFilter.isChangeAllowed(paths("services/api/README.md", "services/api/pom.xml")), is(true));
+        assertThat(new PathFilterImpl("", "docs/**").isChangeAllowed(paths("docs/index.md")), is(false));
+        assertThat(new PathFilterImpl("", "docs/**").isChangeAllowed(paths("docs/index.md", "pom.xml")), is(true));
+    }
+
+    @Test
+    public void unknownPaths() {
+        PathFilter pathFilter = new PathFilterImpl("services/api/**", "");
+
+        assertThat(pathFilter.isChangeAllowed(Suppliers.<List<String>>ofInstance(null)), is(true));
+    }
+
+    @Test
+    public void noPathSpecs() {
+        Supplier<Collection<String>> failingSupplier = new Supplier<Collection<String>>() {
+            @Override
+            public Collection<String> get() {
+                throw new AssertionError("the paths must not be determined without path specs");
+            }
+        };
+
+        assertThat(PathFilterFactory.newPathFilter(null).isChangeAllowed(failingSupplier), is(true));
+        assertThat(PathFilterFactory.newPathFilter(new PathFilterConfig(" ", "")).isChangeAllowed(failingSupplier), is(true));
+    }
+
+    private static Supplier<List<String>> paths(String... paths) {
+        return Suppliers.ofInstance(paths.length == 0 ? Collections.<String>emptyList() : Arrays.asList(paths));
+    }
+}
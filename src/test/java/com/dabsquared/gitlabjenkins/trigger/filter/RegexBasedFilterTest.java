@@ -1,5 +1,6 @@
 package com.dabsquared.gitlabjenkins.trigger.filter;
 
+import org.junit.Test;
 import org.junit.experimental.theories.DataPoints;
 import org.junit.experimental.theories.FromDataPoints;
 import org.junit.experimental.theories.Theories;
@@ -34,4 +35,11 @@ public class RegexBasedFilterTest {
 
         assertThat(featureBranches.isBranchAllowed(branchName), is(false));
     }
+
+    @Test
+    public void invalidRegexAllowsNoBranch() {
+        RegexBasedFilter invalidRegex = new RegexBasedFilter("feature/(");
+
+        assertThat(invalidRegex.isBranchAllowed("feature/test"), is(false));
+    }
 }
@@ -0,0 +1,222 @@
+package com.dabsquared.gitlabjenkins.trigger.filter;
+
+import com.google.common.base.Splitter;
+import org.apache.commons.lang.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the branch and label filters, which are compiled when the trigger is created, with the versions that
+ * compiled their patterns on every web hook.
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.dabsquared.gitlabjenkins.trigger.filter.TriggerFilterBenchmark}
+ * and add {@code -prof gc} to the JMH options to see the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TriggerFilterBenchmark {
+
+    private static final String INCLUDED_BRANCHES = "master, release/**, hotfix/*, develop";
+    private static final String EXCLUDED_BRANCHES = "release/old/**, hotfix/wip-*";
+    private static final String BRANCH_REGEX = "(master|develop|release/.*|hotfix/[^/]+)";
+    private static final String NOTE_REGEX = "Jenkins please retry a build";
+    private static final String BRANCH = "release/2017/06";
+    private static final String NOTE = "Jenkins please retry a build";
+    private static final String MANY_INCLUDED_BRANCHES = manyIncludedBranches();
+    private static final String MANY_SPECS_BRANCH = "team-450/feature/login";
+    private static final List<String> LABELS = Arrays.asList("bug", "backend", "needs-review", "priority::high");
+
+    private BranchFilter legacyNameBasedFilter;
+    private BranchFilter nameBasedFilter;
+    private BranchFilter legacyManySpecsFilter;
+    private BranchFilter manySpecsFilter;
+    private BranchFilter legacyRegexBasedFilter;
+    private BranchFilter regexBasedFilter;
+    private MergeRequestLabelFilter legacyLabelFilter;
+    private MergeRequestLabelFilter labelFilter;
+    private Pattern notePattern;
+
+    @Setup
+    public void setUp() {
+        legacyNameBasedFilter = new LegacyNameBasedFilter(INCLUDED_BRANCHES, EXCLUDED_BRANCHES);
+        nameBasedFilter = new NameBasedFilter(INCLUDED_BRANCHES, EXCLUDED_BRANCHES);
+        legacyManySpecsFilter = new LegacyNameBasedFilter(MANY_INCLUDED_BRANCHES, EXCLUDED_BRANCHES);
+        manySpecsFilter = new NameBasedFilter(MANY_INCLUDED_BRANCHES, EXCLUDED_BRANCHES);
+        legacyRegexBasedFilter = new LegacyRegexBasedFilter(BRANCH_REGEX);
+        regexBasedFilter = new RegexBasedFilter(BRANCH_REGEX);
+        legacyLabelFilter = new LegacyMergeRequestLabelFilter("backend, frontend", "wip, blocked");
+        labelFilter = new MergeRequestLabelFilterImpl("backend, frontend", "wip, blocked");
+        notePattern = Pattern.compile(NOTE_REGEX);
+    }
+
+    @Benchmark
+    public boolean legacyNameBasedFilter() {
+        return legacyNameBasedFilter.isBranchAllowed(BRANCH);
+    }
+
+    @Benchmark
+    public boolean nameBasedFilter() {
+        return nameBasedFilter.isBranchAllowed(BRANCH);
+    }
+
+    @Benchmark
+    public boolean legacyManySpecsFilter() {
+        return legacyManySpecsFilter.isBranchAllowed(MANY_SPECS_BRANCH);
+    }
+
+    @Benchmark
+    public boolean manySpecsFilter() {
+        return manySpecsFilter.isBranchAllowed(MANY_SPECS_BRANCH);
+    }
+
+    @Benchmark
+    public boolean legacyRegexBasedFilter() {
+        return legacyRegexBasedFilter.isBranchAllowed(BRANCH);
+    }
+
+    @Benchmark
+    public boolean regexBasedFilter() {
+        return regexBasedFilter.isBranchAllowed(BRANCH);
+    }
+
+    @Benchmark
+    public boolean legacyLabelFilter() {
+        return legacyLabelFilter.isMergeRequestAllowed(LABELS);
+    }
+
+    @Benchmark
+    public boolean labelFilter() {
+        return labelFilter.isMergeRequestAllowed(LABELS);
+    }
+
+    @Benchmark
+    public boolean legacyNoteRegex() {
+        return Pattern.compile(NOTE_REGEX).matcher(NOTE).matches();
+    }
+
+    @Benchmark
+    public boolean noteRegex() {
+        return notePattern.matcher(NOTE).matches();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TriggerFilterBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static String manyIncludedBranches() {
+        StringBuilder result = new StringBuilder("release/*, hotfix/**");
+        for (int i = 0; i < 500; i++) {
+            result.append(", team-").append(i).append("/feature/**");
+        }
+        return result.toString();
+    }
+
+    private static List<String> split(String commaSeparatedString) {
+        List<String> result = new ArrayList<>();
+        for (String s : Splitter.on(',').omitEmptyStrings().trimResults().split(commaSeparatedString)) {
+            result.add(s);
+        }
+        return result;
+    }
+
+    /**
+     * {@link NameBasedFilter} before it shared its matcher and compiled its specs into a {@link BranchSpecAutomaton}.
+     */
+    private static class LegacyNameBasedFilter implements BranchFilter {
+        private final List<String> includedBranches;
+        private final List<String> excludedBranches;
+
+        private LegacyNameBasedFilter(String includedBranches, String excludedBranches) {
+            this.includedBranches = split(includedBranches);
+            this.excludedBranches = split(excludedBranches);
+        }
+
+        @Override
+        public boolean isBranchAllowed(String branchName) {
+            if (includedBranches.isEmpty() && excludedBranches.isEmpty()) {
+                return true;
+            }
+            AntPathMatcher excludeMatcher = new AntPathMatcher();
+            for (String excludePattern : excludedBranches) {
+                if (excludeMatcher.match(excludePattern, branchName)) {
+                    return false;
+                }
+            }
+            AntPathMatcher includeMatcher = new AntPathMatcher();
+            for (String includePattern : includedBranches) {
+                if (includeMatcher.match(includePattern, branchName)) {
+                    return true;
+                }
+            }
+            return includedBranches.isEmpty();
+        }
+    }
+
+    /**
+     * {@link RegexBasedFilter} before it compiled its regex once.
+     */
+    private static class LegacyRegexBasedFilter implements BranchFilter {
+        private final String regex;
+
+        private LegacyRegexBasedFilter(String regex) {
+            this.regex = regex;
+        }
+
+        @Override
+        public boolean isBranchAllowed(String branchName) {
+            return StringUtils.isEmpty(branchName) || StringUtils.isEmpty(regex) || branchName.matches(regex);
+        }
+    }
+
+    /**
+     * {@link MergeRequestLabelFilterImpl} before it walked the labels of the merge request once.
+     */
+    private static class LegacyMergeRequestLabelFilter implements MergeRequestLabelFilter {
+        private final Set<String> includeLabels;
+        private final Set<String> excludeLabels;
+
+        private LegacyMergeRequestLabelFilter(String includeLabels, String excludeLabels) {
+            this.includeLabels = new HashSet<>(split(includeLabels));
+            this.excludeLabels = new HashSet<>(split(excludeLabels));
+        }
+
+        @Override
+        public boolean isMergeRequestAllowed(Collection<String> labels) {
+            for (String excludeLabel : excludeLabels) {
+                if (labels != null && labels.contains(excludeLabel)) {
+                    return false;
+                }
+            }
+            for (String includeLabel : includeLabels) {
+                if (labels != null && labels.contains(includeLabel)) {
+                    return true;
+                }
+            }
+            return includeLabels.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.dabsquared.gitlabjenkins.trigger.handler;
+
+import com.dabsquared.gitlabjenkins.cause.CauseData;
+import hudson.model.Executor;
+import hudson.model.Job;
+import hudson.model.Run;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.dabsquared.gitlabjenkins.cause.CauseDataBuilder.causeData;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that the index finds the active builds of a job by merge request and branch.
+ */
+public class ActiveBuildIndexTest {
+
+    private ActiveBuildIndex index;
+    private Job<?, ?> job;
+
+    @Before
+    public void setUp() {
+        index = new ActiveBuildIndex();
+        job = mock(Job.class);
+        when(job.getFullName()).thenReturn("folder/job");
+    }
+
+    @Test
+    public void queuedBuilds() {
+        CauseData mergeRequest = cause(CauseData.ActionType.MERGE, 5, "feature");
+        CauseData note = cause(CauseData.ActionType.NOTE, 5, "feature");
+        CauseData push = cause(CauseData.ActionType.PUSH, null, "feature");
+        index.addQueuedBuild("folder/job", 1, mergeRequest);
+        index.addQueuedBuild("folder/job", 2, note);
+        index.addQueuedBuild("folder/job", 3, push);
+        index.addQueuedBuild("other", 4, mergeRequest);
+
+        String mergeRequestKey = ActiveBuildIndex.getMergeRequestKey(2, 5);
+        assertThat(index.getQueuedBuilds(job, mergeRequestKey).size(), is(2));
+        assertThat(index.getQueuedBuilds(job, ActiveBuildIndex.getKey(push)).keySet().iterator().next(), is(3L));
+        assertThat(index.getActiveBuildCount(), is(4));
+
+        index.removeQueuedBuild("folder/job", 1, mergeRequest);
+        index.removeQueuedBuild("folder/job", 2, note);
+        assertThat(index.getQueuedBuilds(job, mergeRequestKey).isEmpty(), is(true));
+        assertThat(index.getActiveBuildCount(), is(2));
+    }
+
+    @Test
+    public void runningBuilds() {
+        Run<?, ?> run = mock(Run.class);
+        doReturn(job).when(run).getParent();
+        Executor executor = mock(Executor.class);
+        CauseData mergeRequest = cause(CauseData.ActionType.MERGE, 5, "feature");
+        index.addRunningBuild(run, executor, mergeRequest);
+
+        assertThat(index.getRunningBuilds(job, ActiveBuildIndex.getMergeRequestKey(2, 5)).get(run), is(executor));
+
+        index.removeRunningBuild(run, mergeRequest);
+        assertThat(index.getRunningBuilds(job, ActiveBuildIndex.getMergeRequestKey(2, 5)).isEmpty(), is(true));
+        assertThat(index.getActiveBuildCount(), is(0));
+    }
+
+    @Test
+    public void tagPushesAreNotIndexed() {
+        index.addQueuedBuild("folder/job", 1, cause(CauseData.ActionType.TAG_PUSH, null, "v1.0"));
+
+        assertThat(index.getActiveBuildCount(), is(0));
+    }
+
+    private static CauseData cause(CauseData.ActionType actionType, Integer mergeRequestIid, String sourceBranch) {
+        return causeData()
+            .withActionType(actionType)
+            .withSourceProjectId(1)
+            .withTargetProjectId(2)
+            .withBranch(sourceBranch)
+            .withSourceBranch(sourceBranch)
+            .withUserName("test")
+            .withSourceRepoName("test")
+            .withSourceNamespace("test-namespace")
+            .withSourceRepoSshUrl("git@gitlab.org:test.git")
+            .withSourceRepoHttpUrl("https://gitlab.org/test.git")
+            .withMergeRequestTitle("")
+            .withMergeRequestIid(mergeRequestIid)
+            .withTargetBranch("master")
+            .withTargetRepoName("test")
+            .withTargetNamespace("test-namespace")
+            .withTargetRepoSshUrl("git@gitlab.org:test.git")
+            .withTargetRepoHttpUrl("https://gitlab.org/test.git")
+            .withTriggeredByUser("test")
+            .withLastCommit("1111111111111111111111111111111111111111")
+            .build();
+    }
+}
@@ -1,8 +1,14 @@
 package com.dabsquared.gitlabjenkins.trigger.handler.merge;
 
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.Action;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.Change;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.Label;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestHookChanges;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.State;
 import com.dabsquared.gitlabjenkins.trigger.filter.BranchFilterFactory;
 import com.dabsquared.gitlabjenkins.trigger.filter.BranchFilterType;
+import com.dabsquared.gitlabjenkins.trigger.filter.MergeRequestLabelFilterConfig;
 import hudson.Launcher;
 import hudson.model.AbstractBuild;
 import hudson.model.BuildListener;
@@ -23,10 +29,14 @@ import org.jvnet.hudson.test.TestBuilder;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 
 import static com.dabsquared.gitlabjenkins.gitlab.hook.model.builder.generated.CommitBuilder.commit;
+import static com.dabsquared.gitlabjenkins.gitlab.hook.model.builder.generated.LabelBuilder.label;
 import static com.dabsquared.gitlabjenkins.gitlab.hook.model.builder.generated.MergeRequestHookBuilder.mergeRequestHook;
+import static com.dabsquared.gitlabjenkins.gitlab.hook.model.builder.generated.MergeRequestHookChangesBuilder.mergeRequestHookChanges;
 import static com.dabsquared.gitlabjenkins.gitlab.hook.model.builder.generated.MergeRequestObjectAttributesBuilder.mergeRequestObjectAttributes;
 import static com.dabsquared.gitlabjenkins.gitlab.hook.model.builder.generated.ProjectBuilder.project;
 import static com.dabsquared.gitlabjenkins.gitlab.hook.model.builder.generated.UserBuilder.user;
@@ -108,6 +118,67 @@ public class MergeRequestHookTriggerHandlerImplTest {
         assertThat(buildTriggered.isSignaled(), is(false));
     }
 
+    @Test
+    public void mergeRequest_update_without_relevant_change() {
+        MergeRequestHookTriggerHandlerImpl mergeRequestHookTriggerHandler = new MergeRequestHookTriggerHandlerImpl(Arrays.asList(State.opened, State.updated), false);
+
+        assertThat(mergeRequestHookTriggerHandler.isNoOpUpdate(updateHook(null, mergeRequestHookChanges().withTitle(stringChange("old", "new")).build()),
+                                                                newMergeRequestLabelFilter(null)), is(true));
+        assertThat(mergeRequestHookTriggerHandler.isNoOpUpdate(updateHook(null, mergeRequestHookChanges().withLabels(labelChange("bug", "backend")).build()),
+                                                                newMergeRequestLabelFilter(null)), is(true));
+        assertThat(mergeRequestHookTriggerHandler.isNoOpUpdate(updateHook(null, mergeRequestHookChanges().withLabels(labelChange("backend", "frontend")).build()),
+                                                                newMergeRequestLabelFilter(new MergeRequestLabelFilterConfig("backend", ""))), is(true));
+        assertThat(mergeRequestHookTriggerHandler.isNoOpUpdate(updateHook(null, mergeRequestHookChanges().withDescription(stringChange("old", "new")).build()),
+                                                                newMergeRequestLabelFilter(null)), is(true));
+        assertThat(mergeRequestHookTriggerHandler.isNoOpUpdate(updateHook(null, mergeRequestHookChanges().withDescription(stringChange("old", "[ci-skip] new")).build()),
+                                                                newMergeRequestLabelFilter(null)), is(true));
+    }
+
+    @Test
+    public void mergeRequest_update_with_relevant_change() {
+        MergeRequestHookTriggerHandlerImpl mergeRequestHookTriggerHandler = new MergeRequestHookTriggerHandlerImpl(Arrays.asList(State.opened, State.updated), true);
+
+        assertThat(mergeRequestHookTriggerHandler.isNoOpUpdate(updateHook("e4b1c2d3", mergeRequestHookChanges().build()), newMergeRequestLabelFilter(null)), is(false));
+        assertThat(mergeRequestHookTriggerHandler.isNoOpUpdate(updateHook(null, mergeRequestHookChanges().withTargetBranch(stringChange("master", "develop")).build()),
+                                                                newMergeRequestLabelFilter(null)), is(false));
+        assertThat(mergeRequestHookTriggerHandler.isNoOpUpdate(updateHook(null, mergeRequestHookChanges().withTitle(stringChange("WIP: test", "test")).build()),
+                                                                newMergeRequestLabelFilter(null)), is(false));
+        assertThat(mergeRequestHookTriggerHandler.isNoOpUpdate(updateHook(null, mergeRequestHookChanges().withLabels(labelChange("bug", "backend")).build()),
+                                                                newMergeRequestLabelFilter(new MergeRequestLabelFilterConfig("backend", ""))), is(false));
+        assertThat(mergeRequestHookTriggerHandler.isNoOpUpdate(updateHook(null, null), newMergeRequestLabelFilter(null)), is(false));
+    }
+
+    @Test
+    public void mergeRequest_update_removing_ci_skip() {
+        MergeRequestHookTriggerHandlerImpl mergeRequestHookTriggerHandler = new MergeRequestHookTriggerHandlerImpl(Arrays.asList(State.opened, State.updated), false);
+
+        assertThat(mergeRequestHookTriggerHandler.isNoOpUpdate(updateHook(null, mergeRequestHookChanges().withDescription(stringChange("[ci-skip] test", "test")).build()),
+                                                                newMergeRequestLabelFilter(null)), is(false));
+        assertThat(mergeRequestHookTriggerHandler.isNoOpUpdate(updateHook(null, mergeRequestHookChanges().withDescription(stringChange("[ci-skip] test", null)).build()),
+                                                                newMergeRequestLabelFilter(null)), is(false));
+    }
+
+    private static MergeRequestHook updateHook(String oldrev, MergeRequestHookChanges changes) {
+        return mergeRequestHook()
+            .withObjectAttributes(mergeRequestObjectAttributes().withAction(Action.update).withState(State.opened).withOldrev(oldrev).build())
+            .withChanges(changes)
+            .build();
+    }
+
+    private static Change<String> stringChange(String previous, String current) {
+        Change<String> change = new Change<>();
+        change.setPrevious(previous);
+        change.setCurrent(current);
+        return change;
+    }
+
+    private static Change<List<Label>> labelChange(String previous, String current) {
+        Change<List<Label>> change = new Change<>();
+        change.setPrevious(Collections.singletonList(label().withTitle(previous).build()));
+        change.setCurrent(Collections.singletonList(label().withTitle(current).build()));
+        return change;
+    }
+
     private OneShotEvent doHandle(MergeRequestHookTriggerHandler mergeRequestHookTriggerHandler, State state) throws GitAPIException, IOException, InterruptedException {
         Git.init().setDirectory(tmp.getRoot()).call();
         tmp.newFile("test");
@@ -0,0 +1,237 @@
+package com.dabsquared.gitlabjenkins.trigger.handler.push;
+
+import com.dabsquared.gitlabjenkins.gitlab.api.GitLabClient;
+import com.dabsquared.gitlabjenkins.gitlab.api.model.Branch;
+import com.dabsquared.gitlabjenkins.gitlab.api.model.MergeRequest;
+import com.dabsquared.gitlabjenkins.gitlab.api.model.Project;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.PushHook;
+import com.dabsquared.gitlabjenkins.trigger.history.Decision;
+import com.dabsquared.gitlabjenkins.trigger.history.Outcome;
+import com.dabsquared.gitlabjenkins.trigger.history.WebHookHistoryEntry;
+import com.dabsquared.gitlabjenkins.trigger.history.WebHookTrace;
+import hudson.model.FreeStyleProject;
+import org.junit.After;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.dabsquared.gitlabjenkins.gitlab.api.model.builder.generated.BranchBuilder.branch;
+import static com.dabsquared.gitlabjenkins.gitlab.api.model.builder.generated.CommitBuilder.commit;
+import static com.dabsquared.gitlabjenkins.gitlab.api.model.builder.generated.MergeRequestBuilder.mergeRequest;
+import static com.dabsquared.gitlabjenkins.gitlab.api.model.builder.generated.NamespaceBuilder.namespace;
+import static com.dabsquared.gitlabjenkins.gitlab.api.model.builder.generated.ProjectBuilder.project;
+import static com.dabsquared.gitlabjenkins.gitlab.hook.model.builder.generated.PushHookBuilder.pushHook;
+import static com.dabsquared.gitlabjenkins.gitlab.hook.model.builder.generated.RepositoryBuilder.repository;
+import static com.dabsquared.gitlabjenkins.gitlab.hook.model.builder.generated.UserBuilder.user;
+import static com.dabsquared.gitlabjenkins.trigger.filter.PathFilterFactory.newPathFilter;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class OpenMergeRequestPushHookTriggerHandlerTest {
+
+    @ClassRule
+    public static JenkinsRule jenkins = new JenkinsRule();
+
+    @After
+    public void clearQueue() {
+        jenkins.jenkins.getQueue().clear();
+        WebHookTrace.end();
+    }
+
+    @Test
+    public void handlesMergeRequestsWithBoundedConcurrency() throws Exception {
+        final FreeStyleProject project = createProject();
+        final GitLabClient client = mock(GitLabClient.class);
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(OpenMergeRequestPushHookTriggerHandler.MAX_CONCURRENT_MERGE_REQUESTS);
+        final CountDownLatch release = new CountDownLatch(1);
+        when(client.getBranch(anyString(), anyString())).thenAnswer(new Answer<Branch>() {
+            @Override
+            public Branch answer(InvocationOnMock invocation) throws Throwable {
+                int current = active.incrementAndGet();
+                synchronized (maxActive) {
+                    maxActive.set(Math.max(maxActive.get(), current));
+                }
+                started.countDown();
+                release.await();
+                active.decrementAndGet();
+                return sourceBranch((String) invocation.getArguments()[1]);
+            }
+        });
+        when(client.getProject(anyString())).thenReturn(sourceProject());
+        final List<MergeRequest> mergeRequests = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            mergeRequests.add(openMergeRequest(i, 10));
+        }
+        final OpenMergeRequestPushHookTriggerHandler handler = new OpenMergeRequestPushHookTriggerHandler(false, newPathFilter(null), false);
+
+        Thread webHookThread = new Thread() {
+            @Override
+            public void run() {
+                handler.handleMergeRequests(project, createPushHook(), client, mergeRequests);
+            }
+        };
+        webHookThread.start();
+        assertThat(started.await(10, TimeUnit.SECONDS), is(true));
+        Thread.sleep(200);
+        assertThat(active.get(), is(OpenMergeRequestPushHookTriggerHandler.MAX_CONCURRENT_MERGE_REQUESTS));
+        release.countDown();
+        webHookThread.join(10000);
+
+        assertThat(webHookThread.isAlive(), is(false));
+        assertThat(maxActive.get(), is(OpenMergeRequestPushHookTriggerHandler.MAX_CONCURRENT_MERGE_REQUESTS));
+        verify(client, times(20)).getBranch(anyString(), anyString());
+        assertThat(jenkins.jenkins.getQueue().getItems(project).size(), is(20));
+    }
+
+    @Test
+    public void loadsEachSourceProjectOnce() throws Exception {
+        FreeStyleProject project = createProject();
+        GitLabClient client = mock(GitLabClient.class);
+        when(client.getBranch(anyString(), anyString())).thenAnswer(new Answer<Branch>() {
+            @Override
+            public Branch answer(InvocationOnMock invocation) throws Throwable {
+                return sourceBranch((String) invocation.getArguments()[1]);
+            }
+        });
+        when(client.getProject(anyString())).thenAnswer(new Answer<Project>() {
+            @Override
+            public Project answer(InvocationOnMock invocation) throws Throwable {
+                Thread.sleep(100);
+                return sourceProject();
+            }
+        });
+        List<MergeRequest> mergeRequests = new ArrayList<>();
+        mergeRequests.add(openMergeRequest(1, 10));
+        mergeRequests.add(openMergeRequest(2, 10));
+        mergeRequests.add(openMergeRequest(3, 11));
+        mergeRequests.add(openMergeRequest(4, 10));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            new OpenMergeRequestPushHookTriggerHandler(false, newPathFilter(null), false, executor, 10000)
+                .handleMergeRequests(project, createPushHook(), client, mergeRequests);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(client, times(1)).getProject("10");
+        verify(client, times(1)).getProject("11");
+        assertThat(jenkins.jenkins.getQueue().getItems(project).size(), is(4));
+    }
+
+    @Test
+    public void continuesInBackgroundAfterDeadline() throws Exception {
+        FreeStyleProject project = createProject();
+        GitLabClient client = mock(GitLabClient.class);
+        final CountDownLatch release = new CountDownLatch(1);
+        when(client.getBranch(anyString(), anyString())).thenAnswer(new Answer<Branch>() {
+            @Override
+            public Branch answer(InvocationOnMock invocation) throws Throwable {
+                release.await();
+                return sourceBranch((String) invocation.getArguments()[1]);
+            }
+        });
+        when(client.getProject(anyString())).thenReturn(sourceProject());
+        List<MergeRequest> mergeRequests = new ArrayList<>();
+        mergeRequests.add(openMergeRequest(1, 10));
+        mergeRequests.add(openMergeRequest(2, 10));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            WebHookHistoryEntry entry = WebHookTrace.begin("Push Hook");
+            long start = System.nanoTime();
+            new OpenMergeRequestPushHookTriggerHandler(false, newPathFilter(null), false, executor, 100)
+                .handleMergeRequests(project, createPushHook(), client, mergeRequests);
+
+            assertThat(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 10, is(true));
+            assertThat(jenkins.jenkins.getQueue().getItems(project).isEmpty(), is(true));
+            List<Decision> decisions = entry.getDecisions();
+            assertThat(decisions.get(decisions.size() - 1).getOutcome(), is(Outcome.DEFERRED));
+            assertThat(decisions.get(decisions.size() - 1).getDetail(), is("2 merge requests"));
+
+            release.countDown();
+            for (int i = 0; i < 100 && jenkins.jenkins.getQueue().getItems(project).size() < 2; i++) {
+                Thread.sleep(100);
+            }
+            assertThat(jenkins.jenkins.getQueue().getItems(project).size(), is(2));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private FreeStyleProject createProject() throws IOException {
+        FreeStyleProject project = jenkins.createFreeStyleProject();
+        project.setQuietPeriod(3600);
+        return project;
+    }
+
+    private static MergeRequest openMergeRequest(int iid, int sourceProjectId) {
+        return mergeRequest()
+            .withId(iid)
+            .withIid(iid)
+            .withTitle("Merge request " + iid)
+            .withSourceBranch("feature-" + iid)
+            .withTargetBranch("master")
+            .withSourceProjectId(sourceProjectId)
+            .withTargetProjectId(1)
+            .build();
+    }
+
+    private static Branch sourceBranch(String name) {
+        return branch()
+            .withName(name)
+            .withCommit(commit()
+                .withId(Integer.toHexString(name.hashCode()))
+                .withAuthorName("test")
+                .withAuthorEmail("test@gitlab.org")
+                .build())
+            .build();
+    }
+
+    private static Project sourceProject() {
+        return project()
+            .withName("fork")
+            .withNamespace(namespace().withPath("fork-namespace").build())
+            .withWebUrl("https://gitlab.org/fork-namespace/fork")
+            .withSshUrlToRepo("git@gitlab.org:fork-namespace/fork.git")
+            .withHttpUrlToRepo("https://gitlab.org/fork-namespace/fork.git")
+            .build();
+    }
+
+    private static PushHook createPushHook() {
+        return pushHook()
+            .withProjectId(1)
+            .withRef("refs/heads/master")
+            .withRepository(repository()
+                .withName("test")
+                .withUrl("git@gitlab.org:test.git")
+                .withGitSshUrl("git@gitlab.org:test.git")
+                .withGitHttpUrl("https://gitlab.org/test.git")
+                .build())
+            .withProject(com.dabsquared.gitlabjenkins.gitlab.hook.model.builder.generated.ProjectBuilder.project()
+                .withNamespace("test-namespace")
+                .withWebUrl("https://gitlab.org/test")
+                .build())
+            .withCommits(Collections.singletonList(com.dabsquared.gitlabjenkins.gitlab.hook.model.builder.generated.CommitBuilder.commit()
+                .withAuthor(user().withName("test").build())
+                .build()))
+            .build();
+    }
+}
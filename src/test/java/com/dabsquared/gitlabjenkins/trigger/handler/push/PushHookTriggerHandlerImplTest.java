@@ -1,11 +1,16 @@
 package com.dabsquared.gitlabjenkins.trigger.handler.push;
 
+import com.dabsquared.gitlabjenkins.cause.GitLabWebHookCause;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.builder.generated.PushHookBuilder;
 import com.dabsquared.gitlabjenkins.trigger.filter.BranchFilterType;
 import hudson.Launcher;
 import hudson.model.AbstractBuild;
 import hudson.model.BuildListener;
+import hudson.model.CauseAction;
+import hudson.model.FreeStyleBuild;
 import hudson.model.FreeStyleProject;
+import hudson.model.Queue;
+import hudson.model.Result;
 import hudson.plugins.git.GitSCM;
 import hudson.util.OneShotEvent;
 import org.eclipse.jgit.api.Git;
@@ -22,7 +27,11 @@ import org.jvnet.hudson.test.JenkinsRule;
 import org.jvnet.hudson.test.TestBuilder;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -33,6 +42,7 @@ import static com.dabsquared.gitlabjenkins.gitlab.hook.model.builder.generated.R
 import static com.dabsquared.gitlabjenkins.trigger.filter.BranchFilterConfig.BranchFilterConfigBuilder.branchFilterConfig;
 import static com.dabsquared.gitlabjenkins.trigger.filter.BranchFilterFactory.newBranchFilter;
 import static com.dabsquared.gitlabjenkins.trigger.filter.MergeRequestLabelFilterFactory.newMergeRequestLabelFilter;
+import static com.dabsquared.gitlabjenkins.trigger.filter.PathFilterFactory.newPathFilter;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 
@@ -175,4 +185,187 @@ public class PushHookTriggerHandlerImplTest {
         assertThat(buildTriggered.isSignaled(), is(true));
         assertThat(buildCount.intValue(), is(2));
     }
+
+    @Test
+    public void push_coalescesQueuedBuildOfSameBranch() throws IOException {
+        FreeStyleProject project = jenkins.createFreeStyleProject();
+        project.setScm(new GitSCM("git@gitlab.org:test.git"));
+        PushHookTriggerHandler coalescingHandler = new PushHookTriggerHandlerImpl(60);
+        PushHookBuilder pushHookBuilder = pushHook()
+            .withBefore("0000000000000000000000000000000000000000")
+            .withProjectId(1)
+            .withUserName("test")
+            .withObjectKind("push")
+            .withRepository(repository()
+                                .withName("test")
+                                .withHomepage("https://gitlab.org/test")
+                                .withUrl("git@gitlab.org:test.git")
+                                .withGitSshUrl("git@gitlab.org:test.git")
+                                .withGitHttpUrl("https://gitlab.org/test.git")
+                                .build())
+            .withProject(project()
+                             .withNamespace("test-namespace")
+                             .withWebUrl("https://gitlab.org/test")
+                             .build())
+            .withRef("refs/heads/master");
+
+        coalescingHandler.handle(project, pushHookBuilder.but().withAfter("1111111111111111111111111111111111111111").build(), true,
+                                 newBranchFilter(branchFilterConfig().build(BranchFilterType.All)), newMergeRequestLabelFilter(null));
+        coalescingHandler.handle(project, pushHookBuilder.but().withAfter("2222222222222222222222222222222222222222").build(), true,
+                                 newBranchFilter(branchFilterConfig().build(BranchFilterType.All)), newMergeRequestLabelFilter(null));
+
+        List<Queue.Item> items = new ArrayList<>();
+        for (Queue.Item item : jenkins.jenkins.getQueue().getItems()) {
+            if (item.task == project) {
+                items.add(item);
+            }
+        }
+        try {
+            assertThat(items.size(), is(1));
+            CauseAction causeAction = items.get(0).getAction(CauseAction.class);
+            assertThat(causeAction.getCauses().size(), is(1));
+            assertThat(causeAction.findCause(GitLabWebHookCause.class).getData().getAfter(), is("2222222222222222222222222222222222222222"));
+            assertThat(items.get(0).getAction(CoalescingRevisionParameterAction.class).getSha(), is("2222222222222222222222222222222222222222"));
+        } finally {
+            jenkins.jenkins.getQueue().cancel(project);
+        }
+    }
+
+    @Test
+    public void push_cancelsQueuedBuildOfSameBranch() throws IOException {
+        FreeStyleProject project = jenkins.createFreeStyleProject();
+        project.setScm(new GitSCM("git@gitlab.org:test.git"));
+        project.setQuietPeriod(60);
+        PushHookTriggerHandler cancellingHandler = new PushHookTriggerHandlerImpl(0, newPathFilter(null), true);
+        PushHookBuilder pushHookBuilder = pushHook()
+            .withBefore("0000000000000000000000000000000000000000")
+            .withProjectId(1)
+            .withUserName("test")
+            .withObjectKind("push")
+            .withRepository(repository()
+                                .withName("test")
+                                .withHomepage("https://gitlab.org/test")
+                                .withUrl("git@gitlab.org:test.git")
+                                .withGitSshUrl("git@gitlab.org:test.git")
+                                .withGitHttpUrl("https://gitlab.org/test.git")
+                                .build())
+            .withProject(project()
+                             .withNamespace("test-namespace")
+                             .withWebUrl("https://gitlab.org/test")
+                             .build());
+
+        cancellingHandler.handle(project, pushHookBuilder.but().withRef("refs/heads/master").withAfter("1111111111111111111111111111111111111111").build(),
+                                 true, newBranchFilter(branchFilterConfig().build(BranchFilterType.All)), newMergeRequestLabelFilter(null));
+        cancellingHandler.handle(project, pushHookBuilder.but().withRef("refs/heads/develop").withAfter("3333333333333333333333333333333333333333").build(),
+                                 true, newBranchFilter(branchFilterConfig().build(BranchFilterType.All)), newMergeRequestLabelFilter(null));
+        cancellingHandler.handle(project, pushHookBuilder.but().withRef("refs/heads/master").withAfter("2222222222222222222222222222222222222222").build(),
+                                 true, newBranchFilter(branchFilterConfig().build(BranchFilterType.All)), newMergeRequestLabelFilter(null));
+
+        Set<String> queuedCommits = new HashSet<>();
+        for (Queue.Item item : jenkins.jenkins.getQueue().getItems()) {
+            if (item.task == project) {
+                queuedCommits.add(item.getAction(CauseAction.class).findCause(GitLabWebHookCause.class).getData().getAfter());
+            }
+        }
+        try {
+            assertThat(queuedCommits, is((Set<String>) new HashSet<>(Arrays.asList("2222222222222222222222222222222222222222",
+                                                                                   "3333333333333333333333333333333333333333"))));
+        } finally {
+            jenkins.jenkins.getQueue().cancel(project);
+        }
+    }
+
+    @Test
+    public void push_keepsRunningBuildOfSameCommit() throws IOException, InterruptedException {
+        final OneShotEvent buildStarted = new OneShotEvent();
+        final OneShotEvent releaseBuild = new OneShotEvent();
+        FreeStyleProject project = jenkins.createFreeStyleProject();
+        project.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
+                buildStarted.signal();
+                releaseBuild.block();
+                return true;
+            }
+        });
+        project.setQuietPeriod(0);
+        PushHookTriggerHandler cancellingHandler = new PushHookTriggerHandlerImpl(0, newPathFilter(null), true);
+        PushHookBuilder pushHookBuilder = pushHook()
+            .withBefore("0000000000000000000000000000000000000000")
+            .withProjectId(1)
+            .withUserName("test")
+            .withObjectKind("push")
+            .withRepository(repository()
+                                .withName("test")
+                                .withHomepage("https://gitlab.org/test")
+                                .withUrl("git@gitlab.org:test.git")
+                                .withGitSshUrl("git@gitlab.org:test.git")
+                                .withGitHttpUrl("https://gitlab.org/test.git")
+                                .build())
+            .withProject(project()
+                             .withNamespace("test-namespace")
+                             .withWebUrl("https://gitlab.org/test")
+                             .build())
+            .withRef("refs/heads/master")
+            .withAfter("1111111111111111111111111111111111111111");
+
+        cancellingHandler.handle(project, pushHookBuilder.build(), true,
+                                 newBranchFilter(branchFilterConfig().build(BranchFilterType.All)), newMergeRequestLabelFilter(null));
+        buildStarted.block(10000);
+        assertThat(buildStarted.isSignaled(), is(true));
+        FreeStyleBuild build = project.getLastBuild();
+        try {
+            cancellingHandler.handle(project, pushHookBuilder.build(), true,
+                                     newBranchFilter(branchFilterConfig().build(BranchFilterType.All)), newMergeRequestLabelFilter(null));
+        } finally {
+            jenkins.jenkins.getQueue().cancel(project);
+            releaseBuild.signal();
+        }
+        for (int i = 0; i < 100 && build.isBuilding(); i++) {
+            Thread.sleep(100);
+        }
+
+        assertThat(build.getResult(), is(Result.SUCCESS));
+    }
+
+    @Test
+    public void push_reusesVerifiedBuildOfSameCommit() throws IOException, InterruptedException, GitAPIException, ExecutionException {
+        Git.init().setDirectory(tmp.getRoot()).call();
+        tmp.newFile("test");
+        Git git = Git.open(tmp.getRoot());
+        git.add().addFilepattern("test");
+        RevCommit commit = git.commit().setMessage("test").call();
+        String repositoryUrl = tmp.getRoot().toURI().toString();
+
+        FreeStyleProject project = jenkins.createFreeStyleProject();
+        project.setScm(new GitSCM(repositoryUrl));
+        project.setQuietPeriod(0);
+        FreeStyleBuild build = jenkins.assertBuildStatusSuccess(project.scheduleBuild2(0));
+
+        PushHookTriggerHandler reusingHandler = new PushHookTriggerHandlerImpl(0, newPathFilter(null), false, true);
+        reusingHandler.handle(project, pushHook()
+                .withBefore("0000000000000000000000000000000000000000")
+                .withProjectId(1)
+                .withUserName("test")
+                .withObjectKind("tag_push")
+                .withRepository(repository()
+                        .withName("test")
+                        .withHomepage("https://gitlab.org/test")
+                        .withUrl("git@gitlab.org:test.git")
+                        .withGitSshUrl("git@gitlab.org:test.git")
+                        .withGitHttpUrl("https://gitlab.org/test.git")
+                        .build())
+                .withProject(project()
+                        .withNamespace("test-namespace")
+                        .withWebUrl("https://gitlab.org/test")
+                        .build())
+                .withAfter(commit.name())
+                .withRef("refs/tags/v1.0")
+                .build(), true, newBranchFilter(branchFilterConfig().build(BranchFilterType.All)),
+                                      newMergeRequestLabelFilter(null));
+
+        jenkins.waitUntilNoActivity();
+        assertThat(project.getLastBuild().getNumber(), is(build.getNumber()));
+        assertThat(build.getAction(ReusedBuildAction.class).getRefs(), is(Arrays.asList("v1.0")));
+    }
 }
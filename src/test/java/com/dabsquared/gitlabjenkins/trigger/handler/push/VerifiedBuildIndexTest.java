@@ -0,0 +1,143 @@
+package com.dabsquared.gitlabjenkins.trigger.handler.push;
+
+import hudson.model.Job;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.plugins.git.Revision;
+import hudson.plugins.git.util.Build;
+import hudson.plugins.git.util.BuildData;
+import hudson.plugins.git.util.MergeRecord;
+import hudson.util.RunList;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that only successful builds that still contain the commit are reused.
+ */
+public class VerifiedBuildIndexTest {
+
+    private static final String SHA1 = "1111111111111111111111111111111111111111";
+    private static final String OTHER_SHA1 = "2222222222222222222222222222222222222222";
+
+    private VerifiedBuildIndex index;
+    private Job<?, ?> job;
+
+    @Before
+    public void setUp() {
+        index = new VerifiedBuildIndex();
+        job = mock(Job.class);
+        when(job.getFullName()).thenReturn("folder/job");
+    }
+
+    @Test
+    public void successfulBuild() {
+        Run<?, ?> build = build(1, Result.SUCCESS, SHA1);
+        builds(build);
+
+        assertThat((Object) index.getSuccessfulBuild(job, SHA1), is((Object) build));
+        assertThat(index.getSuccessfulBuild(job, OTHER_SHA1), is(nullValue()));
+    }
+
+    @Test
+    public void failedBuild() {
+        Run<?, ?> successfulBuild = build(1, Result.SUCCESS, SHA1);
+        Run<?, ?> failedBuild = build(2, Result.FAILURE, OTHER_SHA1);
+        builds(failedBuild, successfulBuild);
+
+        assertThat(index.getSuccessfulBuild(job, OTHER_SHA1), is(nullValue()));
+    }
+
+    @Test
+    public void mergeBuild() {
+        Run<?, ?> build = build(1, Result.SUCCESS, SHA1);
+        MergeRecord merge = mock(MergeRecord.class);
+        when(merge.getSha1()).thenReturn(OTHER_SHA1);
+        when(build.getAction(MergeRecord.class)).thenReturn(merge);
+        builds(build);
+
+        assertThat(index.getSuccessfulBuild(job, SHA1), is(nullValue()));
+    }
+
+    @Test
+    public void deletedBuild() {
+        Run<?, ?> build = build(1, Result.SUCCESS, SHA1);
+        builds(build);
+        assertThat((Object) index.getSuccessfulBuild(job, SHA1), is((Object) build));
+
+        index.remove(build);
+
+        assertThat(index.getSuccessfulBuild(job, SHA1), is(nullValue()));
+    }
+
+    @Test
+    public void buildNumberOfOtherCommit() {
+        Run<?, ?> build = build(1, Result.SUCCESS, SHA1);
+        builds(build);
+        assertThat((Object) index.getSuccessfulBuild(job, SHA1), is((Object) build));
+
+        // the build was deleted without notifying the index and its number has been reused
+        build(1, Result.SUCCESS, OTHER_SHA1);
+
+        assertThat(index.getSuccessfulBuild(job, SHA1), is(nullValue()));
+    }
+
+    @Test
+    public void deletedJob() {
+        Run<?, ?> build = build(1, Result.SUCCESS, SHA1);
+        builds(build);
+        assertThat((Object) index.getSuccessfulBuild(job, SHA1), is((Object) build));
+
+        index.remove("folder");
+        builds();
+
+        assertThat(index.getSuccessfulBuild(job, SHA1), is(nullValue()));
+    }
+
+    @Test
+    public void completedBuild() {
+        builds();
+        assertThat(index.getSuccessfulBuild(job, SHA1), is(nullValue()));
+
+        Run<?, ?> build = build(1, Result.SUCCESS, SHA1);
+        index.add(build);
+
+        assertThat((Object) index.getSuccessfulBuild(job, SHA1), is((Object) build));
+    }
+
+    private void builds(Run<?, ?>... builds) {
+        RunList<?> list = mock(RunList.class);
+        doReturn(Arrays.asList(builds).iterator()).when(list).iterator();
+        doReturn(list).when(job).getBuilds();
+    }
+
+    private Run<?, ?> build(int number, Result result, String sha1) {
+        Run<?, ?> build = mock(Run.class);
+        when(build.getNumber()).thenReturn(number);
+        when(build.getResult()).thenReturn(result);
+        doReturn(job).when(build).getParent();
+        doReturn(Collections.singletonList(buildData(sha1))).when(build).getActions(BuildData.class);
+        doReturn(build).when(job).getBuildByNumber(number);
+        return build;
+    }
+
+    private static BuildData buildData(String sha1) {
+        BuildData buildData = mock(BuildData.class);
+        Revision revision = mock(Revision.class);
+        when(revision.getSha1String()).thenReturn(sha1);
+        Build gitBuild = mock(Build.class);
+        when(gitBuild.getMarked()).thenReturn(revision);
+        when(gitBuild.getRevision()).thenReturn(revision);
+        buildData.lastBuild = gitBuild;
+        return buildData;
+    }
+}
@@ -0,0 +1,45 @@
+package com.dabsquared.gitlabjenkins.trigger.history;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class WebHookHistoryTest {
+
+    @Test
+    public void keepsMostRecentEntriesNewestFirst() {
+        WebHookHistory history = new WebHookHistory();
+        for (int i = 0; i < WebHookHistory.CAPACITY + 5; i++) {
+            WebHookHistoryEntry entry = new WebHookHistoryEntry("Push Hook");
+            entry.describe("refs/heads/" + i, null);
+            history.add(entry);
+        }
+
+        List<WebHookHistoryEntry> entries = history.getEntries();
+        assertThat(entries.size(), is(WebHookHistory.CAPACITY));
+        assertThat(entries.get(0).getRef(), is("refs/heads/" + (WebHookHistory.CAPACITY + 4)));
+        assertThat(entries.get(WebHookHistory.CAPACITY - 1).getRef(), is("refs/heads/5"));
+        assertThat(history.getEntry(1), is(nullValue()));
+        assertThat(history.getEntry(WebHookHistory.CAPACITY + 5).getRef(), is("refs/heads/" + (WebHookHistory.CAPACITY + 4)));
+    }
+
+    @Test
+    public void dropsPayloadsWhenCaptureIsDisabled() {
+        WebHookHistory history = new WebHookHistory();
+        history.setCapturePayloads(true);
+        WebHookHistoryEntry entry = new WebHookHistoryEntry("Push Hook");
+        entry.setPayload("{}".getBytes());
+        entry.addDecision(new Decision("push", Outcome.TRIGGERED, "master"));
+        history.add(entry);
+        assertThat(entry.hasPayload(), is(true));
+        assertThat(entry.isTriggered(), is(true));
+
+        history.setCapturePayloads(false);
+
+        assertThat(entry.hasPayload(), is(false));
+    }
+}
@@ -0,0 +1,100 @@
+package com.dabsquared.gitlabjenkins.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link GitLabDateDeserializer} with the {@link SimpleDateFormat} based date module it replaced.
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.dabsquared.gitlabjenkins.util.DateDecodingBenchmark}
+ * and add {@code -prof gc} to the JMH options to see the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DateDecodingBenchmark {
+
+    @Param({"2015-03-18 20:01:55 UTC", "2016-05-30T09:31:08.233Z", "2015-04-08T21:00:25-07:00", "2016-05-30T11:31:08.233+0200"})
+    public String date;
+
+    private String json;
+    private ObjectMapper legacy;
+    private ObjectMapper current;
+
+    @Setup
+    public void setUp() {
+        json = "{\"created_at\":\"" + date + "\",\"updated_at\":\"" + date + "\",\"finished_at\":\"" + date + "\"}";
+        legacy = createObjectMapper(new LegacyDateDeserializer());
+        current = createObjectMapper(new GitLabDateDeserializer());
+    }
+
+    @Benchmark
+    public Timestamps legacyDateModule() throws IOException {
+        return legacy.readValue(json, Timestamps.class);
+    }
+
+    @Benchmark
+    public Timestamps gitLabDateDeserializer() throws IOException {
+        return current.readValue(json, Timestamps.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(DateDecodingBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static ObjectMapper createObjectMapper(JsonDeserializer<Date> deserializer) {
+        return new ObjectMapper()
+                .setPropertyNamingStrategy(PropertyNamingStrategy.CAMEL_CASE_TO_LOWER_CASE_WITH_UNDERSCORES)
+                .registerModule(new SimpleModule().addDeserializer(Date.class, deserializer));
+    }
+
+    public static class Timestamps {
+        public Date createdAt;
+        public Date updatedAt;
+        public Date finishedAt;
+    }
+
+    /**
+     * The date module of {@link JsonUtil} before {@link GitLabDateDeserializer} was introduced.
+     */
+    private static class LegacyDateDeserializer extends JsonDeserializer<Date> {
+        @Override
+        public Date deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            for (String format : GitLabDateDeserializer.DATE_FORMATS) {
+                try {
+                    return new SimpleDateFormat(format, Locale.US).parse(p.getValueAsString());
+                } catch (ParseException e) {
+                    // nothing to do
+                }
+            }
+            throw new IOException("Unparseable date: \"" + p.getValueAsString() + "\"");
+        }
+    }
+}
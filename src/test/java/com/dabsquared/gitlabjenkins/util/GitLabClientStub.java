@@ -4,6 +4,7 @@ import com.dabsquared.gitlabjenkins.gitlab.api.GitLabClient;
 import com.dabsquared.gitlabjenkins.gitlab.api.model.*;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.State;
 
+import java.util.Date;
 import java.util.List;
 
 class GitLabClientStub implements GitLabClient {
@@ -75,6 +76,22 @@ class GitLabClientStub implements GitLabClient {
 
     @Override
     public List<MergeRequest> getMergeRequests(String projectId, State state, int page, int perPage) {
+        return getMergeRequests(projectId, state, null, null, null, null, null, page, perPage);
+    }
+
+    @Override
+    public List<MergeRequest> getMergeRequests(String projectId, State state, String targetBranch, String sourceBranch, List<String> labels,
+                                               Date updatedAfter, MergeRequestOrder orderBy, int page, int perPage) {
+        return null;
+    }
+
+    @Override
+    public Comparison compare(String projectId, String from, String to) {
+        return null;
+    }
+
+    @Override
+    public MergeRequestChanges getMergeRequestChanges(MergeRequest mr) {
         return null;
     }
 
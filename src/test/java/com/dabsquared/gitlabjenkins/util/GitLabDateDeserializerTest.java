@@ -0,0 +1,66 @@
+package com.dabsquared.gitlabjenkins.util;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Date;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class GitLabDateDeserializerTest {
+
+    @Test
+    public void webHookFormat() {
+        assertThat(parse("2015-03-18 20:01:55 UTC"), is(1426708915000L));
+        assertThat(parse("2015-03-18 21:31:55 +0130"), is(1426708915000L));
+        assertThat(parse("2015-03-18 18:31:55 -0130"), is(1426708915000L));
+    }
+
+    @Test
+    public void isoFormats() {
+        assertThat(parse("2016-05-30T09:31:08.233Z"), is(1464600668233L));
+        assertThat(parse("2016-05-30T11:31:08.233+02:00"), is(1464600668233L));
+        assertThat(parse("2016-05-30T11:31:08.233+0200"), is(1464600668233L));
+        assertThat(parse("2016-05-30T09:31:08Z"), is(1464600668000L));
+        assertThat(parse("2016-05-30T11:31:08+02"), is(1464600668000L));
+        assertThat(parse("2016-05-30T09:31:08.2Z"), is(1464600668200L));
+        assertThat(parse("2016-05-30T09:31:08.233456Z"), is(1464600668233L));
+    }
+
+    @Test
+    public void commitTimestampWithSpace() {
+        assertThat(parse("2015-04-08T21: 00:25-07:00"), is(1428552025000L));
+    }
+
+    @Test
+    public void leapDayAndEpoch() {
+        assertThat(parse("2000-02-29T00:00:00Z"), is(951782400000L));
+        assertThat(parse("1970-01-01T00:00:00Z"), is(0L));
+        assertThat(parse("1969-12-31T23:59:59.999Z"), is(-1L));
+    }
+
+    @Test
+    public void unknownShapes() {
+        assertThat(parse("2015-03-18"), is(GitLabDateDeserializer.INVALID));
+        assertThat(parse("2015-13-18 20:01:55 UTC"), is(GitLabDateDeserializer.INVALID));
+        assertThat(parse("2015-03-18 20:01:55"), is(GitLabDateDeserializer.INVALID));
+        assertThat(parse("2015-03-18 20:01:55 PST"), is(GitLabDateDeserializer.INVALID));
+    }
+
+    @Test
+    public void fallsBackToDateFormats() throws IOException {
+        Date date = GitLabDateDeserializer.parseWithDateFormats("2015-03-18 12:01:55 PST");
+        assertThat(date.getTime(), is(1426708915000L));
+    }
+
+    @Test(expected = IOException.class)
+    public void unparseable() throws IOException {
+        GitLabDateDeserializer.parseWithDateFormats("yesterday");
+    }
+
+    private static long parse(String value) {
+        char[] buffer = ("  " + value + "  ").toCharArray();
+        return GitLabDateDeserializer.parse(buffer, 2, value.length());
+    }
+}
@@ -0,0 +1,61 @@
+package com.dabsquared.gitlabjenkins.util;
+
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.Commit;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.PushHook;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class LazyCommitListTest {
+
+    private static final String PUSH_HOOK = "{\"ref\":\"refs/heads/master\",\"commits\":["
+            + "{\"id\":\"a\",\"message\":\"first\",\"added\":[\"a.txt\"],\"timestamp\":\"2015-04-08T21:00:25-07:00\"},"
+            + "{\"id\":\"b\",\"message\":\"second\",\"author\":{\"name\":\"John\",\"email\":\"john@example.com\"}},"
+            + "{\"id\":\"c\",\"message\":\"third [ci-skip]\",\"author\":{\"name\":\"Jane\",\"email\":\"jane@example.com\"}}"
+            + "],\"total_commits_count\":3}";
+
+    @Test
+    public void bindsCommitsOnAccess() {
+        PushHook pushHook = JsonUtil.read(PUSH_HOOK, PushHook.class);
+
+        assertThat(pushHook.getCommits(), instanceOf(LazyCommitList.class));
+        assertThat(pushHook.getCommits().size(), is(3));
+        Commit last = pushHook.getCommits().get(2);
+        assertThat(last.getMessage(), is("third [ci-skip]"));
+        assertThat(last.getAuthor().getName(), is("Jane"));
+        assertThat(pushHook.getCommits().get(0).getAdded(), is(Collections.singletonList("a.txt")));
+        assertThat(pushHook.getCommits().get(0).getTimestamp().getTime(), is(1428552025000L));
+        assertThat(pushHook.getTotalCommitsCount(), is(3));
+    }
+
+    @Test
+    public void equalsBoundCommits() {
+        PushHook pushHook = JsonUtil.read(PUSH_HOOK, PushHook.class);
+
+        assertThat(pushHook.getCommits().equals(new ArrayList<>(JsonUtil.read(PUSH_HOOK, PushHook.class).getCommits())), is(true));
+    }
+
+    @Test
+    public void writesBufferedCommits() throws IOException {
+        PushHook pushHook = JsonUtil.read(PUSH_HOOK, PushHook.class);
+
+        PushHook copy = JsonUtil.read(new String(JsonUtil.toBytes(pushHook), UTF_8), PushHook.class);
+
+        assertThat(copy.getCommits(), is(pushHook.getCommits()));
+        assertThat(copy.getRef(), is("refs/heads/master"));
+    }
+
+    @Test
+    public void missingAndEmptyCommits() {
+        assertThat(JsonUtil.read("{\"commits\":[]}", PushHook.class).getCommits().isEmpty(), is(true));
+        assertThat(JsonUtil.read("{\"commits\":null}", PushHook.class).getCommits(), nullValue());
+    }
+}
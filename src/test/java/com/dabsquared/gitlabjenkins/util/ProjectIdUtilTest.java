@@ -2,6 +2,7 @@ package com.dabsquared.gitlabjenkins.util;
 
 
 import com.dabsquared.gitlabjenkins.gitlab.api.GitLabClient;
+import org.junit.Test;
 import org.junit.experimental.theories.DataPoints;
 import org.junit.experimental.theories.Theories;
 import org.junit.experimental.theories.Theory;
@@ -39,6 +40,14 @@ public class ProjectIdUtilTest {
         assertThat(projectId, is(testData.expectedProjectId));
     }
 
+    @Test
+    public void matchesRemoteOfProject() {
+        assertThat(ProjectIdUtil.isRemoteOfProject("git@gitlab.com:group/Project.git", "group/project"), is(true));
+        assertThat(ProjectIdUtil.isRemoteOfProject("https://myurl.com/gitlab/group/subgroup/project.git", "group/subgroup/project"), is(true));
+        assertThat(ProjectIdUtil.isRemoteOfProject("https://myurl.com/group/project", "group/project"), is(true));
+        assertThat(ProjectIdUtil.isRemoteOfProject("https://myurl.com/group/other-project.git", "group/project"), is(false));
+        assertThat(ProjectIdUtil.isRemoteOfProject("https://myurl.com/othergroup/project.git", "group/project"), is(false));
+    }
 
     static final class TestData {
 
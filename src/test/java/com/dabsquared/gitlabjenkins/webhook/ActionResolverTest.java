@@ -13,16 +13,24 @@ import org.junit.ClassRule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.jvnet.hudson.test.JenkinsRule;
+import org.kohsuke.stapler.HttpResponses;
 import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import javax.servlet.ServletException;
 import javax.servlet.ServletInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -37,6 +45,9 @@ public class ActionResolverTest {
     @Mock
     private StaplerRequest request;
 
+    @Mock
+    private StaplerResponse response;
+
     @Test
     public void getBranchBuildPageRedirect() throws IOException {
         String projectName = "getBranchBuildPageRedirect";
@@ -196,6 +207,56 @@ public class ActionResolverTest {
         assertThat(resolvedAction, instanceOf(NoopAction.class));
     }
 
+    @Test
+    public void postPushContentLengthTooLarge() throws IOException, ServletException {
+        String projectName = "postPushContentLengthTooLarge";
+        jenkins.createFreeStyleProject(projectName);
+        when(request.getRestOfPath()).thenReturn("");
+        when(request.getMethod()).thenReturn("POST");
+        when(request.getHeader("X-Gitlab-Event")).thenReturn("Push Hook");
+        when(request.getContentLength()).thenReturn(Integer.MAX_VALUE);
+        when(request.getInputStream()).thenReturn(new ResourceServletInputStream("ActionResolverTest_postPush.json"));
+
+        assertStatus(projectName, 413);
+    }
+
+    @Test
+    public void postPushUnknownCharset() throws IOException {
+        String projectName = "postPushUnknownCharset";
+        jenkins.createFreeStyleProject(projectName);
+        when(request.getRestOfPath()).thenReturn("");
+        when(request.getMethod()).thenReturn("POST");
+        when(request.getHeader("X-Gitlab-Event")).thenReturn("Push Hook");
+        when(request.getCharacterEncoding()).thenReturn("no-such-charset");
+        when(request.getInputStream()).thenReturn(new ResourceServletInputStream("ActionResolverTest_postPush.json"));
+
+        WebHookAction resolvedAction = new ActionResolver().resolve(projectName, request);
+
+        assertThat(resolvedAction, instanceOf(PushBuildAction.class));
+    }
+
+    @Test
+    public void postPushInvalidJson() throws IOException, ServletException {
+        String projectName = "postPushInvalidJson";
+        jenkins.createFreeStyleProject(projectName);
+        when(request.getRestOfPath()).thenReturn("");
+        when(request.getMethod()).thenReturn("POST");
+        when(request.getHeader("X-Gitlab-Event")).thenReturn("Push Hook");
+        when(request.getInputStream()).thenReturn(new ResourceServletInputStream(new ByteArrayInputStream("{\"ref\":".getBytes("UTF-8"))));
+
+        assertStatus(projectName, 400);
+    }
+
+    private void assertStatus(String projectName, int status) throws IOException, ServletException {
+        when(response.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
+        try {
+            new ActionResolver().resolve(projectName, request);
+            fail("Expected HTTP " + status);
+        } catch (HttpResponses.HttpResponseException e) {
+            e.generateResponse(request, response, null);
+            verify(response).setStatus(status);
+        }
+    }
 
     private static class ResourceServletInputStream extends ServletInputStream {
 
@@ -205,6 +266,10 @@ public class ActionResolverTest {
             this.input = getClass().getResourceAsStream(classResourceName);
         }
 
+        private ResourceServletInputStream(InputStream input) {
+            this.input = input;
+        }
+
         @Override
         public int read() throws IOException {
             return input.read();
@@ -0,0 +1,34 @@
+package com.dabsquared.gitlabjenkins.webhook;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class PayloadSizeLimitedInputStreamTest {
+
+    @Test
+    public void readWithinLimit() throws IOException {
+        PayloadSizeLimitedInputStream input = new PayloadSizeLimitedInputStream(new ByteArrayInputStream(new byte[10]), 10);
+
+        assertThat(IOUtils.toByteArray(input).length, is(10));
+        assertThat(input.isLimitExceeded(), is(false));
+    }
+
+    @Test
+    public void readExceedingLimit() throws IOException {
+        PayloadSizeLimitedInputStream input = new PayloadSizeLimitedInputStream(new ByteArrayInputStream(new byte[11]), 10);
+
+        try {
+            IOUtils.toByteArray(input);
+            fail("Expected PayloadTooLargeException");
+        } catch (PayloadSizeLimitedInputStream.PayloadTooLargeException e) {
+            assertThat(input.isLimitExceeded(), is(true));
+        }
+    }
+}
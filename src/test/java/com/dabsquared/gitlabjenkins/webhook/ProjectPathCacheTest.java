@@ -0,0 +1,49 @@
+package com.dabsquared.gitlabjenkins.webhook;
+
+import hudson.model.Item;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ProjectPathCacheTest {
+
+    @Test
+    public void invalidatesItemAndChildren() {
+        ProjectPathCache cache = new ProjectPathCache();
+        cache.put("folder/job", item("folder/job"), 1, cache.getGeneration());
+        cache.put("folder/job-2", item("folder/job-2"), 1, cache.getGeneration());
+        cache.put("folder-2/job", item("folder-2/job"), 1, cache.getGeneration());
+
+        cache.invalidate("folder/job");
+        assertThat(cache.get("folder/job"), is(nullValue()));
+        assertThat(cache.get("folder/job-2"), is(notNullValue()));
+
+        cache.invalidate("folder");
+        assertThat(cache.get("folder/job-2"), is(nullValue()));
+        assertThat(cache.get("folder-2/job"), is(notNullValue()));
+    }
+
+    @Test
+    public void doesNotCacheItemsResolvedDuringInvalidation() {
+        ProjectPathCache cache = new ProjectPathCache();
+        long generation = cache.getGeneration();
+        cache.invalidate("job");
+
+        ProjectPathCache.Resolution resolution = cache.put("job", item("job"), 0, generation);
+
+        assertThat(resolution.getItem().getFullName(), is("job"));
+        assertThat(cache.get("job"), is(nullValue()));
+        assertThat(cache.size(), is(0));
+    }
+
+    private static Item item(String fullName) {
+        Item item = mock(Item.class);
+        when(item.getFullName()).thenReturn(fullName);
+        return item;
+    }
+}
@@ -1,8 +1,13 @@
 package com.dabsquared.gitlabjenkins.webhook.build;
 
 import com.dabsquared.gitlabjenkins.GitLabPushTrigger;
+import com.dabsquared.gitlabjenkins.connection.GitLabConnection;
+import com.dabsquared.gitlabjenkins.connection.GitLabConnectionConfig;
+import com.dabsquared.gitlabjenkins.connection.GitLabConnectionProperty;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.PushHook;
 import com.dabsquared.gitlabjenkins.trigger.TriggerOpenMergeRequest;
+import com.dabsquared.gitlabjenkins.util.JsonUtil;
+import com.dabsquared.gitlabjenkins.webhook.ratelimit.WebHookRateLimiter;
 import hudson.model.FreeStyleProject;
 import org.apache.commons.io.IOUtils;
 import org.junit.ClassRule;
@@ -83,6 +88,39 @@ public class PushBuildActionTest {
         verify(trigger, never()).onPost(any(PushHook.class));
     }
 
+    @Test
+    public void retriedDeliveryOfRateLimitedWebHookIsHandled() throws IOException {
+        GitLabConnectionConfig config = jenkins.get(GitLabConnectionConfig.class);
+        GitLabConnection connection = new GitLabConnection("retriedDelivery", "http://localhost/gitlab", null, false, 10, 10);
+        connection.setWebHookDeduplicationTtl(3600);
+        config.addConnection(connection);
+        FreeStyleProject testProject = jenkins.createFreeStyleProject();
+        testProject.addProperty(new GitLabConnectionProperty("retriedDelivery"));
+        when(trigger.getTriggerOpenMergeRequestOnPush()).thenReturn(TriggerOpenMergeRequest.never);
+        testProject.addTrigger(trigger);
+        PushHook pushHook = JsonUtil.read(getJson("PushEvent.json"), PushHook.class);
+        try {
+            WebHookRateLimiter.instance().configure(0, 1, WebHookRateLimiter.Policy.REJECT);
+            executeIgnoringResponse(new PushBuildAction(testProject, pushHook, null, "first-delivery"));
+            executeIgnoringResponse(new PushBuildAction(testProject, pushHook, null, "rejected-delivery"));
+            verify(trigger, times(1)).onPost(any(PushHook.class));
+
+            WebHookRateLimiter.instance().configure(0, 0, WebHookRateLimiter.Policy.REJECT);
+            executeIgnoringResponse(new PushBuildAction(testProject, pushHook, null, "rejected-delivery"));
+            verify(trigger, times(2)).onPost(any(PushHook.class));
+        } finally {
+            WebHookRateLimiter.instance().configure(0, 0, WebHookRateLimiter.Policy.QUEUE);
+        }
+    }
+
+    private void executeIgnoringResponse(PushBuildAction action) {
+        try {
+            action.execute(response);
+        } catch (HttpResponses.HttpResponseException e) {
+            // the status is answered to GitLab
+        }
+    }
+
     private String getJson(String name) throws IOException {
         return IOUtils.toString(getClass().getResourceAsStream(name));
     }
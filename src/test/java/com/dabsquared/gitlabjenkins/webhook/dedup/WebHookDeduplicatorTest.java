@@ -0,0 +1,84 @@
+package com.dabsquared.gitlabjenkins.webhook.dedup;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class WebHookDeduplicatorTest {
+
+    @Test
+    public void suppressesDeliveriesWithinTtl() {
+        WebHookDeduplicator deduplicator = new WebHookDeduplicator(100);
+
+        assertThat(deduplicator.isDuplicate("job#uuid", 1, TimeUnit.HOURS), is(false));
+        assertThat(deduplicator.isDuplicate("job#uuid", 1, TimeUnit.HOURS), is(true));
+        assertThat(deduplicator.isDuplicate("other-job#uuid", 1, TimeUnit.HOURS), is(false));
+
+        assertThat(deduplicator.getCheckedCount(), is(3L));
+        assertThat(deduplicator.getSuppressedCount(), is(1L));
+    }
+
+    @Test
+    public void acceptsDeliveriesAfterTtl() {
+        WebHookDeduplicator deduplicator = new WebHookDeduplicator(100);
+
+        assertThat(deduplicator.isDuplicate("job#uuid", 0, TimeUnit.SECONDS), is(false));
+        assertThat(deduplicator.isDuplicate("job#uuid", 0, TimeUnit.SECONDS), is(false));
+        assertThat(deduplicator.getSuppressedCount(), is(0L));
+    }
+
+    @Test
+    public void acceptsForgottenDeliveries() {
+        WebHookDeduplicator deduplicator = new WebHookDeduplicator(100);
+
+        assertThat(deduplicator.isDuplicate("job#uuid", 1, TimeUnit.HOURS), is(false));
+        deduplicator.forget("job#uuid");
+
+        assertThat(deduplicator.isDuplicate("job#uuid", 1, TimeUnit.HOURS), is(false));
+        assertThat(deduplicator.isDuplicate("job#uuid", 1, TimeUnit.HOURS), is(true));
+    }
+
+    @Test
+    public void evictsOldestEntries() {
+        WebHookDeduplicator deduplicator = new WebHookDeduplicator(2);
+
+        deduplicator.isDuplicate("job#1", 1, TimeUnit.HOURS);
+        deduplicator.isDuplicate("job#2", 1, TimeUnit.HOURS);
+        deduplicator.isDuplicate("job#1", 1, TimeUnit.HOURS);
+        deduplicator.isDuplicate("job#3", 1, TimeUnit.HOURS);
+
+        assertThat(deduplicator.isDuplicate("job#2", 1, TimeUnit.HOURS), is(true));
+        assertThat(deduplicator.isDuplicate("job#3", 1, TimeUnit.HOURS), is(true));
+        assertThat(deduplicator.isDuplicate("job#1", 1, TimeUnit.HOURS), is(false));
+    }
+
+    @Test
+    public void boundsForgottenRegistrations() {
+        WebHookDeduplicator deduplicator = new WebHookDeduplicator(10);
+
+        for (int i = 0; i < 100; i++) {
+            deduplicator.isDuplicate("job#" + i, 1, TimeUnit.HOURS);
+            deduplicator.forget("job#" + i);
+        }
+        deduplicator.isDuplicate("job#last", 1, TimeUnit.HOURS);
+
+        assertThat(deduplicator.getSize(), is(1));
+        assertThat(deduplicator.getEvictedCount(), is(0L));
+        assertThat(deduplicator.isDuplicate("job#last", 1, TimeUnit.HOURS), is(true));
+    }
+
+    @Test
+    public void boundsNumberOfEntries() {
+        WebHookDeduplicator deduplicator = new WebHookDeduplicator(10);
+
+        for (int i = 0; i < 100; i++) {
+            deduplicator.isDuplicate("job#" + i, 1, TimeUnit.HOURS);
+        }
+
+        assertThat(deduplicator.getSize(), is(10));
+        assertThat(deduplicator.getEvictedCount(), is(90L));
+    }
+}
@@ -0,0 +1,83 @@
+package com.dabsquared.gitlabjenkins.webhook.journal;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class WebHookJournalTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void recoversEntriesThatHaveNotBeenCompleted() {
+        File directory = tmp.getRoot();
+        WebHookJournal journal = new WebHookJournal(directory, 4096);
+        journal.setEnabled(true);
+        long first = journal.append("folder/job", "PushHook", "{\"ref\":\"refs/heads/master\"}".getBytes(UTF_8));
+        journal.append("other-job", "NoteHook", "{}".getBytes(UTF_8));
+        journal.complete(first);
+
+        List<JournalEntry> entries = new WebHookJournal(directory, 4096).recover();
+
+        assertThat(entries.size(), is(1));
+        assertThat(entries.get(0).getJobName(), is("other-job"));
+        assertThat(entries.get(0).getHookType(), is("NoteHook"));
+        assertThat(new String(entries.get(0).getPayload(), UTF_8), is("{}"));
+    }
+
+    @Test
+    public void deletesSegmentsOnceAllEntriesAreCompleted() {
+        File directory = tmp.getRoot();
+        WebHookJournal journal = new WebHookJournal(directory, 4096);
+        journal.setEnabled(true);
+        long first = journal.append("job", "PushHook", new byte[3000]);
+        long second = journal.append("job", "PushHook", new byte[3000]);
+        assertThat(journal.getSegmentCount(), is(2));
+
+        journal.complete(first);
+        journal.complete(second);
+
+        assertThat(journal.getSegmentCount(), is(1));
+        assertThat(journal.getPendingCount(), is(0));
+        WebHookJournal recovered = new WebHookJournal(directory, 4096);
+        assertThat(recovered.recover().isEmpty(), is(true));
+        assertThat(directory.list().length, is(0));
+    }
+
+    @Test
+    public void compactsSegmentsWithEntriesThatAreNotCompleted() {
+        File directory = tmp.getRoot();
+        WebHookJournal journal = new WebHookJournal(directory, 4096);
+        journal.setEnabled(true);
+        long stuck = journal.append("job", "PushHook", "{}".getBytes(UTF_8));
+        journal.complete(journal.append("job", "PushHook", new byte[3000]));
+        journal.complete(journal.append("job", "PushHook", new byte[3000]));
+        journal.append("job", "PushHook", new byte[3000]);
+
+        assertThat(journal.getSegmentCount(), is(1));
+        assertThat(journal.getPendingCount(), is(2));
+        List<JournalEntry> entries = new WebHookJournal(directory, 4096).recover();
+        assertThat(entries.size(), is(2));
+        assertThat(new String(entries.get(0).getPayload(), UTF_8), is("{}"));
+
+        journal.complete(stuck);
+
+        assertThat(journal.getPendingCount(), is(1));
+    }
+
+    @Test
+    public void ignoresWebHooksWhenDisabled() {
+        WebHookJournal journal = new WebHookJournal(tmp.getRoot(), 4096);
+
+        assertThat(journal.append("job", "PushHook", new byte[10]), is(WebHookJournal.NO_ENTRY));
+        assertThat(tmp.getRoot().list().length, is(0));
+    }
+}
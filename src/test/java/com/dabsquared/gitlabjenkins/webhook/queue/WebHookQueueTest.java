@@ -0,0 +1,189 @@
+package com.dabsquared.gitlabjenkins.webhook.queue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class WebHookQueueTest {
+
+    @Test
+    public void rejectsWebHooksWhenFull() throws InterruptedException {
+        WebHookQueue queue = new WebHookQueue();
+        queue.configure(1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch processed = new CountDownLatch(2);
+
+        assertThat(queue.offer(new BlockingTask(started, release, processed)), is(true));
+        assertThat(started.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(queue.offer(new BlockingTask(new CountDownLatch(1), release, processed)), is(true));
+        assertThat(queue.offer(new BlockingTask(new CountDownLatch(1), release, processed)), is(false));
+
+        assertThat(queue.getQueueDepth(), is(1));
+        assertThat(queue.getAcceptedCount(), is(2L));
+        assertThat(queue.getRejectedCount(), is(1L));
+
+        release.countDown();
+        assertThat(processed.await(10, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test
+    public void countsFailedWebHooks() throws InterruptedException {
+        WebHookQueue queue = new WebHookQueue();
+        final CountDownLatch done = new CountDownLatch(1);
+
+        queue.offer(new Runnable() {
+            @Override
+            public void run() {
+                done.countDown();
+                throw new IllegalStateException("failure");
+            }
+        });
+
+        assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+        for (int i = 0; i < 100 && queue.getFailedCount() == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(queue.getFailedCount(), is(1L));
+        assertThat(queue.getProcessedCount(), is(0L));
+    }
+
+    @Test
+    public void runsWebHooksOfTheSameKeyInOrder() throws InterruptedException {
+        WebHookQueue queue = new WebHookQueue();
+        queue.configure(10, 4);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch processed = new CountDownLatch(3);
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+        queue.offer(WebHookQueue.Lane.PUSH, "1:refs/heads/master", new BlockingTask(started, release, processed));
+        assertThat(started.await(10, TimeUnit.SECONDS), is(true));
+        queue.offer(WebHookQueue.Lane.PUSH, "1:refs/heads/master", new RecordingTask(order, "delete master", processed));
+        queue.offer(WebHookQueue.Lane.PUSH, "2:refs/heads/master", new RecordingTask(order, "other project", processed));
+
+        for (int i = 0; i < 100 && order.isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        assertThat(order, is(Collections.singletonList("other project")));
+        StripeStatistics stripe = queue.getStripes().get(1);
+        assertThat(stripe.getKey(), is("PUSH 1:refs/heads/master"));
+        assertThat(stripe.getBacklog(), is(1));
+
+        release.countDown();
+        assertThat(processed.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(order, is(Arrays.asList("other project", "delete master")));
+    }
+
+    @Test
+    public void handlesPushEventsBeforeBurstOfPipelineEvents() throws InterruptedException {
+        WebHookQueue queue = new WebHookQueue();
+        queue.configure(100, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch processed = new CountDownLatch(13);
+        List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+        queue.offer(WebHookQueue.Lane.PIPELINE, null, new BlockingTask(started, release, processed));
+        assertThat(started.await(10, TimeUnit.SECONDS), is(true));
+        for (int i = 0; i < 10; i++) {
+            queue.offer(WebHookQueue.Lane.PIPELINE, null, new RecordingTask(order, "pipeline", processed));
+        }
+        queue.offer(WebHookQueue.Lane.PUSH, null, new RecordingTask(order, "push", processed));
+        queue.offer(WebHookQueue.Lane.PUSH, null, new RecordingTask(order, "push", processed));
+        assertThat(queue.getLanes().get(WebHookQueue.Lane.PIPELINE.ordinal()).getQueueDepth(), is(10));
+
+        release.countDown();
+        assertThat(processed.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(order.subList(0, 2), is(Arrays.asList("push", "push")));
+        assertThat(queue.getLanes().get(WebHookQueue.Lane.PIPELINE.ordinal()).getStartedCount(), is(11L));
+    }
+
+    @Test
+    public void handlesPushEventsBeforeBurstOfPipelineEventsOfTheSameRef() throws InterruptedException {
+        WebHookQueue queue = new WebHookQueue();
+        queue.configure(100, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch processed = new CountDownLatch(12);
+        List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+        queue.offer(WebHookQueue.Lane.PIPELINE, "1:refs/heads/master", new BlockingTask(started, release, processed));
+        assertThat(started.await(10, TimeUnit.SECONDS), is(true));
+        for (int i = 0; i < 10; i++) {
+            queue.offer(WebHookQueue.Lane.PIPELINE, "1:refs/heads/master", new RecordingTask(order, "pipeline", processed));
+        }
+        queue.offer(WebHookQueue.Lane.PUSH, "1:refs/heads/master", new RecordingTask(order, "push", processed));
+
+        release.countDown();
+        assertThat(processed.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(order.get(0), is("push"));
+    }
+
+    @Test
+    public void limitsCapacityPerLane() throws InterruptedException {
+        WebHookQueue queue = new WebHookQueue();
+        queue.configure(1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch processed = new CountDownLatch(3);
+
+        assertThat(queue.offer(WebHookQueue.Lane.PIPELINE, null, new BlockingTask(started, release, processed)), is(true));
+        assertThat(started.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(queue.offer(WebHookQueue.Lane.PIPELINE, null, new BlockingTask(new CountDownLatch(1), release, processed)), is(true));
+        assertThat(queue.offer(WebHookQueue.Lane.PIPELINE, null, new BlockingTask(new CountDownLatch(1), release, processed)), is(false));
+        assertThat(queue.offer(WebHookQueue.Lane.PUSH, null, new BlockingTask(new CountDownLatch(1), release, processed)), is(true));
+
+        release.countDown();
+        assertThat(processed.await(10, TimeUnit.SECONDS), is(true));
+    }
+
+    private static class RecordingTask implements Runnable {
+        private final List<String> order;
+        private final String name;
+        private final CountDownLatch processed;
+
+        private RecordingTask(List<String> order, String name, CountDownLatch processed) {
+            this.order = order;
+            this.name = name;
+            this.processed = processed;
+        }
+
+        @Override
+        public void run() {
+            order.add(name);
+            processed.countDown();
+        }
+    }
+
+    private static class BlockingTask implements Runnable {
+        private final CountDownLatch started;
+        private final CountDownLatch release;
+        private final CountDownLatch processed;
+
+        private BlockingTask(CountDownLatch started, CountDownLatch release, CountDownLatch processed) {
+            this.started = started;
+            this.release = release;
+            this.processed = processed;
+        }
+
+        @Override
+        public void run() {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            processed.countDown();
+        }
+    }
+}
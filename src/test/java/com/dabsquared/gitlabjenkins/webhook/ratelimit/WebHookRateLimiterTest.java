@@ -0,0 +1,198 @@
+package com.dabsquared.gitlabjenkins.webhook.ratelimit;
+
+import com.google.common.base.Ticker;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class WebHookRateLimiterTest {
+
+    private final ManualTicker ticker = new ManualTicker();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final WebHookRateLimiter rateLimiter = new WebHookRateLimiter(ticker, scheduler);
+
+    @After
+    public void shutdownScheduler() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void rejectsWebHooksExceedingTheJobLimit() {
+        rateLimiter.configure(0, 2, WebHookRateLimiter.Policy.REJECT);
+
+        assertThat(admit("job", 1).isRejected(), is(false));
+        assertThat(admit("job", 1).isRejected(), is(false));
+        WebHookRateLimiter.Admission rejected = admit("job", 1);
+        assertThat(rejected.isRejected(), is(true));
+        assertThat(rejected.getRetryAfterSeconds(), is(30));
+        assertThat(admit("other-job", 1).isRejected(), is(false));
+
+        ticker.advance(30, TimeUnit.SECONDS);
+        assertThat(admit("job", 1).isRejected(), is(false));
+        assertThat(rateLimiter.getRejectedCount(), is(1L));
+        assertThat(rateLimiter.getBuckets().get(0).getKey(), is("job:job"));
+        assertThat(rateLimiter.getBuckets().get(0).getRejectedCount(), is(1L));
+    }
+
+    @Test
+    public void limitsWebHooksPerGitLabProject() {
+        rateLimiter.configure(1, 0, WebHookRateLimiter.Policy.REJECT);
+
+        assertThat(admit("job", 1).isRejected(), is(false));
+        assertThat(admit("other-job", 1).isRejected(), is(true));
+        assertThat(admit("other-job", 2).isRejected(), is(false));
+        assertThat(admit("job", null).isRejected(), is(false));
+    }
+
+    @Test
+    public void delaysWebHooksExceedingTheLimit() throws InterruptedException {
+        rateLimiter.configure(0, 60, WebHookRateLimiter.Policy.QUEUE);
+        for (int i = 0; i < 60; i++) {
+            assertThat(admit("job", 1).isDeferred(), is(false));
+        }
+        CountDownLatch handled = new CountDownLatch(1);
+
+        WebHookRateLimiter.Admission admission = rateLimiter.admit("job", 1, "1:refs/heads/master", new CountDown(handled), null);
+
+        assertThat(admission.isDeferred(), is(true));
+        assertThat(handled.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(rateLimiter.getDeferredCount(), is(1L));
+    }
+
+    @Test
+    public void coalescesDelayedWebHooksOfTheSameRef() throws InterruptedException {
+        rateLimiter.configure(0, 60, WebHookRateLimiter.Policy.COALESCE);
+        for (int i = 0; i < 60; i++) {
+            admit("job", 1);
+        }
+        CountDownLatch handled = new CountDownLatch(1);
+        AtomicInteger firstHandled = new AtomicInteger();
+        CountDownLatch superseded = new CountDownLatch(1);
+
+        rateLimiter.admit("job", 1, "1:refs/heads/master", new Increment(firstHandled), new CountDown(superseded));
+        WebHookRateLimiter.Admission admission = rateLimiter.admit("job", 1, "1:refs/heads/master", new CountDown(handled), null);
+
+        assertThat(admission.isDeferred(), is(true));
+        assertThat(superseded.getCount(), is(0L));
+        assertThat(handled.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(firstHandled.get(), is(0));
+        assertThat(rateLimiter.getCoalescedCount(), is(1L));
+    }
+
+    @Test
+    public void rejectsWebHooksThatWouldWaitTooLong() {
+        rateLimiter.configure(0, 1, WebHookRateLimiter.Policy.QUEUE);
+
+        assertThat(admit("job", 1).isDeferred(), is(false));
+        assertThat(admit("job", 1).isDeferred(), is(true));
+        assertThat(admit("job", 1).isRejected(), is(true));
+    }
+
+    @Test
+    public void rejectsConcurrentWebHooksWithoutDeferringThem() throws InterruptedException {
+        rateLimiter.configure(0, 10, WebHookRateLimiter.Policy.REJECT);
+        final AtomicInteger admitted = new AtomicInteger();
+        final AtomicInteger deferred = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 100; j++) {
+                        WebHookRateLimiter.Admission admission = admit("job", 1);
+                        if (admission.isDeferred()) {
+                            deferred.incrementAndGet();
+                        } else if (!admission.isRejected()) {
+                            admitted.incrementAndGet();
+                        }
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(deferred.get(), is(0));
+        assertThat(admitted.get(), is(10));
+    }
+
+    @Test
+    public void returnsTokenOfJobWhenProjectLimitRejects() {
+        rateLimiter.configure(1, 2, WebHookRateLimiter.Policy.REJECT);
+
+        assertThat(admit("job", 1).isRejected(), is(false));
+        assertThat(admit("job", 1).isRejected(), is(true));
+        assertThat(admit("job", 2).isRejected(), is(false));
+    }
+
+    @Test
+    public void boundsNumberOfBuckets() {
+        rateLimiter.configure(0, 1, WebHookRateLimiter.Policy.REJECT);
+        for (int i = 0; i < WebHookRateLimiter.MAX_BUCKETS + 100; i++) {
+            admit("job" + i, null);
+        }
+        assertThat(rateLimiter.getBucketCount(), is(WebHookRateLimiter.MAX_BUCKETS + 1));
+
+        ticker.advance(2, TimeUnit.MINUTES);
+        admit("other-job", null);
+
+        assertThat(rateLimiter.getBucketCount(), is(1));
+    }
+
+    private WebHookRateLimiter.Admission admit(String jobName, Integer projectId) {
+        return rateLimiter.admit(jobName, projectId, null, new Increment(new AtomicInteger()), null);
+    }
+
+    private static class ManualTicker extends Ticker {
+        private long time;
+
+        @Override
+        public long read() {
+            return time;
+        }
+
+        private void advance(long duration, TimeUnit unit) {
+            time += unit.toNanos(duration);
+        }
+    }
+
+    private static class CountDown implements Runnable {
+        private final CountDownLatch latch;
+
+        private CountDown(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public void run() {
+            latch.countDown();
+        }
+    }
+
+    private static class Increment implements Runnable {
+        private final AtomicInteger counter;
+
+        private Increment(AtomicInteger counter) {
+            this.counter = counter;
+        }
+
+        @Override
+        public void run() {
+            counter.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.dabsquared.gitlabjenkins.webhook.repository;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class RepositoryUrlIndexTest {
+
+    @Test
+    public void normalize() {
+        assertThat(RepositoryUrlIndex.normalize("git@gitlab.example.com:Group/project.git"), is("gitlab.example.com/group/project"));
+        assertThat(RepositoryUrlIndex.normalize("https://gitlab.example.com/group/project.git"), is("gitlab.example.com/group/project"));
+        assertThat(RepositoryUrlIndex.normalize("http://user@gitlab.example.com:8080/group/project/"), is("gitlab.example.com/group/project"));
+        assertThat(RepositoryUrlIndex.normalize("ssh://git@gitlab.example.com:2222/group/project.git"), is("gitlab.example.com/group/project"));
+        assertThat(RepositoryUrlIndex.normalize(" "), is(nullValue()));
+    }
+
+    @Test
+    public void updatesIncrementally() {
+        RepositoryUrlIndex index = new RepositoryUrlIndex();
+        index.update("job-1", setOf("gitlab.example.com/group/project"));
+        index.update("folder/job-2", setOf("gitlab.example.com/group/project", "gitlab.example.com/group/other"));
+
+        assertThat(index.getJobNames(Arrays.asList("git@gitlab.example.com:group/project.git")), is(setOf("job-1", "folder/job-2")));
+        assertThat(index.getJobNames(Arrays.asList("https://gitlab.example.com/group/other.git")), is(setOf("folder/job-2")));
+
+        index.update("job-1", setOf("gitlab.example.com/group/other"));
+        assertThat(index.getJobNames(Arrays.asList("https://gitlab.example.com/group/project.git")), is(setOf("folder/job-2")));
+
+        index.remove("folder");
+        assertThat(index.getJobNames(Arrays.asList("https://gitlab.example.com/group/project.git")), is(Collections.<String>emptySet()));
+        assertThat(index.getJobNames(Arrays.asList("https://gitlab.example.com/group/other.git")), is(setOf("job-1")));
+        assertThat(index.getUrlCount(), is(1));
+        assertThat(index.getJobCount(), is(1));
+    }
+
+    private static Set<String> setOf(String... urls) {
+        return new HashSet<>(Arrays.asList(urls));
+    }
+}